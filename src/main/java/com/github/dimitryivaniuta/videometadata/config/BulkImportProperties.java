@@ -0,0 +1,24 @@
+package com.github.dimitryivaniuta.videometadata.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Streaming bulk import settings ({@code app.import.bulk.*}).
+ */
+@Data
+@ConfigurationProperties(prefix = "app.import.bulk")
+public class BulkImportProperties {
+
+    /** Lines deduplicated against the DB and written per batch. */
+    private int batchSize = 200;
+
+    /** Batches processed at once (in-file dedupe happens before batching). */
+    private int batchConcurrency = 2;
+
+    /** Provider batch calls in flight per import batch. */
+    private int fetchConcurrency = 4;
+
+    /** Longest accepted line; a longer one fails the upload instead of being buffered. */
+    private int maxLineBytes = 8 * 1024;
+}
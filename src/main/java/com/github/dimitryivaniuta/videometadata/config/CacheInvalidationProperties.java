@@ -0,0 +1,34 @@
+package com.github.dimitryivaniuta.videometadata.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Cross-node cache invalidation settings ({@code app.cache-invalidation.*}).
+ */
+@Data
+@ConfigurationProperties(prefix = "app.cache-invalidation")
+public class CacheInvalidationProperties {
+
+    /** While off, invalidations only evict on the writing node. */
+    private boolean enabled = true;
+
+    /** Postgres NOTIFY channel; a plain lower-case identifier. */
+    private String channel = "cache_invalidation";
+
+    /** First delay before re-connecting the listener, doubled per failure up to {@link #maxReconnectBackoff}. */
+    private Duration reconnectBackoff = Duration.ofSeconds(1);
+
+    private Duration maxReconnectBackoff = Duration.ofSeconds(30);
+
+    /** Probe on the listening connection, so a silently dropped socket is noticed. */
+    private Duration keepAlive = Duration.ofSeconds(30);
+
+    /**
+     * Out-of-order generations tracked while waiting for the missing ones
+     * (usually rolled-back writers); beyond this local caches are flushed.
+     */
+    private int maxPendingGenerations = 10_000;
+}
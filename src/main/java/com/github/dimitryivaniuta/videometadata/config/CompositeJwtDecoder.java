@@ -2,15 +2,23 @@ package com.github.dimitryivaniuta.videometadata.config;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import org.springframework.beans.factory.annotation.Value;
+import com.github.dimitryivaniuta.videometadata.service.revocation.TokenRevocationService;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.source.JWKSecurityContextJWKSet;
+import com.nimbusds.jose.proc.JWKSecurityContext;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jwt.proc.ConfigurableJWTProcessor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
 import org.springframework.security.oauth2.core.DelegatingOAuth2TokenValidator;
 import org.springframework.security.oauth2.core.OAuth2Error;
 import org.springframework.security.oauth2.core.OAuth2TokenValidator;
 import org.springframework.security.oauth2.core.OAuth2TokenValidatorResult;
 import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
-import org.springframework.security.oauth2.jose.jws.SignatureAlgorithm;
 import org.springframework.security.oauth2.jwt.*;
 import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 
 import javax.crypto.SecretKey;
@@ -20,38 +28,96 @@ import java.time.Duration;
 import java.util.Base64;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
+/**
+ * Resource-server decoder: RS256 and ES256 for our own tokens, verified
+ * in-process against {@link JwkKeyManager} (both at once, so switching
+ * {@code security.jwt.keys.algorithm} keeps older tokens valid); RS256/ES256
+ * tokens of another issuer against its cached JWKS ({@code security.jwt.jwks-uri},
+ * optional); HS256 for legacy tokens.
+ * <p>
+ * Validated tokens are cached until they expire ({@code security.jwt.decode-cache-size}),
+ * so a client repeating its token skips parsing and signature verification;
+ * the cache is dropped whenever the signing key set changes. The revocation
+ * check runs on every decode, cached or not, and evicts revoked tokens.
+ * Metrics: {@code cache.gets} and {@code cache.size} (tag {@code cache=jwt}).
+ */
 @Component
 public class CompositeJwtDecoder implements ReactiveJwtDecoder {
 
     private static final ObjectMapper MAPPER = new ObjectMapper();
 
+    static final String RS256 = "RS256";
+    static final String ES256 = "ES256";
+    static final String HS256 = "HS256";
+
+    private static final byte[] ALG_KEY = "\"alg\"".getBytes(StandardCharsets.US_ASCII);
+    private static final long RS256_BYTES = pack(RS256);
+    private static final long ES256_BYTES = pack(ES256);
+    private static final long HS256_BYTES = pack(HS256);
+
     private final SecurityJwtProperties jwtProps;
 
-    /** RS256 decoder (public keys fetched from /.well-known/jwks.json). */
-    private final ReactiveJwtDecoder rs256Decoder;
+    /** Decoder for our own keys, straight from the key manager (no HTTP). */
+    private final ReactiveJwtDecoder localDecoder;
+
+    /** Decoder for another issuer's keys; null when none is configured. */
+    private final ReactiveJwtDecoder remoteDecoder;
+
+    private final JwkKeyManager keyManager;
 
     /** HS256 decoder (legacy shared secret). */
     private final ReactiveJwtDecoder hs256Decoder;
 
+    /** Rejects revoked tokens; consulted only after the signature and claims check out. */
+    private final TokenRevocationService revocations;
+
+    private final VerifiedTokenCache cache;
+    private final Counter hits;
+    private final Counter misses;
+
     public CompositeJwtDecoder(
             SecurityJwtProperties jwtProps,
-            @Value("${security.jwt.jwks-uri:}") String configuredJwksUri,
-            @Value("${application.base-url:http://localhost:8080}") String appBaseUrl
+            TokenRevocationService revocations,
+            JwkKeyManager keyManager,
+            MeterRegistry registry,
+            WebClient.Builder webClients
     ) {
         this.jwtProps = jwtProps;
+        this.revocations = revocations;
+        this.keyManager = keyManager;
+        this.cache = new VerifiedTokenCache(jwtProps.getDecodeCacheSize(),
+                keyManager::getKeySetVersion, System::currentTimeMillis);
+        this.hits = registry.counter("cache.gets", "cache", "jwt", "result", "hit");
+        this.misses = registry.counter("cache.gets", "cache", "jwt", "result", "miss");
+        registry.gauge("cache.size", Tags.of("cache", "jwt"), cache, VerifiedTokenCache::size);
 
-        // Resolve JWKS URI (prefer explicit property; otherwise default to local endpoint)
-        String jwksUri = (configuredJwksUri != null && !configuredJwksUri.isBlank())
-                ? configuredJwksUri
-                : appBaseUrl.replaceAll("/+$", "") + "/.well-known/jwks.json";
-
-        // RS256 decoder against the JWKS URI
-        NimbusReactiveJwtDecoder rsBuilder = NimbusReactiveJwtDecoder.withJwkSetUri(jwksUri)
-                .jwsAlgorithm(SignatureAlgorithm.RS256)
+        // decoder against our own rotating keys
+        NimbusReactiveJwtDecoder localBuilder = NimbusReactiveJwtDecoder
+                .withJwkSource(jwt -> keyManager.verificationKeys(jwt.getHeader().getKeyID()))
+                .jwtProcessorCustomizer(CompositeJwtDecoder::acceptSignatureAlgorithms)
                 .build();
-        rsBuilder.setJwtValidator(buildValidator(jwtProps));
-        this.rs256Decoder = rsBuilder;
+        localBuilder.setJwtValidator(buildValidator(jwtProps.getIssuer(), jwtProps));
+        this.localDecoder = localBuilder;
+
+        // decoder against another issuer's JWKS, if configured
+        String jwksUri = jwtProps.getJwksUri();
+        if (jwksUri != null && !jwksUri.isBlank()) {
+            RemoteJwkSet remote = new RemoteJwkSet(webClients.build(), jwksUri,
+                    Duration.ofSeconds(jwtProps.getJwksCacheSeconds()),
+                    Duration.ofSeconds(jwtProps.getJwksRefreshAheadSeconds()),
+                    Duration.ofSeconds(jwtProps.getJwksMinRefreshSeconds()),
+                    System::nanoTime);
+            NimbusReactiveJwtDecoder remoteBuilder = NimbusReactiveJwtDecoder
+                    .withJwkSource(jwt -> remote.keys(jwt.getHeader().getKeyID()))
+                    .jwtProcessorCustomizer(CompositeJwtDecoder::acceptSignatureAlgorithms)
+                    .build();
+            remoteBuilder.setJwtValidator(buildValidator(jwtProps.getJwksIssuer(), jwtProps));
+            this.remoteDecoder = remoteBuilder;
+        } else {
+            this.remoteDecoder = null;
+        }
 
         // HS256 decoder for migration period
         byte[] secretBytes = Base64.getDecoder().decode(jwtProps.getSecret());
@@ -59,36 +125,73 @@ public class CompositeJwtDecoder implements ReactiveJwtDecoder {
         NimbusReactiveJwtDecoder hsBuilder = NimbusReactiveJwtDecoder.withSecretKey(secretKey)
                 .macAlgorithm(MacAlgorithm.HS256)
                 .build();
-        hsBuilder.setJwtValidator(buildValidator(jwtProps));
+        hsBuilder.setJwtValidator(buildValidator(jwtProps.getIssuer(), jwtProps));
         this.hs256Decoder = hsBuilder;
     }
 
     @Override
     public Mono<Jwt> decode(String token) throws JwtException {
+        Jwt cached = token == null ? null : cache.get(token);
+        if (cached != null) {
+            hits.increment();
+            return rejectRevoked(cached);
+        }
+        misses.increment();
+        long keySetVersion = cache.version();
         return Mono.defer(() -> {
-            String alg = readAlg(token);
-            if ("RS256".equals(alg)) {
-                return rs256Decoder.decode(token);
-            } else if ("HS256".equals(alg)) {
+            String alg = sniffAlg(token);
+            if (alg == RS256 || alg == ES256) {
+                return isForeign(token) ? remoteDecoder.decode(token) : localDecoder.decode(token);
+            } else if (alg == HS256) {
                 return hs256Decoder.decode(token);
             }
-            return Mono.error(new JwtException("Unsupported JWT alg: " + alg));
-        });
+            return Mono.error(new JwtException("Unsupported JWT alg: " + readHeader(token, "alg")));
+        }).doOnNext(jwt -> cache.put(jwt, keySetVersion))
+          .flatMap(this::rejectRevoked);
+    }
+
+    private Mono<Jwt> rejectRevoked(Jwt jwt) {
+        return revocations.isRevoked(jwt)
+                .flatMap(revoked -> {
+                    if (revoked) {
+                        cache.remove(jwt.getTokenValue());
+                        return Mono.error(new BadJwtException("Token has been revoked"));
+                    }
+                    return Mono.just(jwt);
+                });
     }
 
     /**
-     * Build a validator that enforces timestamp, issuer, audience, and skew.
+     * The JWK-source builder takes a single algorithm; a key selector for both
+     * lets RS256 and ES256 keys verify side by side.
      */
-    private static OAuth2TokenValidator<Jwt> buildValidator(SecurityJwtProperties props) {
+    private static void acceptSignatureAlgorithms(ConfigurableJWTProcessor<JWKSecurityContext> processor) {
+        processor.setJWSKeySelector(new JWSVerificationKeySelector<>(
+                Set.of(JWSAlgorithm.RS256, JWSAlgorithm.ES256), new JWKSecurityContextJWKSet()));
+    }
+
+    /** Signed with a key we do not hold, and another issuer is configured. */
+    private boolean isForeign(String token) {
+        if (remoteDecoder == null) {
+            return false;
+        }
+        String kid = readHeader(token, "kid");
+        return !kid.isEmpty() && keyManager.getVerificationKeys(kid).isEmpty();
+    }
+
+    /**
+     * Build a validator that enforces timestamp, issuer (when not blank), audience, and skew.
+     */
+    private static OAuth2TokenValidator<Jwt> buildValidator(String requiredIssuer, SecurityJwtProperties props) {
         Duration skew = Duration.ofSeconds(
                 Math.max(0, props.getClockSkewSeconds())
         );
 
         OAuth2TokenValidator<Jwt> timestamp = new JwtTimestampValidator(skew);
 
-        OAuth2TokenValidator<Jwt> issuer = (props.getIssuer() == null || props.getIssuer().isBlank())
+        OAuth2TokenValidator<Jwt> issuer = (requiredIssuer == null || requiredIssuer.isBlank())
                 ? token -> OAuth2TokenValidatorResult.success()
-                : new JwtIssuerValidator(props.getIssuer());
+                : new JwtIssuerValidator(requiredIssuer);
 
         OAuth2TokenValidator<Jwt> audience = (props.getAudience() == null || props.getAudience().isBlank())
                 ? token -> OAuth2TokenValidatorResult.success()
@@ -106,9 +209,104 @@ public class CompositeJwtDecoder implements ReactiveJwtDecoder {
     }
 
     /**
-     * Reads the 'alg' from the JWT header without verifying the token.
+     * Finds the header's {@code alg} without allocating: the base64url header is
+     * decoded on the fly and scanned for {@code "alg":"..."}.
+     *
+     * @return {@link #RS256}, {@link #ES256} or {@link #HS256} (compare by identity), else null
+     */
+    static String sniffAlg(String token) {
+        if (token == null) {
+            return null;
+        }
+        int state = 0;      // 0 key, 1 colon, 2 opening quote, 3 value
+        int matched = 0;
+        int length = 0;
+        long value = 0;
+        int buffer = 0;
+        int bits = 0;
+        for (int i = 0, n = token.length(); i < n; i++) {
+            char c = token.charAt(i);
+            if (c == '.') {
+                break;
+            }
+            int sextet = base64Url(c);
+            if (sextet < 0) {
+                return null;
+            }
+            buffer = ((buffer << 6) | sextet) & 0x3FFF;
+            bits += 6;
+            if (bits < 8) {
+                continue;
+            }
+            bits -= 8;
+            int b = (buffer >>> bits) & 0xFF;
+            switch (state) {
+                case 0 -> {
+                    if (b == ALG_KEY[matched]) {
+                        if (++matched == ALG_KEY.length) {
+                            state = 1;
+                        }
+                    } else {
+                        matched = b == '"' ? 1 : 0;
+                    }
+                }
+                case 1 -> {
+                    if (b == ':') {
+                        state = 2;
+                    } else if (!isJsonSpace(b)) {   // "alg" was a value, not the key
+                        state = 0;
+                        matched = b == '"' ? 1 : 0;
+                    }
+                }
+                case 2 -> {
+                    if (b == '"') {
+                        state = 3;
+                    } else if (!isJsonSpace(b)) {
+                        return null;
+                    }
+                }
+                default -> {
+                    if (b == '"') {
+                        return value == RS256_BYTES ? RS256
+                                : value == ES256_BYTES ? ES256
+                                : value == HS256_BYTES ? HS256 : null;
+                    }
+                    if (++length > 7) {
+                        return null;
+                    }
+                    value = (value << 8) | b;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static int base64Url(char c) {
+        if (c >= 'A' && c <= 'Z') return c - 'A';
+        if (c >= 'a' && c <= 'z') return c - 'a' + 26;
+        if (c >= '0' && c <= '9') return c - '0' + 52;
+        if (c == '-') return 62;
+        if (c == '_') return 63;
+        return -1;
+    }
+
+    private static boolean isJsonSpace(int b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == '\r';
+    }
+
+    private static long pack(String alg) {
+        long v = 0;
+        for (byte b : alg.getBytes(StandardCharsets.US_ASCII)) {
+            v = (v << 8) | b;
+        }
+        return v;
+    }
+
+    /**
+     * Reads a JWT header field without verifying the token; off the hot path
+     * (unsupported tokens, routing of uncached foreign tokens).
      */
-    private static String readAlg(String token) {
+    private static String readHeader(String token, String name) {
         try {
             String[] parts = token.split("\\.");
             if (parts.length < 2) {
@@ -116,8 +314,8 @@ public class CompositeJwtDecoder implements ReactiveJwtDecoder {
             }
             byte[] headerBytes = Base64.getUrlDecoder().decode(parts[0]);
             Map<String, Object> header = MAPPER.readValue(headerBytes, new TypeReference<>() {});
-            Object alg = header.get("alg");
-            return alg == null ? "" : alg.toString();
+            Object value = header.get(name);
+            return value == null ? "" : value.toString();
         } catch (Exception e) {
             // fall back to empty -> unsupported
             return "";
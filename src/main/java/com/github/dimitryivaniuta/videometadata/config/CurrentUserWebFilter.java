@@ -0,0 +1,32 @@
+package com.github.dimitryivaniuta.videometadata.config;
+
+import com.github.dimitryivaniuta.videometadata.service.CurrentUser;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.util.Optional;
+
+/**
+ * Resolves the {@link CurrentUser} once per request, right after
+ * authentication, and puts it into the Reactor context for everything
+ * downstream (GraphQL fetchers, services, provider adapters).
+ */
+public class CurrentUserWebFilter implements WebFilter {
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        return ReactiveSecurityContextHolder.getContext()
+                .mapNotNull(SecurityContext::getAuthentication)
+                .filter(Authentication::isAuthenticated)
+                .map(auth -> Optional.of(CurrentUser.of(auth)))
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(user -> user
+                        .map(u -> chain.filter(exchange).contextWrite(CurrentUser.context(u)))
+                        .orElseGet(() -> chain.filter(exchange)));
+    }
+}
@@ -0,0 +1,54 @@
+package com.github.dimitryivaniuta.videometadata.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * In-process event bus settings ({@code app.events.*}).
+ * <p>
+ * {@code defaults} apply to every consumer; an entry under {@code consumers}
+ * (keyed by consumer name) replaces them for that consumer.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.events")
+public class EventBusProperties {
+
+    private Consumer defaults = new Consumer();
+
+    private Map<String, Consumer> consumers = new HashMap<>();
+
+    public Consumer forConsumer(String name) {
+        return consumers.getOrDefault(name, defaults);
+    }
+
+    /** What {@code publish} does when a consumer already holds {@code capacity} events. */
+    public enum Overflow {
+        /** Fail the publish; for consumers fed from the outbox, which then retries. */
+        REJECT,
+        /** Discard the new event. */
+        DROP_LATEST,
+        /** Discard the oldest queued event to make room. */
+        DROP_OLDEST
+    }
+
+    @Data
+    public static class Consumer {
+
+        /** Events accepted but not yet consumed (queued, batching or in flight). */
+        private int capacity = 1_024;
+
+        private int batchSize = 100;
+
+        /** A partial batch is delivered after this long. */
+        private Duration batchTimeout = Duration.ofMillis(200);
+
+        /** Batches handed to the consumer at once. */
+        private int concurrency = 1;
+
+        private Overflow overflow = Overflow.REJECT;
+    }
+}
@@ -4,6 +4,7 @@ import graphql.scalars.ExtendedScalars;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.graphql.execution.RuntimeWiringConfigurer;
+import org.springframework.web.filter.reactive.ServerWebExchangeContextFilter;
 
 @Configuration
 public class GraphQLConfig {
@@ -19,4 +20,13 @@ public class GraphQLConfig {
                 // Java long <-> GraphQL Long
                 .scalar(ExtendedScalars.GraphQLLong);
     }
+
+    /**
+     * Puts the HTTP exchange into the Reactor context, where
+     * {@link HttpExchangeGraphQlInterceptor} picks it up for resolvers.
+     */
+    @Bean
+    public ServerWebExchangeContextFilter serverWebExchangeContextFilter() {
+        return new ServerWebExchangeContextFilter();
+    }
 }
@@ -0,0 +1,39 @@
+package com.github.dimitryivaniuta.videometadata.config;
+
+import org.springframework.graphql.server.WebGraphQlInterceptor;
+import org.springframework.graphql.server.WebGraphQlRequest;
+import org.springframework.graphql.server.WebGraphQlResponse;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.reactive.ServerWebExchangeContextFilter;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * Copies the HTTP exchange of a GraphQL request into its GraphQL context,
+ * keyed by type ({@link ServerWebExchange},
+ * {@link ServerHttpRequest}, {@link ServerHttpResponse}), so resolvers can
+ * read cookies and set them through {@code @ContextValue}. The exchange comes
+ * from the Reactor context filled by {@link ServerWebExchangeContextFilter};
+ * without it the context is left as is.
+ */
+@Component
+public class HttpExchangeGraphQlInterceptor implements WebGraphQlInterceptor {
+
+    @Override
+    public Mono<WebGraphQlResponse> intercept(WebGraphQlRequest request, Chain chain) {
+        return Mono.deferContextual(ctx -> {
+            ServerWebExchangeContextFilter.getExchange(ctx).ifPresent(exchange ->
+                    request.configureExecutionInput((input, builder) -> builder
+                            .graphQLContext(Map.of(
+                                    ServerWebExchange.class, exchange,
+                                    ServerHttpRequest.class, exchange.getRequest(),
+                                    ServerHttpResponse.class, exchange.getResponse()))
+                            .build()));
+            return chain.next(request);
+        });
+    }
+}
@@ -1,108 +1,330 @@
 package com.github.dimitryivaniuta.videometadata.config;
 
+import com.github.dimitryivaniuta.videometadata.projection.SigningKeyRow;
+import com.github.dimitryivaniuta.videometadata.repository.InMemorySigningKeyRepository;
+import com.github.dimitryivaniuta.videometadata.repository.SigningKeyRepository;
+import com.nimbusds.jose.JOSEException;
 import com.nimbusds.jose.JWSAlgorithm;
 import com.nimbusds.jose.jwk.*;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
 import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import com.nimbusds.jose.jwk.source.JWKSource;
 import com.nimbusds.jose.proc.SecurityContext;
-import lombok.Getter;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.*;
+import org.springframework.security.oauth2.jose.jws.SignatureAlgorithm;
+import org.springframework.security.oauth2.jwt.JwsHeader;
 import org.springframework.stereotype.Component;
-import com.nimbusds.jose.jwk.source.JWKSource;
-import com.nimbusds.jose.proc.SecurityContext;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
 
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.security.*;
 import java.security.interfaces.RSAPrivateKey;
 import java.security.interfaces.RSAPublicKey;
+import java.text.ParseException;
+import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * Holds a rotating set of RSA JWKs. New key every rotationPeriod,
- * old keys retained for retirePeriod so existing tokens validate.
+ * Signing JWKs (RS256 or ES256) shared by all nodes through a {@link SigningKeyRepository}.
+ * <p>
+ * The newest key whose activation time has passed signs; every key that may
+ * have signed a live token verifies. Each node reloads the keys every
+ * {@code reload-interval}. When the next key is due, the node holding the
+ * rotation lock stores one activating a rotation period after the current
+ * key, but never sooner than {@code publish-ahead} from now, so every node
+ * has loaded a key before any node signs with it. A key is deleted once its
+ * successor has signed for longer than the longest token lifetime.
+ * <p>
+ * Keys of another algorithm than {@code security.jwt.keys.algorithm} are
+ * replaced at the next possible slot and verify until retired, so a switch
+ * between RS256 and ES256 needs no flag day.
+ * <p>
+ * Keys are generated on boundedElastic, one spare ahead of need, never on a
+ * request thread; {@link #ready()} completes once a signing key is loaded.
  */
 @Component
 @Slf4j
 @EnableScheduling
 public class JwkKeyManager {
 
-    /** Active keys mapped by kid */
-    private final Map<String, RSAKey> keys = new ConcurrentHashMap<>();
+    private static final String SEALED = "aesgcm:";
+    private static final int IV_BYTES = 12;
+
+    private record Entry(JWK key, Instant activatesAt) { }
+
+    /** Loaded keys, oldest activation first, and their public halves by kid; replaced as a whole. */
+    private record KeyRing(List<Entry> keys, Map<String, JWK> publicKeys) { }
 
-    /** The current signing key's kid */
-    @Getter private volatile String currentKid;
+    private final SigningKeyRepository store;
+    private final SigningKeyProperties props;
+    private final Clock clock;
+    private final Duration rotationPeriod;
+    private final Duration maxTokenLifetime;
+    private final SecretKey sealKey;
+    private final String owner = UUID.randomUUID().toString();
 
-    /** kid -> createdAt */
-    private final Map<String, Instant> createdAt = new ConcurrentHashMap<>();
+    private volatile KeyRing ring = new KeyRing(List.of(), Map.of());
+    private volatile Mono<JWK> spare;
+    private volatile Instant lastForcedReload = Instant.MIN;
 
-    private final Duration rotationPeriod = Duration.ofDays(1);
-    private final Duration retirePeriod   = Duration.ofDays(7);
+    /** Bumped whenever a key is added or retired, so verified-token caches can drop their entries. */
+    private final AtomicLong keySetVersion = new AtomicLong();
 
-    public JwkKeyManager() {
-        rotateKeys();
+    private final Sinks.Empty<Void> ready = Sinks.empty();
+    private final AtomicBoolean running   = new AtomicBoolean();
+    private final AtomicBoolean requested = new AtomicBoolean();
+
+    @Autowired
+    public JwkKeyManager(SigningKeyRepository store, SecurityJwtProperties jwt, SigningKeyProperties props) {
+        this(store, jwt, props, Clock.systemUTC());
     }
 
-    @Scheduled(fixedRateString = "${jwt.rotation-period-ms:86400000}")
-    public void rotateKeys() {
-        rotateNow();
-        retireOld();
+    JwkKeyManager(SigningKeyRepository store, SecurityJwtProperties jwt, SigningKeyProperties props, Clock clock) {
+        this.store = store;
+        this.props = props;
+        this.clock = clock;
+        this.rotationPeriod = jwt.getRotationPeriodMs() > 0
+                ? Duration.ofMillis(jwt.getRotationPeriodMs()) : Duration.ofDays(1);
+        this.maxTokenLifetime = Duration.ofSeconds(
+                Math.max(jwt.getExpirationSeconds(), jwt.getRefreshExpirationSeconds()) + jwt.getClockSkewSeconds());
+        this.sealKey = props.getEncryptionKey() == null || props.getEncryptionKey().isBlank()
+                ? null : new SecretKeySpec(Base64.getDecoder().decode(props.getEncryptionKey()), "AES");
+        this.spare = generate();
     }
 
-    /** Generate a new RSA key and retire aged ones */
-    public void rotateNow() {
-        try {
-            KeyPairGenerator gen = KeyPairGenerator.getInstance("RSA");
-            gen.initialize(2048);
-            KeyPair kp = gen.generateKeyPair();
-
-            String kid = UUID.randomUUID().toString();
-            RSAKey rsaJwk = new RSAKey.Builder((RSAPublicKey) kp.getPublic())
-                    .privateKey((RSAPrivateKey) kp.getPrivate())
-                    .algorithm(JWSAlgorithm.RS256)
-                    .keyID(kid)
-                    .keyUse(KeyUse.SIGNATURE)
-                    .build();
+    /** A single node keeping RS256 keys in memory, with its first key loaded; for tests and tools. */
+    public static JwkKeyManager inMemory() {
+        return inMemory(SigningKeyProperties.Algorithm.RS256);
+    }
 
-            keys.put(kid, rsaJwk);
-            createdAt.put(kid, Instant.now());
-            currentKid = kid;
-            log.info("Rotated JWK; new currentKid={}", kid);
+    public static JwkKeyManager inMemory(SigningKeyProperties.Algorithm algorithm) {
+        SecurityJwtProperties jwt = new SecurityJwtProperties();
+        jwt.setExpirationSeconds(3600);
+        SigningKeyProperties props = new SigningKeyProperties();
+        props.setAlgorithm(algorithm);
+        JwkKeyManager manager = new JwkKeyManager(new InMemorySigningKeyRepository(), jwt, props);
+        manager.maintain().block(Duration.ofSeconds(30));
+        return manager;
+    }
+
+    @PostConstruct
+    void start() {
+        trigger();
+    }
+
+    @Scheduled(fixedDelayString = "${security.jwt.keys.reload-interval:PT30S}")
+    public void poll() {
+        trigger();
+    }
 
-        } catch (NoSuchAlgorithmException e) {
-            throw new IllegalStateException("RSA key generation failed", e);
+    /** Completes once a signing key is loaded. */
+    public Mono<Void> ready() {
+        return ready.asMono();
+    }
+
+    /** Starts a reload-and-rotate pass unless one is running; a request during a pass causes another one after it. */
+    void trigger() {
+        requested.set(true);
+        if (!running.compareAndSet(false, true)) {
+            return;
         }
+        requested.set(false);
+        maintain()
+                .doFinally(signal -> {
+                    running.set(false);
+                    if (requested.get()) {
+                        trigger();
+                    }
+                })
+                .subscribe(null, ex -> log.error("Signing key maintenance failed", ex));
+    }
+
+    /** Reloads the keys and stores the next one if it is due. */
+    Mono<Void> maintain() {
+        return reload()
+                .flatMap(rows -> nextActivation(rows, clock.instant()) == null ? Mono.<Void>empty() : rotate(false))
+                .then();
     }
 
-    private void retireOld() {
-        Instant cutoff = Instant.now().minus(retirePeriod);
-        keys.keySet().removeIf(kid -> {
-            Instant ts = createdAt.getOrDefault(kid, Instant.EPOCH);
-            if (!kid.equals(currentKid) && ts.isBefore(cutoff)) {
-                log.info("Retiring RSA JWK kid={}", kid);
-                createdAt.remove(kid);
-                return true;
+    /** Stores a new key that signs from now on; tokens of the previous keys stay valid. */
+    public Mono<Void> rotateNow() {
+        return rotate(true);
+    }
+
+    private Mono<Void> rotate(boolean immediate) {
+        return Mono.usingWhen(
+                Mono.defer(() -> store.tryLock(owner, clock.instant(), props.getLockLease())),
+                locked -> locked ? rotateLocked(immediate) : Mono.<Void>empty(),
+                locked -> locked ? store.unlock(owner) : Mono.<Void>empty());
+    }
+
+    // another node may have rotated since our reload: decide again under the lock
+    private Mono<Void> rotateLocked(boolean immediate) {
+        return store.findAll().collectList()
+                .flatMap(rows -> {
+                    Instant now = clock.instant();
+                    Instant at = immediate ? now : nextActivation(rows, now);
+                    return at == null ? Mono.<Boolean>empty() : spare.flatMap(key -> store
+                            .insert(new SigningKeyRow(key.getKeyID(), key.getAlgorithm().getName(),
+                                    seal(key.toJSONString()), at))
+                            .doOnNext(inserted -> {
+                                if (inserted) {
+                                    spare = generate();
+                                    log.info("Stored signing key kid={} activating at {}", key.getKeyID(), at);
+                                }
+                            }));
+                })
+                .then(Mono.defer(() -> store.deleteSuperseded(clock.instant().minus(maxTokenLifetime))))
+                .doOnNext(deleted -> {
+                    if (deleted > 0) {
+                        log.info("Deleted {} superseded signing keys", deleted);
+                    }
+                })
+                .then(reload())
+                .then();
+    }
+
+    /**
+     * When the next key must activate, or null while it is stored already or
+     * not yet due: immediately if there is no key at all, else one rotation
+     * period after the signing key (at once if it has the wrong algorithm)
+     * but at least publish-ahead from now.
+     */
+    private Instant nextActivation(List<SigningKeyRow> rows, Instant now) {
+        if (rows.isEmpty()) {
+            return now;
+        }
+        SigningKeyRow newest = rows.getLast();
+        if (newest.activatesAt().isAfter(now)) {
+            return null;
+        }
+        Instant due = props.getAlgorithm().name().equals(newest.alg())
+                ? newest.activatesAt().plus(rotationPeriod) : now;
+        if (now.isBefore(due.minus(props.getPublishAhead()))) {
+            return null;
+        }
+        Instant earliest = now.plus(props.getPublishAhead());
+        return due.isAfter(earliest) ? due : earliest;
+    }
+
+    private Mono<List<SigningKeyRow>> reload() {
+        return store.findAll().collectList().doOnNext(this::install);
+    }
+
+    private void install(List<SigningKeyRow> rows) {
+        Instant supersededBefore = clock.instant().minus(maxTokenLifetime);
+        KeyRing current = ring;
+        Map<String, Entry> loaded = new HashMap<>();
+        current.keys().forEach(e -> loaded.put(e.key().getKeyID(), e));
+        List<Entry> keys = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            SigningKeyRow row = rows.get(i);
+            if (i + 1 < rows.size() && !rows.get(i + 1).activatesAt().isAfter(supersededBefore)) {
+                continue;   // not deleted yet, but no live token can carry it
             }
-            return false;
-        });
+            Entry known = loaded.get(row.kid());
+            keys.add(known != null ? known : new Entry(parse(row), row.activatesAt()));
+        }
+        if (!keys.stream().map(e -> e.key().getKeyID()).toList()
+                .equals(current.keys().stream().map(e -> e.key().getKeyID()).toList())) {
+            Map<String, JWK> publicKeys = new LinkedHashMap<>();
+            keys.forEach(e -> publicKeys.put(e.key().getKeyID(), e.key().toPublicJWK()));
+            ring = new KeyRing(List.copyOf(keys), Collections.unmodifiableMap(publicKeys));
+            keySetVersion.incrementAndGet();
+            log.info("Loaded signing keys {}", publicKeys.keySet());
+        }
+        if (signingKey() != null) {
+            ready.tryEmitEmpty();
+        }
     }
 
+    private JWK signingKey() {
+        Instant now = clock.instant();
+        List<Entry> keys = ring.keys();
+        for (int i = keys.size() - 1; i >= 0; i--) {
+            if (!keys.get(i).activatesAt().isAfter(now)) {
+                return keys.get(i).key();
+            }
+        }
+        return null;
+    }
+
+    /** The current signing key's kid, or null before the first key is loaded. */
+    public String getCurrentKid() {
+        JWK key = signingKey();
+        return key == null ? null : key.getKeyID();
+    }
+
+    /** Header naming the current signing key and its algorithm, or null before the first key is loaded. */
+    public JwsHeader getSigningHeader() {
+        JWK key = signingKey();
+        return key == null ? null : JwsHeader.with(SignatureAlgorithm.from(key.getAlgorithm().getName()))
+                .keyId(key.getKeyID())
+                .build();
+    }
+
+    /**
+     * Public keys that may have signed a token with this {@code kid} (all of
+     * them when the token names none); verification needs no HTTP round trip.
+     */
+    public List<JWK> getVerificationKeys(String kid) {
+        Map<String, JWK> publicKeys = ring.publicKeys();
+        if (kid == null) {
+            return List.copyOf(publicKeys.values());
+        }
+        JWK key = publicKeys.get(kid);
+        return key == null ? List.of() : List.of(key);
+    }
+
+    /**
+     * As {@link #getVerificationKeys}, but an unknown kid first reloads the
+     * keys, at most once per {@code min-forced-reload}, in case this node
+     * missed a reload.
+     */
+    public Flux<JWK> verificationKeys(String kid) {
+        List<JWK> found = getVerificationKeys(kid);
+        Instant now = clock.instant();
+        if (!found.isEmpty() || kid == null || now.isBefore(lastForcedReload.plus(props.getMinForcedReload()))) {
+            return Flux.fromIterable(found);
+        }
+        lastForcedReload = now;
+        return reload()
+                .onErrorResume(ex -> {
+                    log.warn("Reloading signing keys for kid={} failed: {}", kid, ex.toString());
+                    return Mono.empty();
+                })
+                .thenMany(Flux.defer(() -> Flux.fromIterable(getVerificationKeys(kid))));
+    }
+
+    public long getKeySetVersion() {
+        return keySetVersion.get();
+    }
 
     /** For signing: returns a JWKSource containing PRIVATE keys (never expose externally). */
     public ImmutableJWKSet<SecurityContext> getSigningJwkSource() {
         // Do NOT strip private parts here
-        List<JWK> priv = new ArrayList<>(keys.values());
+        List<JWK> priv = ring.keys().stream().map(Entry::key).toList();
         return new ImmutableJWKSet<>(new JWKSet(priv));
     }
 
-    /** For publishing: only PUBLIC JWKs (safe to expose at /.well-known/jwks.json). */
+    /** For publishing: only PUBLIC JWKs (safe to expose at /.well-known/jwks.json), the next key included. */
     public JWKSet getPublicJwkSet() {
-        List<JWK> publics = keys.values().stream()
-                .map(RSAKey::toPublicJWK)
-                .map(jwk -> (JWK) jwk)
-                .toList();
-        return new JWKSet(publics);
+        return new JWKSet(List.copyOf(ring.publicKeys().values()));
     }
 
     /** Returns a JWKSource backed by the rotating keys for signing/verification */
@@ -110,18 +332,86 @@ public class JwkKeyManager {
         return new ImmutableJWKSet<>(getPublicJwkSet());
     }
 
-
-    /** Dynamic JWKSource that always returns the CURRENT private RSA key for signing. */
+    /**
+     * Dynamic JWKSource for signing: the key the header's kid names, or the
+     * CURRENT private key when it names none.
+     */
     public JWKSource<SecurityContext> getSigningJwkSourceDynamic() {
         return (jwkSelector, securityContext) -> {
-            RSAKey current = keys.get(currentKid);
-            if (current == null) {
-                return java.util.Collections.emptyList();
+            Set<String> kids = jwkSelector.getMatcher().getKeyIDs();
+            if (kids == null || kids.isEmpty()) {
+                JWK current = signingKey();
+                return current == null ? List.of() : List.of(current);
             }
-            // Return the current key even if the selector is overly strict.
-            // NimbusJwtEncoder will use the first returned.
-            return java.util.List.of(current);
+            return jwkSelector.select(new JWKSet(ring.keys().stream().map(Entry::key).toList()));
         };
     }
 
+    /* ------------- key material ---------------------------------------------- */
+
+    // started right away, so the key is ready long before it is stored
+    private Mono<JWK> generate() {
+        Mono<JWK> key = Mono.fromCallable(this::newKey)
+                .subscribeOn(Schedulers.boundedElastic())
+                .cache();
+        key.subscribe(null, ex -> log.error("Signing key generation failed", ex));
+        return key;
+    }
+
+    private JWK newKey() throws GeneralSecurityException, JOSEException {
+        if (props.getAlgorithm() == SigningKeyProperties.Algorithm.ES256) {
+            return new ECKeyGenerator(Curve.P_256)
+                    .algorithm(JWSAlgorithm.ES256)
+                    .keyID(UUID.randomUUID().toString())
+                    .keyUse(KeyUse.SIGNATURE)
+                    .generate();
+        }
+        KeyPairGenerator gen = KeyPairGenerator.getInstance("RSA");
+        gen.initialize(props.getKeySize());
+        KeyPair kp = gen.generateKeyPair();
+        return new RSAKey.Builder((RSAPublicKey) kp.getPublic())
+                .privateKey((RSAPrivateKey) kp.getPrivate())
+                .algorithm(JWSAlgorithm.RS256)
+                .keyID(UUID.randomUUID().toString())
+                .keyUse(KeyUse.SIGNATURE)
+                .build();
+    }
+
+    private JWK parse(SigningKeyRow row) {
+        try {
+            return JWK.parse(open(row.jwk()));
+        } catch (ParseException | GeneralSecurityException ex) {
+            throw new IllegalStateException("Unreadable signing key kid=" + row.kid(), ex);
+        }
+    }
+
+    private String seal(String jwk) {
+        if (sealKey == null) {
+            return jwk;
+        }
+        try {
+            byte[] iv = new byte[IV_BYTES];
+            new SecureRandom().nextBytes(iv);
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.ENCRYPT_MODE, sealKey, new GCMParameterSpec(128, iv));
+            byte[] sealed = cipher.doFinal(jwk.getBytes(StandardCharsets.UTF_8));
+            return SEALED + Base64.getEncoder().encodeToString(
+                    ByteBuffer.allocate(iv.length + sealed.length).put(iv).put(sealed).array());
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException("Sealing the signing key failed", ex);
+        }
+    }
+
+    private String open(String stored) throws GeneralSecurityException {
+        if (!stored.startsWith(SEALED)) {
+            return stored;
+        }
+        if (sealKey == null) {
+            throw new GeneralSecurityException("security.jwt.keys.encryption-key is not set");
+        }
+        byte[] bytes = Base64.getDecoder().decode(stored.substring(SEALED.length()));
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.DECRYPT_MODE, sealKey, new GCMParameterSpec(128, bytes, 0, IV_BYTES));
+        return new String(cipher.doFinal(bytes, IV_BYTES, bytes.length - IV_BYTES), StandardCharsets.UTF_8);
+    }
 }
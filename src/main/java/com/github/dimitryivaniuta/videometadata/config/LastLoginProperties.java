@@ -0,0 +1,20 @@
+package com.github.dimitryivaniuta.videometadata.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Write-behind of {@code users.last_login_at} ({@code app.last-login.*}).
+ */
+@Data
+@ConfigurationProperties(prefix = "app.last-login")
+public class LastLoginProperties {
+
+    /** How long a login time may sit in memory; a crash loses at most this much. */
+    private Duration flushInterval = Duration.ofSeconds(5);
+
+    /** Users per UPDATE statement; a larger backlog is flushed in several. */
+    private int batchSize = 500;
+}
@@ -1,28 +1,74 @@
 package com.github.dimitryivaniuta.videometadata.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.util.concurrent.TimeUnit;
+
 /**
- * Logs raw vs hashed passwords at DEBUG level for troubleshooting.
+ * BCrypt with timing ({@code password.hash.time}, tag {@code op}) and DEBUG
+ * logs of outcome, cost and duration for troubleshooting. Neither passwords
+ * nor hashes are ever logged.
+ * <p>
+ * {@link #upgradeEncoding} reports hashes of any cost other than the
+ * configured one, so changing {@code bcrypt-strength} (up or down) re-hashes
+ * each user on their next successful login.
  */
 public final class LoggingPasswordEncoder implements PasswordEncoder {
     private static final Logger log = LoggerFactory.getLogger(LoggingPasswordEncoder.class);
-    private final PasswordEncoder delegate = new BCryptPasswordEncoder();
+    private final PasswordEncoder delegate;
+    private final int strength;
+    private final Timer encodeTimer;
+    private final Timer matchTimer;
+
+    public LoggingPasswordEncoder(int strength, MeterRegistry registry) {
+        this.delegate = new BCryptPasswordEncoder(strength);
+        this.strength = strength;
+        this.encodeTimer = registry.timer("password.hash.time", "op", "encode");
+        this.matchTimer = registry.timer("password.hash.time", "op", "matches");
+    }
 
     @Override
     public String encode(CharSequence rawPassword) {
+        long t0 = System.nanoTime();
         String hash = delegate.encode(rawPassword);
-        log.debug("BCrypt encode: raw='{}' -> hash='{}'", rawPassword, hash);
+        long nanos = System.nanoTime() - t0;
+        encodeTimer.record(nanos, TimeUnit.NANOSECONDS);
+        log.debug("BCrypt encode: cost {} in {} ms", strength, nanos / 1_000_000);
         return hash;
     }
 
     @Override
     public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        long t0 = System.nanoTime();
         boolean ok = delegate.matches(rawPassword, encodedPassword);
-        log.debug("BCrypt match: raw='{}' against='{}' -> {}", rawPassword, encodedPassword, ok);
+        long nanos = System.nanoTime() - t0;
+        matchTimer.record(nanos, TimeUnit.NANOSECONDS);
+        log.debug("BCrypt match: cost {} -> {} in {} ms", cost(encodedPassword), ok, nanos / 1_000_000);
         return ok;
     }
-}
\ No newline at end of file
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        int cost = cost(encodedPassword);
+        return cost >= 0 && cost != strength;
+    }
+
+    /** The cost field of a {@code $2a$NN$...} hash, or -1 if it is not one. */
+    static int cost(String encodedPassword) {
+        if (encodedPassword == null || encodedPassword.length() < 7 || encodedPassword.charAt(0) != '$'
+                || encodedPassword.charAt(3) != '$' || encodedPassword.charAt(6) != '$') {
+            return -1;
+        }
+        char tens = encodedPassword.charAt(4);
+        char ones = encodedPassword.charAt(5);
+        if (!Character.isDigit(tens) || !Character.isDigit(ones)) {
+            return -1;
+        }
+        return (tens - '0') * 10 + (ones - '0');
+    }
+}
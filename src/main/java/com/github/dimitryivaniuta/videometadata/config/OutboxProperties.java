@@ -0,0 +1,44 @@
+package com.github.dimitryivaniuta.videometadata.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Outbox relay settings ({@code app.outbox.*}).
+ */
+@Data
+@ConfigurationProperties(prefix = "app.outbox")
+public class OutboxProperties {
+
+    /** Global switch; while off, events accumulate in the table and nothing is lost. */
+    private boolean enabled = true;
+
+    /** Fallback poll delay; writers also wake the relay right after appending. */
+    private Duration pollInterval = Duration.ofSeconds(1);
+
+    /** Rows claimed per statement; a full batch is followed by another claim at once. */
+    private int batchSize = 100;
+
+    /** Claimed rows are invisible to other nodes for this long; must exceed {@link #handlerTimeout}. */
+    private Duration lease = Duration.ofSeconds(60);
+
+    /**
+     * Events of one batch delivered at once. Handlers that forward to the event
+     * bus only complete when their consumer batch does, so keep this at
+     * {@link #batchSize} to let consumers batch.
+     */
+    private int dispatchConcurrency = 100;
+
+    /** Upper bound for all handlers of one event. */
+    private Duration handlerTimeout = Duration.ofSeconds(30);
+
+    /** Deliveries before a row is parked as a dead letter ({@code dead_at}). */
+    private int maxAttempts = 10;
+
+    /** Retry delay after the first failure, doubled per attempt up to {@link #maxBackoff}. */
+    private Duration backoff = Duration.ofSeconds(2);
+
+    private Duration maxBackoff = Duration.ofMinutes(5);
+}
@@ -0,0 +1,101 @@
+package com.github.dimitryivaniuta.videometadata.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs password hashing (BCrypt) on its own core-sized pool, so a login storm
+ * cannot starve {@code boundedElastic}, where token signing and other
+ * blocking work run.
+ * <p>
+ * The queue is bounded: once {@code queue-capacity} hashes are waiting, new
+ * ones are rejected at once and callers answer 503 ({@link #busy}) instead of
+ * letting every login time out.
+ * <p>
+ * Metrics: {@code password.hash.queue.wait} (submit to start),
+ * {@code password.hash.rejected}, gauges {@code password.hash.queue.size}
+ * and {@code password.hash.active}; hash time itself is
+ * {@code password.hash.time} from {@link LoggingPasswordEncoder}.
+ */
+@Component
+@Profile("!schema-print")
+@Slf4j
+public class PasswordHashingExecutor {
+
+    private final ThreadPoolExecutor executor;
+    private final Scheduler scheduler;
+
+    public PasswordHashingExecutor(PasswordHashingProperties props, MeterRegistry registry) {
+        int threads = props.getThreads() > 0 ? props.getThreads() : Runtime.getRuntime().availableProcessors();
+        Timer queueWait = registry.timer("password.hash.queue.wait");
+        Counter rejected = registry.counter("password.hash.rejected");
+        AtomicInteger ids = new AtomicInteger();
+        ThreadFactory factory = r -> {
+            Thread t = new Thread(r, "password-hashing-" + ids.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, props.getQueueCapacity())), factory,
+                (task, pool) -> {
+                    rejected.increment();
+                    throw new RejectedExecutionException("Password hashing queue is full");
+                }) {
+            @Override
+            public void execute(Runnable command) {
+                long submitted = System.nanoTime();
+                super.execute(() -> {
+                    queueWait.record(System.nanoTime() - submitted, TimeUnit.NANOSECONDS);
+                    command.run();
+                });
+            }
+        };
+        this.scheduler = Schedulers.fromExecutorService(executor, "password-hashing");
+        registry.gauge("password.hash.queue.size", executor, e -> e.getQueue().size());
+        registry.gauge("password.hash.active", executor, ThreadPoolExecutor::getActiveCount);
+    }
+
+    public Scheduler scheduler() {
+        return scheduler;
+    }
+
+    /** Runs {@code work} on the hashing pool; a full queue fails with {@link #busy}. */
+    public <T> Mono<T> hash(Callable<T> work) {
+        return Mono.fromCallable(work)
+                .subscribeOn(scheduler)
+                .onErrorMap(PasswordHashingExecutor::isRejected, PasswordHashingExecutor::busy);
+    }
+
+    public static boolean isRejected(Throwable ex) {
+        return Exceptions.unwrap(ex) instanceof RejectedExecutionException;
+    }
+
+    public static ResponseStatusException busy(Throwable cause) {
+        return new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                "Too many logins in progress, retry shortly", cause);
+    }
+
+    @PreDestroy
+    void stop() {
+        scheduler.dispose();
+    }
+}
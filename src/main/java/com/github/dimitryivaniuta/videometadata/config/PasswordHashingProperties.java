@@ -0,0 +1,25 @@
+package com.github.dimitryivaniuta.videometadata.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Password hashing settings ({@code app.password-hashing.*}).
+ */
+@Data
+@ConfigurationProperties(prefix = "app.password-hashing")
+public class PasswordHashingProperties {
+
+    /** BCrypt cost of new hashes; stored hashes of another cost are re-hashed on the next login. */
+    private int bcryptStrength = 10;
+
+    /** Hashing threads; 0 means one per core. */
+    private int threads = 0;
+
+    /**
+     * Hashes waiting for a thread. Beyond this, logins and sign-ups fail at
+     * once with 503; the worst queue wait is about
+     * {@code queueCapacity / threads} hash times.
+     */
+    private int queueCapacity = 64;
+}
@@ -0,0 +1,24 @@
+package com.github.dimitryivaniuta.videometadata.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Persisted queries and the parsed-document cache ({@code app.graphql.persisted-queries.*}).
+ */
+@Data
+@ConfigurationProperties(prefix = "app.graphql.persisted-queries")
+public class PersistedQueryProperties {
+
+    /** Off: every request is parsed and validated again. */
+    private boolean enabled = true;
+
+    /** Parsed and validated documents kept, least recently used dropped first. */
+    private int cacheSize = 500;
+
+    /** Executes only documents of the manifest; hashes are never registered by clients. */
+    private boolean allowlistOnly = false;
+
+    /** Apollo persisted query manifest ({@code {"operations":[{"id":sha256,"body":...}]}}); optional. */
+    private String manifest = "classpath:graphql/persisted-queries.json";
+}
@@ -0,0 +1,21 @@
+package com.github.dimitryivaniuta.videometadata.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Projection replay settings ({@code app.projections.*}).
+ */
+@Data
+@ConfigurationProperties(prefix = "app.projections")
+public class ProjectionProperties {
+
+    /** Events read and applied per page of a segment; a token is stored after each page. */
+    private int replayBatchSize = 500;
+
+    /** Segments used when a rebuild does not ask for a count. */
+    private int defaultSegments = 4;
+
+    /** Upper bound for a requested segment count (each segment holds one connection while paging). */
+    private int maxSegments = 16;
+}
@@ -0,0 +1,20 @@
+package com.github.dimitryivaniuta.videometadata.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Encoding of cached values in Redis ({@code app.redis-codec.*}).
+ */
+@Data
+@ConfigurationProperties(prefix = "app.redis-codec")
+public class RedisCodecProperties {
+
+    public enum Format { BINARY, JSON }
+
+    /**
+     * Format of new writes; both are always readable. Use JSON for the first
+     * deploy of a rolling upgrade from a version that only reads JSON.
+     */
+    private Format write = Format.BINARY;
+}
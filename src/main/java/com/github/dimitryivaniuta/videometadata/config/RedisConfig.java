@@ -3,6 +3,8 @@ package com.github.dimitryivaniuta.videometadata.config;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.github.dimitryivaniuta.videometadata.service.cache.codec.CachedUserCodec;
+import com.github.dimitryivaniuta.videometadata.service.cache.codec.VersionedRedisSerializer;
 import com.github.dimitryivaniuta.videometadata.web.dto.CachedUser;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -32,19 +34,24 @@ public class RedisConfig {
 
     /**
      * Reactive Redis template for caching {@link CachedUser}.
-     * Uses String keys and a typed JSON serializer for values.
+     * Uses String keys and the compact binary codec for values; JSON entries
+     * written by earlier versions are still read.
      * No deprecated APIs are used.
      */
     @Bean
     public ReactiveRedisTemplate<String, CachedUser> reactiveRedisTemplate(
             ReactiveRedisConnectionFactory factory,
-            ObjectMapper redisObjectMapper) {
+            ObjectMapper redisObjectMapper,
+            RedisCodecProperties codecProperties) {
 
         // Key serializer
         RedisSerializer<String> keySerializer = new StringRedisSerializer();
 
-        // Typed value serializer (JSON via Jackson) with JavaTimeModule support
-        RedisSerializer<CachedUser> valueSerializer = new CachedUserRedisSerializer(redisObjectMapper);
+        // Typed value serializer: versioned binary, JSON (Jackson) as the legacy/fallback format
+        RedisSerializer<CachedUser> valueSerializer = new VersionedRedisSerializer<>(
+                new CachedUserCodec(),
+                new CachedUserRedisSerializer(redisObjectMapper),
+                codecProperties.getWrite() == RedisCodecProperties.Format.BINARY);
 
         // Build serialization context
         RedisSerializationContext<String, CachedUser> context =
@@ -60,11 +67,11 @@ public class RedisConfig {
      * Typed RedisSerializer for CachedUser using Jackson.
      * Avoids deprecated setObjectMapper and preserves proper Java time handling.
      */
-    static final class CachedUserRedisSerializer implements RedisSerializer<CachedUser> {
+    public static final class CachedUserRedisSerializer implements RedisSerializer<CachedUser> {
 
         private final ObjectMapper mapper;
 
-        CachedUserRedisSerializer(ObjectMapper base) {
+        public CachedUserRedisSerializer(ObjectMapper base) {
             // copy to avoid mutating the global mapper
             this.mapper = base.copy()
                     .registerModule(new JavaTimeModule())
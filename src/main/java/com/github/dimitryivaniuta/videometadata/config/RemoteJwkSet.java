@@ -0,0 +1,106 @@
+package com.github.dimitryivaniuta.videometadata.config;
+
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * Another issuer's JWKS, fetched over HTTP and cached.
+ * <p>
+ * A cached key set is served until {@code ttl}; within {@code refreshAhead}
+ * of that it is re-fetched in the background, so requests only wait for the
+ * first fetch, for an expired set, or when a token names a key the set does
+ * not have (the issuer rotated), at most once per {@code minRefresh}.
+ * Concurrent fetches share one request; if a fetch fails the old set stays
+ * in use.
+ */
+@Slf4j
+final class RemoteJwkSet {
+
+    private record Snapshot(JWKSet keys, long fetchedAt) { }
+
+    private final WebClient client;
+    private final String uri;
+    private final long ttlNanos;
+    private final long refreshAheadNanos;
+    private final long minRefreshNanos;
+    private final LongSupplier clock;
+    private final AtomicReference<Mono<Snapshot>> inFlight = new AtomicReference<>();
+    private volatile Snapshot snapshot;
+    private volatile long lastForcedAt;
+
+    RemoteJwkSet(WebClient client, String uri, Duration ttl, Duration refreshAhead, Duration minRefresh,
+                 LongSupplier clock) {
+        this.client = client;
+        this.uri = uri;
+        this.ttlNanos = ttl.toNanos();
+        this.refreshAheadNanos = Math.min(refreshAhead.toNanos(), ttl.toNanos());
+        this.minRefreshNanos = minRefresh.toNanos();
+        this.clock = clock;
+        this.lastForcedAt = clock.getAsLong() - minRefreshNanos;
+    }
+
+    Flux<JWK> keys(String kid) {
+        Snapshot current = snapshot;
+        long now = clock.getAsLong();
+        if (current == null) {
+            return fetch().flatMapMany(s -> select(s, kid));
+        }
+        long age = now - current.fetchedAt();
+        if (age >= ttlNanos) {
+            return fetch().onErrorReturn(current).flatMapMany(s -> select(s, kid));
+        }
+        if (age >= ttlNanos - refreshAheadNanos) {
+            fetch().subscribe(null, ex -> { });   // logged in fetch()
+        }
+        List<JWK> found = current.keys().getKeys().stream()
+                .filter(k -> kid == null || kid.equals(k.getKeyID()))
+                .toList();
+        if (found.isEmpty() && now - lastForcedAt >= minRefreshNanos) {
+            lastForcedAt = now;
+            return fetch().onErrorReturn(current).flatMapMany(s -> select(s, kid));
+        }
+        return Flux.fromIterable(found);
+    }
+
+    private Mono<Snapshot> fetch() {
+        Mono<Snapshot> running = inFlight.get();
+        if (running != null) {
+            return running;
+        }
+        AtomicReference<Mono<Snapshot>> self = new AtomicReference<>();
+        Mono<Snapshot> created = client.get().uri(uri)
+                .retrieve()
+                .bodyToMono(String.class)
+                .map(this::parse)
+                .doOnNext(s -> snapshot = s)
+                .doOnError(ex -> log.warn("Fetching the JWKS from {} failed: {}", uri, ex.toString()))
+                // before the result reaches subscribers, so a fetch issued on completion starts a new one
+                .doOnTerminate(() -> inFlight.compareAndSet(self.get(), null))
+                .cache();
+        self.set(created);
+        return inFlight.compareAndSet(null, created) ? created : fetch();
+    }
+
+    private Snapshot parse(String body) {
+        try {
+            return new Snapshot(JWKSet.parse(body), clock.getAsLong());
+        } catch (ParseException ex) {
+            throw new IllegalStateException("Invalid JWKS from " + uri, ex);
+        }
+    }
+
+    private static Flux<JWK> select(Snapshot snapshot, String kid) {
+        return Flux.fromIterable(snapshot.keys().getKeys())
+                .filter(k -> kid == null || kid.equals(k.getKeyID()));
+    }
+}
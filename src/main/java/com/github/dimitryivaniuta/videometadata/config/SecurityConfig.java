@@ -1,6 +1,7 @@
 package com.github.dimitryivaniuta.videometadata.config;
 
 import com.github.dimitryivaniuta.videometadata.service.UserDetailsServiceImpl;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Bean;
@@ -35,7 +36,7 @@ import java.util.stream.Collectors;
 /**
  * Central Spring Security configuration for the reactive stack.
  * <ul>
- *   <li>JWT resource-server with composite decoder (RS256 primary, HS256 legacy)</li>
+ *   <li>JWT resource-server with composite decoder (RS256/ES256 primary, HS256 legacy)</li>
  *   <li>JWT encoder backed by rotating RSA keys (JWK manager)</li>
  *   <li>Method security enabled (@PreAuthorize)</li>
  *   <li>CORS enabled (configure as needed for prod)</li>
@@ -150,8 +151,9 @@ public SecurityWebFilterChain springSecurityFilterChain(
                             .jwtDecoder(jwtDecoder)
                             .jwtAuthenticationConverter(jwtAuthConverter)))
 
-            /* ───── custom logging ───── */
+            /* ───── custom logging, caller resolution ───── */
             .addFilterAfter(loggingFilter, SecurityWebFiltersOrder.AUTHENTICATION)
+            .addFilterAfter(new CurrentUserWebFilter(), SecurityWebFiltersOrder.AUTHENTICATION)
 
             .build();
 }
@@ -174,7 +176,7 @@ public SecurityWebFilterChain springSecurityFilterChain(
     }
 
     /**
-     * Decoder used by the resource server. We delegate to a composite that supports RS256 first and HS256 for legacy.
+     * Decoder used by the resource server. We delegate to a composite that supports RS256/ES256 first and HS256 for legacy.
      */
     @Bean
     public ReactiveJwtDecoder jwtDecoder() {
@@ -240,19 +242,25 @@ public SecurityWebFilterChain springSecurityFilterChain(
         return new ReactiveJwtAuthenticationConverterAdapter(jwtAuth);
     }
 
-    /** Auth manager backed by your UserDetailsServiceImpl + BCrypt */
+    /**
+     * Auth manager backed by your UserDetailsServiceImpl + BCrypt. Password
+     * checks (and re-hashing when the BCrypt cost changed) run on the hashing
+     * pool, not on boundedElastic.
+     */
     @Bean
-    public ReactiveAuthenticationManager authenticationManager(PasswordEncoder enc) {
+    public ReactiveAuthenticationManager authenticationManager(PasswordEncoder enc, PasswordHashingExecutor hashing) {
         UserDetailsRepositoryReactiveAuthenticationManager mgr =
                 new UserDetailsRepositoryReactiveAuthenticationManager(userDetailsService);
         mgr.setPasswordEncoder(enc);
+        mgr.setScheduler(hashing.scheduler());
+        mgr.setUserDetailsPasswordService(userDetailsService);
         return mgr;
     }
 
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new LoggingPasswordEncoder();
+    public PasswordEncoder passwordEncoder(PasswordHashingProperties props, MeterRegistry registry) {
+        return new LoggingPasswordEncoder(props.getBcryptStrength(), registry);
     }
 
 }
@@ -46,5 +46,28 @@ public class SecurityJwtProperties {
 
     private long rotationPeriodMs;
 
+    /**
+     * JWKS of another issuer whose RS256/ES256 tokens are also accepted. Our own
+     * tokens are always verified against {@link JwkKeyManager} in-process;
+     * leave blank when there is no other issuer.
+     */
     private String jwksUri;
+
+    /** Required {@code iss} of tokens verified against {@link #jwksUri}; blank accepts any. */
+    private String jwksIssuer;
+
+    /** How long a fetched remote key set is used before requests wait for a new one. */
+    private long jwksCacheSeconds = 300;
+
+    /** A remote key set this close to expiry is re-fetched in the background while still in use. */
+    private long jwksRefreshAheadSeconds = 60;
+
+    /** Least time between fetches forced by a token naming an unknown key. */
+    private long jwksMinRefreshSeconds = 30;
+
+    /**
+     * Validated tokens kept in memory until they expire, so a client sending
+     * the same token again skips parsing and signature checks; 0 disables.
+     */
+    private int decodeCacheSize = 10_000;
 }
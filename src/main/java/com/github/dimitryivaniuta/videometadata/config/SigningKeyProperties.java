@@ -0,0 +1,50 @@
+package com.github.dimitryivaniuta.videometadata.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Shared RSA signing keys ({@code security.jwt.keys.*}); the rotation period
+ * is {@code security.jwt.rotation-period-ms}.
+ */
+@Data
+@ConfigurationProperties(prefix = "security.jwt.keys")
+public class SigningKeyProperties {
+
+    public enum Store { POSTGRES, MEMORY }
+
+    public enum Algorithm { RS256, ES256 }
+
+    /** Where keys live; MEMORY keeps them per node, so only one node can issue tokens. */
+    private Store store = Store.POSTGRES;
+
+    /**
+     * The next key is stored this long before it starts signing, so every
+     * node has loaded it by then; must exceed {@link #reloadInterval}.
+     */
+    private Duration publishAhead = Duration.ofMinutes(10);
+
+    /** How often each node re-reads the key table and rotates when due. */
+    private Duration reloadInterval = Duration.ofSeconds(30);
+
+    /** Rotation lock lease; a node that dies holding it blocks rotation at most this long. */
+    private Duration lockLease = Duration.ofSeconds(30);
+
+    /** Least time between reloads forced by a token naming an unknown key. */
+    private Duration minForcedReload = Duration.ofSeconds(5);
+
+    /**
+     * Algorithm of newly generated keys. Changing it rotates within
+     * {@link #publishAhead}; tokens signed with the old keys stay valid until
+     * they expire.
+     */
+    private Algorithm algorithm = Algorithm.RS256;
+
+    /** RSA modulus bits; ES256 keys are always P-256. */
+    private int keySize = 2048;
+
+    /** Base64 AES key (16/24/32 bytes) sealing the stored private keys; blank stores them in clear. */
+    private String encryptionKey;
+}
@@ -0,0 +1,30 @@
+package com.github.dimitryivaniuta.videometadata.config;
+
+import com.github.dimitryivaniuta.videometadata.repository.InMemorySigningKeyRepository;
+import com.github.dimitryivaniuta.videometadata.repository.SigningKeyRepository;
+import com.github.dimitryivaniuta.videometadata.repository.SigningKeyRepositoryImpl;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+/**
+ * Picks the signing-key store: Postgres unless configured otherwise or R2DBC
+ * is missing, in which case keys stay on this node.
+ */
+@Configuration(proxyBeanMethods = false)
+@Slf4j
+public class SigningKeyStoreConfig {
+
+    @Bean
+    public SigningKeyRepository signingKeyRepository(SigningKeyProperties props,
+                                                     ObjectProvider<DatabaseClient> dbProvider) {
+        DatabaseClient db = dbProvider.getIfAvailable();
+        if (props.getStore() == SigningKeyProperties.Store.POSTGRES && db != null) {
+            return new SigningKeyRepositoryImpl(db);
+        }
+        log.warn("Signing keys are kept in memory; tokens issued here will not verify on other nodes");
+        return new InMemorySigningKeyRepository();
+    }
+}
@@ -0,0 +1,18 @@
+package com.github.dimitryivaniuta.videometadata.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * GraphQL subscription settings ({@code app.subscriptions.*}).
+ */
+@Data
+@ConfigurationProperties(prefix = "app.subscriptions")
+public class SubscriptionProperties {
+
+    /**
+     * Events held per subscriber that cannot keep up; beyond this the oldest
+     * are dropped for that subscriber only.
+     */
+    private int bufferSize = 256;
+}
@@ -0,0 +1,56 @@
+package com.github.dimitryivaniuta.videometadata.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Access/refresh token revocation settings ({@code token.*}).
+ */
+@Data
+@ConfigurationProperties(prefix = "token")
+public class TokenProperties {
+
+    private Redis redis = new Redis();
+
+    private Revocation revocation = new Revocation();
+
+    @Data
+    public static class Redis {
+
+        /** Key prefix of revoked token ids ({@code <prefix>:jti:<jti>}) and user cut-offs ({@code <prefix>:user:<id>}). */
+        private String prefix = "jwt:revoked";
+
+        /** Revocation lifetime of a token that carries no {@code exp}. */
+        private long ttlSeconds = 3600;
+    }
+
+    @Data
+    public static class Revocation {
+
+        /** While off, revoked tokens stay valid until they expire. */
+        private boolean enabled = true;
+
+        /** Redis pub/sub channel that spreads revocations to every node's filter. */
+        private String channel = "jwt:revocations";
+
+        /**
+         * Revoked tokens the per-node Bloom filter is sized for; beyond this the
+         * false-positive rate, and with it the Redis lookups, grows.
+         */
+        private int expectedInsertions = 100_000;
+
+        private double falsePositiveRate = 0.001;
+
+        /**
+         * How often the filter is rebuilt from Redis, dropping expired ids and
+         * picking up anything a lost pub/sub message missed.
+         */
+        private Duration rebuildInterval = Duration.ofMinutes(2);
+
+        private Duration reconnectBackoff = Duration.ofSeconds(1);
+
+        private Duration maxReconnectBackoff = Duration.ofSeconds(30);
+    }
+}
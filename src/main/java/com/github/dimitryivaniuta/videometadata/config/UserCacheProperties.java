@@ -0,0 +1,41 @@
+package com.github.dimitryivaniuta.videometadata.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Current-user cache settings ({@code app.user-cache.*}).
+ */
+@Data
+@ConfigurationProperties(prefix = "app.user-cache")
+public class UserCacheProperties {
+
+    /** When false every lookup goes to Redis, as before. */
+    private boolean localEnabled = true;
+
+    /**
+     * Upper bound on staleness if an invalidation is lost; changes made
+     * through this service are evicted on every node immediately.
+     */
+    private Duration localTtl = Duration.ofSeconds(30);
+
+    private int localMaxSize = 10_000;
+
+    /** How long an unknown username is remembered, in Redis and locally. */
+    private Duration negativeTtl = Duration.ofSeconds(15);
+
+    /**
+     * Redis TTLs are shortened by a random fraction up to this, so entries
+     * written together (e.g. at a login burst) do not expire together.
+     */
+    private double ttlJitter = 0.1;
+
+    /**
+     * Weight of the probabilistic early refresh: entries are reloaded from
+     * the database shortly before they expire with a probability that grows
+     * as expiry nears. 0 disables it; larger values refresh earlier.
+     */
+    private double earlyRefreshBeta = 1.0;
+}
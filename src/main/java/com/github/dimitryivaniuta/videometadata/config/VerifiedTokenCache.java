@@ -0,0 +1,108 @@
+package com.github.dimitryivaniuta.videometadata.config;
+
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+/**
+ * Tokens that passed signature and claim validation, by token value, until
+ * their {@code exp}.
+ * <p>
+ * Keyed by the token string itself: lookups hash it once and compare it in
+ * full, so a forged token can never match, and the key is the cached
+ * {@link Jwt}'s own token value, costing no extra memory. Everything is dropped
+ * when the signing key set changes; a decode that started before the change
+ * passes the {@link #version()} it read to {@link #put}, which then ignores it.
+ * <p>
+ * A full cache is swept in bulk: expired entries go, then arbitrary live ones
+ * until a tenth of the slots are free, so the O(n) sweep runs once per tenth
+ * of {@code maxSize} inserts rather than on every miss. One thread sweeps at a
+ * time; concurrent inserts meanwhile may overshoot {@code maxSize} briefly.
+ */
+final class VerifiedTokenCache {
+
+    private record Entry(Jwt jwt, long expiresAtMillis) { }
+
+    /** Share of {@code maxSize} a sweep frees when nothing has expired. */
+    private static final double SWEEP_FRACTION = 0.1;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final int maxSize;
+    private final LongSupplier keySetVersion;
+    private final LongSupplier clock;
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+    private volatile long version;
+
+    VerifiedTokenCache(int maxSize, LongSupplier keySetVersion, LongSupplier clock) {
+        this.maxSize = maxSize;
+        this.keySetVersion = keySetVersion;
+        this.clock = clock;
+        this.version = keySetVersion.getAsLong();
+    }
+
+    /** @return the validated token, or null if absent or expired */
+    Jwt get(String token) {
+        version();
+        Entry e = entries.get(token);
+        if (e == null) {
+            return null;
+        }
+        if (clock.getAsLong() >= e.expiresAtMillis()) {
+            entries.remove(token, e);
+            return null;
+        }
+        return e.jwt();
+    }
+
+    /** Current key-set version; a change clears the cache. */
+    long version() {
+        long current = keySetVersion.getAsLong();
+        if (current != version) {
+            entries.clear();
+            version = current;
+        }
+        return current;
+    }
+
+    /** Caches {@code jwt} unless the key set changed since {@code version} was read. */
+    void put(Jwt jwt, long version) {
+        if (maxSize <= 0 || jwt.getExpiresAt() == null || version != version()) {
+            return;
+        }
+        if (entries.size() >= maxSize) {
+            makeRoom();
+        }
+        entries.put(jwt.getTokenValue(), new Entry(jwt, jwt.getExpiresAt().toEpochMilli()));
+    }
+
+    void remove(String token) {
+        entries.remove(token);
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    // expired entries first, then arbitrary ones down to the low-water mark
+    private void makeRoom() {
+        if (!sweeping.compareAndSet(false, true)) {
+            return;   // another insert is already freeing room
+        }
+        try {
+            long now = clock.getAsLong();
+            int lowWater = maxSize - Math.max(1, (int) (maxSize * SWEEP_FRACTION));
+            entries.values().removeIf(e -> now >= e.expiresAtMillis());
+            Iterator<String> it = entries.keySet().iterator();
+            while (entries.size() > lowWater && it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        } finally {
+            sweeping.set(false);
+        }
+    }
+}
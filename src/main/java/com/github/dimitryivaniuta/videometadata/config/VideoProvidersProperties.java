@@ -6,6 +6,7 @@ import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
 import java.util.Map;
 
 /**
@@ -19,11 +20,31 @@ import java.util.Map;
 public class VideoProvidersProperties {
     private Map<String, Provider> providers;
 
+    /** Optional startup warm-up of provider connections, run before readiness. */
+    private WarmUp warmUp = new WarmUp();
+
     @Data
     public static class Provider {
         private String apiKey;
         private String accessToken;
         private String baseUrl;
+
+        /** Items requested per listing page (Vimeo caps {@code per_page} at 100). */
+        private int pageSize = 50;
+
+        /** Max listing pages fetched in parallel during a publisher import. */
+        private int pageConcurrency = 4;
+    }
+
+    @Data
+    public static class WarmUp {
+        private boolean enabled = false;
+
+        /** Pooled connections opened per provider. */
+        private int connections = 2;
+
+        /** Upper bound for the whole warm-up; startup continues when it elapses. */
+        private Duration timeout = Duration.ofSeconds(10);
     }
 
 }
@@ -0,0 +1,53 @@
+package com.github.dimitryivaniuta.videometadata.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Background metadata refresh settings ({@code app.refresh.*}).
+ * <p>
+ * Budgets are keyed like {@code video.providers} (lower-case provider name);
+ * a provider without a budget entry is not refreshed.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.refresh")
+public class VideoRefreshProperties {
+
+    /** Global switch; checked on every tick, so it can be flipped without a restart. */
+    private boolean enabled = true;
+
+    /** Delay between refresh runs. */
+    private Duration interval = Duration.ofMinutes(5);
+
+    /** A video becomes a refresh candidate once it has not been checked for this long. */
+    private Duration staleAfter = Duration.ofDays(1);
+
+    /** Oldest-checked rows claimed per provider and run into the priority queue. */
+    private int candidateLimit = 2_000;
+
+    /**
+     * Claimed candidates are invisible to other nodes for this long; must
+     * exceed a run. Rows of a failed batch are retried once it expires.
+     */
+    private Duration claimLease = Duration.ofMinutes(10);
+
+    private Map<String, Budget> providers = new HashMap<>();
+
+    @Data
+    public static class Budget {
+        private boolean enabled = true;
+
+        /** Provider calls (one per batch) allowed per UTC day, across all nodes. */
+        private long callsPerDay = 1_000;
+
+        /** Provider calls allowed in a single run, so the daily budget spreads over the day. */
+        private int callsPerRun = 20;
+
+        /** Batches in flight at once. */
+        private int concurrency = 2;
+    }
+}
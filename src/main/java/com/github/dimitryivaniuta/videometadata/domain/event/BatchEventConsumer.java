@@ -0,0 +1,28 @@
+package com.github.dimitryivaniuta.videometadata.domain.event;
+
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Consumer of domain events from the in-process event bus, in batches.
+ * <p>
+ * Each consumer gets its own bounded buffer; batches close at
+ * {@code batch-size} events or after {@code batch-timeout}, whichever comes
+ * first. Settings live under {@code app.events.consumers.<name>}.
+ *
+ * @param <E> event type the consumer subscribes to, subtypes included
+ */
+public interface BatchEventConsumer<E> {
+
+    /** Key under {@code app.events.consumers} and tag value of the consumer's metrics. */
+    String name();
+
+    Class<E> eventType();
+
+    /**
+     * Handles one batch. An error fails every event of the batch back to its
+     * publisher (e.g. the outbox, which retries); the consumer keeps running.
+     */
+    Mono<Void> consume(List<E> batch);
+}
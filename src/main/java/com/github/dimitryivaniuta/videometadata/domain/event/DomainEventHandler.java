@@ -0,0 +1,18 @@
+package com.github.dimitryivaniuta.videometadata.domain.event;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Consumer of domain events delivered from the outbox.
+ * <p>
+ * Delivery is at least once: an event is removed from the outbox only after
+ * every handler for its type completed, so handlers must be idempotent.
+ *
+ * @param <E> event type; its simple class name is the outbox {@code event_type}
+ */
+public interface DomainEventHandler<E> {
+
+    Class<E> eventType();
+
+    Mono<Void> handle(E event);
+}
@@ -0,0 +1,32 @@
+package com.github.dimitryivaniuta.videometadata.domain.event;
+
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * A read model that can be rebuilt from the {@code domain_events} log.
+ * <p>
+ * A rebuild calls {@link #reset()} once and then {@link #apply} with pages of
+ * past events, several segments in parallel. Events of one aggregate always
+ * arrive in log order from the same segment; different aggregates interleave.
+ * Live events keep arriving through the normal path while a rebuild runs, so
+ * {@link #apply} must be idempotent.
+ *
+ * @param <E> the event type the projection is built from, usually a common
+ *            supertype of {@link #eventTypes()}
+ */
+public interface TrackingProjection<E> {
+
+    /** Unique projection name; the key of its tracking tokens. */
+    String name();
+
+    /** Logged event classes the projection is built from; their simple names are the {@code event_type}. */
+    List<Class<? extends E>> eventTypes();
+
+    /** Discards the projection's state. */
+    Mono<Void> reset();
+
+    /** Applies one page of replayed events, in log order. */
+    Mono<Void> apply(List<E> events);
+}
@@ -0,0 +1,11 @@
+package com.github.dimitryivaniuta.videometadata.domain.event;
+
+/**
+ * Events of the video aggregate, as logged in {@code domain_events} and
+ * projected into {@code videos_read}.
+ */
+public sealed interface VideoEvent permits VideoImportedEvent, VideoMetadataChangedEvent {
+
+    /** The video ID. */
+    Long id();
+}
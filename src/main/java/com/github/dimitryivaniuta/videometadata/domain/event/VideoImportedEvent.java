@@ -36,5 +36,21 @@ public record VideoImportedEvent(
         Instant uploadDate,
         Instant createdAt,
         Long createdUserId
-) {
+) implements VideoEvent {
+
+    /** Event for a persisted video; {@code id} and {@code createdAt} are null until the row is written. */
+    public static VideoImportedEvent from(Video v) {
+        return VideoImportedEvent.builder()
+                .id(v.getId())
+                .externalVideoId(v.getExternalVideoId())
+                .title(v.getTitle())
+                .description(v.getDescription())
+                .durationMs(v.getDurationMs())
+                .category(v.getCategory())
+                .provider(v.getProvider())
+                .uploadDate(v.getUploadDate())
+                .createdAt(v.getCreatedAt())
+                .createdUserId(v.getCreatedUserId())
+                .build();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,35 @@
+package com.github.dimitryivaniuta.videometadata.domain.event;
+
+import com.github.dimitryivaniuta.videometadata.model.VideoProvider;
+import lombok.Builder;
+
+import java.time.Instant;
+
+/**
+ * Published when a background refresh finds that a stored video’s
+ * title, description or duration has changed on the provider. Appended to
+ * the outbox and the {@code domain_events} log by the refresh UPDATE itself.
+ * <p>
+ * View-count movement alone is written but not published.
+ *
+ * @param id              the video ID
+ * @param provider        which provider the video came from
+ * @param externalVideoId the provider’s video identifier
+ * @param title           current title
+ * @param description     current description
+ * @param durationMs      current duration in milliseconds
+ * @param viewCount       provider view/play count at refresh time
+ * @param refreshedAt     when the provider was checked
+ */
+@Builder
+public record VideoMetadataChangedEvent(
+        Long id,
+        VideoProvider provider,
+        String externalVideoId,
+        String title,
+        String description,
+        Long durationMs,
+        Long viewCount,
+        Instant refreshedAt
+) implements VideoEvent {
+}
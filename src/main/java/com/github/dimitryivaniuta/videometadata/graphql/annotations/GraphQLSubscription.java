@@ -0,0 +1,15 @@
+package com.github.dimitryivaniuta.videometadata.graphql.annotations;
+
+import java.lang.annotation.*;
+
+/**
+ * Marks a method returning {@code Flux<T>} as a field of the Subscription
+ * type; every element is pushed to the client as one result of type {@code T}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface GraphQLSubscription {
+    String value() default "";
+    String description() default "";
+}
@@ -0,0 +1,216 @@
+package com.github.dimitryivaniuta.videometadata.graphql.execution;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.dimitryivaniuta.videometadata.config.PersistedQueryProperties;
+import graphql.ErrorClassification;
+import graphql.ExecutionInput;
+import graphql.GraphqlErrorBuilder;
+import graphql.execution.preparsed.PreparsedDocumentEntry;
+import graphql.execution.preparsed.PreparsedDocumentProvider;
+import graphql.execution.preparsed.persisted.PersistedQueryError;
+import graphql.execution.preparsed.persisted.PersistedQueryIdInvalid;
+import graphql.execution.preparsed.persisted.PersistedQueryNotFound;
+import graphql.execution.preparsed.persisted.PersistedQuerySupport;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.graphql.execution.ErrorType;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Parsed and validated GraphQL documents, keyed by the sha256 of their text,
+ * so a repeated operation skips parsing and validation.
+ * <p>
+ * Automatic persisted queries: a request whose
+ * {@code extensions.persistedQuery.sha256Hash} is known may leave out the
+ * query; an unknown hash is answered with {@code PersistedQueryNotFound} and
+ * the client sends query and hash together, which registers the document.
+ * Requests without the extension are cached by the hash of their text all
+ * the same. At most {@code cache-size} documents are kept, least recently
+ * used dropped first; an evicted hash is simply registered again.
+ * <p>
+ * The manifest ({@code manifest}, Apollo format) lists known operations. With
+ * {@code allowlist-only} only those are executed, by hash or by text, and
+ * nothing is registered on a miss.
+ * <p>
+ * Metrics: {@code graphql.documents} (lookups, tag {@code result}: hit, miss,
+ * not_found, rejected), {@code graphql.documents.compile} (parse and validate
+ * on a miss), {@code graphql.documents.saved} (parse and validate time hits
+ * did not spend) and {@code graphql.documents.cached}.
+ */
+@Component
+@Profile("!schema-print")
+@ConditionalOnProperty(prefix = "app.graphql.persisted-queries", name = "enabled", matchIfMissing = true)
+@Slf4j
+public class PersistedDocumentProvider implements PreparsedDocumentProvider {
+
+    private final PersistedQueryProperties props;
+    /** Manifest operations by hash; never evicted. */
+    private final Map<String, String> allowlist;
+    /** Access-ordered, guarded by itself. */
+    private final LinkedHashMap<String, CachedDocument> cache;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter notFound;
+    private final Counter rejected;
+    private final Counter saved;
+    private final Timer compile;
+
+    private record CachedDocument(PreparsedDocumentEntry entry, long compileNanos) { }
+
+    public PersistedDocumentProvider(PersistedQueryProperties props, ResourceLoader resources,
+                                     ObjectMapper json, MeterRegistry registry) {
+        this.props     = props;
+        this.allowlist = loadManifest(resources.getResource(props.getManifest()), json);
+        int maxSize    = Math.max(1, props.getCacheSize());
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedDocument> eldest) {
+                return size() > maxSize;
+            }
+        };
+        this.hits     = registry.counter("graphql.documents", "result", "hit");
+        this.misses   = registry.counter("graphql.documents", "result", "miss");
+        this.notFound = registry.counter("graphql.documents", "result", "not_found");
+        this.rejected = registry.counter("graphql.documents", "result", "rejected");
+        this.saved = Counter.builder("graphql.documents.saved").baseUnit("seconds")
+                .description("Parse and validate time not spent thanks to cached documents")
+                .register(registry);
+        this.compile = registry.timer("graphql.documents.compile");
+        registry.gauge("graphql.documents.cached", List.of(), this, PersistedDocumentProvider::size);
+        log.info("GraphQL document cache: {} entries, {} manifest operations{}", maxSize, allowlist.size(),
+                props.isAllowlistOnly() ? ", allowlist only" : "");
+    }
+
+    @Override
+    public CompletableFuture<PreparsedDocumentEntry> getDocumentAsync(
+            ExecutionInput input, Function<ExecutionInput, PreparsedDocumentEntry> parseAndValidate) {
+        return CompletableFuture.completedFuture(document(input, parseAndValidate));
+    }
+
+    int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    private PreparsedDocumentEntry document(ExecutionInput input,
+                                            Function<ExecutionInput, PreparsedDocumentEntry> parseAndValidate) {
+        String query   = input.getQuery();
+        boolean noText = query == null || query.isBlank()
+                || PersistedQuerySupport.PERSISTED_QUERY_MARKER.equals(query);   // Spring's stand-in for a hash-only request
+        String claimed = persistedQueryHash(input);
+        if (noText && claimed == null) {
+            return parseAndValidate.apply(input);   // nothing to look up; reports the missing query
+        }
+        String hash = noText ? claimed : sha256(query);
+        if (claimed != null && !claimed.equals(hash)) {
+            return error(new PersistedQueryIdInvalid(claimed), "PERSISTED_QUERY_ID_INVALID", claimed);
+        }
+
+        CachedDocument cached;
+        synchronized (cache) {
+            cached = cache.get(hash);
+        }
+        if (cached != null) {
+            hits.increment();
+            saved.increment(cached.compileNanos() / 1e9);
+            return cached.entry();
+        }
+
+        String text = noText ? allowlist.get(hash) : query;
+        if (props.isAllowlistOnly() && !allowlist.containsKey(hash)) {
+            rejected.increment();
+            return error(ErrorType.FORBIDDEN, "PersistedQueryNotAllowed", "PERSISTED_QUERY_NOT_ALLOWED", hash);
+        }
+        if (text == null) {
+            notFound.increment();
+            return error(new PersistedQueryNotFound(hash), "PERSISTED_QUERY_NOT_FOUND", hash);
+        }
+
+        misses.increment();
+        long t0 = System.nanoTime();
+        PreparsedDocumentEntry entry = parseAndValidate.apply(noText ? input.transform(b -> b.query(text)) : input);
+        long nanos = System.nanoTime() - t0;
+        compile.record(nanos, TimeUnit.NANOSECONDS);
+        if (!entry.hasErrors()) {   // invalid documents are not worth a slot
+            synchronized (cache) {
+                cache.put(hash, new CachedDocument(entry, nanos));
+            }
+        }
+        return entry;
+    }
+
+    private static String persistedQueryHash(ExecutionInput input) {
+        if (input.getExtensions() != null
+                && input.getExtensions().get("persistedQuery") instanceof Map<?, ?> pq
+                && pq.get("sha256Hash") instanceof String hash && !hash.isBlank()) {
+            return hash.toLowerCase(Locale.ROOT);
+        }
+        return null;
+    }
+
+    private static PreparsedDocumentEntry error(PersistedQueryError e, String code, String hash) {
+        return error(e, e.getMessage(), code, hash);
+    }
+
+    private static PreparsedDocumentEntry error(ErrorClassification type, String message, String code, String hash) {
+        return new PreparsedDocumentEntry(GraphqlErrorBuilder.newError()
+                .errorType(type)
+                .message(message)
+                .extensions(Map.of("code", code, "persistedQueryId", hash))
+                .build());
+    }
+
+    private static Map<String, String> loadManifest(Resource manifest, ObjectMapper json) {
+        if (!manifest.exists()) {
+            return Map.of();
+        }
+        Map<String, String> operations = new HashMap<>();
+        try (InputStream in = manifest.getInputStream()) {
+            for (JsonNode op : json.readTree(in).path("operations")) {
+                String id   = op.path("id").asText().toLowerCase(Locale.ROOT);
+                String body = op.path("body").asText();
+                if (!id.equals(sha256(body))) {
+                    throw new IllegalStateException("Persisted query " + op.path("name").asText(id)
+                            + " in " + manifest.getDescription() + " does not match the sha256 of its body");
+                }
+                operations.put(id, body);
+            }
+        } catch (IOException ex) {
+            throw new IllegalStateException("Cannot read persisted query manifest " + manifest.getDescription(), ex);
+        }
+        return Map.copyOf(operations);
+    }
+
+    static String sha256(String text) {
+        try {
+            return HexFormat.of().formatHex(
+                    MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -6,11 +6,12 @@ import com.github.dimitryivaniuta.videometadata.graphql.annotations.GraphQLArgum
 import com.github.dimitryivaniuta.videometadata.graphql.exceptions.GraphQlServiceException;
 import com.github.dimitryivaniuta.videometadata.graphql.security.SecurityChecks;
 import graphql.Scalars;
+import graphql.execution.preparsed.PreparsedDocumentProvider;
 import graphql.scalars.ExtendedScalars;
 import graphql.schema.*;
-import jakarta.validation.constraints.NotBlank;
 import lombok.extern.slf4j.Slf4j;
 import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -45,38 +46,51 @@ public class AnnotationSchemaFactory {
         this.ctx = ctx;
     }
 
+    /**
+     * @param documents cache of parsed and validated documents; absent when
+     *                  persisted queries are disabled
+     */
     @Bean
-    public GraphQlSource graphQlSource() {
+    public GraphQlSource graphQlSource(ObjectProvider<PreparsedDocumentProvider> documents) {
 
         GraphQLObjectType.Builder query    = GraphQLObjectType.newObject().name("Query");
         GraphQLObjectType.Builder mutation = GraphQLObjectType.newObject().name("Mutation");
+        GraphQLObjectType.Builder subscription = GraphQLObjectType.newObject().name("Subscription");
         GraphQLCodeRegistry.Builder code   = GraphQLCodeRegistry.newCodeRegistry();
 
         // collect unique types we add
         Set<String> typeNames = new HashSet<>();
 
-        scanBeanDefinitions(query, mutation, code, typeNames);
+        boolean subscriptions = scanBeanDefinitions(query, mutation, subscription, code, typeNames);
         ensureAtLeastOneQueryField(query, code);
 
         // add shared scalars once
         SCALARS.values().forEach(s -> addUnique(s, typeNames));
 
-        GraphQLSchema schema = GraphQLSchema.newSchema()
+        GraphQLSchema.Builder schema = GraphQLSchema.newSchema()
                 .query(query.build())
                 .mutation(mutation.build())
-                .codeRegistry(code.build())
+                .codeRegistry(code.build());
 //                .additionalTypes(new HashSet<>(SCALARS.values()))
-                .build();
+        if (subscriptions) {
+            schema.subscription(subscription.build());   // an empty type is invalid SDL
+        }
 
-        return GraphQlSource.builder(schema).build();
+        return GraphQlSource.builder(schema.build())
+                .configureGraphQl(graphQl -> documents.ifAvailable(graphQl::preparsedDocumentProvider))
+                .build();
     }
 
     /* ─ schema scanning ─ */
 
-    private void scanBeanDefinitions(GraphQLObjectType.Builder query,
-                                     GraphQLObjectType.Builder mutation,
-                                     GraphQLCodeRegistry.Builder code,
-                                     Set<String> typeNames) {
+    /** @return whether any subscription field was found */
+    private boolean scanBeanDefinitions(GraphQLObjectType.Builder query,
+                                        GraphQLObjectType.Builder mutation,
+                                        GraphQLObjectType.Builder subscription,
+                                        GraphQLCodeRegistry.Builder code,
+                                        Set<String> typeNames) {
+
+        boolean subscriptions = false;
 
         for (String beanName : ctx.getBeanNamesForAnnotation(GraphQLApplication.class)) {
 
@@ -87,17 +101,19 @@ public class AnnotationSchemaFactory {
 
                 GraphQLField fAnn = m.getAnnotation(GraphQLField.class);
                 GraphQLMutation mutAnn = m.getAnnotation(GraphQLMutation.class);
-                if (fAnn == null && mutAnn == null) continue;
+                GraphQLSubscription subAnn = m.getAnnotation(GraphQLSubscription.class);
+                if (fAnn == null && mutAnn == null && subAnn == null) continue;
 
-                String field = !((fAnn != null ? fAnn.value() : mutAnn.value()).isBlank())
-                        ? (fAnn != null ? fAnn.value() : mutAnn.value())
-                        : m.getName();
+                String name = fAnn != null ? fAnn.value() : mutAnn != null ? mutAnn.value() : subAnn.value();
+                String field = !name.isBlank() ? name : m.getName();
 
-                GraphQLOutputType out = mapper.toOutput(resolveReturn(m));
+                GraphQLOutputType out = mapper.toOutput(subAnn != null ? resolveElement(m) : resolveReturn(m));
                 addUnique(out, typeNames);
 
                 List<graphql.schema.GraphQLArgument> args = buildArgs(m, typeNames);
-                DataFetcher<?> fetcher = buildFetcher(beanName, m);
+                DataFetcher<?> fetcher = subAnn != null
+                        ? buildSubscriptionFetcher(beanName, m)
+                        : buildFetcher(beanName, m);
 
                 GraphQLFieldDefinition def = GraphQLFieldDefinition.newFieldDefinition()
                         .name(field)
@@ -108,12 +124,17 @@ public class AnnotationSchemaFactory {
                 if (fAnn != null) {
                     query.field(def);
                     code.dataFetcher(FieldCoordinates.coordinates("Query", field), fetcher);
-                } else {
+                } else if (mutAnn != null) {
                     mutation.field(def);
                     code.dataFetcher(FieldCoordinates.coordinates("Mutation", field), fetcher);
+                } else {
+                    subscription.field(def);
+                    code.dataFetcher(FieldCoordinates.coordinates("Subscription", field), fetcher);
+                    subscriptions = true;
                 }
             }
         }
+        return subscriptions;
     }
 
     private void ensureAtLeastOneQueryField(GraphQLObjectType.Builder query,
@@ -154,81 +175,57 @@ public class AnnotationSchemaFactory {
     }
 
     private DataFetcher<?> buildFetcher(String beanName, Method m) {
-        RequiresRole rr = m.getAnnotation(RequiresRole.class);
-        return env -> {
-            Mono<Void> guard = rr == null
-                    ? Mono.empty()
-                    : SecurityChecks.requireAnyRole(rr.value());
-
-            Mono<Object> exec = Mono.defer(() -> {
-                Object bean = ctx.getBean(beanName);   // instantiate lazily (no cycle)
-                return invoke(bean, m, env);
-            });
-            return guard.then(exec);
-        };
+        ResolverInvoker resolver = new ResolverInvoker(ctx, beanName, m, JSON);
+        return env -> resolver.guard().then(Mono.defer(() -> invoke(resolver, env)));
     }
 
-    /* ─ invoke bean method reflectively  */
-
-    @SuppressWarnings("unchecked")
-    private static Mono<Object> invoke(Object bean, Method m, DataFetchingEnvironment env) {
-        try {
-            Object[] args = resolveInvokeArgs(m, env);
-            Object    res = m.invoke(bean, args);
-
-            if (res instanceof Mono<?>      mono) {
-                return (Mono<Object>) mono;
+    /** Subscription fields resolve to the Publisher itself; the role check runs on subscribe. */
+    private DataFetcher<?> buildSubscriptionFetcher(String beanName, Method m) {
+        ResolverInvoker resolver = new ResolverInvoker(ctx, beanName, m, JSON);
+        return env -> resolver.guard().thenMany(Flux.defer(() -> {
+            Object[] args;
+            try {
+                args = resolver.resolveArgs(env);
+            } catch (Exception ex) {
+                return Flux.error(new GraphQlServiceException("Invocation error", ex));
             }
-            if (res instanceof Publisher<?> pub){
-//                return Mono.from((Publisher<?>) pub);
-                return Flux.from(pub).collectList().cast(Object.class);
+            try {
+                return (Publisher<?>) resolver.invoke(args);
+            } catch (Throwable real) {
+                log.error("Error invoking GraphQL subscription {}", m.getName(), real);
+                return Flux.error(real instanceof RuntimeException re ? re
+                        : new GraphQlServiceException("Invocation error", real));
             }
-            return Mono.justOrEmpty(res);
+        }));
+    }
 
-        } catch (InvocationTargetException ite) {
-//            Throwable c = ite.getTargetException();
-//            return Mono.error(c instanceof RuntimeException re ? re
-//                    : new GraphQlServiceException("Invocation error", c));
-            Throwable real = ite.getTargetException();
+    /* ─ invoke the bean method through its prepared handle  */
+
+    @SuppressWarnings("unchecked")
+    private static Mono<Object> invoke(ResolverInvoker resolver, DataFetchingEnvironment env) {
+        Object[] args;
+        try {
+            args = resolver.resolveArgs(env);
+        } catch (Exception ex) {
+            return Mono.error(new GraphQlServiceException("Invocation error", ex));
+        }
+        Object res;
+        try {
+            res = resolver.invoke(args);
+        } catch (Throwable real) {
             // log it so you see the stack trace
-            log.error("Error invoking GraphQL method {}", m.getName(), real);
-//            throw new GraphQlServiceException("Invocation error", ite.getTargetException());
+            log.error("Error invoking GraphQL method {}", resolver.method().getName(), real);
             return Mono.error(real instanceof RuntimeException re ? re
                     : new GraphQlServiceException("Invocation error", real));
-        } catch (Exception ex) {
-            return Mono.error(new GraphQlServiceException("Invocation error", ex));
         }
-    }
-
-    private static Object[] resolveInvokeArgs(Method m, DataFetchingEnvironment env) {
-        Object[] args = new Object[m.getParameterCount()];
-        Parameter[] ps = m.getParameters();
-
-        for (int i = 0; i < ps.length; i++) {
-            Parameter p = ps[i];
-            GraphQLArgument a = p.getAnnotation(GraphQLArgument.class);
-
-            if (a != null) {
-                Object raw = env.getArgument(a.value());
-
-                // ✓ convert Map -> target DTO/record if necessary
-                Object value = (raw != null && !p.getType().isInstance(raw))
-                        ? JSON.convertValue(raw, p.getType())
-                        : raw;
 
-                // simple @NotBlank validation example
-                if (p.isAnnotationPresent(jakarta.validation.constraints.NotBlank.class)
-                        && (value == null || value.toString().isBlank())) {
-                    throw new GraphQlServiceException("Argument '" + a.value() + "' must not be blank");
-                }
-                args[i] = value;
-            } else if (p.getType().isAssignableFrom(DataFetchingEnvironment.class)) {
-                args[i] = env;
-            } else {
-                args[i] = null;
-            }
+        if (res instanceof Mono<?>      mono) {
+            return (Mono<Object>) mono;
+        }
+        if (res instanceof Publisher<?> pub){
+            return Flux.from(pub).collectList().cast(Object.class);
         }
-        return args;
+        return Mono.justOrEmpty(res);
     }
 
     /*  util: type deduplication ─ */
@@ -254,6 +251,18 @@ public class AnnotationSchemaFactory {
             log.debug("Registered GraphQL type {}", n.getName());
         }
     }
+    /* element type of a subscription's Flux/Publisher */
+    private static Type resolveElement(Method m) {
+        Type t = m.getGenericReturnType();
+        if (t instanceof ParameterizedType pt
+                && Publisher.class.isAssignableFrom((Class<?>) pt.getRawType())
+                && pt.getActualTypeArguments().length == 1) {
+            return pt.getActualTypeArguments()[0];
+        }
+        throw new IllegalStateException("@GraphQLSubscription method " + m.getDeclaringClass().getSimpleName()
+                + "." + m.getName() + " must return Flux<T> or Publisher<T>");
+    }
+
     /* return-type resolver */
     private static Type resolveReturn(Method m) {
         Type t = m.getGenericReturnType();
@@ -0,0 +1,146 @@
+package com.github.dimitryivaniuta.videometadata.graphql.schema;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.dimitryivaniuta.videometadata.graphql.annotations.GraphQLArgument;
+import com.github.dimitryivaniuta.videometadata.graphql.exceptions.GraphQlServiceException;
+import com.github.dimitryivaniuta.videometadata.graphql.security.SecurityChecks;
+import graphql.GraphQLContext;
+import graphql.schema.DataFetchingEnvironment;
+import jakarta.validation.constraints.NotBlank;
+import org.springframework.context.ApplicationContext;
+import org.springframework.graphql.data.method.annotation.ContextValue;
+import reactor.core.publisher.Mono;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * One resolver method, prepared when the schema is built: a method handle
+ * instead of reflective {@link Method#invoke}, one argument resolver per
+ * parameter with its annotations already read, and the normalized role set
+ * of {@link RequiresRole}. The bean itself is looked up on first use, not at
+ * schema build time, so resolvers may depend on beans that need the schema.
+ * <p>
+ * Parameters take a {@link GraphQLArgument}, a {@link ContextValue} from the
+ * GraphQL context (by its name, or by the parameter type when unnamed) or the
+ * {@link DataFetchingEnvironment}; any other parameter receives null.
+ */
+final class ResolverInvoker {
+
+    private final ApplicationContext ctx;
+    private final String beanName;
+    private final Method method;
+    /** {@code (Object bean, Object[] args) -> Object} */
+    private final MethodHandle handle;
+    private final Function<DataFetchingEnvironment, Object>[] arguments;
+    private final Set<String> roles;
+    private volatile Object bean;
+
+    ResolverInvoker(ApplicationContext ctx, String beanName, Method method, ObjectMapper json) {
+        this.ctx = ctx;
+        this.beanName = beanName;
+        this.method = method;
+        this.handle = handle(method);
+        this.arguments = arguments(method, json);
+        RequiresRole rr = method.getAnnotation(RequiresRole.class);
+        this.roles = rr == null ? Set.of() : SecurityChecks.roles(rr.value());
+    }
+
+    Method method() {
+        return method;
+    }
+
+    /** Completes when the caller has one of the required roles, or at once when none are required. */
+    Mono<Void> guard() {
+        return roles.isEmpty() ? Mono.empty() : SecurityChecks.requireAnyRole(roles);
+    }
+
+    Object[] resolveArgs(DataFetchingEnvironment env) {
+        Object[] args = new Object[arguments.length];
+        for (int i = 0; i < args.length; i++) {
+            args[i] = arguments[i].apply(env);
+        }
+        return args;
+    }
+
+    /** Calls the resolver; whatever it throws is thrown as is. */
+    Object invoke(Object[] args) throws Throwable {
+        return (Object) handle.invokeExact(bean(), args);
+    }
+
+    private Object bean() {
+        Object b = bean;
+        if (b == null) {
+            b = ctx.getBean(beanName);
+            bean = b;
+        }
+        return b;
+    }
+
+    private static MethodHandle handle(Method m) {
+        try {
+            m.trySetAccessible();   // public method of a non-public class, e.g. a nested bean class
+            return MethodHandles.lookup().unreflect(m)
+                    .asSpreader(Object[].class, m.getParameterCount())
+                    .asType(MethodType.methodType(Object.class, Object.class, Object[].class));
+        } catch (IllegalAccessException ex) {
+            throw new IllegalStateException("GraphQL resolver " + m.getDeclaringClass().getSimpleName()
+                    + "." + m.getName() + " is not accessible", ex);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Function<DataFetchingEnvironment, Object>[] arguments(Method m, ObjectMapper json) {
+        Parameter[] ps = m.getParameters();
+        Function<DataFetchingEnvironment, Object>[] resolvers = new Function[ps.length];
+        for (int i = 0; i < ps.length; i++) {
+            resolvers[i] = argument(ps[i], json);
+        }
+        return resolvers;
+    }
+
+    private static Function<DataFetchingEnvironment, Object> argument(Parameter p, ObjectMapper json) {
+        ContextValue cv = p.getAnnotation(ContextValue.class);
+        if (cv != null) {
+            return contextValue(p, cv);
+        }
+        GraphQLArgument a = p.getAnnotation(GraphQLArgument.class);
+        if (a == null) {
+            return p.getType().isAssignableFrom(DataFetchingEnvironment.class) ? env -> env : env -> null;
+        }
+        String name = a.value();
+        Class<?> type = p.getType();
+        JavaType target = json.constructType(type);
+        boolean notBlank = p.isAnnotationPresent(NotBlank.class);
+        return env -> {
+            Object raw = env.getArgument(name);
+            // convert Map -> target DTO/record if necessary
+            Object value = raw != null && !type.isInstance(raw) ? json.convertValue(raw, target) : raw;
+            if (notBlank && (value == null || value.toString().isBlank())) {
+                throw new GraphQlServiceException("Argument '" + name + "' must not be blank");
+            }
+            return value;
+        };
+    }
+
+    private static Function<DataFetchingEnvironment, Object> contextValue(Parameter p, ContextValue cv) {
+        String name = !cv.name().isEmpty() ? cv.name() : cv.value();
+        Class<?> type = p.getType();
+        boolean required = cv.required();
+        return env -> {
+            GraphQLContext context = env.getGraphQlContext();
+            Object value = context == null ? null : name.isEmpty() ? context.get(type) : context.get(name);
+            if (value == null && required) {
+                throw new GraphQlServiceException("Missing context value '"
+                        + (name.isEmpty() ? type.getSimpleName() : name) + "'");
+            }
+            return value;
+        };
+    }
+}
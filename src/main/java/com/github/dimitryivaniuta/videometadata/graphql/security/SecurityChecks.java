@@ -16,12 +16,12 @@ public final class SecurityChecks {
 
     public static Mono<Void> requireAnyRole(String... roles) {
         if (roles == null || roles.length == 0) return Mono.empty();
+        return requireAnyRole(roles(roles));
+    }
 
-        final Set<String> required = Arrays.stream(roles)
-                .filter(Objects::nonNull)
-                .map(String::trim)
-                .map(String::toUpperCase)
-                .collect(Collectors.toSet());
+    /** As {@link #requireAnyRole(String...)} with a set from {@link #roles}, built once per caller. */
+    public static Mono<Void> requireAnyRole(Set<String> required) {
+        if (required.isEmpty()) return Mono.empty();
 
         return ReactiveSecurityContextHolder.getContext()
                 .map(sc -> sc.getAuthentication())
@@ -29,20 +29,34 @@ public final class SecurityChecks {
                 .flatMap(auth -> authorize(auth, required));
     }
 
+    /** Required roles as matched by {@link #requireAnyRole(Set)}: trimmed, upper case, no ROLE_ prefix. */
+    public static Set<String> roles(String... roles) {
+        return Arrays.stream(roles)
+                .filter(Objects::nonNull)
+                .map(String::trim)
+                .map(String::toUpperCase)
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
     private static Mono<Void> authorize(Authentication auth, Set<String> required) {
         if (auth == null || !auth.isAuthenticated()) {
             return Mono.error(new GraphQlServiceException("Unauthorized"));
         }
+        boolean ok = auth.getAuthorities().stream()
+                .map(SecurityChecks::role)
+                .anyMatch(required::contains);
+        if (ok) {
+            return Mono.empty();
+        }
         Set<String> have = auth.getAuthorities().stream()
-                .map(GrantedAuthority::getAuthority)   // e.g. ROLE_ADMIN
-                .map(a -> a.startsWith("ROLE_") ? a.substring(5) : a)
-                .map(String::toUpperCase)
+                .map(SecurityChecks::role)
                 .collect(Collectors.toSet());
-
-        boolean ok = have.stream().anyMatch(required::contains);
-        return ok
-                ? Mono.empty()
-                : Mono.error(new GraphQlServiceException(
+        return Mono.error(new GraphQlServiceException(
                 "Forbidden; requires one of " + required + ", but caller has " + have));
     }
+
+    private static String role(GrantedAuthority authority) {
+        String a = authority.getAuthority();   // e.g. ROLE_ADMIN
+        return (a.startsWith("ROLE_") ? a.substring(5) : a).toUpperCase();
+    }
 }
@@ -0,0 +1,124 @@
+package com.github.dimitryivaniuta.videometadata.graphql.security;
+
+import com.github.dimitryivaniuta.videometadata.service.CurrentUser;
+import com.github.dimitryivaniuta.videometadata.service.revocation.TokenRevocationService;
+import graphql.ExecutionResult;
+import graphql.GraphqlErrorBuilder;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.graphql.execution.ErrorType;
+import org.springframework.graphql.server.WebGraphQlRequest;
+import org.springframework.graphql.server.WebGraphQlResponse;
+import org.springframework.graphql.server.WebSocketGraphQlInterceptor;
+import org.springframework.graphql.server.WebSocketGraphQlRequest;
+import org.springframework.graphql.server.WebSocketSessionInfo;
+import org.springframework.graphql.support.DefaultExecutionGraphQlResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import org.springframework.security.oauth2.server.resource.authentication.ReactiveJwtAuthenticationConverterAdapter;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Authenticates GraphQL WebSocket sessions.
+ * <p>
+ * Browsers cannot set headers on the upgrade request, so the access token is
+ * taken from the {@code connection_init} payload ({@code Authorization} or
+ * {@code authToken}, with or without {@code Bearer }), verified with the same
+ * decoder as HTTP requests and kept with the session. Every operation checks
+ * it again, expiry and revocation, before running with the resolved
+ * {@link CurrentUser}; once the token is expired or revoked each operation
+ * fails with {@code UNAUTHORIZED}, and subscriptions complete when it expires.
+ * Without a token the session stays anonymous and {@code @RequiresRole}
+ * fields fail as they would over HTTP.
+ */
+@Component
+public class WebSocketAuthInterceptor implements WebSocketGraphQlInterceptor {
+
+    private static final String JWT_ATTRIBUTE  = WebSocketAuthInterceptor.class.getName() + ".jwt";
+    private static final String AUTH_ATTRIBUTE = WebSocketAuthInterceptor.class.getName() + ".auth";
+
+    private final ReactiveJwtDecoder jwtDecoder;
+    private final ReactiveJwtAuthenticationConverterAdapter jwtAuthConverter;
+    private final TokenRevocationService revocations;
+    private final Clock clock;
+
+    @Autowired
+    public WebSocketAuthInterceptor(ReactiveJwtDecoder jwtDecoder,
+                                    ReactiveJwtAuthenticationConverterAdapter jwtAuthConverter,
+                                    TokenRevocationService revocations) {
+        this(jwtDecoder, jwtAuthConverter, revocations, Clock.systemUTC());
+    }
+
+    WebSocketAuthInterceptor(ReactiveJwtDecoder jwtDecoder,
+                             ReactiveJwtAuthenticationConverterAdapter jwtAuthConverter,
+                             TokenRevocationService revocations,
+                             Clock clock) {
+        this.jwtDecoder = jwtDecoder;
+        this.jwtAuthConverter = jwtAuthConverter;
+        this.revocations = revocations;
+        this.clock = clock;
+    }
+
+    @Override
+    public Mono<Object> handleConnectionInitialization(WebSocketSessionInfo info, Map<String, Object> payload) {
+        Object raw = payload.getOrDefault("Authorization", payload.get("authToken"));
+        if (raw == null) {
+            return Mono.empty();
+        }
+        String token = raw.toString().startsWith("Bearer ") ? raw.toString().substring(7) : raw.toString();
+        return jwtDecoder.decode(token)
+                .flatMap(jwt -> jwtAuthConverter.convert(jwt)
+                        .doOnNext(auth -> {
+                            info.getAttributes().put(JWT_ATTRIBUTE, jwt);
+                            info.getAttributes().put(AUTH_ATTRIBUTE, auth);
+                        }))
+                .then(Mono.empty());
+    }
+
+    @Override
+    public Mono<WebGraphQlResponse> intercept(WebGraphQlRequest request, Chain chain) {
+        if (!(request instanceof WebSocketGraphQlRequest ws)
+                || !(ws.getSessionInfo().getAttributes().get(JWT_ATTRIBUTE) instanceof Jwt jwt)
+                || !(ws.getSessionInfo().getAttributes().get(AUTH_ATTRIBUTE) instanceof Authentication auth)) {
+            return chain.next(request);
+        }
+        Duration left = jwt.getExpiresAt() == null ? null : Duration.between(clock.instant(), jwt.getExpiresAt());
+        if (left != null && !left.isPositive()) {
+            return Mono.just(unauthorized(request, "Token has expired"));
+        }
+        return revocations.isRevoked(jwt).flatMap(revoked -> revoked
+                ? Mono.just(unauthorized(request, "Token has been revoked"))
+                : chain.next(request)
+                        .map(response -> left == null ? response : untilExpiry(response, left))
+                        .contextWrite(CurrentUser.context(CurrentUser.of(auth)))
+                        .contextWrite(ReactiveSecurityContextHolder.withAuthentication(auth)));
+    }
+
+    /** A subscription ends, with {@code complete}, when the session's token expires. */
+    private static WebGraphQlResponse untilExpiry(WebGraphQlResponse response, Duration left) {
+        if (!(response.getData() instanceof Publisher<?> events)) {
+            return response;
+        }
+        Flux<?> bounded = Flux.from(events).takeUntilOther(Mono.delay(left));
+        return response.transform(builder -> builder.data(bounded));
+    }
+
+    private static WebGraphQlResponse unauthorized(WebGraphQlRequest request, String message) {
+        ExecutionResult result = ExecutionResult.newExecutionResult()
+                .addError(GraphqlErrorBuilder.newError()
+                        .errorType(ErrorType.UNAUTHORIZED)
+                        .message(message)
+                        .build())
+                .build();
+        return new WebGraphQlResponse(new DefaultExecutionGraphQlResponse(request.toExecutionInput(), result));
+    }
+}
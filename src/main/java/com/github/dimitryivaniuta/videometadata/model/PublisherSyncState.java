@@ -0,0 +1,51 @@
+package com.github.dimitryivaniuta.videometadata.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.Instant;
+
+/**
+ * Sync watermark for one (provider, publisher) pair.
+ * <p>
+ * {@code lastPublishedAt} only advances once a sync completes; while a sync
+ * is in progress {@code lastPageToken} holds the cursor to resume from.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table("publisher_sync_state")
+public class PublisherSyncState {
+
+    @Id
+    private Long id;
+
+    @Column("provider")
+    private VideoProvider provider;
+
+    private String publisher;
+
+    @Column("last_published_at")
+    private Instant lastPublishedAt;
+
+    @Column("last_external_video_id")
+    private String lastExternalVideoId;
+
+    @Column("last_page_token")
+    private String lastPageToken;
+
+    @Column("videos_seen")
+    private long videosSeen;
+
+    @Column("videos_imported")
+    private long videosImported;
+
+    @Column("sync_count")
+    private long syncCount;
+
+    @Column("last_synced_at")
+    private Instant lastSyncedAt;
+}
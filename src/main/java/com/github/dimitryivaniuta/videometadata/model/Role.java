@@ -1,9 +1,28 @@
 package com.github.dimitryivaniuta.videometadata.model;
 
+import lombok.Getter;
+
 /**
  * Application roles.
+ * <p>
+ * {@code code} is stable: binary cache entries store roles by it, so a new
+ * role takes a new code and codes are never reused or reordered.
  */
+@Getter
 public enum Role {
-    USER,
-    ADMIN
-}
\ No newline at end of file
+    USER(0),
+    ADMIN(1);
+
+    private final int code;
+    Role(int code) { this.code = code; }
+
+    /** @return the role with {@code code}, or null for a code this build does not know */
+    public static Role fromCode(int code) {
+        for (Role r : values()) {
+            if (r.code == code) {
+                return r;
+            }
+        }
+        return null;
+    }
+}
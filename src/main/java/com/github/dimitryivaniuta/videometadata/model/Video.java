@@ -43,4 +43,12 @@ public class Video {
 
     @Column("created_user_id")
     private Long createdUserId;
+
+    /** Provider view/play count as of the last refresh; drives refresh priority. */
+    @Column("view_count")
+    private Long viewCount;
+
+    /** Last time the provider was re-checked; {@code null} until the first refresh. */
+    @Column("last_refreshed_at")
+    private Instant lastRefreshedAt;
 }
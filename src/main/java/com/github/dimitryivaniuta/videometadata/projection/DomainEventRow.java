@@ -0,0 +1,4 @@
+package com.github.dimitryivaniuta.videometadata.projection;
+
+/** An entry of the {@code domain_events} log; {@code seq} is its global position. */
+public record DomainEventRow(Long seq, Long aggregateId, String eventType, String payload) {}
@@ -0,0 +1,7 @@
+package com.github.dimitryivaniuta.videometadata.projection;
+
+import java.time.Instant;
+
+/** A claimed outbox entry; {@code attempts} already counts the current delivery. */
+public record OutboxRow(Long id, Long aggregateId, String eventType, String payload,
+                        Instant createdAt, int attempts) {}
@@ -0,0 +1,12 @@
+package com.github.dimitryivaniuta.videometadata.projection;
+
+/**
+ * Replay progress of one segment of a projection: every event of the segment
+ * up to {@code position} has been applied; the replay ends at {@code head}.
+ */
+public record ProjectionToken(String processor, int segment, int segmentCount, long position, long head) {
+
+    public boolean caughtUp() {
+        return position >= head;
+    }
+}
@@ -0,0 +1,6 @@
+package com.github.dimitryivaniuta.videometadata.projection;
+
+import java.time.Instant;
+
+/** Stale rows awaiting refresh and the oldest last-check among them. */
+public record RefreshBacklogRow(Long cnt, Instant oldest) {}
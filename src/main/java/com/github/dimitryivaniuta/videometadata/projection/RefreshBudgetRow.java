@@ -0,0 +1,4 @@
+package com.github.dimitryivaniuta.videometadata.projection;
+
+/** Calls granted by one budget reservation and the day's total after it. */
+public record RefreshBudgetRow(Integer granted, Long used) {}
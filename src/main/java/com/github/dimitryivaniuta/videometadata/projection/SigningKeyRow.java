@@ -0,0 +1,10 @@
+package com.github.dimitryivaniuta.videometadata.projection;
+
+import java.time.Instant;
+
+/**
+ * One stored signing key: the (possibly sealed) private JWK, its JWS
+ * algorithm and the moment it starts signing.
+ */
+public record SigningKeyRow(String kid, String alg, String jwk, Instant activatesAt) {
+}
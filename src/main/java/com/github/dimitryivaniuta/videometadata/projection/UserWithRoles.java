@@ -0,0 +1,9 @@
+package com.github.dimitryivaniuta.videometadata.projection;
+
+import com.github.dimitryivaniuta.videometadata.model.Role;
+import com.github.dimitryivaniuta.videometadata.model.User;
+
+import java.util.Set;
+
+/** A user and its roles, loaded in one statement. */
+public record UserWithRoles(User user, Set<Role> roles) {}
@@ -1,49 +1,86 @@
 package com.github.dimitryivaniuta.videometadata.projection;
 
+import com.github.dimitryivaniuta.videometadata.domain.event.BatchEventConsumer;
+import com.github.dimitryivaniuta.videometadata.domain.event.TrackingProjection;
+import com.github.dimitryivaniuta.videometadata.domain.event.VideoEvent;
 import com.github.dimitryivaniuta.videometadata.domain.event.VideoImportedEvent;
-import com.github.dimitryivaniuta.videometadata.model.Video;
-import com.github.dimitryivaniuta.videometadata.repository.VideoRepository;
+import com.github.dimitryivaniuta.videometadata.domain.event.VideoMetadataChangedEvent;
+import com.github.dimitryivaniuta.videometadata.repository.VideoReadRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Profile;
-import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Mono;
 
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
- * Listens for VideoImportedEvent and projects it into the
- * read-model table (videos_read).
+ * Projects batches of VideoImportedEvent and VideoMetadataChangedEvent
+ * (outbox → event bus) into the read-model table (videos_read). The same
+ * projection is rebuilt from the domain_events log on demand (see
+ * ProjectionRebuildService).
  */
 @Component
 @Profile("!schema-print")
 @RequiredArgsConstructor
 @Slf4j
-public class VideoProjectionListener {
+public class VideoProjectionListener implements BatchEventConsumer<VideoEvent>, TrackingProjection<VideoEvent> {
+
+    static final String NAME = "video-projection";
 
-    private final VideoRepository readRepo;
+    private final VideoReadRepository readRepo;
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public Class<VideoEvent> eventType() {
+        return VideoEvent.class;
+    }
+
+    @Override
+    public List<Class<? extends VideoEvent>> eventTypes() {
+        return List.of(VideoImportedEvent.class, VideoMetadataChangedEvent.class);
+    }
 
     /**
-     * Handles a new import event by upserting the read-model entity.
+     * Upserts one read-model row per imported video of the batch, then applies
+     * the metadata changes as updates of existing rows: one statement each.
+     * A video's change always follows its import, so imports go first.
+     * Redelivery rewrites the same values; columns the event carries as null
+     * are kept.
      */
-    @EventListener
-    public void on(VideoImportedEvent evt) {
-        Video entity = Video.builder()
-                .id(evt.id())
-                .title(evt.title())
-                .source(evt.provider().name().toLowerCase())
-                .externalVideoId(evt.externalVideoId())
-                .description(evt.description())
-                .durationMs(evt.durationMs())
-                .category(evt.category())
-                .provider(evt.provider())
-                .uploadDate(evt.uploadDate())
-                .createdUserId(evt.createdUserId())
-                .build();
-
-        // Save (insert or update) into videos_read table
-        readRepo.save(entity)
-                .doOnSuccess(e -> log.debug("Projected VideoReadEntity id={}", e.getId()))
-                .doOnError(ex -> log.error("Failed to project video id=" + evt.id(), ex))
-                .subscribe();
+    @Override
+    public Mono<Void> consume(List<VideoEvent> batch) {
+        Map<Long, VideoImportedEvent> imports = new LinkedHashMap<>();
+        Map<Long, VideoMetadataChangedEvent> changes = new LinkedHashMap<>();
+        for (VideoEvent evt : batch) {   // last delivery of an id wins
+            switch (evt) {
+                case VideoImportedEvent imported -> imports.put(imported.id(), imported);
+                case VideoMetadataChangedEvent changed -> changes.put(changed.id(), changed);
+            }
+        }
+
+        return readRepo.upsert(imports.values())
+                .then(readRepo.applyChanges(changes.values()))
+                .doOnSuccess(n -> log.debug("Projected {} imports and {} changes of {} video events",
+                        imports.size(), changes.size(), batch.size()))
+                .doOnError(ex -> log.error("Failed to project videos "
+                        + imports.keySet() + " / changed " + changes.keySet(), ex))
+                .then();
+    }
+
+    @Override
+    public Mono<Void> reset() {
+        return readRepo.truncate();
+    }
+
+    @Override
+    public Mono<Void> apply(List<VideoEvent> events) {
+        return consume(events);
     }
 }
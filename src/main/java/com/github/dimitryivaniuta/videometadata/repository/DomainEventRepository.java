@@ -0,0 +1,27 @@
+package com.github.dimitryivaniuta.videometadata.repository;
+
+import com.github.dimitryivaniuta.videometadata.projection.DomainEventRow;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+/**
+ * Read side of the append-only {@code domain_events} log. Entries are appended
+ * by the statements that write the aggregate (see {@link VideoRepositoryCustom#insertBatch}
+ * and {@link VideoRepositoryCustom#applyRefresh}).
+ */
+public interface DomainEventRepository {
+
+    /** Highest sequence written so far, 0 for an empty log. */
+    Mono<Long> headSequence();
+
+    /**
+     * Up to {@code limit} events of the given types with {@code after < seq <= upTo}
+     * in sequence order, restricted to segment {@code segment} of {@code segments}.
+     * Segments partition by a hash of the aggregate id, so all events of one
+     * aggregate fall into the same segment and keep their relative order.
+     */
+    Flux<DomainEventRow> readSegment(Collection<String> eventTypes, long after, long upTo,
+                                     int segment, int segments, int limit);
+}
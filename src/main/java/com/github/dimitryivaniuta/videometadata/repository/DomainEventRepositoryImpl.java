@@ -0,0 +1,69 @@
+package com.github.dimitryivaniuta.videometadata.repository;
+
+import com.github.dimitryivaniuta.videometadata.projection.DomainEventRow;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+@Repository
+public class DomainEventRepositoryImpl implements DomainEventRepository {
+
+    private final DatabaseClient db;
+
+    public DomainEventRepositoryImpl(ObjectProvider<DatabaseClient> dbProvider) {
+        this.db = dbProvider.getIfAvailable(); // null if R2DBC not configured
+    }
+
+    private static final String HEAD_SQL = "SELECT COALESCE(MAX(seq), 0) AS head FROM domain_events";
+
+    /*
+     * Keyset page over the primary key; the segment predicate is evaluated on
+     * the rows of that range only. hashint8 is Postgres' own int8 hash, masked
+     * to a non-negative int so the modulo is a valid segment number.
+     */
+    private static final String SEGMENT_SQL = """
+            SELECT seq, aggregate_id, event_type, CAST(payload AS text) AS payload
+            FROM domain_events
+            WHERE seq > :after
+              AND seq <= :upTo
+              AND event_type = ANY(CAST(:eventTypes AS text[]))
+              AND (hashint8(aggregate_id) & 2147483647) % :segments = :segment
+            ORDER BY seq
+            LIMIT :limit
+            """;
+
+    @Override
+    public Mono<Long> headSequence() {
+        if (db == null) {
+            return Mono.just(0L);
+        }
+        return db.sql(HEAD_SQL)
+                .map((row, meta) -> row.get("head", Long.class))
+                .one();
+    }
+
+    @Override
+    public Flux<DomainEventRow> readSegment(Collection<String> eventTypes, long after, long upTo,
+                                            int segment, int segments, int limit) {
+        if (db == null) {
+            return Flux.empty();
+        }
+        return db.sql(SEGMENT_SQL)
+                .bind("after", after)
+                .bind("upTo", upTo)
+                .bind("eventTypes", eventTypes.toArray(String[]::new))
+                .bind("segments", segments)
+                .bind("segment", segment)
+                .bind("limit", limit)
+                .map((row, meta) -> new DomainEventRow(
+                        row.get("seq", Long.class),
+                        row.get("aggregate_id", Long.class),
+                        row.get("event_type", String.class),
+                        row.get("payload", String.class)))
+                .all();
+    }
+}
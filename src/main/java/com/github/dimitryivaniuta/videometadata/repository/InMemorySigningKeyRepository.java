@@ -0,0 +1,83 @@
+package com.github.dimitryivaniuta.videometadata.repository;
+
+import com.github.dimitryivaniuta.videometadata.projection.SigningKeyRow;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * {@link SigningKeyRepository} in memory: shared by the nodes of a test, or
+ * the single node of a deployment without a database.
+ */
+public class InMemorySigningKeyRepository implements SigningKeyRepository {
+
+    private final List<SigningKeyRow> rows = new ArrayList<>();
+    private String owner;
+    private Instant lockedUntil = Instant.MIN;
+
+    @Override
+    public Flux<SigningKeyRow> findAll() {
+        return Flux.defer(() -> {
+            synchronized (this) {
+                return Flux.fromIterable(rows.stream()
+                        .sorted(Comparator.comparing(SigningKeyRow::activatesAt))
+                        .toList());
+            }
+        });
+    }
+
+    @Override
+    public Mono<Boolean> insert(SigningKeyRow row) {
+        return Mono.fromSupplier(() -> {
+            synchronized (this) {
+                boolean taken = rows.stream().anyMatch(r ->
+                        r.kid().equals(row.kid()) || r.activatesAt().equals(row.activatesAt()));
+                return !taken && rows.add(row);
+            }
+        });
+    }
+
+    @Override
+    public Mono<Long> deleteSuperseded(Instant supersededBefore) {
+        return Mono.fromSupplier(() -> {
+            synchronized (this) {
+                int before = rows.size();
+                List<SigningKeyRow> snapshot = List.copyOf(rows);
+                rows.removeIf(k -> snapshot.stream().anyMatch(n ->
+                        n.activatesAt().isAfter(k.activatesAt()) && !n.activatesAt().isAfter(supersededBefore)));
+                return (long) (before - rows.size());
+            }
+        });
+    }
+
+    @Override
+    public Mono<Boolean> tryLock(String owner, Instant now, Duration lease) {
+        return Mono.fromSupplier(() -> {
+            synchronized (this) {
+                if (lockedUntil.isBefore(now) || owner.equals(this.owner)) {
+                    this.owner = owner;
+                    this.lockedUntil = now.plus(lease);
+                    return true;
+                }
+                return false;
+            }
+        });
+    }
+
+    @Override
+    public Mono<Void> unlock(String owner) {
+        return Mono.fromRunnable(() -> {
+            synchronized (this) {
+                if (owner.equals(this.owner)) {
+                    this.owner = null;
+                    this.lockedUntil = Instant.MIN;
+                }
+            }
+        });
+    }
+}
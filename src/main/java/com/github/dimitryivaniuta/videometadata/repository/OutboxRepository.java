@@ -0,0 +1,30 @@
+package com.github.dimitryivaniuta.videometadata.repository;
+
+import com.github.dimitryivaniuta.videometadata.projection.OutboxRow;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Collection;
+
+/**
+ * Claim/acknowledge operations of the {@code outbox} table. Rows are appended
+ * by the statements that write the aggregate (see {@link VideoRepositoryCustom#insertBatch}).
+ */
+public interface OutboxRepository {
+
+    /**
+     * Claims up to {@code limit} deliverable rows in id order for {@code lease}.
+     * Rows locked or leased by another node are skipped, not waited for.
+     */
+    Flux<OutboxRow> claim(int limit, Duration lease);
+
+    /** Acknowledges delivered rows. */
+    Mono<Long> delete(Collection<Long> ids);
+
+    /**
+     * Releases a failed row for another attempt after {@code delay}, or parks it
+     * as a dead letter once it has been attempted {@code maxAttempts} times.
+     */
+    Mono<Long> reschedule(Long id, Duration delay, String error, int maxAttempts);
+}
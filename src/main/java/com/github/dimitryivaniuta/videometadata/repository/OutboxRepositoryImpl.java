@@ -0,0 +1,97 @@
+package com.github.dimitryivaniuta.videometadata.repository;
+
+import com.github.dimitryivaniuta.videometadata.projection.OutboxRow;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+
+@Repository
+public class OutboxRepositoryImpl implements OutboxRepository {
+
+    private final DatabaseClient db;
+
+    public OutboxRepositoryImpl(ObjectProvider<DatabaseClient> dbProvider) {
+        this.db = dbProvider.getIfAvailable(); // null if R2DBC not configured
+    }
+
+    /*
+     * Claim = one statement: lock a page of deliverable rows with SKIP LOCKED
+     * and stamp a lease on them. Once the statement commits the lease keeps
+     * other nodes away; if this node dies the lease expires and the rows are
+     * claimed again (at-least-once).
+     */
+    private static final String CLAIM_SQL = """
+            UPDATE outbox o
+            SET locked_until = now() + make_interval(secs => :leaseSeconds),
+                attempts     = o.attempts + 1
+            WHERE o.id IN (SELECT id
+                           FROM outbox
+                           WHERE dead_at IS NULL
+                             AND available_at <= now()
+                             AND (locked_until IS NULL OR locked_until < now())
+                           ORDER BY id
+                           LIMIT :limit
+                           FOR UPDATE SKIP LOCKED)
+            RETURNING o.id, o.aggregate_id, o.event_type, CAST(o.payload AS text) AS payload,
+                      o.created_at, o.attempts
+            """;
+
+    private static final String DELETE_SQL = "DELETE FROM outbox WHERE id = ANY(CAST(:ids AS bigint[]))";
+
+    private static final String RESCHEDULE_SQL = """
+            UPDATE outbox
+            SET locked_until = NULL,
+                available_at = now() + make_interval(secs => :delaySeconds),
+                last_error   = LEFT(:error, 2000),
+                dead_at      = CASE WHEN attempts >= :maxAttempts THEN now() END
+            WHERE id = :id
+            """;
+
+    @Override
+    public Flux<OutboxRow> claim(int limit, Duration lease) {
+        if (db == null) {
+            return Flux.empty();
+        }
+        return db.sql(CLAIM_SQL)
+                .bind("leaseSeconds", lease.toMillis() / 1000.0)
+                .bind("limit", limit)
+                .map((row, meta) -> new OutboxRow(
+                        row.get("id", Long.class),
+                        row.get("aggregate_id", Long.class),
+                        row.get("event_type", String.class),
+                        row.get("payload", String.class),
+                        row.get("created_at", Instant.class),
+                        row.get("attempts", Integer.class)))
+                .all();
+    }
+
+    @Override
+    public Mono<Long> delete(Collection<Long> ids) {
+        if (db == null || ids.isEmpty()) {
+            return Mono.just(0L);
+        }
+        return db.sql(DELETE_SQL)
+                .bind("ids", ids.toArray(Long[]::new))
+                .fetch()
+                .rowsUpdated();
+    }
+
+    @Override
+    public Mono<Long> reschedule(Long id, Duration delay, String error, int maxAttempts) {
+        if (db == null) {
+            return Mono.just(0L);
+        }
+        var spec = db.sql(RESCHEDULE_SQL)
+                .bind("id", id)
+                .bind("delaySeconds", delay.toMillis() / 1000.0)
+                .bind("maxAttempts", maxAttempts);
+        spec = error == null ? spec.bindNull("error", String.class) : spec.bind("error", error);
+        return spec.fetch().rowsUpdated();
+    }
+}
@@ -0,0 +1,22 @@
+package com.github.dimitryivaniuta.videometadata.repository;
+
+import com.github.dimitryivaniuta.videometadata.projection.ProjectionToken;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Tracking tokens of replayable projections ({@code projection_tokens}).
+ */
+public interface ProjectionTokenRepository {
+
+    /**
+     * Replaces the tokens of {@code processor} with {@code segments} fresh ones
+     * at position 0, all replaying up to {@code head}.
+     */
+    Flux<ProjectionToken> reset(String processor, int segments, long head);
+
+    Flux<ProjectionToken> findAll(String processor);
+
+    /** Records that {@code segment} has applied every event up to {@code position}. */
+    Mono<Long> advance(String processor, int segment, long position);
+}
@@ -0,0 +1,98 @@
+package com.github.dimitryivaniuta.videometadata.repository;
+
+import com.github.dimitryivaniuta.videometadata.projection.ProjectionToken;
+import io.r2dbc.spi.Readable;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Repository
+public class ProjectionTokenRepositoryImpl implements ProjectionTokenRepository {
+
+    private final DatabaseClient db;
+
+    public ProjectionTokenRepositoryImpl(ObjectProvider<DatabaseClient> dbProvider) {
+        this.db = dbProvider.getIfAvailable(); // null if R2DBC not configured
+    }
+
+    /*
+     * One statement, so a reader never sees a partial token set. Segments that
+     * exist in both layouts are overwritten in place (a DELETE + INSERT of the
+     * same key in one statement would collide); surplus ones are removed.
+     */
+    private static final String RESET_SQL = """
+            WITH d AS (
+                DELETE FROM projection_tokens WHERE processor = :processor AND segment >= :segments
+            )
+            INSERT INTO projection_tokens (processor, segment, segment_count, position, head)
+            SELECT :processor, s, :segments, 0, :head
+            FROM generate_series(0, :segments - 1) AS s
+            ON CONFLICT (processor, segment) DO UPDATE
+                SET segment_count = EXCLUDED.segment_count,
+                    position      = 0,
+                    head          = EXCLUDED.head,
+                    updated_at    = now()
+            RETURNING processor, segment, segment_count, position, head
+            """;
+
+    private static final String FIND_SQL = """
+            SELECT processor, segment, segment_count, position, head
+            FROM projection_tokens
+            WHERE processor = :processor
+            ORDER BY segment
+            """;
+
+    private static final String ADVANCE_SQL = """
+            UPDATE projection_tokens
+            SET position = GREATEST(position, :position), updated_at = now()
+            WHERE processor = :processor AND segment = :segment
+            """;
+
+    @Override
+    public Flux<ProjectionToken> reset(String processor, int segments, long head) {
+        if (db == null) {
+            return Flux.empty();
+        }
+        return db.sql(RESET_SQL)
+                .bind("processor", processor)
+                .bind("segments", segments)
+                .bind("head", head)
+                .map(ProjectionTokenRepositoryImpl::token)
+                .all();
+    }
+
+    @Override
+    public Flux<ProjectionToken> findAll(String processor) {
+        if (db == null) {
+            return Flux.empty();
+        }
+        return db.sql(FIND_SQL)
+                .bind("processor", processor)
+                .map(ProjectionTokenRepositoryImpl::token)
+                .all();
+    }
+
+    @Override
+    public Mono<Long> advance(String processor, int segment, long position) {
+        if (db == null) {
+            return Mono.just(0L);
+        }
+        return db.sql(ADVANCE_SQL)
+                .bind("processor", processor)
+                .bind("segment", segment)
+                .bind("position", position)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    private static ProjectionToken token(Readable row) {
+        return new ProjectionToken(
+                row.get("processor", String.class),
+                row.get("segment", Integer.class),
+                row.get("segment_count", Integer.class),
+                row.get("position", Long.class),
+                row.get("head", Long.class));
+    }
+}
@@ -0,0 +1,60 @@
+package com.github.dimitryivaniuta.videometadata.repository;
+
+import com.github.dimitryivaniuta.videometadata.model.PublisherSyncState;
+import com.github.dimitryivaniuta.videometadata.model.VideoProvider;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+
+public interface PublisherSyncStateRepository extends ReactiveCrudRepository<PublisherSyncState, Long> {
+
+    Mono<PublisherSyncState> findByProviderAndPublisher(VideoProvider provider, String publisher);
+
+    /**
+     * Writes the row of (provider, publisher) in one statement, so two first
+     * syncs of a publisher cannot collide on the unique key. The watermark and
+     * the counters never move backwards; the resume cursor is the caller's.
+     *
+     * @return the stored row
+     */
+    @Query("""
+           INSERT INTO publisher_sync_state (provider, publisher, last_published_at, last_external_video_id,
+                                             last_page_token, videos_seen, videos_imported, sync_count,
+                                             last_synced_at)
+           VALUES (:provider, :publisher, :lastPublishedAt, :lastExternalVideoId,
+                   :lastPageToken, :videosSeen, :videosImported, :syncCount, :lastSyncedAt)
+           ON CONFLICT (provider, publisher) DO UPDATE
+               SET last_published_at      = GREATEST(publisher_sync_state.last_published_at,
+                                                     EXCLUDED.last_published_at),
+                   last_external_video_id = CASE
+                                                WHEN publisher_sync_state.last_published_at IS NULL
+                                                  OR EXCLUDED.last_published_at >= publisher_sync_state.last_published_at
+                                                THEN EXCLUDED.last_external_video_id
+                                                ELSE publisher_sync_state.last_external_video_id
+                                            END,
+                   last_page_token        = EXCLUDED.last_page_token,
+                   videos_seen            = GREATEST(publisher_sync_state.videos_seen, EXCLUDED.videos_seen),
+                   videos_imported        = GREATEST(publisher_sync_state.videos_imported, EXCLUDED.videos_imported),
+                   sync_count             = GREATEST(publisher_sync_state.sync_count, EXCLUDED.sync_count),
+                   last_synced_at         = GREATEST(publisher_sync_state.last_synced_at, EXCLUDED.last_synced_at)
+           RETURNING *
+           """)
+    Mono<PublisherSyncState> upsert(@Param("provider") VideoProvider provider,
+                                    @Param("publisher") String publisher,
+                                    @Param("lastPublishedAt") Instant lastPublishedAt,
+                                    @Param("lastExternalVideoId") String lastExternalVideoId,
+                                    @Param("lastPageToken") String lastPageToken,
+                                    @Param("videosSeen") long videosSeen,
+                                    @Param("videosImported") long videosImported,
+                                    @Param("syncCount") long syncCount,
+                                    @Param("lastSyncedAt") Instant lastSyncedAt);
+
+    default Mono<PublisherSyncState> upsert(PublisherSyncState state) {
+        return upsert(state.getProvider(), state.getPublisher(), state.getLastPublishedAt(),
+                state.getLastExternalVideoId(), state.getLastPageToken(), state.getVideosSeen(),
+                state.getVideosImported(), state.getSyncCount(), state.getLastSyncedAt());
+    }
+}
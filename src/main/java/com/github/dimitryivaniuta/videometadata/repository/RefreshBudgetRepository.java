@@ -0,0 +1,23 @@
+package com.github.dimitryivaniuta.videometadata.repository;
+
+import com.github.dimitryivaniuta.videometadata.model.VideoProvider;
+import com.github.dimitryivaniuta.videometadata.projection.RefreshBudgetRow;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+
+/**
+ * Per-provider, per-UTC-day refresh call counter in {@code refresh_budget},
+ * shared by every node so the daily quota holds across replicas.
+ */
+public interface RefreshBudgetRepository {
+
+    /**
+     * Reserves up to {@code wanted} calls of {@code day}'s {@code callsPerDay}.
+     * Concurrent reservations are serialized on the day's row.
+     */
+    Mono<RefreshBudgetRow> acquire(VideoProvider provider, LocalDate day, int wanted, long callsPerDay);
+
+    /** Gives back reserved calls that were not made. */
+    Mono<Long> release(VideoProvider provider, LocalDate day, int calls);
+}
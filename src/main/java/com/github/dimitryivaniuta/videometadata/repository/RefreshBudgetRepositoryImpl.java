@@ -0,0 +1,69 @@
+package com.github.dimitryivaniuta.videometadata.repository;
+
+import com.github.dimitryivaniuta.videometadata.model.VideoProvider;
+import com.github.dimitryivaniuta.videometadata.projection.RefreshBudgetRow;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+
+@Repository
+public class RefreshBudgetRepositoryImpl implements RefreshBudgetRepository {
+
+    private final DatabaseClient db;
+
+    public RefreshBudgetRepositoryImpl(ObjectProvider<DatabaseClient> dbProvider) {
+        this.db = dbProvider.getIfAvailable(); // null if R2DBC not configured
+    }
+
+    /*
+     * Reserve = one upsert on the day's row. SET expressions see the row as
+     * it was before the update, so last_grant records exactly what this call
+     * added; the row lock serializes nodes reserving at the same time.
+     */
+    private static final String ACQUIRE_SQL = """
+            INSERT INTO refresh_budget AS b (provider, day, used, last_grant)
+            VALUES (:provider, :day, LEAST(:wanted, :callsPerDay), LEAST(:wanted, :callsPerDay))
+            ON CONFLICT (provider, day) DO UPDATE
+                SET used       = b.used + LEAST(:wanted, GREATEST(0, :callsPerDay - b.used)),
+                    last_grant = LEAST(:wanted, GREATEST(0, :callsPerDay - b.used))
+            RETURNING last_grant, used
+            """;
+
+    private static final String RELEASE_SQL = """
+            UPDATE refresh_budget
+            SET used = GREATEST(0, used - :calls)
+            WHERE provider = :provider AND day = :day
+            """;
+
+    @Override
+    public Mono<RefreshBudgetRow> acquire(VideoProvider provider, LocalDate day, int wanted, long callsPerDay) {
+        if (db == null || wanted <= 0) {
+            return Mono.just(new RefreshBudgetRow(0, 0L));
+        }
+        return db.sql(ACQUIRE_SQL)
+                .bind("provider", (short) provider.ordinal())
+                .bind("day", day)
+                .bind("wanted", (long) wanted)
+                .bind("callsPerDay", callsPerDay)
+                .map((row, meta) -> new RefreshBudgetRow(
+                        row.get("last_grant", Integer.class),
+                        row.get("used", Long.class)))
+                .one();
+    }
+
+    @Override
+    public Mono<Long> release(VideoProvider provider, LocalDate day, int calls) {
+        if (db == null || calls <= 0) {
+            return Mono.just(0L);
+        }
+        return db.sql(RELEASE_SQL)
+                .bind("provider", (short) provider.ordinal())
+                .bind("day", day)
+                .bind("calls", (long) calls)
+                .fetch()
+                .rowsUpdated();
+    }
+}
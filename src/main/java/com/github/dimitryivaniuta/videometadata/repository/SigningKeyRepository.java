@@ -0,0 +1,30 @@
+package com.github.dimitryivaniuta.videometadata.repository;
+
+import com.github.dimitryivaniuta.videometadata.projection.SigningKeyRow;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * The signing keys every node signs and verifies with, plus the lease that
+ * lets one node at a time rotate them. Times are passed in, never read from
+ * the store's clock.
+ */
+public interface SigningKeyRepository {
+
+    /** All stored keys, oldest activation first. */
+    Flux<SigningKeyRow> findAll();
+
+    /** @return false if the kid or the activation slot is already taken */
+    Mono<Boolean> insert(SigningKeyRow row);
+
+    /** Deletes keys whose successor activated at or before {@code supersededBefore}. */
+    Mono<Long> deleteSuperseded(Instant supersededBefore);
+
+    /** @return true if {@code owner} now holds the rotation lock until {@code now + lease} */
+    Mono<Boolean> tryLock(String owner, Instant now, Duration lease);
+
+    Mono<Void> unlock(String owner);
+}
@@ -0,0 +1,99 @@
+package com.github.dimitryivaniuta.videometadata.repository;
+
+import com.github.dimitryivaniuta.videometadata.projection.SigningKeyRow;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/** {@link SigningKeyRepository} on the {@code signing_keys} and {@code signing_key_lock} tables. */
+public class SigningKeyRepositoryImpl implements SigningKeyRepository {
+
+    private static final String FIND_SQL =
+            "SELECT kid, alg, jwk, activates_at FROM signing_keys ORDER BY activates_at";
+
+    private static final String INSERT_SQL = """
+            INSERT INTO signing_keys (kid, alg, jwk, activates_at)
+            VALUES (:kid, :alg, :jwk, :activatesAt)
+            ON CONFLICT DO NOTHING
+            """;
+
+    private static final String DELETE_SQL = """
+            DELETE FROM signing_keys k
+            WHERE EXISTS (SELECT 1 FROM signing_keys n
+                          WHERE n.activates_at > k.activates_at
+                            AND n.activates_at <= :before)
+            """;
+
+    /* a lease, as for the outbox: a dead holder only blocks rotation until it runs out */
+    private static final String LOCK_SQL = """
+            UPDATE signing_key_lock
+            SET owner = :owner, locked_until = :until
+            WHERE name = 'rotation' AND (locked_until < :now OR owner = :owner)
+            """;
+
+    private static final String UNLOCK_SQL = """
+            UPDATE signing_key_lock
+            SET owner = NULL, locked_until = '-infinity'
+            WHERE name = 'rotation' AND owner = :owner
+            """;
+
+    private final DatabaseClient db;
+
+    public SigningKeyRepositoryImpl(DatabaseClient db) {
+        this.db = db;
+    }
+
+    @Override
+    public Flux<SigningKeyRow> findAll() {
+        return db.sql(FIND_SQL)
+                .map((row, meta) -> new SigningKeyRow(
+                        row.get("kid", String.class),
+                        row.get("alg", String.class),
+                        row.get("jwk", String.class),
+                        row.get("activates_at", Instant.class)))
+                .all();
+    }
+
+    @Override
+    public Mono<Boolean> insert(SigningKeyRow row) {
+        return db.sql(INSERT_SQL)
+                .bind("kid", row.kid())
+                .bind("alg", row.alg())
+                .bind("jwk", row.jwk())
+                .bind("activatesAt", row.activatesAt())
+                .fetch()
+                .rowsUpdated()
+                .map(n -> n > 0);
+    }
+
+    @Override
+    public Mono<Long> deleteSuperseded(Instant supersededBefore) {
+        return db.sql(DELETE_SQL)
+                .bind("before", supersededBefore)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    @Override
+    public Mono<Boolean> tryLock(String owner, Instant now, Duration lease) {
+        return db.sql(LOCK_SQL)
+                .bind("owner", owner)
+                .bind("now", now)
+                .bind("until", now.plus(lease))
+                .fetch()
+                .rowsUpdated()
+                .map(n -> n > 0);
+    }
+
+    @Override
+    public Mono<Void> unlock(String owner) {
+        return db.sql(UNLOCK_SQL)
+                .bind("owner", owner)
+                .fetch()
+                .rowsUpdated()
+                .then();
+    }
+}
@@ -1,6 +1,7 @@
 package com.github.dimitryivaniuta.videometadata.repository;
 
 import com.github.dimitryivaniuta.videometadata.model.User;
+import org.springframework.data.r2dbc.repository.Modifying;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import reactor.core.publisher.Flux;
@@ -142,4 +143,8 @@ Mono<Long> count();
     """)
     Flux<User> findAllByIdIn(Collection<Long> ids);
 
+    @Modifying
+    @Query("UPDATE users SET password = :password, updated_at = now() WHERE username = :username")
+    Mono<Integer> updatePassword(String username, String password);
+
 }
\ No newline at end of file
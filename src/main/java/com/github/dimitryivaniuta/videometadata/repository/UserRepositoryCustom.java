@@ -1,10 +1,22 @@
 package com.github.dimitryivaniuta.videometadata.repository;
 
 import com.github.dimitryivaniuta.videometadata.model.User;
+import com.github.dimitryivaniuta.videometadata.projection.UserWithRoles;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.time.Instant;
 import java.util.Collection;
+import java.util.Map;
 
 public interface UserRepositoryCustom {
     Flux<User> findAllByIds(Collection<Long> ids);
-}
\ No newline at end of file
+
+    /** The user and its roles from one joined query; empty when there is no such user. */
+    Mono<UserWithRoles> findWithRolesByUsername(String username);
+
+    Mono<UserWithRoles> findWithRolesById(Long id);
+
+    /** Sets last_login_at of many users in one statement, never moving it back; returns rows updated. */
+    Mono<Integer> updateLastLoginAt(Map<Long, Instant> loginsByUserId);
+}
@@ -1,17 +1,25 @@
 package com.github.dimitryivaniuta.videometadata.repository;
 
+import com.github.dimitryivaniuta.videometadata.model.Role;
 import com.github.dimitryivaniuta.videometadata.model.User;
 import com.github.dimitryivaniuta.videometadata.model.UserStatus;
+import com.github.dimitryivaniuta.videometadata.projection.UserWithRoles;
+import io.r2dbc.spi.Row;
 import lombok.RequiredArgsConstructor;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.r2dbc.core.DatabaseClient;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Repository
 @ConditionalOnBean(DatabaseClient.class)
@@ -56,31 +64,100 @@ public class UserRepositoryCustomImpl implements UserRepositoryCustom {
         }
 
         return spec
-                .map((row, meta) -> {
-                    Long   id          = row.get("id", Long.class);
-                    String username    = row.get("username", String.class);
-                    String password    = row.get("password", String.class);
-                    String email       = row.get("email", String.class);
-
-                    // <-- THIS is the important change:
-                    Number statusNum   = row.get("status", Number.class);
-                    UserStatus status  = UserStatus.fromCode(statusNum);
-
-                    Instant createdAt  = row.get("created_at", Instant.class);
-                    Instant updatedAt  = row.get("updated_at", Instant.class);
-                    Instant lastLogin  = row.get("last_login_at", Instant.class);
-
-                    return User.builder()
-                            .id(id)
-                            .username(username)
-                            .password(password)
-                            .email(email)
-                            .status(status)
-                            .createdAt(createdAt)
-                            .updatedAt(updatedAt)
-                            .lastLoginAt(lastLogin)
-                            .build();
-                })
+                .map((row, meta) -> toUser(row))
                 .all();
     }
+
+    @Override
+    public Mono<UserWithRoles> findWithRolesByUsername(String username) {
+        return findWithRoles("u.username = $1", username);
+    }
+
+    @Override
+    public Mono<UserWithRoles> findWithRolesById(Long id) {
+        return findWithRoles("u.id = $1", id);
+    }
+
+    @Override
+    public Mono<Integer> updateLastLoginAt(Map<Long, Instant> loginsByUserId) {
+        if (loginsByUserId == null || loginsByUserId.isEmpty()) {
+            return Mono.just(0);
+        }
+        List<Map.Entry<Long, Instant>> entries = new ArrayList<>(loginsByUserId.entrySet());
+
+        StringBuilder sql = new StringBuilder("""
+            UPDATE users u
+            SET last_login_at = GREATEST(u.last_login_at, v.ts)
+            FROM (VALUES
+        """);
+        for (int i = 0; i < entries.size(); i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append("($").append(2 * i + 1).append("::bigint, $").append(2 * i + 2).append("::timestamptz)");
+        }
+        sql.append(") AS v(id, ts) WHERE u.id = v.id");
+
+        DatabaseClient.GenericExecuteSpec spec = db.sql(sql.toString());
+        for (int i = 0; i < entries.size(); i++) {
+            spec = spec.bind(2 * i, entries.get(i).getKey())
+                    .bind(2 * i + 1, entries.get(i).getValue());
+        }
+        return spec.fetch().rowsUpdated().map(Long::intValue);
+    }
+
+    private Mono<UserWithRoles> findWithRoles(String where, Object key) {
+        // a user without roles still comes back, with an empty set
+        return db.sql("""
+            SELECT u.id,
+                   u.username,
+                   u.password,
+                   u.email,
+                   u.status,
+                   u.created_at,
+                   u.updated_at,
+                   u.last_login_at,
+                   array_agg(r.role) FILTER (WHERE r.role IS NOT NULL) AS roles
+            FROM users u
+            LEFT JOIN user_roles r ON r.user_id = u.id
+            WHERE %s
+            GROUP BY u.id
+            """.formatted(where))
+                .bind(0, key)
+                .map((row, meta) -> new UserWithRoles(toUser(row), roles(row.get("roles", String[].class))))
+                .one();
+    }
+
+    private static Set<Role> roles(String[] names) {
+        if (names == null) {
+            return Set.of();
+        }
+        return Arrays.stream(names).map(Role::valueOf).collect(Collectors.toUnmodifiableSet());
+    }
+
+    private static User toUser(Row row) {
+        Long   id          = row.get("id", Long.class);
+        String username    = row.get("username", String.class);
+        String password    = row.get("password", String.class);
+        String email       = row.get("email", String.class);
+
+        // <-- THIS is the important change:
+        Number statusNum   = row.get("status", Number.class);
+        UserStatus status  = UserStatus.fromCode(statusNum);
+
+        Instant createdAt  = row.get("created_at", Instant.class);
+        Instant updatedAt  = row.get("updated_at", Instant.class);
+        Instant lastLogin  = row.get("last_login_at", Instant.class);
+
+        return User.builder()
+                .id(id)
+                .username(username)
+                .password(password)
+                .email(email)
+                .status(status)
+                .createdAt(createdAt)
+                .updatedAt(updatedAt)
+                .lastLoginAt(lastLogin)
+                .build();
+    }
 }
@@ -0,0 +1,29 @@
+package com.github.dimitryivaniuta.videometadata.repository;
+
+import com.github.dimitryivaniuta.videometadata.domain.event.VideoImportedEvent;
+import com.github.dimitryivaniuta.videometadata.domain.event.VideoMetadataChangedEvent;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+/**
+ * Write side of the {@code videos_read} read model, owned by the video projection.
+ */
+public interface VideoReadRepository {
+
+    /**
+     * Inserts or updates one row per event in a single statement. Columns an
+     * event carries as null keep their current value, so redelivered and
+     * replayed events are harmless. Event ids must be unique within the call.
+     */
+    Mono<Long> upsert(Collection<VideoImportedEvent> events);
+
+    /**
+     * Applies refreshed metadata to existing rows in a single statement; rows
+     * not in the read model yet are skipped. Event ids must be unique within the call.
+     */
+    Mono<Long> applyChanges(Collection<VideoMetadataChangedEvent> events);
+
+    /** Empties the read model ahead of a rebuild. */
+    Mono<Void> truncate();
+}
@@ -0,0 +1,153 @@
+package com.github.dimitryivaniuta.videometadata.repository;
+
+import com.github.dimitryivaniuta.videometadata.domain.event.VideoImportedEvent;
+import com.github.dimitryivaniuta.videometadata.domain.event.VideoMetadataChangedEvent;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public class VideoReadRepositoryImpl implements VideoReadRepository {
+
+    private final DatabaseClient db;
+
+    public VideoReadRepositoryImpl(ObjectProvider<DatabaseClient> dbProvider) {
+        this.db = dbProvider.getIfAvailable(); // null if R2DBC not configured
+    }
+
+    private static final String UPSERT_SQL = """
+            INSERT INTO videos_read (id, provider, category, external_video_id, title, description,
+                                     duration_ms, upload_date, created_at, created_user_id)
+            SELECT x.id, x.provider, x.category, x.external_video_id, COALESCE(x.title, ''), x.description,
+                   x.duration_ms, x.upload_date, x.created_at, x.created_user_id
+            FROM unnest(CAST(:ids AS bigint[]),
+                        CAST(:providers AS smallint[]),
+                        CAST(:categories AS smallint[]),
+                        CAST(:externalIds AS text[]),
+                        CAST(:titles AS text[]),
+                        CAST(:descriptions AS text[]),
+                        CAST(:durations AS bigint[]),
+                        CAST(:uploadDates AS timestamptz[]),
+                        CAST(:createdAts AS timestamptz[]),
+                        CAST(:userIds AS bigint[]))
+                 AS x(id, provider, category, external_video_id, title, description,
+                      duration_ms, upload_date, created_at, created_user_id)
+            ON CONFLICT (id) DO UPDATE
+                SET provider          = EXCLUDED.provider,
+                    category          = COALESCE(EXCLUDED.category, videos_read.category),
+                    external_video_id = COALESCE(EXCLUDED.external_video_id, videos_read.external_video_id),
+                    title             = COALESCE(NULLIF(EXCLUDED.title, ''), videos_read.title),
+                    description       = COALESCE(EXCLUDED.description, videos_read.description),
+                    duration_ms       = COALESCE(EXCLUDED.duration_ms, videos_read.duration_ms),
+                    upload_date       = COALESCE(EXCLUDED.upload_date, videos_read.upload_date),
+                    created_at        = COALESCE(EXCLUDED.created_at, videos_read.created_at),
+                    created_user_id   = COALESCE(EXCLUDED.created_user_id, videos_read.created_user_id)
+            """;
+
+    private static final String APPLY_CHANGES_SQL = """
+            UPDATE videos_read r
+            SET title       = COALESCE(LEFT(x.title, 255), r.title),
+                description = COALESCE(x.description, r.description),
+                duration_ms = COALESCE(x.duration_ms, r.duration_ms)
+            FROM unnest(CAST(:ids AS bigint[]),
+                        CAST(:titles AS text[]),
+                        CAST(:descriptions AS text[]),
+                        CAST(:durations AS bigint[]))
+                 AS x(id, title, description, duration_ms)
+            WHERE r.id = x.id
+            """;
+
+    @Override
+    public Mono<Long> upsert(Collection<VideoImportedEvent> events) {
+        if (db == null || events.isEmpty()) {
+            return Mono.just(0L);
+        }
+        List<VideoImportedEvent> list = List.copyOf(events);
+        int n = list.size();
+        Long[]   ids          = new Long[n];
+        Short[]  providers    = new Short[n];
+        Short[]  categories   = new Short[n];
+        String[] externalIds  = new String[n];
+        String[] titles       = new String[n];
+        String[] descriptions = new String[n];
+        Long[]   durations    = new Long[n];
+        String[] uploadDates  = new String[n];
+        String[] createdAts   = new String[n];
+        Long[]   userIds      = new Long[n];
+
+        for (int i = 0; i < n; i++) {
+            VideoImportedEvent e = list.get(i);
+            ids[i]          = e.id();
+            // same ordinal encoding as the Category/Provider writing converters
+            providers[i]    = (short) e.provider().ordinal();
+            categories[i]   = e.category() == null ? null : (short) e.category().ordinal();
+            externalIds[i]  = e.externalVideoId();
+            titles[i]       = e.title();
+            descriptions[i] = e.description();
+            durations[i]    = e.durationMs();
+            uploadDates[i]  = text(e.uploadDate());
+            createdAts[i]   = text(e.createdAt());
+            userIds[i]      = e.createdUserId();
+        }
+
+        return db.sql(UPSERT_SQL)
+                .bind("ids", ids)
+                .bind("providers", providers)
+                .bind("categories", categories)
+                .bind("externalIds", externalIds)
+                .bind("titles", titles)
+                .bind("descriptions", descriptions)
+                .bind("durations", durations)
+                .bind("uploadDates", uploadDates)
+                .bind("createdAts", createdAts)
+                .bind("userIds", userIds)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    @Override
+    public Mono<Long> applyChanges(Collection<VideoMetadataChangedEvent> events) {
+        if (db == null || events.isEmpty()) {
+            return Mono.just(0L);
+        }
+        List<VideoMetadataChangedEvent> list = List.copyOf(events);
+        int n = list.size();
+        Long[]   ids          = new Long[n];
+        String[] titles       = new String[n];
+        String[] descriptions = new String[n];
+        Long[]   durations    = new Long[n];
+
+        for (int i = 0; i < n; i++) {
+            VideoMetadataChangedEvent e = list.get(i);
+            ids[i]          = e.id();
+            titles[i]       = e.title();
+            descriptions[i] = e.description();
+            durations[i]    = e.durationMs();
+        }
+
+        return db.sql(APPLY_CHANGES_SQL)
+                .bind("ids", ids)
+                .bind("titles", titles)
+                .bind("descriptions", descriptions)
+                .bind("durations", durations)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    @Override
+    public Mono<Void> truncate() {
+        if (db == null) {
+            return Mono.empty();
+        }
+        return db.sql("TRUNCATE videos_read").then();
+    }
+
+    private static String text(Instant instant) {
+        return instant == null ? null : instant.toString();
+    }
+}
@@ -2,6 +2,8 @@ package com.github.dimitryivaniuta.videometadata.repository;
 
 import com.github.dimitryivaniuta.videometadata.model.Video;
 import com.github.dimitryivaniuta.videometadata.projection.CountRow;
+import com.github.dimitryivaniuta.videometadata.projection.RefreshBacklogRow;
+import org.springframework.data.r2dbc.repository.Modifying;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
@@ -10,10 +12,56 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import com.github.dimitryivaniuta.videometadata.model.VideoProvider;
 
-public interface VideoRepository extends ReactiveCrudRepository<Video, Long> {
+import java.time.Instant;
+import java.util.Collection;
+
+public interface VideoRepository extends ReactiveCrudRepository<Video, Long>, VideoRepositoryCustom {
 
     Mono<Video> findByProviderAndExternalVideoId(VideoProvider provider, String externalVideoId);
 
+    Flux<Video> findAllByProviderAndExternalVideoIdIn(VideoProvider provider, Collection<String> externalVideoIds);
+
+    /* ---- Metadata refresh ---- */
+
+    /**
+     * Claims up to {@code limit} of the oldest-checked stale rows for
+     * {@code leaseSeconds}. Rows locked or leased by another node are skipped,
+     * so replicas refresh disjoint sets; a claim ends with
+     * {@link #applyRefresh}, {@link #releaseRefreshClaims} or the lease.
+     */
+    @Query("""
+           UPDATE videos v
+           SET refresh_claimed_until = now() + make_interval(secs => :leaseSeconds)
+           WHERE v.id IN (SELECT id
+                          FROM videos
+                          WHERE provider = :provider
+                            AND COALESCE(last_refreshed_at, created_at) < :staleBefore
+                            AND (refresh_claimed_until IS NULL OR refresh_claimed_until < now())
+                          ORDER BY COALESCE(last_refreshed_at, created_at)
+                          LIMIT :limit
+                          FOR UPDATE SKIP LOCKED)
+           RETURNING v.*
+           """)
+    Flux<Video> claimRefreshCandidates(@Param("provider") VideoProvider provider,
+                                       @Param("staleBefore") Instant staleBefore,
+                                       @Param("limit") int limit,
+                                       @Param("leaseSeconds") double leaseSeconds);
+
+    /** Gives claimed rows that will not be refreshed in this run back to other nodes. */
+    @Modifying
+    @Query("UPDATE videos SET refresh_claimed_until = NULL WHERE id IN (:ids)")
+    Mono<Integer> releaseRefreshClaims(@Param("ids") Collection<Long> ids);
+
+    @Query("""
+           SELECT COUNT(*)::bigint AS cnt,
+                  MIN(COALESCE(v.last_refreshed_at, v.created_at)) AS oldest
+           FROM videos v
+           WHERE v.provider = :provider
+             AND COALESCE(v.last_refreshed_at, v.created_at) < :staleBefore
+           """)
+    Mono<RefreshBacklogRow> refreshBacklog(@Param("provider") VideoProvider provider,
+                                           @Param("staleBefore") Instant staleBefore);
+
     /* ---- Count with optional provider filter ---- */
 /*    @Query("""
            SELECT COUNT(*) 
@@ -0,0 +1,36 @@
+package com.github.dimitryivaniuta.videometadata.repository;
+
+import com.github.dimitryivaniuta.videometadata.domain.event.VideoMetadataChangedEvent;
+import com.github.dimitryivaniuta.videometadata.model.Video;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface VideoRepositoryCustom {
+
+    /**
+     * Writes one refresh batch: new metadata for {@code changed} rows and the
+     * {@code last_refreshed_at} stamp for every id in {@code checkedIds}, whose
+     * refresh claims end with it. The
+     * same statement appends {@code events} to the outbox and to the
+     * {@code domain_events} log, one per video, for the videos that still exist.
+     *
+     * @return number of change events appended
+     */
+    Mono<Long> applyRefresh(List<Video> changed, Collection<VideoMetadataChangedEvent> events,
+                            Collection<Long> checkedIds, Instant refreshedAt);
+
+    /**
+     * Inserts new videos in one statement, skipping rows that already exist
+     * under the (source, external_video_id) constraint. The same statement
+     * appends a {@code VideoImportedEvent} to the outbox and to the
+     * {@code domain_events} log for every inserted row, so an event exists if
+     * and only if its video was written.
+     *
+     * @return the inserted rows (id, provider, external id, created_at)
+     */
+    Flux<Video> insertBatch(List<Video> videos);
+}
@@ -0,0 +1,235 @@
+package com.github.dimitryivaniuta.videometadata.repository;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.dimitryivaniuta.videometadata.domain.event.VideoImportedEvent;
+import com.github.dimitryivaniuta.videometadata.domain.event.VideoMetadataChangedEvent;
+import com.github.dimitryivaniuta.videometadata.model.Video;
+import com.github.dimitryivaniuta.videometadata.model.VideoProvider;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Repository
+public class VideoRepositoryCustomImpl implements VideoRepositoryCustom {
+
+    private final DatabaseClient db;
+    private final ObjectMapper mapper;
+
+    public VideoRepositoryCustomImpl(ObjectProvider<DatabaseClient> dbProvider, ObjectMapper mapper) {
+        this.db = dbProvider.getIfAvailable(); // null if R2DBC not configured
+        this.mapper = mapper;
+    }
+
+    /*
+     * One statement per batch whatever its size: the batch travels as parallel
+     * arrays and is joined back via unnest(). Checked-but-unchanged rows carry
+     * NULLs, so COALESCE keeps their columns and only the stamp moves. Rows
+     * with a change event carry its payload, which goes to the outbox and the
+     * domain_events log in the same statement, so an event exists if and only
+     * if its update was written.
+     */
+    private static final String APPLY_REFRESH_SQL = """
+            WITH x AS (
+                SELECT *
+                FROM unnest(CAST(:ids AS bigint[]),
+                            CAST(:titles AS text[]),
+                            CAST(:descriptions AS text[]),
+                            CAST(:durations AS bigint[]),
+                            CAST(:views AS bigint[]),
+                            CAST(:payloads AS jsonb[]))
+                     AS x(id, title, description, duration_ms, view_count, payload)
+            ), u AS (
+                UPDATE videos v
+                SET title             = COALESCE(LEFT(x.title, 255), v.title),
+                    description       = COALESCE(x.description, v.description),
+                    duration_ms       = COALESCE(x.duration_ms, v.duration_ms),
+                    view_count        = COALESCE(x.view_count, v.view_count),
+                    last_refreshed_at = :refreshedAt,
+                    refresh_claimed_until = NULL
+                FROM x
+                WHERE v.id = x.id
+                RETURNING v.id, x.payload
+            ), o AS (
+                INSERT INTO outbox (aggregate_type, aggregate_id, event_type, payload)
+                SELECT 'video', u.id, :eventType, u.payload FROM u WHERE u.payload IS NOT NULL
+            ), l AS (
+                INSERT INTO domain_events (aggregate_type, aggregate_id, event_type, payload, occurred_at)
+                SELECT 'video', u.id, :eventType, u.payload, :refreshedAt
+                FROM u WHERE u.payload IS NOT NULL ORDER BY u.id
+            )
+            SELECT count(*) AS events FROM u WHERE u.payload IS NOT NULL
+            """;
+
+    /*
+     * Video rows, their outbox events and their domain_events log entries in
+     * one statement (hence one implicit transaction). Payloads are built in
+     * Java without id/createdAt; those are merged in from RETURNING, and only
+     * for rows that were actually inserted.
+     */
+    private static final String INSERT_BATCH_SQL = """
+            WITH x AS (
+                SELECT *
+                FROM unnest(CAST(:titles AS text[]),
+                            CAST(:sources AS text[]),
+                            CAST(:durations AS bigint[]),
+                            CAST(:descriptions AS text[]),
+                            CAST(:categories AS smallint[]),
+                            CAST(:providers AS smallint[]),
+                            CAST(:externalIds AS text[]),
+                            CAST(:uploadDates AS timestamptz[]),
+                            CAST(:userIds AS bigint[]),
+                            CAST(:views AS bigint[]),
+                            CAST(:payloads AS jsonb[]))
+                     AS x(title, source, duration_ms, description, category, provider,
+                          external_video_id, upload_date, created_user_id, view_count, payload)
+            ), v AS (
+                INSERT INTO videos (title, source, duration_ms, description, category, provider,
+                                    external_video_id, upload_date, created_user_id, view_count)
+                SELECT LEFT(COALESCE(x.title, ''), 255), x.source, COALESCE(x.duration_ms, 0),
+                       COALESCE(x.description, ''), x.category, x.provider, x.external_video_id,
+                       COALESCE(x.upload_date, now()), x.created_user_id, x.view_count
+                FROM x
+                ON CONFLICT (source, external_video_id) DO NOTHING
+                RETURNING id, source, provider, external_video_id, created_at
+            ), ev AS (
+                SELECT v.id, v.created_at,
+                       x.payload || jsonb_build_object(
+                               'id', v.id,
+                               'createdAt', to_char(v.created_at AT TIME ZONE 'UTC', 'YYYY-MM-DD"T"HH24:MI:SS.US"Z"'))
+                           AS payload
+                FROM v
+                JOIN x ON x.source = v.source AND x.external_video_id = v.external_video_id
+            ), o AS (
+                INSERT INTO outbox (aggregate_type, aggregate_id, event_type, payload)
+                SELECT 'video', ev.id, :eventType, ev.payload FROM ev
+            ), l AS (
+                INSERT INTO domain_events (aggregate_type, aggregate_id, event_type, payload, occurred_at)
+                SELECT 'video', ev.id, :eventType, ev.payload, ev.created_at FROM ev ORDER BY ev.id
+            )
+            SELECT id, provider, external_video_id, created_at FROM v
+            """;
+
+    @Override
+    public Mono<Long> applyRefresh(List<Video> changed, Collection<VideoMetadataChangedEvent> events,
+                                   Collection<Long> checkedIds, Instant refreshedAt) {
+        if (db == null || checkedIds.isEmpty()) {
+            return Mono.just(0L);
+        }
+
+        Map<Long, Video> byId = new LinkedHashMap<>();
+        checkedIds.forEach(id -> byId.put(id, null));
+        changed.forEach(v -> byId.put(v.getId(), v));
+        Map<Long, VideoMetadataChangedEvent> eventsById = new HashMap<>();
+        events.forEach(e -> eventsById.put(e.id(), e));
+
+        int n = byId.size();
+        Long[]   ids          = new Long[n];
+        String[] titles       = new String[n];
+        String[] descriptions = new String[n];
+        Long[]   durations    = new Long[n];
+        Long[]   views        = new Long[n];
+        String[] payloads     = new String[n];
+
+        int i = 0;
+        for (Map.Entry<Long, Video> e : byId.entrySet()) {
+            ids[i] = e.getKey();
+            Video v = e.getValue();
+            if (v != null) {
+                titles[i]       = v.getTitle();
+                descriptions[i] = v.getDescription();
+                durations[i]    = v.getDurationMs();
+                views[i]        = v.getViewCount();
+            }
+            VideoMetadataChangedEvent event = eventsById.get(e.getKey());
+            payloads[i] = event == null ? null : payload(event);
+            i++;
+        }
+
+        return db.sql(APPLY_REFRESH_SQL)
+                .bind("refreshedAt", refreshedAt)
+                .bind("ids", ids)
+                .bind("titles", titles)
+                .bind("descriptions", descriptions)
+                .bind("durations", durations)
+                .bind("views", views)
+                .bind("payloads", payloads)
+                .bind("eventType", VideoMetadataChangedEvent.class.getSimpleName())
+                .map((row, meta) -> row.get("events", Long.class))
+                .one();
+    }
+
+    @Override
+    public Flux<Video> insertBatch(List<Video> videos) {
+        if (db == null || videos.isEmpty()) {
+            return Flux.empty();
+        }
+
+        int n = videos.size();
+        String[] titles       = new String[n];
+        String[] sources      = new String[n];
+        Long[]   durations    = new Long[n];
+        String[] descriptions = new String[n];
+        Short[]  categories   = new Short[n];
+        Short[]  providers    = new Short[n];
+        String[] externalIds  = new String[n];
+        String[] uploadDates  = new String[n];
+        Long[]   userIds      = new Long[n];
+        Long[]   views        = new Long[n];
+        String[] payloads     = new String[n];
+
+        for (int i = 0; i < n; i++) {
+            Video v = videos.get(i);
+            titles[i]       = v.getTitle();
+            sources[i]      = v.getSource();
+            durations[i]    = v.getDurationMs();
+            descriptions[i] = v.getDescription();
+            // same ordinal encoding as the Category/Provider writing converters
+            categories[i]   = v.getCategory() == null ? 0 : (short) v.getCategory().ordinal();
+            providers[i]    = (short) v.getProvider().ordinal();
+            externalIds[i]  = v.getExternalVideoId();
+            uploadDates[i]  = v.getUploadDate() == null ? null : v.getUploadDate().toString();
+            userIds[i]      = v.getCreatedUserId();
+            views[i]        = v.getViewCount();
+            payloads[i]     = payload(VideoImportedEvent.from(v));
+        }
+
+        return db.sql(INSERT_BATCH_SQL)
+                .bind("titles", titles)
+                .bind("sources", sources)
+                .bind("durations", durations)
+                .bind("descriptions", descriptions)
+                .bind("categories", categories)
+                .bind("providers", providers)
+                .bind("externalIds", externalIds)
+                .bind("uploadDates", uploadDates)
+                .bind("userIds", userIds)
+                .bind("views", views)
+                .bind("payloads", payloads)
+                .bind("eventType", VideoImportedEvent.class.getSimpleName())
+                .map((row, meta) -> Video.builder()
+                        .id(row.get("id", Long.class))
+                        .provider(VideoProvider.values()[row.get("provider", Short.class)])
+                        .externalVideoId(row.get("external_video_id", String.class))
+                        .createdAt(row.get("created_at", Instant.class))
+                        .build())
+                .all();
+    }
+
+    private String payload(Object event) {
+        try {
+            return mapper.writeValueAsString(event);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Cannot serialize outbox event " + event.getClass().getSimpleName(), ex);
+        }
+    }
+}
@@ -1,7 +1,10 @@
 package com.github.dimitryivaniuta.videometadata.service;
 
+import com.github.dimitryivaniuta.videometadata.config.PasswordHashingExecutor;
+import com.github.dimitryivaniuta.videometadata.service.revocation.TokenRevocationService;
 import com.github.dimitryivaniuta.videometadata.web.dto.CachedUser;
 import com.github.dimitryivaniuta.videometadata.web.dto.TokenResponse;
+import com.github.dimitryivaniuta.videometadata.web.dto.UserResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
@@ -11,8 +14,12 @@ import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.security.authentication.ReactiveAuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 import org.springframework.stereotype.Service;
+import org.springframework.security.oauth2.jwt.JwtException;
 import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Mono;
 
@@ -31,6 +38,7 @@ public class AuthService {
     private final JwtTokenProvider              tokenProvider;
     private final UserService                   userService;
     private final UserCacheService              userCache;
+    private final TokenRevocationService        revocations;
 
     /* ───────────── LOGIN ───────────── */
 
@@ -57,9 +65,10 @@ public Mono<TokenResponse> login(String username,
 
     /* 1 ─ authenticate  */
     return authManager.authenticate(creds)
-            /* map ONLY auth errors */
-            .onErrorMap(e -> new ResponseStatusException(
-                    HttpStatus.UNAUTHORIZED, "Invalid credentials"))
+            /* map ONLY auth errors; a full hashing queue is 503, not bad credentials */
+            .onErrorMap(e -> PasswordHashingExecutor.isRejected(e)
+                    ? PasswordHashingExecutor.busy(e)
+                    : new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid credentials"))
 
             /* 2 ─ issue access & refresh */
             .flatMap(auth -> issueTokens(auth)
@@ -85,18 +94,59 @@ public Mono<TokenResponse> login(String username,
                 .doOnNext(tr -> setRefreshCookie(resp, refresh));
     }
 
+    /* ───────────── LOGOUT ───────────── */
+
+    /**
+     * Revokes the caller's access token and, when the cookie is present, its
+     * refresh token; the cookie is cleared either way.
+     */
+    public Mono<Boolean> logout(ServerHttpRequest req, ServerHttpResponse resp) {
+        Mono<Void> access = ReactiveSecurityContextHolder.getContext()
+                .map(SecurityContext::getAuthentication)
+                .filter(JwtAuthenticationToken.class::isInstance)
+                .flatMap(auth -> revocations.revoke(((JwtAuthenticationToken) auth).getToken()));
+
+        String refresh = refreshCookie(req);
+        Mono<Void> refreshToken = refresh == null
+                ? Mono.empty()
+                : tokenProvider.verifyRefresh(refresh)
+                        .flatMap(revocations::revoke)
+                        // an expired or already revoked refresh token needs no revoking
+                        .onErrorResume(JwtException.class, e -> Mono.empty());
+
+        return access.then(refreshToken)
+                .then(Mono.fromRunnable(() -> clearRefreshCookie(resp)))
+                .thenReturn(true);
+    }
+
+    /** Revokes every token issued to the user so far, e.g. after a compromise or a role change. */
+    public Mono<Boolean> revokeAllForUser(long userId) {
+        return revocations.revokeAllForUser(userId).thenReturn(true);
+    }
+
     /* ───────────── HELPERS ──────────── */
 
+    private static String refreshCookie(ServerHttpRequest req) {
+        if (req == null || req.getCookies().getFirst(REFRESH_COOKIE) == null) {
+            return null;
+        }
+        String value = req.getCookies().getFirst(REFRESH_COOKIE).getValue();
+        return value.isBlank() ? null : value;
+    }
+
     private Mono<JwtTokenProvider.TokenPair> issueTokens(Authentication auth) {
         String uname = auth.getName();
 
-        return tokenProvider.issuePair(auth)
-                .flatMap(pair ->
-                        userService.findByUsername(uname)
-                                .switchIfEmpty(Mono.error(new UsernameNotFoundException(uname)))
-                                .flatMap(u -> userService.updateLastLoginAt(u.id()).thenReturn(u))
-                                .flatMap(u -> userCache.cacheUser(CachedUser.of(u)))
-                                .thenReturn(pair));
+        // both tokens carry the user's id; a password login already loaded the user
+        Mono<UserResponse> user = auth.getPrincipal() instanceof AuthenticatedUser principal
+                ? Mono.just(principal.getUser())
+                : userService.findByUsername(uname);
+        return user
+                .switchIfEmpty(Mono.error(new UsernameNotFoundException(uname)))
+                .flatMap(u -> tokenProvider.issuePair(auth, u.id())
+                        .flatMap(pair -> userService.updateLastLoginAt(u.id())
+                                .then(userCache.cacheUser(CachedUser.of(u)))
+                                .thenReturn(pair)));
     }
 
     private static void setRefreshCookie(ServerHttpResponse resp, String token) {
@@ -113,4 +163,17 @@ public Mono<TokenResponse> login(String username,
                 .build();
         resp.addCookie(cookie);
     }
+
+    private static void clearRefreshCookie(ServerHttpResponse resp) {
+        if (resp == null) {
+            return;
+        }
+        resp.addCookie(ResponseCookie.from(REFRESH_COOKIE, "")
+                .httpOnly(true)
+                .secure(true)
+                .path("/")
+                .maxAge(Duration.ZERO)
+                .sameSite("Strict")
+                .build());
+    }
 }
@@ -0,0 +1,25 @@
+package com.github.dimitryivaniuta.videometadata.service;
+
+import com.github.dimitryivaniuta.videometadata.web.dto.UserResponse;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+/**
+ * Principal of a password login, carrying the user loaded for it so tokens
+ * can be issued without loading the user again.
+ */
+@Getter
+@EqualsAndHashCode(callSuper = true)
+public class AuthenticatedUser extends User {
+
+    private final UserResponse user;
+
+    public AuthenticatedUser(UserResponse user, String password) {
+        super(user.username(), password, user.roles().stream()
+                .map(r -> new SimpleGrantedAuthority("ROLE_" + r))
+                .toList());
+        this.user = user;
+    }
+}
@@ -0,0 +1,21 @@
+package com.github.dimitryivaniuta.videometadata.service;
+
+import com.github.dimitryivaniuta.videometadata.web.dto.imports.BulkImportResult;
+import reactor.core.publisher.Flux;
+
+/**
+ * Imports large lists of (provider, externalVideoId) references.
+ */
+public interface BulkImportService {
+
+    /**
+     * Imports one reference per line, consuming {@code lines} as results are
+     * requested. Lines are JSON objects ({@code {"provider":"YOUTUBE","externalVideoId":"…"}},
+     * the same line-delimited JSON as {@code requests.jsonl}) or CSV
+     * {@code provider,externalVideoId}; blank lines, {@code #} comments and a CSV
+     * header are skipped.
+     *
+     * @return one result per reference line, in line order within each batch
+     */
+    Flux<BulkImportResult> importLines(Flux<String> lines);
+}
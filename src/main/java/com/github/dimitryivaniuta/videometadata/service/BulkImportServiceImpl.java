@@ -0,0 +1,267 @@
+package com.github.dimitryivaniuta.videometadata.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.dimitryivaniuta.videometadata.config.BulkImportProperties;
+import com.github.dimitryivaniuta.videometadata.config.VideoProvidersProperties;
+import com.github.dimitryivaniuta.videometadata.model.Video;
+import com.github.dimitryivaniuta.videometadata.model.VideoProvider;
+import com.github.dimitryivaniuta.videometadata.repository.VideoRepository;
+import com.github.dimitryivaniuta.videometadata.service.outbox.OutboxAppendedEvent;
+import com.github.dimitryivaniuta.videometadata.service.videoprovider.ExternalMetadataClient;
+import com.github.dimitryivaniuta.videometadata.web.dto.CachedUser;
+import com.github.dimitryivaniuta.videometadata.web.dto.imports.BulkImportResult;
+import com.github.dimitryivaniuta.videometadata.web.dto.imports.BulkImportResult.Status;
+import com.github.dimitryivaniuta.videometadata.web.dto.imports.Metadata;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Streaming bulk import.
+ * <p>
+ * Lines are parsed and deduplicated in-file one at a time, then grouped into
+ * batches. Each batch costs one DB lookup per provider for already stored ids,
+ * provider batch calls for the rest (bounded concurrency) and one multi-row
+ * INSERT that also appends the VideoImportedEvent outbox rows. Upstream lines
+ * are only pulled as batches complete, so the upload is never held in memory.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BulkImportServiceImpl implements BulkImportService {
+
+    private final ExternalMetadataClient meta;
+    private final VideoRepository videoRepo;
+    private final VideoProvidersProperties providerProps;
+    private final BulkImportProperties props;
+    private final UserCacheService userCache;
+    private final ApplicationEventPublisher publisher;
+    private final ObjectMapper mapper;
+
+    /** A parsed line; {@code result} is set when the line is already decided (invalid, duplicate). */
+    private record Ref(long line, VideoProvider provider, String externalVideoId, BulkImportResult result) { }
+
+    /** One provider batch call: what was asked, what came back, or why it failed. */
+    private record Fetched(List<String> ids, List<Metadata> items, Throwable error) { }
+
+    @Override
+    public Flux<BulkImportResult> importLines(Flux<String> lines) {
+        return resolveUserId().flatMapMany(uid -> {
+            Set<String> seen = new HashSet<>();
+            return lines.index()
+                    .<Ref>handle((t, sink) -> {
+                        Ref ref = parse(t.getT1() + 1, t.getT2());
+                        if (ref != null) {
+                            sink.next(dedupe(ref, seen));
+                        }
+                    })
+                    .buffer(Math.max(1, props.getBatchSize()))
+                    .flatMapSequential(batch -> importBatch(uid, batch), Math.max(1, props.getBatchConcurrency()));
+        });
+    }
+
+    private Flux<BulkImportResult> importBatch(Long uid, List<Ref> batch) {
+        Map<VideoProvider, List<Ref>> byProvider = batch.stream()
+                .filter(ref -> ref.result() == null)
+                .collect(Collectors.groupingBy(Ref::provider, LinkedHashMap::new, Collectors.toList()));
+
+        return Flux.fromIterable(byProvider.entrySet())
+                .concatMap(e -> importProvider(uid, e.getKey(), e.getValue()))
+                .concatWith(Flux.fromStream(batch.stream().map(Ref::result).filter(r -> r != null)))
+                .collectSortedList(Comparator.comparingLong(BulkImportResult::line))
+                .flatMapIterable(Function.identity());
+    }
+
+    private Flux<BulkImportResult> importProvider(Long uid, VideoProvider provider, List<Ref> refs) {
+        if (!providerProps.getProviders().containsKey(provider.name().toLowerCase(Locale.ROOT))) {
+            return Flux.fromIterable(refs).map(ref -> failed(ref, "Unknown provider: " + provider));
+        }
+        Map<String, Ref> byId = refs.stream()
+                .collect(Collectors.toMap(Ref::externalVideoId, Function.identity(), (a, b) -> a, LinkedHashMap::new));
+
+        return videoRepo.findAllByProviderAndExternalVideoIdIn(provider, byId.keySet())
+                .collectMap(Video::getExternalVideoId, Video::getId)
+                .flatMapMany(existing -> {
+                    List<BulkImportResult> known = new ArrayList<>(existing.size());
+                    List<String> missing = new ArrayList<>();
+                    byId.forEach((id, ref) -> {
+                        if (existing.containsKey(id)) {
+                            known.add(BulkImportResult.of(ref.line(), provider, id, Status.EXISTS, existing.get(id)));
+                        } else {
+                            missing.add(id);
+                        }
+                    });
+                    return fetchAll(provider, missing)
+                            .flatMapMany(fetched -> store(uid, provider, byId, fetched))
+                            .startWith(known);
+                })
+                .onErrorResume(ex -> {
+                    log.warn("Bulk import batch of {} {} refs failed: {}", refs.size(), provider, ex.toString());
+                    return Flux.fromIterable(refs).map(ref -> failed(ref, ex.toString()));
+                });
+    }
+
+    /** Provider calls in chunks of the adapter's batch size, {@code fetchConcurrency} at a time. */
+    private Mono<List<Fetched>> fetchAll(VideoProvider provider, List<String> ids) {
+        if (ids.isEmpty()) {
+            return Mono.just(List.of());
+        }
+        int chunk = Math.max(1, meta.maxBatchSize(provider));
+        return Flux.fromIterable(ids)
+                .buffer(chunk)
+                .flatMap(part -> (chunk == 1
+                                ? meta.fetch(provider, part.getFirst()).flux()
+                                : meta.fetchBatch(provider, part))
+                                .collectList()
+                                .map(items -> new Fetched(part, items, null))
+                                .onErrorResume(ex -> Mono.just(new Fetched(part, List.of(), ex))),
+                        Math.max(1, props.getFetchConcurrency()))
+                .collectList();
+    }
+
+    private Flux<BulkImportResult> store(Long uid, VideoProvider provider, Map<String, Ref> byId,
+                                         List<Fetched> fetched) {
+        List<BulkImportResult> results = new ArrayList<>();
+        List<Video> toInsert = new ArrayList<>();
+        for (Fetched f : fetched) {
+            Map<String, Metadata> items = f.items().stream()
+                    .collect(Collectors.toMap(Metadata::externalVideoId, Function.identity(), (a, b) -> a));
+            for (String id : f.ids()) {
+                Ref ref = byId.get(id);
+                Metadata md = items.get(id);
+                if (f.error() != null) {
+                    results.add(failed(ref, f.error().toString()));
+                } else if (md == null) {
+                    results.add(BulkImportResult.of(ref.line(), provider, id, Status.NOT_FOUND, null));
+                } else {
+                    toInsert.add(newVideo(uid, provider, md));
+                }
+            }
+        }
+        if (toInsert.isEmpty()) {
+            return Flux.fromIterable(results);
+        }
+
+        return videoRepo.insertBatch(toInsert)
+                .collectMap(Video::getExternalVideoId)
+                .flatMapIterable(inserted -> {
+                    if (!inserted.isEmpty()) {
+                        // events went to the outbox with the rows; let the relay pick them up now
+                        publisher.publishEvent(new OutboxAppendedEvent(inserted.size()));
+                    }
+                    for (Video v : toInsert) {
+                        Ref ref = byId.get(v.getExternalVideoId());
+                        Video row = inserted.get(v.getExternalVideoId());
+                        if (row == null) {
+                            // stored concurrently by another import (ON CONFLICT DO NOTHING)
+                            results.add(BulkImportResult.of(ref.line(), provider, ref.externalVideoId(), Status.EXISTS, null));
+                            continue;
+                        }
+                        v.setId(row.getId());
+                        results.add(BulkImportResult.of(ref.line(), provider, ref.externalVideoId(), Status.IMPORTED, v.getId()));
+                    }
+                    return results;
+                });
+    }
+
+    /* ─── parsing ─────────────────────────────────────────────── */
+
+    /** Parses one line; {@code null} for blank lines, comments and a CSV header. */
+    private Ref parse(long line, String raw) {
+        String text = raw.strip();
+        if (text.isEmpty() || text.startsWith("#")) {
+            return null;
+        }
+        String provider;
+        String externalId;
+        if (text.startsWith("{")) {
+            try {
+                JsonNode node = mapper.readTree(text);
+                provider   = node.path("provider").asText(null);
+                externalId = node.path("externalVideoId").asText(null);
+            } catch (Exception ex) {
+                return invalid(line, "Malformed JSON");
+            }
+        } else {
+            String[] cols = text.split(",", -1);
+            if (cols.length != 2) {
+                return invalid(line, "Expected provider,externalVideoId");
+            }
+            provider   = unquote(cols[0]);
+            externalId = unquote(cols[1]);
+            if (line == 1 && "provider".equalsIgnoreCase(provider)) {
+                return null;
+            }
+        }
+        if (provider == null || provider.isBlank() || externalId == null || externalId.isBlank()) {
+            return invalid(line, "provider and externalVideoId are required");
+        }
+        try {
+            return new Ref(line, VideoProvider.valueOf(provider.strip().toUpperCase(Locale.ROOT)),
+                    externalId.strip(), null);
+        } catch (IllegalArgumentException ex) {
+            return invalid(line, "Unknown provider: " + provider);
+        }
+    }
+
+    private static Ref dedupe(Ref ref, Set<String> seen) {
+        if (ref.result() != null || seen.add(ref.provider() + ":" + ref.externalVideoId())) {
+            return ref;
+        }
+        return new Ref(ref.line(), ref.provider(), ref.externalVideoId(),
+                BulkImportResult.of(ref.line(), ref.provider(), ref.externalVideoId(), Status.DUPLICATE, null));
+    }
+
+    private static Ref invalid(long line, String error) {
+        return new Ref(line, null, null, BulkImportResult.error(line, null, null, Status.INVALID, error));
+    }
+
+    private static String unquote(String cell) {
+        String s = cell.strip();
+        return s.length() >= 2 && s.startsWith("\"") && s.endsWith("\"") ? s.substring(1, s.length() - 1) : s;
+    }
+
+    private static BulkImportResult failed(Ref ref, String error) {
+        return BulkImportResult.error(ref.line(), ref.provider(), ref.externalVideoId(), Status.FAILED, error);
+    }
+
+    /* ─── helpers ─────────────────────────────────────────────── */
+
+    private static Video newVideo(Long uid, VideoProvider provider, Metadata md) {
+        return Video.builder()
+                .title(md.title())
+                .description(md.description())
+                .durationMs(md.durationMs())
+                .source(provider.name().toLowerCase())
+                .provider(provider)
+                .category(md.videoCategory())
+                .externalVideoId(md.externalVideoId())
+                .uploadDate(md.uploadDate())
+                .viewCount(md.viewCount())
+                .createdUserId(uid)
+                .build();
+    }
+
+    private Mono<Long> resolveUserId() {
+        return CurrentUser.current()
+                .flatMap(user -> user.id() != null
+                        ? Mono.just(user.id())
+                        : userCache.getUser(user.username()).map(CachedUser::id))
+                .switchIfEmpty(Mono.error(new IllegalStateException("Bulk import requires an authenticated user")));
+    }
+}
@@ -5,45 +5,41 @@ import org.springframework.security.core.context.ReactiveSecurityContextHolder;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.oauth2.jwt.Jwt;
 import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
 
 /**
- * Helper to pull the current authenticated user id (Long) from reactive context.
+ * The caller of the current request, resolved once from the validated token.
+ * <p>
+ * {@code id} comes from the signed {@code uid} claim and is null for tokens
+ * issued before it existed; callers then look the id up by {@code username}.
+ * Resolved by {@code CurrentUserWebFilter} (HTTP) and
+ * {@code WebSocketAuthInterceptor} (GraphQL over WebSocket) into the Reactor
+ * context; {@link #current()} falls back to the security context elsewhere.
  */
-public final class CurrentUser {
-    private CurrentUser() {}
+public record CurrentUser(Long id, String username) {
 
-    public static Mono<Long> requireUserId() {
-        return ReactiveSecurityContextHolder.getContext()
-                .map(SecurityContext::getAuthentication)
-                .flatMap(CurrentUser::extractUserId)
-                .switchIfEmpty(Mono.error(new IllegalStateException("Unauthenticated")));
-    }
-
-    private static Mono<Long> extractUserId(Authentication auth) {
-        if (auth == null) {
-            return Mono.error(new IllegalStateException("Unauthenticated"));
-        }
+    public static final String CLAIM_UID = "uid";
 
-        Object principal = auth.getPrincipal();
+    /** Resolved caller, or empty when unauthenticated. */
+    public static Mono<CurrentUser> current() {
+        return Mono.deferContextual(ctx -> ctx.<CurrentUser>getOrEmpty(CurrentUser.class)
+                .map(Mono::just)
+                .orElseGet(() -> ReactiveSecurityContextHolder.getContext()
+                        .mapNotNull(SecurityContext::getAuthentication)
+                        .filter(Authentication::isAuthenticated)
+                        .map(CurrentUser::of)));
+    }
 
-        // Case 1: Spring Security OAuth2 resource server style, principal is Jwt
-        if (principal instanceof Jwt jwt) {
-            String sub = jwt.getSubject(); // "sub" claim
-            try {
-                return Mono.just(Long.parseLong(sub));
-            } catch (NumberFormatException nfe) {
-                return Mono.error(new IllegalStateException("JWT sub is not numeric: " + sub));
-            }
+    public static CurrentUser of(Authentication auth) {
+        if (auth.getPrincipal() instanceof Jwt jwt) {
+            String username = jwt.getSubject() != null ? jwt.getSubject() : auth.getName();
+            return new CurrentUser(jwt.getClaim(CLAIM_UID) instanceof Number uid ? uid.longValue() : null, username);
         }
+        return new CurrentUser(null, auth.getName());
+    }
 
-        // Case 2: You might have set auth.getName() to username or id in a custom auth manager.
-        // If you stored numeric user id in auth.getName(), handle it:
-        String name = auth.getName();
-        try {
-            return Mono.just(Long.parseLong(name));
-        } catch (NumberFormatException nfe) {
-            // If it's a username, you could look up userId by username instead
-            return Mono.error(new IllegalStateException("Cannot resolve user id from principal"));
-        }
+    /** Context entry read by {@link #current()}. */
+    public static Context context(CurrentUser user) {
+        return Context.of(CurrentUser.class, user);
     }
 }
@@ -7,7 +7,6 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.oauth2.jose.jws.SignatureAlgorithm;
 import org.springframework.security.oauth2.jwt.*;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Mono;
@@ -25,6 +24,9 @@ public class JwtTokenProvider {
     private static final String CLAIM_ROLES = "roles";
     private static final String CLAIM_TYP   = "typ";
     private static final String TYP_REFRESH = "refresh";
+    private static final String CLAIM_VER   = "ver";
+    /** Token schema version; 2 added {@code uid}. Tokens without {@code ver} are version 1. */
+    static final int TOKEN_VERSION = 2;
 
     private final JwkKeyManager            jwkKeyManager;
     private final JwtEncoder               jwtEncoder;
@@ -33,39 +35,39 @@ public class JwtTokenProvider {
 
     /* ------------- public API ------------------------------------------------ */
 
-    /** Login -> issue access *and* refresh; caller decides what to return. */
-    public Mono<TokenPair> issuePair(Authentication auth) {
+    /** Login -> issue access *and* refresh, both carrying {@code userId}; caller decides what to return. */
+    public Mono<TokenPair> issuePair(Authentication auth, Long userId) {
         return Mono.zip(
-                generateAccessToken(auth),
-                generateRefreshToken(auth.getName())
+                generateAccessToken(auth, userId),
+                generateRefreshToken(auth.getName(), userId)
         ).map(tuple -> new TokenPair(tuple.getT1(), tuple.getT2()));
     }
 
-    /** Refresh exchange -> validate old refresh, mint new access. */
+    /** Refresh exchange -> validate old refresh, mint new access (with its {@code uid}, if any). */
     public Mono<TokenResponse> rotate(String refreshToken) {
         return verifyRefresh(refreshToken)
-                .flatMap(this::generateAccessToken);
+                .flatMap(jwt -> generateAccessToken(jwt.getSubject(), List.of(), userId(jwt)));
     }
 
     /* ------------- access token --------------------------------------------- */
 
-    public Mono<TokenResponse> generateAccessToken(Authentication auth) {
+    public Mono<TokenResponse> generateAccessToken(Authentication auth, Long userId) {
         List<String> roles = auth.getAuthorities().stream()
                 .map(GrantedAuthority::getAuthority)
                 .map(r -> r.startsWith("ROLE_") ? r.substring(5) : r)
                 .toList();
-        return generateAccessToken(auth.getName(), roles);
+        return generateAccessToken(auth.getName(), roles, userId);
     }
 
     public Mono<TokenResponse> generateAccessToken(String subject) {
-        return generateAccessToken(subject, List.of());
+        return generateAccessToken(subject, List.of(), null);
     }
 
-    private Mono<TokenResponse> generateAccessToken(String subject, List<String> roles) {
+    private Mono<TokenResponse> generateAccessToken(String subject, List<String> roles, Long userId) {
         Instant now  = Instant.now();
         Instant exp  = now.plusSeconds(props.getExpirationSeconds());
 
-        JwtClaimsSet.Builder cb = commonClaims(subject, now, exp);
+        JwtClaimsSet.Builder cb = commonClaims(subject, userId, now, exp);
         if (!roles.isEmpty()) cb.claim(CLAIM_ROLES, roles);
 
         return encode(cb.build())
@@ -74,48 +76,54 @@ public class JwtTokenProvider {
 
     /* ------------- refresh token -------------------------------------------- */
 
-    private Mono<String> generateRefreshToken(String subject) {
+    private Mono<String> generateRefreshToken(String subject, Long userId) {
         Instant now = Instant.now();
         Instant exp = now.plusSeconds(props.getRefreshExpirationSeconds());
 
-        JwtClaimsSet claims = commonClaims(subject, now, exp)
+        JwtClaimsSet claims = commonClaims(subject, userId, now, exp)
                 .claim(CLAIM_TYP, TYP_REFRESH)
                 .build();
 
         return encode(claims).map(Jwt::getTokenValue);
     }
 
-    /** Verifies signature, exp, issuer, typ == "refresh"; returns subject. */
-    private Mono<String> verifyRefresh(String token) {
+    /** Verifies signature, exp, issuer, revocation and typ == "refresh". */
+    public Mono<Jwt> verifyRefresh(String token) {
         return jwtDecoder.decode(token)
                 .flatMap(jwt -> {
                     if (!TYP_REFRESH.equals(jwt.getClaimAsString(CLAIM_TYP))) {
                         return Mono.error(new JwtException("Not a refresh token"));
                     }
-                    return Mono.just(jwt.getSubject());
+                    return Mono.just(jwt);
                 });
     }
 
     /* ------------- helpers --------------------------------------------------- */
 
-    private JwtClaimsSet.Builder commonClaims(String sub, Instant iat, Instant exp) {
+    private JwtClaimsSet.Builder commonClaims(String sub, Long userId, Instant iat, Instant exp) {
         JwtClaimsSet.Builder b = JwtClaimsSet.builder()
+                .id(UUID.randomUUID().toString())
                 .subject(sub)
                 .issuer(props.getIssuer())
                 .issuedAt(iat)
-                .expiresAt(exp);
+                .expiresAt(exp)
+                .claim(CLAIM_VER, TOKEN_VERSION);
+        if (userId != null) b.claim(CurrentUser.CLAIM_UID, userId);
         if (props.getAudience() != null && !props.getAudience().isBlank()) {
             b.audience(List.of(props.getAudience()));
         }
         return b;
     }
 
+    private static Long userId(Jwt jwt) {
+        return jwt.getClaim(CurrentUser.CLAIM_UID) instanceof Number uid ? uid.longValue() : null;
+    }
+
     private Mono<Jwt> encode(JwtClaimsSet claims) {
-        JwsHeader headers = JwsHeader.with(SignatureAlgorithm.RS256)
-                .keyId(jwkKeyManager.getCurrentKid())
-                .build();
-        return Mono.fromCallable(() -> jwtEncoder.encode(
-                        JwtEncoderParameters.from(headers, claims)))
+        // waits only while the first signing key is being loaded; RS256 and ES256 alike
+        // take hundreds of microseconds to sign, too long for an event-loop thread
+        return jwkKeyManager.ready().then(Mono.fromCallable(() -> jwtEncoder.encode(
+                        JwtEncoderParameters.from(jwkKeyManager.getSigningHeader(), claims))))
                 .subscribeOn(Schedulers.boundedElastic());
     }
 
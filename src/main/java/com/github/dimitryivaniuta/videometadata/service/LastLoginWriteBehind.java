@@ -0,0 +1,145 @@
+package com.github.dimitryivaniuta.videometadata.service;
+
+import com.github.dimitryivaniuta.videometadata.config.LastLoginProperties;
+import com.github.dimitryivaniuta.videometadata.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps login times in memory and writes them to {@code users.last_login_at}
+ * in batches, so a login does not wait for a write.
+ * <p>
+ * Logins of one user between flushes collapse into the latest one. A flush
+ * takes what is pending and writes it with one UPDATE per
+ * {@code batch-size} users; a failed batch is put back (unless a newer login
+ * arrived meanwhile) for the next flush. Pending times are flushed on
+ * shutdown; a crash loses at most {@code flush-interval} of them.
+ * <p>
+ * Metrics: {@code users.last_login.pending} (users waiting for a flush) and
+ * {@code users.last_login.flush} (one batch statement, tag {@code outcome}).
+ */
+@Component
+@Profile("!schema-print")
+@Slf4j
+public class LastLoginWriteBehind {
+
+    private final UserRepository users;
+    private final LastLoginProperties props;
+    private final MeterRegistry registry;
+    private final Map<Long, Instant> pending = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean running   = new AtomicBoolean();
+    private final AtomicBoolean requested = new AtomicBoolean();
+
+    public LastLoginWriteBehind(UserRepository users, LastLoginProperties props, MeterRegistry registry) {
+        this.users    = users;
+        this.props    = props;
+        this.registry = registry;
+        registry.gaugeMapSize("users.last_login.pending", List.of(), pending);
+    }
+
+    /** Remembers a login; never blocks and never touches the database. */
+    public void record(long userId, Instant at) {
+        pending.merge(userId, at, (a, b) -> a.isAfter(b) ? a : b);
+    }
+
+    @Scheduled(initialDelayString = "${app.last-login.flush-interval:PT5S}",
+               fixedDelayString = "${app.last-login.flush-interval:PT5S}")
+    public void poll() {
+        trigger();
+    }
+
+    /** Starts a flush unless one is running; a request during a flush causes another one after it. */
+    void trigger() {
+        requested.set(true);
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        requested.set(false);
+        flush()
+                .doFinally(signal -> {
+                    running.set(false);
+                    if (requested.get() && !pending.isEmpty()) {
+                        trigger();
+                    }
+                })
+                .subscribe(
+                        written -> {
+                            if (written > 0) {
+                                log.debug("Wrote last login of {} users", written);
+                            }
+                        },
+                        ex -> log.error("Last login flush failed", ex));
+    }
+
+    /** Writes everything pending so far, one statement per batch; emits the number of users taken. */
+    Mono<Integer> flush() {
+        return Flux.defer(() -> Flux.fromIterable(takeBatches()))
+                .concatMap(this::write)
+                .reduce(0, Integer::sum);
+    }
+
+    @PreDestroy
+    public void stop() {
+        try {
+            flush().block(Duration.ofSeconds(10));
+            if (!pending.isEmpty()) {
+                log.warn("Last login of {} users was not written before shutdown", pending.size());
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Could not flush last login of {} users on shutdown: {}", pending.size(), ex.toString());
+        }
+    }
+
+    private Iterable<Map<Long, Instant>> takeBatches() {
+        int batchSize = Math.max(1, props.getBatchSize());
+        List<Map<Long, Instant>> batches = new ArrayList<>();
+        Map<Long, Instant> batch = new HashMap<>();
+        for (Map.Entry<Long, Instant> e : pending.entrySet()) {
+            // only if unchanged since read; a newer login stays for the next flush
+            if (pending.remove(e.getKey(), e.getValue())) {
+                batch.put(e.getKey(), e.getValue());
+            }
+            if (batch.size() >= batchSize) {
+                batches.add(batch);
+                batch = new HashMap<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            batches.add(batch);
+        }
+        return batches;
+    }
+
+    private Mono<Integer> write(Map<Long, Instant> batch) {
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(registry);
+            return users.updateLastLoginAt(batch)
+                    .doOnSuccess(rows -> sample.stop(registry.timer("users.last_login.flush", "outcome", "ok")))
+                    .thenReturn(batch.size())
+                    .onErrorResume(ex -> {
+                        sample.stop(registry.timer("users.last_login.flush", "outcome", "failed"));
+                        log.warn("Writing last login of {} users failed, retrying with the next flush: {}",
+                                batch.size(), ex.toString());
+                        batch.forEach(this::record);
+                        return Mono.just(0);
+                    });
+        });
+    }
+}
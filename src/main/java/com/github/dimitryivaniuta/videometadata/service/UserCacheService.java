@@ -1,47 +1,129 @@
 package com.github.dimitryivaniuta.videometadata.service;
 
 import com.github.dimitryivaniuta.videometadata.config.SecurityJwtProperties;
+import com.github.dimitryivaniuta.videometadata.config.UserCacheProperties;
+import com.github.dimitryivaniuta.videometadata.service.cache.CacheInvalidationService;
+import com.github.dimitryivaniuta.videometadata.service.cache.Invalidation;
+import com.github.dimitryivaniuta.videometadata.service.cache.UserNearCache;
 import com.github.dimitryivaniuta.videometadata.web.dto.CachedUser;
 import com.github.dimitryivaniuta.videometadata.web.dto.UserResponse;
-import lombok.RequiredArgsConstructor;
-import org.springframework.beans.factory.annotation.Value;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 
 import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
 
+/**
+ * Current-user lookups: a node-local {@link UserNearCache} in front of Redis,
+ * in front of the database.
+ * <p>
+ * Local hits cost no network call. Changes are evicted from Redis here and
+ * from every node's local tier through {@link CacheInvalidationService}.
+ * <p>
+ * Database loads are coalesced per username on each node, and unknown
+ * usernames are cached for {@code negative-ttl} as an entry without an id.
+ * Redis TTLs get random jitter, and an entry read close to its expiry is
+ * reloaded in the background (probabilistic early refresh), so a popular
+ * user never expires under load.
+ * <p>
+ * Metrics: {@code cache.gets} (tags {@code cache=user.local|user.redis},
+ * {@code result=hit|miss}), {@code cache.size}, {@code cache.loads}
+ * ({@code trigger=miss|refresh}, {@code result=found|missing}) and
+ * {@code cache.coalesced}.
+ */
 @Service
-@RequiredArgsConstructor
+@Slf4j
 public class UserCacheService {
 
     private static final String PREFIX = "user:";
+    private static final String CACHE = "user";
 
     private final ReactiveRedisTemplate<String, CachedUser> redis;
     private final UserService                               userService;
     private final SecurityJwtProperties jwtProperties;
+    private final UserNearCache local;
+    private final CacheInvalidationService invalidation;
+    private final UserCacheProperties props;
+    private final MeterRegistry registry;
+
+    private final Counter localHits;
+    private final Counter localMisses;
+    private final Counter redisHits;
+    private final Counter redisMisses;
+    private final Counter coalesced;
+
+    /** One database load per username at a time on this node. */
+    private final Map<String, Mono<Optional<CachedUser>>> loads = new ConcurrentHashMap<>();
+    /** Moving average of database load time: the "recompute cost" of early refresh. */
+    private volatile long loadNanos = Duration.ofMillis(10).toNanos();
+
+    public UserCacheService(ReactiveRedisTemplate<String, CachedUser> redis,
+                            UserService userService,
+                            SecurityJwtProperties jwtProperties,
+                            UserNearCache local,
+                            CacheInvalidationService invalidation,
+                            UserCacheProperties props,
+                            MeterRegistry registry) {
+        this.redis = redis;
+        this.userService = userService;
+        this.jwtProperties = jwtProperties;
+        this.local = local;
+        this.invalidation = invalidation;
+        this.props = props;
+        this.registry = registry;
+        this.localHits   = registry.counter("cache.gets", "cache", "user.local", "result", "hit");
+        this.localMisses = registry.counter("cache.gets", "cache", "user.local", "result", "miss");
+        this.redisHits   = registry.counter("cache.gets", "cache", "user.redis", "result", "hit");
+        this.redisMisses = registry.counter("cache.gets", "cache", "user.redis", "result", "miss");
+        this.coalesced   = registry.counter("cache.coalesced", "cache", CACHE);
+        registry.gauge("cache.size", Tags.of("cache", "user.local"), local, UserNearCache::size);
+    }
 
     private String cacheKey(String username) {
         return PREFIX + username;
     }
 
     /**
-     * Retrieves user details from Redis if present; otherwise
-     * fetches from the UserService (DB), caches it, and returns.
-     * If missing, load from UserService, cache it with TTL, then return.
+     * Retrieves user details from the local tier, then Redis; otherwise
+     * fetches from the UserService (DB), caches it with TTL, and returns.
+     * Fails with {@link UsernameNotFoundException} if no such user exists.
      */
     public Mono<CachedUser> getUser(String username) {
+        CachedUser hit = local.get(username);
+        if (hit != null) {
+            localHits.increment();
+            return isMissing(hit) ? notFound(username) : Mono.just(hit);
+        }
+        localMisses.increment();
+        long epoch = local.epoch();
         String key = cacheKey(username);
-        return redis.opsForValue().get(key)
-                .switchIfEmpty(
-                        userService.findByUsername(username)
-                                .map(this::toCached)
-                                .flatMap(cu ->
-                                        redis.opsForValue()
-                                                .set(key, cu, Duration.ofSeconds(jwtProperties.getExpirationSeconds()))
-                                                .thenReturn(cu)
-                                )
-                );
+        return Mono.zip(redis.opsForValue().get(key), redis.getExpire(key).defaultIfEmpty(Duration.ZERO))
+                .map(cached -> {
+                    redisHits.increment();
+                    if (shouldRefreshEarly(cached.getT2())) {
+                        load(username, "refresh").subscribe(r -> { },
+                                ex -> log.warn("Early refresh of user {} failed: {}", username, ex.toString()));
+                    }
+                    return Optional.of(cached.getT1());
+                })
+                .switchIfEmpty(Mono.defer(() -> {
+                    redisMisses.increment();
+                    return load(username, "miss");
+                }))
+                .flatMap(cached -> {
+                    CachedUser cu = cached.orElseGet(() -> missing(username));
+                    local.put(cu, epoch, isMissing(cu) ? props.getNegativeTtl() : props.getLocalTtl());
+                    return isMissing(cu) ? notFound(username) : Mono.just(cu);
+                });
     }
 
     /**
@@ -49,16 +131,114 @@ public class UserCacheService {
      */
     public Mono<Void> cacheUser(CachedUser user) {
         String key = cacheKey(user.username());
+        long epoch = local.epoch();
         return redis.opsForValue()
-                .set(key, user, Duration.ofSeconds(jwtProperties.getExpirationSeconds()))
+                .set(key, user, jittered(Duration.ofSeconds(jwtProperties.getExpirationSeconds())))
+                .doOnSuccess(ok -> local.put(user, epoch))
                 .then();
     }
-
     /**
-     * Evict the cached user, forcing a DB reload on next getUser().
+     * Evict the cached user everywhere, forcing a DB reload on next getUser().
+     * Also drops a negative entry for the name, so call it once a user takes
+     * a username (sign-up, creation, rename).
+     *
+     * @return whether a Redis entry was removed
      */
     public Mono<Boolean> evict(String username) {
-        return redis.opsForValue().delete(cacheKey(username));
+        CachedUser removed = local.remove(username);
+        return redis.opsForValue().getAndDelete(cacheKey(username))
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(cached -> cached.or(() -> Optional.ofNullable(removed))
+                        .filter(cu -> !isMissing(cu))
+                        .map(cu -> invalidation.invalidate(Invalidation.USER, cu.id()))
+                        .orElse(Mono.empty())
+                        .then(invalidation.invalidateKey(Invalidation.USER, username))
+                        .thenReturn(cached.isPresent()));
+    }
+
+    /**
+     * Evicts a user that was just changed or deleted; {@code username} is the
+     * name it was cached under (before any rename).
+     */
+    public Mono<Void> evict(long id, String username) {
+        local.remove(username);
+        return redis.opsForValue().delete(cacheKey(username))
+                .then(invalidation.invalidate(Invalidation.USER, id));
+    }
+
+    /**
+     * Loads {@code username} from the database into Redis, joining a load
+     * already in flight on this node. Unknown users are stored as a
+     * negative entry; the result is then empty.
+     */
+    private Mono<Optional<CachedUser>> load(String username, String trigger) {
+        boolean[] joined = {true};
+        Mono<Optional<CachedUser>> shared = loads.computeIfAbsent(username, k -> {
+            joined[0] = false;
+            // leave the map before the result is delivered: a caller that has
+            // seen it (and e.g. evicted the name) must not join this load again
+            return loadFromDb(k, trigger)
+                    .doOnTerminate(() -> loads.remove(k))
+                    .cache();
+        });
+        if (joined[0]) {
+            coalesced.increment();
+        }
+        return shared;
+    }
+
+    private Mono<Optional<CachedUser>> loadFromDb(String username, String trigger) {
+        String key = cacheKey(username);
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return userService.findByUsername(username)
+                    .map(this::toCached)
+                    .onErrorResume(UsernameNotFoundException.class, ex -> Mono.empty())
+                    .flatMap(cu -> redis.opsForValue()
+                            .set(key, cu, jittered(Duration.ofSeconds(jwtProperties.getExpirationSeconds())))
+                            .thenReturn(Optional.of(cu)))
+                    .switchIfEmpty(Mono.defer(() -> redis.opsForValue()
+                            .set(key, missing(username), jittered(props.getNegativeTtl()))
+                            .thenReturn(Optional.<CachedUser>empty())))
+                    .doOnNext(result -> {
+                        loadNanos = (loadNanos * 7 + (System.nanoTime() - start)) / 8;
+                        registry.counter("cache.loads", "cache", CACHE, "trigger", trigger,
+                                "result", result.isPresent() ? "found" : "missing").increment();
+                    });
+        });
+    }
+
+    /**
+     * XFetch: refresh with a probability that grows as expiry nears, scaled
+     * by the cost of a load. A node reads Redis at most once per local TTL,
+     * so expiry is brought forward by that much.
+     */
+    boolean shouldRefreshEarly(Duration remaining) {
+        if (remaining.isZero() || remaining.isNegative() || props.getEarlyRefreshBeta() <= 0) {
+            return false;   // no expiry set
+        }
+        double gap = loadNanos * props.getEarlyRefreshBeta()
+                * -Math.log(1 - ThreadLocalRandom.current().nextDouble());
+        return remaining.minus(props.getLocalTtl()).toNanos() <= gap;
+    }
+
+    private Duration jittered(Duration ttl) {
+        double cut = props.getTtlJitter() <= 0 ? 0 : ThreadLocalRandom.current().nextDouble(props.getTtlJitter());
+        return Duration.ofMillis(Math.max(1, (long) (ttl.toMillis() * (1 - cut))));
+    }
+
+    /** Negative entries are users without an id. */
+    private static CachedUser missing(String username) {
+        return CachedUser.builder().username(username).build();
+    }
+
+    private static boolean isMissing(CachedUser cu) {
+        return cu.id() == null;
+    }
+
+    private static Mono<CachedUser> notFound(String username) {
+        return Mono.error(new UsernameNotFoundException(username));
     }
 
     private CachedUser toCached(UserResponse u) {
@@ -1,52 +1,52 @@
 package com.github.dimitryivaniuta.videometadata.service;
 
-import com.github.dimitryivaniuta.videometadata.model.UserRole;
 import com.github.dimitryivaniuta.videometadata.model.UserStatus;
 import com.github.dimitryivaniuta.videometadata.repository.UserRepository;
-import com.github.dimitryivaniuta.videometadata.repository.UserRoleRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.DisabledException;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.*;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 
+import static com.github.dimitryivaniuta.videometadata.web.dto.UserResponse.toDto;
+
 @Service
 @RequiredArgsConstructor
 @Slf4j
-public class UserDetailsServiceImpl implements ReactiveUserDetailsService {
+public class UserDetailsServiceImpl implements ReactiveUserDetailsService, ReactiveUserDetailsPasswordService {
 
     private final UserRepository userRepo;
-    private final UserRoleRepository roleRepo;
 
     @Override
     public Mono<UserDetails> findByUsername(String username) {
-        return userRepo.findByUsername(username)
+        return userRepo.findWithRolesByUsername(username)
                 .switchIfEmpty(Mono.error(new UsernameNotFoundException("User not found: " + username)))
-                .flatMap(user -> {
-                    if (user.getStatus() != UserStatus.ACTIVE) {
+                .flatMap(found -> {
+                    if (found.user().getStatus() != UserStatus.ACTIVE) {
                         return Mono.error(new DisabledException("User is not active: " + username));
                     }
-                    return roleRepo.findAllByUserId(user.getId())
-                            .map(UserRole::getRole)
-                            .map(r -> "ROLE_" + r)
-                            .collectList()
-                            .flatMap(roleNames -> {
-                                // Log all roles loaded for this user
-                                log.debug("Loaded roles for user [{}]: {}", username, roleNames);
-
-                                var authorities = roleNames.stream()
-                                        .map(SimpleGrantedAuthority::new)
-                                        .toList();
-
-                                UserDetails userDetails = User.withUsername(user.getUsername())
-                                        .password(user.getPassword())
-                                        .authorities(authorities)
-                                        .build();
+                    log.debug("Loaded roles for user [{}]: {}", username, found.roles());
+                    return Mono.just(new AuthenticatedUser(toDto(found.user(), found.roles()),
+                            found.user().getPassword()));
+                });
+    }
 
-                                return Mono.just(userDetails);
-                            });
+    /**
+     * Stores a re-hashed password after a successful login (BCrypt cost
+     * changed). A failed write only means the next login re-hashes again.
+     */
+    @Override
+    public Mono<UserDetails> updatePassword(UserDetails user, String newPassword) {
+        UserDetails updated = user instanceof AuthenticatedUser known
+                ? new AuthenticatedUser(known.getUser(), newPassword)
+                : User.withUserDetails(user).password(newPassword).build();
+        return userRepo.updatePassword(user.getUsername(), newPassword)
+                .doOnNext(rows -> log.debug("Re-hashed password of user [{}]", user.getUsername()))
+                .thenReturn(updated)
+                .onErrorResume(ex -> {
+                    log.warn("Could not store re-hashed password of user [{}]: {}", user.getUsername(), ex.toString());
+                    return Mono.just(updated);
                 });
     }
 }
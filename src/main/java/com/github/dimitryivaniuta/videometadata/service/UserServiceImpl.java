@@ -1,16 +1,17 @@
 package com.github.dimitryivaniuta.videometadata.service;
 
+import com.github.dimitryivaniuta.videometadata.config.PasswordHashingExecutor;
 import com.github.dimitryivaniuta.videometadata.model.Role;
 import com.github.dimitryivaniuta.videometadata.model.User;
 import com.github.dimitryivaniuta.videometadata.model.UserRole;
 import com.github.dimitryivaniuta.videometadata.model.UserStatus;
 import com.github.dimitryivaniuta.videometadata.repository.UserRepository;
 import com.github.dimitryivaniuta.videometadata.repository.UserRoleRepository;
-import com.github.dimitryivaniuta.videometadata.util.DateTimeUtil;
 import com.github.dimitryivaniuta.videometadata.web.dto.*;
 import graphql.schema.DataFetchingEnvironment;
 import lombok.RequiredArgsConstructor;
 import org.dataloader.DataLoader;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.dao.DuplicateKeyException;
 //import org.springframework.graphql.data.method.annotation.DataLoader
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -21,7 +22,6 @@ import reactor.core.publisher.Mono;
 
 import java.time.Instant;
 import java.util.*;
-import java.util.stream.Collectors;
 
 import static com.github.dimitryivaniuta.videometadata.web.dto.UserResponse.toDto;
 
@@ -32,28 +32,33 @@ public class UserServiceImpl implements UserService {
     private final UserRepository userRepo;
     private final UserRoleRepository roleRepo;
     private final PasswordEncoder     passwordEncoder;
+    /** BCrypt runs here, off the event loop and off boundedElastic. */
+    private final PasswordHashingExecutor hashing;
+    private final LastLoginWriteBehind lastLogins;
+    /** Lazy: UserCacheService itself loads users through this service. */
+    private final ObjectProvider<UserCacheService> userCache;
 
     @Override
     public Mono<UserResponse> signUp(SignUpInput in) {
 
-        User user = User.builder()
-                .username(in.username())
-                .password(passwordEncoder.encode(in.password()))
-                .email(in.email())
-                .status(UserStatus.ACTIVE)
-                .createdAt(Instant.now())
-                .updatedAt(Instant.now())
-                .build();
-
-        return userRepo.save(user)
+        return hashing.hash(() -> passwordEncoder.encode(in.password()))
+                .map(hash -> User.builder()
+                        .username(in.username())
+                        .password(hash)
+                        .email(in.email())
+                        .status(UserStatus.ACTIVE)
+                        .createdAt(Instant.now())
+                        .updatedAt(Instant.now())
+                        .build())
+                .flatMap(userRepo::save)
                 .flatMap(saved ->
                         roleRepo.save(
                                         UserRole.builder()
                                                 .userId(saved.getId())
                                                 .role(Role.USER)
                                                 .build())
-                                .thenReturn(saved))
-                .flatMap(this::joinUserWithRoles)
+                                .thenReturn(toDto(saved, Set.of(Role.USER))))
+                .flatMap(this::forgetMissing)
                 .onErrorMap(DuplicateKeyException.class,
                         ex -> new IllegalStateException("Username or email already exists", ex));
     }
@@ -61,16 +66,16 @@ public class UserServiceImpl implements UserService {
     @Override
     public Mono<UserResponse> createUser(CreateUserRequest req) {
         // build and save the User entity
-        User user = User.builder()
-                .username(req.username())
-                .password(passwordEncoder.encode(req.password()))
-                .email(req.email())
-                .status(UserStatus.ACTIVE)
-                .createdAt(Instant.now())
-                .updatedAt(Instant.now())
-                .build();
-
-        return userRepo.save(user)
+        return hashing.hash(() -> passwordEncoder.encode(req.password()))
+                .map(hash -> User.builder()
+                        .username(req.username())
+                        .password(hash)
+                        .email(req.email())
+                        .status(UserStatus.ACTIVE)
+                        .createdAt(Instant.now())
+                        .updatedAt(Instant.now())
+                        .build())
+                .flatMap(userRepo::save)
                 .flatMap(saved -> {
                     // grant default USER role
                     UserRole ur = UserRole.builder()
@@ -78,41 +83,28 @@ public class UserServiceImpl implements UserService {
                             .role(Role.USER)
                             .build();
                     return roleRepo.save(ur)
-                            .thenReturn(saved);
+                            .thenReturn(toDto(saved, Set.of(Role.USER)));
                 })
-                .flatMap(this::mapToResponse);
+                .flatMap(this::forgetMissing);
     }
 
     public Mono<UserResponse> findByUsernameWithRoles(String username) {
-        return userRepo.findByUsername(username)
-                .switchIfEmpty(Mono.error(new UsernameNotFoundException(username)))
-                // load roles for that user
-                .flatMap(user ->
-                        roleRepo.findAllByUserId(user.getId())
-                                .map(UserRole::getRole)       // Role enum
-                                .collect(Collectors.toSet())
-                        .map(roles -> toDto(user, roles))
-                );
+        return findByUsername(username);
     }
 
     @Override
     public Mono<UserResponse> findByUsername(String username) {
-        return userRepo.findByUsername(username)
+        return userRepo.findWithRolesByUsername(username)
                 .switchIfEmpty(
                         Mono.error(new UsernameNotFoundException(username))
                 )
-                .flatMap(this::joinUserWithRoles);
+                .map(found -> toDto(found.user(), found.roles()));
     }
 
+    /** Queued for a batched write; the login does not wait for it. */
     @Override
     public Mono<Void> updateLastLoginAt(Long userId) {
-        return userRepo.findById(userId)
-                .flatMap(u -> {
-                    u.setLastLoginAt(Instant.now());
-                    u.setUpdatedAt(Instant.now());
-                    return userRepo.save(u);
-                })
-                .then();
+        return Mono.fromRunnable(() -> lastLogins.record(userId, Instant.now()));
     }
 
     @Override
@@ -120,30 +112,35 @@ public class UserServiceImpl implements UserService {
         return userRepo.findAll()
                 .skip((long) page * size)
                 .take(size)
-                .flatMap(this::joinUserWithRoles);
+                .collectList()
+                // one roles query for the whole page
+                .flatMapMany(users -> loadRolesByUserIds(users.stream().map(User::getId).toList())
+                        .flatMapIterable(roles -> users.stream()
+                                .map(u -> toDto(u, roles.getOrDefault(u.getId(), Set.of())))
+                                .toList()));
     }
 
 
     @Override
     public Mono<UserResponse> createUser(CreateUserInput in) {
-        User u = User.builder()
-                .username(in.username())
-                .password(passwordEncoder.encode(in.password()))
-                .email(in.email())
-                .status(UserStatus.ACTIVE)
-                .createdAt(Instant.now())
-                .updatedAt(Instant.now())
-                .build();
-
-        return userRepo.save(u)
+        return hashing.hash(() -> passwordEncoder.encode(in.password()))
+                .map(hash -> User.builder()
+                        .username(in.username())
+                        .password(hash)
+                        .email(in.email())
+                        .status(UserStatus.ACTIVE)
+                        .createdAt(Instant.now())
+                        .updatedAt(Instant.now())
+                        .build())
+                .flatMap(userRepo::save)
                 .flatMap(saved ->
                         roleRepo.saveAll(
                                         in.roles().stream()
                                                 .map(r -> new UserRole(null, saved.getId(), r))
                                                 .toList())
-                                .then(Mono.just(saved))
+                                .then(Mono.just(toDto(saved, in.roles())))
                 )
-                .flatMap(this::joinUserWithRoles)
+                .flatMap(this::forgetMissing)
                 .onErrorMap(DuplicateKeyException.class,
                         ex -> new IllegalStateException("Username or email already exists", ex));
     }
@@ -153,58 +150,53 @@ public class UserServiceImpl implements UserService {
         return userRepo.findById(in.id())
                 .switchIfEmpty(Mono.error(new IllegalArgumentException("User not found")))
                 .flatMap(u -> {
+                    String cachedAs = u.getUsername();
                     if (in.username() != null) u.setUsername(in.username());
                     if (in.email()    != null) u.setEmail(in.email());
                     if (in.status()   != null) u.setStatus(in.status());
                     u.setUpdatedAt(Instant.now());
-                    return userRepo.save(u);
-                })
-                .flatMap(saved -> {
-                    if (in.roles() == null) return Mono.just(saved);
-                    // Replace roles atomically
-                    return roleRepo.deleteAllByUserId(saved.getId()).then(
-                            roleRepo.saveAll(
-                                            in.roles().stream()
-                                                    .map(r -> new UserRole(null, saved.getId(), r))
-                                                    .toList())
-                                    .then(Mono.just(saved))
-                    );
+                    return userRepo.save(u)
+                            .flatMap(saved -> {
+                                if (in.roles() == null) return Mono.just(saved);
+                                // Replace roles atomically
+                                return roleRepo.deleteAllByUserId(saved.getId()).then(
+                                        roleRepo.saveAll(
+                                                        in.roles().stream()
+                                                                .map(r -> new UserRole(null, saved.getId(), r))
+                                                                .toList())
+                                                .then(Mono.just(saved))
+                                );
+                            })
+                            .flatMap(saved -> userCache.getObject().evict(saved.getId(), cachedAs)
+                                    // the new name may be cached as unknown
+                                    .then(cachedAs.equals(saved.getUsername())
+                                            ? Mono.empty()
+                                            : userCache.getObject().evict(saved.getUsername()))
+                                    .thenReturn(saved));
                 })
-                .flatMap(this::joinUserWithRoles);
+                .flatMap(saved -> in.roles() != null
+                        ? Mono.just(toDto(saved, in.roles()))
+                        : findById(saved.getId()));
     }
 
-    @Override
-    public Mono<Void> deleteUser(Long id) {
-        return roleRepo.deleteAllByUserId(id)
-                .then(userRepo.deleteById(id));
+    /** A new username may still be cached as unknown, here or on other nodes. */
+    private Mono<UserResponse> forgetMissing(UserResponse created) {
+        return userCache.getObject().evict(created.username()).thenReturn(created);
     }
 
-    /**
-     * Fetch roles and assemble the UserResponse DTO.
-     */
-    private Mono<UserResponse> mapToResponse(User user) {
-        return roleRepo.findAllByUserId(user.getId())
-                .map(UserRole::getRole)
-                .collectList()
-                .map(list ->
-                        UserResponse.builder()
-                                .id(user.getId())
-                                .username(user.getUsername())
-                                .username(user.getUsername())
-                                .email(user.getEmail())
-                                .status(user.getStatus())
-                                .createdAt(DateTimeUtil.toOffset(user.getCreatedAt()))
-                                .updatedAt(DateTimeUtil.toOffset(user.getUpdatedAt()))
-                                .roles(Set.copyOf(list))
-                                .build()
-                );
+    @Override
+    public Mono<Void> deleteUser(Long id) {
+        return userRepo.findById(id)
+                .flatMap(u -> roleRepo.deleteAllByUserId(id)
+                        .then(userRepo.deleteById(id))
+                        .then(userCache.getObject().evict(id, u.getUsername())));
     }
 
     public Mono<UserResponse> findById(Long userId) {
-        return userRepo.findById(userId)
+        return userRepo.findWithRolesById(userId)
                 .switchIfEmpty(Mono.error(
                         new IllegalArgumentException("User not found")))
-                .flatMap(this::joinUserWithRoles);   // join roles -> DTO
+                .map(found -> toDto(found.user(), found.roles()));
     }
 
     @Override
@@ -226,11 +218,4 @@ public class UserServiceImpl implements UserService {
                 });
     }
 
-    private Mono<UserResponse> joinUserWithRoles(User user) {
-        return roleRepo.findAllByUserId(user.getId())
-                .map(UserRole::getRole)
-                .collect(Collectors.toSet())
-                .map(roles -> toDto(user, roles));
-    }
-
 }
@@ -19,4 +19,10 @@ public interface VideoService {
     // Import *all* videos by publisher name
     Flux<VideoResponse> importVideosByPublisher(VideoProvider provider, String publisherName);
 
+    /**
+     * Import only uploads newer than the publisher’s stored sync watermark.
+     * Falls back to a full enumeration when the publisher was never synced.
+     */
+    Flux<VideoResponse> resyncPublisher(VideoProvider provider, String publisherName);
+
 }
@@ -2,14 +2,18 @@ package com.github.dimitryivaniuta.videometadata.service;
 
 import com.github.dimitryivaniuta.videometadata.config.VideoProvidersProperties;
 import com.github.dimitryivaniuta.videometadata.domain.event.VideoImportedEvent;
+import com.github.dimitryivaniuta.videometadata.model.PublisherSyncState;
 import com.github.dimitryivaniuta.videometadata.model.Video;
 import com.github.dimitryivaniuta.videometadata.model.VideoProvider;
+import com.github.dimitryivaniuta.videometadata.repository.PublisherSyncStateRepository;
 import com.github.dimitryivaniuta.videometadata.repository.VideoRepository;
 import com.github.dimitryivaniuta.videometadata.service.UserCacheService;
 import com.github.dimitryivaniuta.videometadata.service.VideoService;
+import com.github.dimitryivaniuta.videometadata.service.outbox.OutboxAppendedEvent;
 import com.github.dimitryivaniuta.videometadata.service.videoprovider.ExternalMetadataClient;
 import com.github.dimitryivaniuta.videometadata.web.dto.CachedUser;
 import com.github.dimitryivaniuta.videometadata.web.dto.imports.Metadata;
+import com.github.dimitryivaniuta.videometadata.web.dto.imports.PublisherPage;
 import com.github.dimitryivaniuta.videometadata.web.dto.imports.VideoResponse;
 import io.github.resilience4j.bulkhead.annotation.Bulkhead;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
@@ -18,13 +22,18 @@ import io.github.resilience4j.retry.annotation.Retry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.ApplicationEventPublisher;
-import org.springframework.dao.DuplicateKeyException;
-import org.springframework.security.core.context.ReactiveSecurityContextHolder;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -32,12 +41,15 @@ import java.time.Instant;
 public class VideoServiceImpl implements VideoService {
 
     private static final String RESILIENT_NAME = "videoImport";
+    /** Videos per lookup and insert statement of a full publisher import. */
+    private static final int IMPORT_BATCH_SIZE = 50;
 
     private final ApplicationEventPublisher     publisher;
     private final ExternalMetadataClient meta;
     private final VideoRepository videoRepo;
     private final VideoProvidersProperties props;
     private final UserCacheService userCache;
+    private final PublisherSyncStateRepository syncStateRepo;
 
     @Override
     public Flux<VideoResponse> list(int page, int size) {
@@ -84,7 +96,8 @@ public class VideoServiceImpl implements VideoService {
     /**
      * Import every video published by the given provider publisher name.
      * Uses resilience4j (circuit‐breaker, retry, rate‐limit, bulkhead)
-     * and deduplicates against existing DB rows.
+     * and deduplicates against existing DB rows. New videos are inserted a
+     * batch at a time together with their outbox events.
      */
     @CircuitBreaker(name = RESILIENT_NAME, fallbackMethod = "importByPublisherFallback")
     @Retry(name = RESILIENT_NAME)
@@ -93,40 +106,231 @@ public class VideoServiceImpl implements VideoService {
     public Flux<VideoResponse> importVideosByPublisher(VideoProvider provider, String publisherName) {
         Mono<Long> userIdMono = resolveUserId();
 
-        return userIdMono.flatMapMany(uid ->
-                meta.fetchByPublisher(provider, publisherName)     // every Metadata
-                        // sequential DB operations avoid unique-constraint races
-                        .concatMap(md -> videoRepo
-                                .findByProviderAndExternalVideoId(provider, md.externalVideoId())
-                                .switchIfEmpty(Mono.defer(() -> {
-                                    Video v = Video.builder()
-                                            .title(md.title())
-                                            .description(md.description())
-                                            .durationMs(md.durationMs() == null ? 0 : md.durationMs())
-                                            .source(provider.name().toLowerCase())
-                                            .provider(provider)
-                                            .category(md.videoCategory())
-                                            .externalVideoId(md.externalVideoId())
-                                            .uploadDate(md.uploadDate())
-                                            .createdUserId(uid)
-                                            .build();
-                                    log.info("Saving video: {}:{}", v.getSource(), v.getExternalVideoId());
-                                    return videoRepo.save(v);
-                                }))
-                        )
-                        .map(VideoResponse::toDto)
-        );
+        return userIdMono.flatMapMany(uid -> {
+            SyncProgress progress = new SyncProgress();
+            return meta.fetchByPublisher(provider, publisherName)     // every Metadata
+                    .doOnNext(progress::seen)
+                    .buffer(IMPORT_BATCH_SIZE)
+                    // batches in order: one lookup and one insert (with its outbox rows) each
+                    .concatMap(batch -> importBatch(uid, provider, batch, progress))
+                    .map(VideoResponse::toDto)
+                    // seed the watermark so the next resyncPublisher only fetches newer uploads
+                    .concatWith(Mono.defer(() -> syncStateRepo.findByProviderAndPublisher(provider, publisherName)
+                                    .defaultIfEmpty(newSyncState(provider, publisherName))
+                                    .flatMap(state -> completeSync(state, progress)))
+                            .then(Mono.empty()));
+        });
     }
 
+    /** Existing and newly inserted videos of a batch, in listing order. */
+    private Flux<Video> importBatch(Long uid, VideoProvider provider, List<Metadata> batch, SyncProgress progress) {
+        List<String> ids = batch.stream().map(Metadata::externalVideoId).toList();
+        return videoRepo.findAllByProviderAndExternalVideoIdIn(provider, ids)
+                .collectMap(Video::getExternalVideoId)
+                .flatMapMany(known -> {
+                    Map<String, Video> fresh = new LinkedHashMap<>();
+                    for (Metadata md : batch) {
+                        if (!known.containsKey(md.externalVideoId())) {
+                            fresh.putIfAbsent(md.externalVideoId(), newVideo(uid, provider, md));
+                        }
+                    }
+                    return insertAndPublish(List.copyOf(fresh.values()), progress)
+                            .collectMap(Video::getExternalVideoId)
+                            .flatMapIterable(inserted -> ids.stream()
+                                    .distinct()
+                                    .map(id -> known.getOrDefault(id, inserted.get(id)))
+                                    .filter(Objects::nonNull)
+                                    .toList());
+                });
+    }
+
+    /**
+     * Incremental publisher import driven by {@link PublisherSyncState}.
+     * <p>
+     * Pages are requested newest first with the stored watermark as
+     * {@code publishedAfter}. Each page is checked against the DB in one query;
+     * once a known (or not-newer) video appears the listing is cancelled, since
+     * everything after it was imported by an earlier sync. After every page the
+     * provider cursor is checkpointed, so a failed sync resumes where it stopped;
+     * the watermark only advances when the sync completes.
+     */
+    @CircuitBreaker(name = RESILIENT_NAME, fallbackMethod = "resyncFallback")
+    @Retry(name = RESILIENT_NAME)
+    @RateLimiter(name = RESILIENT_NAME)
+    @Bulkhead(name = RESILIENT_NAME, type = Bulkhead.Type.SEMAPHORE)
+    @Override
+    public Flux<VideoResponse> resyncPublisher(VideoProvider provider, String publisherName) {
+        return resolveUserId().flatMapMany(uid ->
+                syncStateRepo.findByProviderAndPublisher(provider, publisherName)
+                        .defaultIfEmpty(newSyncState(provider, publisherName))
+                        .flatMapMany(state -> runSync(uid, state)));
+    }
+
+    private Flux<VideoResponse> runSync(Long uid, PublisherSyncState state) {
+        VideoProvider provider = state.getProvider();
+        Instant watermark = state.getLastPublishedAt();
+        SyncProgress progress = new SyncProgress();
+        log.debug("Resync {}:{} publishedAfter={} resumeToken={}",
+                provider, state.getPublisher(), watermark, state.getLastPageToken());
+
+        return meta.fetchPublisherPages(provider, state.getPublisher(), watermark, state.getLastPageToken())
+                // prefetch 0: do not request the next page before this one is processed
+                .concatMap(page -> importPage(uid, provider, page, watermark, progress)
+                        .collectList()
+                        .flatMap(saved -> checkpoint(state, page.nextPageToken()).thenReturn(saved)), 0)
+                .takeUntil(saved -> progress.reachedKnown)
+                .concatMapIterable(saved -> saved)
+                .map(VideoResponse::toDto)
+                .concatWith(Mono.defer(() -> completeSync(state, progress)).then(Mono.empty()));
+    }
+
+    private Flux<Video> importPage(Long uid, VideoProvider provider, PublisherPage page,
+                                   Instant watermark, SyncProgress progress) {
+        List<Metadata> items = page.items();
+        if (items.isEmpty()) {
+            return Flux.empty();
+        }
+        List<String> ids = items.stream().map(Metadata::externalVideoId).toList();
+
+        return videoRepo.findAllByProviderAndExternalVideoIdIn(provider, ids)
+                .map(Video::getExternalVideoId)
+                .collect(Collectors.toSet())
+                .flatMapMany(known -> insertAndPublish(freshItems(items, known, watermark, progress).stream()
+                        .map(md -> newVideo(uid, provider, md))
+                        .toList(), progress));
+    }
+
+    /**
+     * Inserts the videos with their {@link VideoImportedEvent} outbox rows in
+     * one statement, then wakes the outbox relay. Rows stored concurrently by
+     * another import are skipped (ON CONFLICT DO NOTHING).
+     *
+     * @return the inserted videos, with id and creation time
+     */
+    private Flux<Video> insertAndPublish(List<Video> videos, SyncProgress progress) {
+        if (videos.isEmpty()) {
+            return Flux.empty();
+        }
+        return videoRepo.insertBatch(videos)
+                .collectMap(Video::getExternalVideoId)
+                .flatMapIterable(inserted -> {
+                    if (!inserted.isEmpty()) {
+                        progress.imported += inserted.size();
+                        publisher.publishEvent(new OutboxAppendedEvent(inserted.size()));
+                    }
+                    List<Video> saved = new ArrayList<>(inserted.size());
+                    for (Video v : videos) {
+                        Video row = inserted.get(v.getExternalVideoId());
+                        if (row != null) {
+                            v.setId(row.getId());
+                            v.setCreatedAt(row.getCreatedAt());
+                            saved.add(v);
+                        }
+                    }
+                    return saved;
+                });
+    }
+
+    /** Items of a newest-first page up to the first already-synced one. */
+    private static List<Metadata> freshItems(List<Metadata> items, Set<String> known,
+                                             Instant watermark, SyncProgress progress) {
+        List<Metadata> fresh = new ArrayList<>(items.size());
+        for (Metadata md : items) {
+            progress.seen(md);
+            boolean notNewer = watermark != null && md.uploadDate() != null
+                    && !md.uploadDate().isAfter(watermark);
+            if (known.contains(md.externalVideoId()) || notNewer) {
+                if (watermark != null) {
+                    progress.reachedKnown = true;
+                    break;
+                }
+                continue;
+            }
+            fresh.add(md);
+        }
+        return fresh;
+    }
+
+    private Mono<PublisherSyncState> checkpoint(PublisherSyncState state, String nextPageToken) {
+        state.setLastPageToken(nextPageToken);
+        return saveSyncState(state);
+    }
+
+    private Mono<PublisherSyncState> completeSync(PublisherSyncState state, SyncProgress progress) {
+        if (progress.newestPublishedAt != null
+                && (state.getLastPublishedAt() == null
+                || progress.newestPublishedAt.isAfter(state.getLastPublishedAt()))) {
+            state.setLastPublishedAt(progress.newestPublishedAt);
+            state.setLastExternalVideoId(progress.newestExternalVideoId);
+        }
+        state.setLastPageToken(null);
+        state.setVideosSeen(state.getVideosSeen() + progress.seen);
+        state.setVideosImported(state.getVideosImported() + progress.imported);
+        state.setSyncCount(state.getSyncCount() + 1);
+        state.setLastSyncedAt(Instant.now());
+        log.info("Synced {}:{} seen={} imported={} watermark={}", state.getProvider(), state.getPublisher(),
+                progress.seen, progress.imported, state.getLastPublishedAt());
+        return saveSyncState(state);
+    }
+
+    /** Upsert by (provider, publisher): concurrent first syncs of a publisher both succeed. */
+    private Mono<PublisherSyncState> saveSyncState(PublisherSyncState state) {
+        return syncStateRepo.upsert(state)
+                .doOnNext(saved -> state.setId(saved.getId()));
+    }
+
+    private static PublisherSyncState newSyncState(VideoProvider provider, String publisherName) {
+        return PublisherSyncState.builder()
+                .provider(provider)
+                .publisher(publisherName)
+                .build();
+    }
+
+    private static Video newVideo(Long uid, VideoProvider provider, Metadata md) {
+        return Video.builder()
+                .title(md.title())
+                .description(md.description())
+                .durationMs(md.durationMs() == null ? 0 : md.durationMs())
+                .source(provider.name().toLowerCase())
+                .provider(provider)
+                .category(md.videoCategory())
+                .externalVideoId(md.externalVideoId())
+                .uploadDate(md.uploadDate())
+                .createdUserId(uid)
+                .build();
+    }
+
+    /** Per-run counters and newest upload seen; confined to one sync pipeline. */
+    private static final class SyncProgress {
+        long seen;
+        long imported;
+        boolean reachedKnown;
+        Instant newestPublishedAt;
+        String newestExternalVideoId;
+
+        void seen(Metadata md) {
+            seen++;
+            if (md.uploadDate() != null
+                    && (newestPublishedAt == null || md.uploadDate().isAfter(newestPublishedAt))) {
+                newestPublishedAt = md.uploadDate();
+                newestExternalVideoId = md.externalVideoId();
+            }
+        }
+    }
 
     private Mono<Long> resolveUserId() {
-        return ReactiveSecurityContextHolder.getContext()
-                .map(ctx -> ctx.getAuthentication().getName())
-                .flatMap(userCache::getUser)
-                .map(CachedUser::id)
+        return CurrentUser.current()
+                .flatMap(user -> user.id() != null
+                        ? Mono.just(user.id())
+                        : userCache.getUser(user.username()).map(CachedUser::id))
                 .doOnNext(id -> log.debug("Import requested by userId={}", id));
     }
 
+    /**
+     * Inserts the video together with its {@link VideoImportedEvent} outbox row
+     * (one statement), then wakes the outbox relay. Listeners run from the relay,
+     * off the request path.
+     */
     private Mono<VideoResponse> saveAndPublish(Long userId, Metadata md) {
         Video entity = Video.builder()
                 .title(md.title())
@@ -137,30 +341,23 @@ public class VideoServiceImpl implements VideoService {
                 .category(md.videoCategory())
                 .externalVideoId(md.externalVideoId())
                 .uploadDate(md.uploadDate())
+                .viewCount(md.viewCount())
                 .createdUserId(userId)
-                .createdAt(Instant.now())
                 .build();
 
-        return videoRepo.save(entity)
-                .doOnSuccess(saved -> {
-                    var evt = VideoImportedEvent.builder()
-                            .id(saved.getId())
-                            .title(saved.getTitle())
-                            .provider(saved.getProvider())
-                            .category(saved.getCategory())
-                            .externalVideoId(saved.getExternalVideoId())
-                            .uploadDate(saved.getUploadDate())
-                            .durationMs(saved.getDurationMs())
-                            .createdAt(saved.getCreatedAt())
-                            .build();
-                    publisher.publishEvent(evt);
-                    log.debug("Published VideoImportedEvent for id={}", saved.getId());
+        return videoRepo.insertBatch(List.of(entity))
+                .next()
+                .map(inserted -> {
+                    entity.setId(inserted.getId());
+                    entity.setCreatedAt(inserted.getCreatedAt());
+                    publisher.publishEvent(new OutboxAppendedEvent(1));
+                    log.debug("Appended VideoImportedEvent for id={}", entity.getId());
+                    return VideoResponse.toDto(entity);
                 })
-                .map(VideoResponse::toDto)
-                .onErrorResume(DuplicateKeyException.class, ex ->
+                // imported concurrently by another request (ON CONFLICT DO NOTHING)
+                .switchIfEmpty(Mono.defer(() ->
                         videoRepo.findByProviderAndExternalVideoId(md.videoProvider(), md.externalVideoId())
-                                .map(VideoResponse::toDto)
-                );
+                                .map(VideoResponse::toDto)));
     }
 
     @SuppressWarnings("unused")
@@ -171,6 +368,14 @@ public class VideoServiceImpl implements VideoService {
                 "Could not import video %s/%s".formatted(provider, externalId), t));
     }
 
+    @SuppressWarnings("unused")
+    private Flux<VideoResponse> resyncFallback(VideoProvider provider, String publisherName, Throwable ex) {
+        log.error("Resync failed for {}:{}", provider, publisherName, ex);
+        return Flux.error(new IllegalStateException(
+                "Failed to resync videos for publisher: " + publisherName, ex
+        ));
+    }
+
     /**
      * Fallback handler for bulk‐import failures.
      */
@@ -0,0 +1,29 @@
+package com.github.dimitryivaniuta.videometadata.service.cache;
+
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Evicts entities from the {@link LocalCache}s of every node.
+ * <p>
+ * Call after the write has committed, or inside its transaction: Postgres
+ * delivers a NOTIFY only when the issuing transaction commits. The writing
+ * node evicts at once; other nodes evict when the notification arrives.
+ */
+public interface CacheInvalidationService {
+
+    Mono<Void> invalidate(String entity, Collection<Long> ids);
+
+    default Mono<Void> invalidate(String entity, long id) {
+        return invalidate(entity, List.of(id));
+    }
+
+    /** As {@link #invalidate(String, Collection)}, for entries cached under a key and possibly without an id. */
+    Mono<Void> invalidateKeys(String entity, Collection<String> keys);
+
+    default Mono<Void> invalidateKey(String entity, String key) {
+        return invalidateKeys(entity, List.of(key));
+    }
+}
@@ -0,0 +1,266 @@
+package com.github.dimitryivaniuta.videometadata.service.cache;
+
+import com.github.dimitryivaniuta.videometadata.config.CacheInvalidationProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.postgresql.api.PostgresqlConnection;
+import io.r2dbc.postgresql.api.PostgresqlResult;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * Cross-node cache invalidation over Postgres LISTEN/NOTIFY.
+ * <p>
+ * Writers send one {@code pg_notify} per id in a single statement; every
+ * notification carries a generation from {@code cache_invalidation_seq}.
+ * Each node holds one dedicated (unpooled) connection that LISTENs on the
+ * channel and evicts matching {@link LocalCache} entries, by id or, for
+ * entries without one, by cache key.
+ * <p>
+ * Notifications sent while a node is disconnected are lost, so after every
+ * (re)connect the node compares the sequence head with the generations it has
+ * received and clears all local caches if anything is missing. A keep-alive
+ * probe detects dead sockets; reconnects back off exponentially.
+ * <p>
+ * Metrics: {@code cache.invalidation.latency} (tag {@code entity}),
+ * {@code cache.invalidation.flush} (tag {@code reason} = connect|gap|overflow),
+ * {@code cache.invalidation.publish.failures} and the
+ * {@code cache.invalidation.connected} gauge.
+ */
+@Service
+@Profile("!schema-print")
+@Slf4j
+public class CacheInvalidationServiceImpl implements CacheInvalidationService {
+
+    private static final Pattern CHANNEL = Pattern.compile("[a-z_][a-z0-9_]{0,62}");
+
+    private static final String NOTIFY_SQL = """
+            SELECT count(pg_notify(:channel, :entity || ':' || i || ':'
+                                   || nextval('cache_invalidation_seq') || ':' || :sentAt)) AS sent
+            FROM unnest(CAST(:ids AS bigint[])) AS i
+            """;
+
+    /** Keys go last in the payload, after the generation and timestamp. */
+    private static final String NOTIFY_KEYS_SQL = """
+            SELECT count(pg_notify(:channel, :entity || ':0:' || nextval('cache_invalidation_seq')
+                                   || ':' || :sentAt || ':' || k)) AS sent
+            FROM unnest(CAST(:keys AS text[])) AS k
+            """;
+
+    private static final String HEAD_SQL =
+            "SELECT CASE WHEN is_called THEN last_value ELSE 0 END AS head FROM cache_invalidation_seq";
+
+    private final CacheInvalidationProperties props;
+    private final ConnectionFactory listenFactory;
+    private final DatabaseClient db;
+    private final ObjectProvider<LocalCache> caches;
+    private final MeterRegistry registry;
+    private final GenerationWindow window;
+    private final AtomicInteger connected = new AtomicInteger();
+    private final AtomicBoolean everConnected = new AtomicBoolean();
+    private volatile Disposable listener;
+
+    @Autowired
+    public CacheInvalidationServiceImpl(CacheInvalidationProperties props,
+                                        ObjectProvider<DatabaseClient> db,
+                                        ObjectProvider<R2dbcProperties> r2dbc,
+                                        ObjectProvider<LocalCache> caches,
+                                        MeterRegistry registry) {
+        this(props, listenerFactory(r2dbc.getIfAvailable()), db.getIfAvailable(), caches, registry);
+    }
+
+    CacheInvalidationServiceImpl(CacheInvalidationProperties props,
+                                 ConnectionFactory listenFactory,
+                                 DatabaseClient db,
+                                 ObjectProvider<LocalCache> caches,
+                                 MeterRegistry registry) {
+        if (!CHANNEL.matcher(props.getChannel()).matches()) {
+            throw new IllegalStateException("app.cache-invalidation.channel must be a lower-case identifier: "
+                    + props.getChannel());
+        }
+        this.props = props;
+        this.listenFactory = listenFactory;
+        this.db = db;
+        this.caches = caches;
+        this.registry = registry;
+        this.window = new GenerationWindow(props.getMaxPendingGenerations());
+        registry.gauge("cache.invalidation.connected", connected);
+    }
+
+    /** Unpooled: the listening connection is held for the node's lifetime and must not starve the pool. */
+    private static ConnectionFactory listenerFactory(R2dbcProperties r2dbc) {
+        if (r2dbc == null || r2dbc.getUrl() == null) {
+            return null;
+        }
+        ConnectionFactoryOptions.Builder options = ConnectionFactoryOptions.parse(r2dbc.getUrl()).mutate();
+        if (r2dbc.getUsername() != null) {
+            options.option(ConnectionFactoryOptions.USER, r2dbc.getUsername());
+        }
+        if (r2dbc.getPassword() != null) {
+            options.option(ConnectionFactoryOptions.PASSWORD, r2dbc.getPassword());
+        }
+        return ConnectionFactories.get(options.build());
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!props.isEnabled() || listenFactory == null) {
+            log.info("Cross-node cache invalidation disabled; evictions stay local");
+            return;
+        }
+        listener = Flux.defer(this::session)
+                .doOnNext(this::receive)
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, props.getReconnectBackoff())
+                        .maxBackoff(props.getMaxReconnectBackoff())
+                        .transientErrors(true)
+                        .doBeforeRetry(signal -> {
+                            connected.set(0);
+                            log.warn("Invalidation listener lost its connection ({}); reconnecting",
+                                    signal.failure().toString());
+                        }))
+                .subscribe(null, ex -> log.error("Invalidation listener stopped", ex));
+    }
+
+    @PreDestroy
+    public void stop() {
+        Disposable current = listener;
+        if (current != null) {
+            current.dispose();
+        }
+        connected.set(0);
+    }
+
+    boolean isConnected() {
+        return connected.get() == 1;
+    }
+
+    @Override
+    public Mono<Void> invalidate(String entity, Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Mono.empty();
+        }
+        ids.forEach(id -> evict(entity, id, null));   // read-your-writes on this node
+        return notifyOthers(entity, NOTIFY_SQL, "ids", ids.toArray(Long[]::new));
+    }
+
+    @Override
+    public Mono<Void> invalidateKeys(String entity, Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return Mono.empty();
+        }
+        keys.forEach(key -> evict(entity, 0, key));
+        return notifyOthers(entity, NOTIFY_KEYS_SQL, "keys", keys.toArray(String[]::new));
+    }
+
+    private Mono<Void> notifyOthers(String entity, String sql, String name, Object[] values) {
+        if (db == null || !props.isEnabled()) {
+            return Mono.empty();
+        }
+        // the write is already committed: a failed notify is logged, not surfaced
+        return db.sql(sql)
+                .bind("channel", props.getChannel())
+                .bind("entity", entity)
+                .bind("sentAt", System.currentTimeMillis())
+                .bind(name, values)
+                .fetch()
+                .rowsUpdated()
+                .onErrorResume(ex -> {
+                    registry.counter("cache.invalidation.publish.failures", "entity", entity).increment();
+                    log.warn("Could not notify other nodes of {} {} changes: {}", values.length, entity, ex.toString());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    /*
+     * One connection's lifetime. Notifications are subscribed before LISTEN is
+     * issued so none slip through; the head is read after LISTEN, so any
+     * generation not covered by it will still be delivered on this connection.
+     */
+    private Flux<Invalidation> session() {
+        return Flux.usingWhen(listenFactory.create(), this::listen, Connection::close,
+                (connection, ex) -> connection.close(), Connection::close);
+    }
+
+    private Flux<Invalidation> listen(Connection connection) {
+        PostgresqlConnection pg = (PostgresqlConnection) connection;
+        Flux<Invalidation> notifications = pg.getNotifications()
+                .filter(n -> props.getChannel().equals(n.getName()) && n.getParameter() != null)
+                .map(n -> Invalidation.decode(n.getParameter()));
+        Mono<Void> subscribe = Flux.from(pg.createStatement("LISTEN " + props.getChannel()).execute())
+                .flatMap(PostgresqlResult::getRowsUpdated)
+                .then(Flux.from(pg.createStatement(HEAD_SQL).execute())
+                        .flatMap(result -> result.map((row, meta) -> row.get("head", Long.class)))
+                        .next())
+                .doOnNext(this::connected)
+                .then();
+        Flux<Invalidation> keepAlive = Flux.interval(props.getKeepAlive())
+                .concatMap(tick -> Flux.from(pg.createStatement("SELECT 1").execute())
+                        .flatMap(PostgresqlResult::getRowsUpdated)
+                        .then())
+                .thenMany(Flux.empty());
+        return Flux.merge(notifications, subscribe.thenMany(Flux.empty()), keepAlive)
+                .concatWith(Mono.error(new IllegalStateException("Invalidation connection closed")));
+    }
+
+    private void connected(long head) {
+        boolean first = everConnected.compareAndSet(false, true);
+        if (!window.completeUpTo(head)) {
+            flush(first ? "connect" : "gap");
+        }
+        connected.set(1);
+        log.info("Listening for cache invalidations on '{}' (generation {})", props.getChannel(), head);
+    }
+
+    private void receive(Invalidation inv) {
+        evict(inv.entity(), inv.id(), inv.key());
+        registry.timer("cache.invalidation.latency", "entity", inv.entity())
+                .record(Math.max(0, System.currentTimeMillis() - inv.sentAtMillis()), TimeUnit.MILLISECONDS);
+        if (!window.seen(inv.generation())) {
+            flush("overflow");
+        }
+    }
+
+    private void evict(String entity, long id, String key) {
+        caches.orderedStream()
+                .filter(cache -> cache.entity().equals(entity))
+                .forEach(cache -> {
+                    try {
+                        if (key != null) {
+                            cache.evictKey(key);
+                        } else {
+                            cache.evict(id);
+                        }
+                    } catch (RuntimeException ex) {
+                        log.warn("Evicting {} {} failed; clearing the cache", entity, key != null ? key : id, ex);
+                        cache.clear();
+                    }
+                });
+    }
+
+    private void flush(String reason) {
+        registry.counter("cache.invalidation.flush", "reason", reason).increment();
+        caches.orderedStream().forEach(LocalCache::clear);
+        log.info("Cleared local caches ({})", reason);
+    }
+}
@@ -0,0 +1,55 @@
+package com.github.dimitryivaniuta.videometadata.service.cache;
+
+import java.util.TreeSet;
+
+/**
+ * Tracks which invalidation generations a listener has received.
+ * <p>
+ * {@code base} is the highest generation up to which nothing is missing;
+ * generations above it that arrived out of order (commit order differs from
+ * {@code nextval} order) wait in {@code pending} until the gap closes.
+ */
+final class GenerationWindow {
+
+    private final int maxPending;
+    private final TreeSet<Long> pending = new TreeSet<>();
+    private long base = -1;   // unknown until the first connect
+
+    GenerationWindow(int maxPending) {
+        this.maxPending = maxPending;
+    }
+
+    /** Records a received generation; false if too many gaps are open and the window was reset. */
+    synchronized boolean seen(long generation) {
+        if (base < 0 || generation <= base) {
+            return true;
+        }
+        pending.add(generation);
+        while (!pending.isEmpty() && pending.first() == base + 1) {
+            base = pending.pollFirst();
+        }
+        if (pending.size() > maxPending) {
+            base = pending.last();
+            pending.clear();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Called after (re)subscribing, with the sequence head read on the new
+     * connection. True if every generation up to {@code head} was received;
+     * either way the window then starts at {@code head}.
+     */
+    synchronized boolean completeUpTo(long head) {
+        boolean complete = base >= 0 && base >= head;
+        if (base < head) {
+            base = head;
+        }
+        pending.headSet(base, true).clear();
+        while (!pending.isEmpty() && pending.first() == base + 1) {
+            base = pending.pollFirst();
+        }
+        return complete;
+    }
+}
@@ -0,0 +1,33 @@
+package com.github.dimitryivaniuta.videometadata.service.cache;
+
+/**
+ * One cross-node invalidation, sent as {@code entity:id:generation:sentAtMillis},
+ * or {@code entity:0:generation:sentAtMillis:key} for an entry cached under a
+ * key rather than an id (e.g. a username without a user). The key comes last
+ * so it may contain colons.
+ *
+ * @param entity       cache entity type, e.g. {@link #USER}
+ * @param id           entity id; 0 when {@code key} is set
+ * @param key          cache key, or null for an invalidation by id
+ * @param generation   value of {@code cache_invalidation_seq} taken for this notification
+ * @param sentAtMillis sender's wall clock, for latency metrics only
+ */
+public record Invalidation(String entity, long id, String key, long generation, long sentAtMillis) {
+
+    public static final String USER = "user";
+    public static final String VIDEO = "video";
+
+    public static Invalidation decode(String payload) {
+        String[] parts = payload.split(":", 5);
+        if (parts.length < 4) {
+            throw new IllegalArgumentException("Malformed invalidation: " + payload);
+        }
+        return new Invalidation(parts[0], Long.parseLong(parts[1]), parts.length == 5 ? parts[4] : null,
+                Long.parseLong(parts[2]), Long.parseLong(parts[3]));
+    }
+
+    public String encode() {
+        String head = entity + ':' + id + ':' + generation + ':' + sentAtMillis;
+        return key == null ? head : head + ':' + key;
+    }
+}
@@ -0,0 +1,20 @@
+package com.github.dimitryivaniuta.videometadata.service.cache;
+
+/**
+ * A node-local cache kept coherent by {@link CacheInvalidationService}.
+ * All methods are called from the listener thread and must not block.
+ */
+public interface LocalCache {
+
+    /** Entity type whose invalidations this cache receives, e.g. {@link Invalidation#USER}. */
+    String entity();
+
+    void evict(long id);
+
+    /** Evicts the entry cached under {@code key}; for caches keyed by something other than the id. */
+    default void evictKey(String key) {
+    }
+
+    /** Drops everything; used when notifications may have been missed. */
+    void clear();
+}
@@ -0,0 +1,187 @@
+package com.github.dimitryivaniuta.videometadata.service.cache;
+
+import com.github.dimitryivaniuta.videometadata.config.UserCacheProperties;
+import com.github.dimitryivaniuta.videometadata.web.dto.CachedUser;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Node-local tier of the user cache: recently used users by username, with a
+ * short TTL and a size bound.
+ * <p>
+ * Kept coherent through {@link CacheInvalidationService} ({@link Invalidation#USER}).
+ * A load that started before an eviction must not put its (possibly stale)
+ * result back: callers take an {@link #epoch()} before going remote and pass
+ * it to {@link #put(CachedUser, long)}, which ignores the value if anything
+ * was evicted meanwhile.
+ * <p>
+ * An id index keeps {@link #evict(long)} (every pub/sub invalidation) off a
+ * full scan. A full cache is swept in bulk as {@code VerifiedTokenCache} is:
+ * expired entries, then arbitrary ones until a tenth of the slots are free,
+ * by one thread at a time.
+ */
+@Component
+public class UserNearCache implements LocalCache {
+
+    private record Entry(CachedUser user, long expiresAt) { }
+
+    /** Share of the size bound a sweep frees when nothing has expired. */
+    private static final double SWEEP_FRACTION = 0.1;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    /** Usernames cached per user id; more than one only around a rename. */
+    private final Map<Long, Set<String>> usernamesById = new ConcurrentHashMap<>();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+    private final AtomicLong epoch = new AtomicLong();
+    private final UserCacheProperties props;
+    private final LongSupplier clock;
+
+    public UserNearCache(UserCacheProperties props) {
+        this(props, System::nanoTime);
+    }
+
+    UserNearCache(UserCacheProperties props, LongSupplier clock) {
+        this.props = props;
+        this.clock = clock;
+    }
+
+    @Override
+    public String entity() {
+        return Invalidation.USER;
+    }
+
+    /** @return the cached user, or null if absent, expired or the local tier is disabled */
+    public CachedUser get(String username) {
+        if (!props.isLocalEnabled()) {
+            return null;
+        }
+        Entry e = entries.get(username);
+        if (e == null) {
+            return null;
+        }
+        if (clock.getAsLong() - e.expiresAt() >= 0) {
+            drop(username, e);
+            return null;
+        }
+        return e.user();
+    }
+
+    public long epoch() {
+        return epoch.get();
+    }
+
+    /** Caches {@code user} unless something was evicted since {@code epoch} was read. */
+    public void put(CachedUser user, long epoch) {
+        put(user, epoch, props.getLocalTtl());
+    }
+
+    /** As {@link #put(CachedUser, long)}, for at most {@code ttl} (capped at the local TTL). */
+    public void put(CachedUser user, long epoch, Duration ttl) {
+        if (!props.isLocalEnabled() || user.username() == null) {
+            return;
+        }
+        if (entries.size() >= props.getLocalMaxSize()) {
+            makeRoom();
+        }
+        long ttlNanos = Math.min(ttl.toNanos(), props.getLocalTtl().toNanos());
+        Entry entry = new Entry(user, clock.getAsLong() + ttlNanos);
+        Entry replaced = entries.put(user.username(), entry);
+        if (replaced != null && !Objects.equals(replaced.user().id(), user.id())) {
+            unindex(user.username(), replaced);
+        }
+        // indexed after the put: an evict(id) in between bumps the epoch checked below
+        if (user.id() != null) {
+            usernamesById.computeIfAbsent(user.id(), id -> ConcurrentHashMap.newKeySet()).add(user.username());
+        }
+        if (this.epoch.get() != epoch) {
+            drop(user.username(), entry);   // raced with an eviction
+        }
+    }
+
+    /** @return the removed user, or null */
+    public CachedUser remove(String username) {
+        epoch.incrementAndGet();
+        Entry e = entries.remove(username);
+        if (e == null) {
+            return null;
+        }
+        unindex(username, e);
+        return e.user();
+    }
+
+    @Override
+    public void evict(long id) {
+        epoch.incrementAndGet();
+        Set<String> usernames = usernamesById.remove(id);
+        if (usernames != null) {
+            usernames.forEach(username -> entries.computeIfPresent(username,
+                    (k, e) -> Objects.equals(e.user().id(), id) ? null : e));
+        }
+    }
+
+    /** Evicts by username; the only way to reach a negative entry, which has no id. */
+    @Override
+    public void evictKey(String username) {
+        remove(username);
+    }
+
+    @Override
+    public void clear() {
+        epoch.incrementAndGet();
+        entries.clear();
+        usernamesById.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    // expired entries first, then arbitrary ones down to the low-water mark
+    private void makeRoom() {
+        if (!sweeping.compareAndSet(false, true)) {
+            return;   // another put is already freeing room
+        }
+        try {
+            long now = clock.getAsLong();
+            int maxSize = props.getLocalMaxSize();
+            int lowWater = maxSize - Math.max(1, (int) (maxSize * SWEEP_FRACTION));
+            entries.forEach((username, e) -> {
+                if (now - e.expiresAt() >= 0) {
+                    drop(username, e);
+                }
+            });
+            Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+            while (entries.size() > lowWater && it.hasNext()) {
+                Map.Entry<String, Entry> next = it.next();
+                drop(next.getKey(), next.getValue());
+            }
+        } finally {
+            sweeping.set(false);
+        }
+    }
+
+    private void drop(String username, Entry e) {
+        if (entries.remove(username, e)) {
+            unindex(username, e);
+        }
+    }
+
+    private void unindex(String username, Entry e) {
+        Long id = e.user().id();
+        if (id != null) {
+            usernamesById.computeIfPresent(id, (k, names) -> {
+                names.remove(username);
+                return names.isEmpty() ? null : names;
+            });
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.github.dimitryivaniuta.videometadata.service.cache.codec;
+
+/**
+ * Compact binary form of one cached type, used through {@link VersionedRedisSerializer}.
+ * <p>
+ * Every stored value is prefixed with the {@link #version()} it was written
+ * with. A codec keeps reading all versions that may still be in Redis (up to
+ * the longest TTL) and writes only the current one; any change to the layout,
+ * including reordering an enum encoded by ordinal, needs a new version.
+ */
+public interface BinaryCodec<T> {
+
+    /** Version written by {@link #write}. */
+    int version();
+
+    void write(T value, BinaryOutput out);
+
+    /** @throws IllegalArgumentException for a version this codec cannot read */
+    T read(BinaryInput in, int version);
+}
@@ -0,0 +1,63 @@
+package com.github.dimitryivaniuta.videometadata.service.cache.codec;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+/**
+ * Reader for {@link BinaryOutput}. Truncated or malformed input fails with
+ * {@link IllegalArgumentException}.
+ */
+public final class BinaryInput {
+
+    private final byte[] buf;
+    private int pos;
+
+    public BinaryInput(byte[] buf, int offset) {
+        this.buf = buf;
+        this.pos = offset;
+    }
+
+    public int readByte() {
+        require(1);
+        return buf[pos++] & 0xFF;
+    }
+
+    public long readVarLong() {
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return v;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint at " + pos);
+    }
+
+    public long readSignedVarLong() {
+        long v = readVarLong();
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    public int readVarInt() {
+        return Math.toIntExact(readVarLong());
+    }
+
+    public String readString() {
+        int len = readVarInt();
+        require(len);
+        String s = new String(buf, pos, len, StandardCharsets.UTF_8);
+        pos += len;
+        return s;
+    }
+
+    public Instant readInstant() {
+        return Instant.ofEpochSecond(readSignedVarLong(), readVarLong());
+    }
+
+    private void require(int n) {
+        if (n < 0 || pos + n > buf.length) {
+            throw new IllegalArgumentException("Truncated value: need " + n + " bytes at " + pos);
+        }
+    }
+}
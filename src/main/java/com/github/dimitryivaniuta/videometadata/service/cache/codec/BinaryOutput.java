@@ -0,0 +1,65 @@
+package com.github.dimitryivaniuta.videometadata.service.cache.codec;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+
+/**
+ * Append-only byte buffer with LEB128 varints. Not thread-safe.
+ */
+public final class BinaryOutput {
+
+    private byte[] buf;
+    private int pos;
+
+    public BinaryOutput(int capacity) {
+        this.buf = new byte[Math.max(16, capacity)];
+    }
+
+    public BinaryOutput writeByte(int b) {
+        ensure(1);
+        buf[pos++] = (byte) b;
+        return this;
+    }
+
+    /** Unsigned varint: 1 byte below 128, at most 10. */
+    public BinaryOutput writeVarLong(long v) {
+        ensure(10);
+        while ((v & ~0x7FL) != 0) {
+            buf[pos++] = (byte) ((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        buf[pos++] = (byte) v;
+        return this;
+    }
+
+    /** Zig-zag varint, for values that may be negative. */
+    public BinaryOutput writeSignedVarLong(long v) {
+        return writeVarLong((v << 1) ^ (v >> 63));
+    }
+
+    /** Length-prefixed UTF-8. */
+    public BinaryOutput writeString(String s) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(bytes.length);
+        ensure(bytes.length);
+        System.arraycopy(bytes, 0, buf, pos, bytes.length);
+        pos += bytes.length;
+        return this;
+    }
+
+    /** Epoch seconds and nanos; lossless. */
+    public BinaryOutput writeInstant(Instant t) {
+        return writeSignedVarLong(t.getEpochSecond()).writeVarLong(t.getNano());
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buf, pos);
+    }
+
+    private void ensure(int n) {
+        if (pos + n > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + n));
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.github.dimitryivaniuta.videometadata.service.cache.codec;
+
+import com.github.dimitryivaniuta.videometadata.model.Role;
+import com.github.dimitryivaniuta.videometadata.model.UserStatus;
+import com.github.dimitryivaniuta.videometadata.web.dto.CachedUser;
+
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * {@link CachedUser}, version 1:
+ * <pre>
+ * presence  varint, one bit per field below (every field is nullable)
+ * id        zig-zag varint
+ * username  string
+ * email     string
+ * status    varint {@link UserStatus#getCode()}
+ * createdAt, updatedAt, lastLoginAt  instant
+ * roles     varint bit set of {@link Role#getCode()}: bit 0 USER, bit 1 ADMIN
+ * </pre>
+ * Codes are part of the format, not enum ordinals, so reordering the enums
+ * cannot remap stored values; a role code this build does not know is
+ * dropped on read (fewer rights, never different ones).
+ * A typical user is about a quarter of its JSON size.
+ */
+public final class CachedUserCodec implements BinaryCodec<CachedUser> {
+
+    private static final int ID = 1, USERNAME = 1 << 1, EMAIL = 1 << 2, STATUS = 1 << 3,
+            CREATED = 1 << 4, UPDATED = 1 << 5, LAST_LOGIN = 1 << 6, ROLES = 1 << 7;
+
+    @Override
+    public int version() {
+        return 1;
+    }
+
+    @Override
+    public void write(CachedUser u, BinaryOutput out) {
+        int present = (u.id() != null ? ID : 0)
+                | (u.username() != null ? USERNAME : 0)
+                | (u.email() != null ? EMAIL : 0)
+                | (u.status() != null ? STATUS : 0)
+                | (u.createdAt() != null ? CREATED : 0)
+                | (u.updatedAt() != null ? UPDATED : 0)
+                | (u.lastLoginAt() != null ? LAST_LOGIN : 0)
+                | (u.roles() != null ? ROLES : 0);
+        out.writeVarLong(present);
+        if (u.id() != null) out.writeSignedVarLong(u.id());
+        if (u.username() != null) out.writeString(u.username());
+        if (u.email() != null) out.writeString(u.email());
+        if (u.status() != null) out.writeVarLong(u.status().getCode());
+        if (u.createdAt() != null) out.writeInstant(u.createdAt());
+        if (u.updatedAt() != null) out.writeInstant(u.updatedAt());
+        if (u.lastLoginAt() != null) out.writeInstant(u.lastLoginAt());
+        if (u.roles() != null) {
+            long bits = 0;
+            for (Role r : u.roles()) {
+                bits |= 1L << r.getCode();
+            }
+            out.writeVarLong(bits);
+        }
+    }
+
+    @Override
+    public CachedUser read(BinaryInput in, int version) {
+        if (version != 1) {
+            throw new IllegalArgumentException("Unsupported CachedUser version " + version);
+        }
+        int present = in.readVarInt();
+        return CachedUser.builder()
+                .id((present & ID) != 0 ? in.readSignedVarLong() : null)
+                .username((present & USERNAME) != 0 ? in.readString() : null)
+                .email((present & EMAIL) != 0 ? in.readString() : null)
+                .status((present & STATUS) != 0 ? UserStatus.fromCode(in.readVarInt()) : null)
+                .createdAt(instant(in, present, CREATED))
+                .updatedAt(instant(in, present, UPDATED))
+                .lastLoginAt(instant(in, present, LAST_LOGIN))
+                .roles((present & ROLES) != 0 ? roles(in.readVarLong()) : null)
+                .build();
+    }
+
+    private static Instant instant(BinaryInput in, int present, int bit) {
+        return (present & bit) != 0 ? in.readInstant() : null;
+    }
+
+    private static Set<Role> roles(long bits) {
+        EnumSet<Role> roles = EnumSet.noneOf(Role.class);
+        for (int code = 0; code < Long.SIZE; code++) {
+            Role role = (bits & (1L << code)) != 0 ? Role.fromCode(code) : null;
+            if (role != null) {
+                roles.add(role);
+            }
+        }
+        return Set.copyOf(roles);
+    }
+}
@@ -0,0 +1,63 @@
+package com.github.dimitryivaniuta.videometadata.service.cache.codec;
+
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+/**
+ * {@link RedisSerializer} writing {@code MAGIC, version (varint), payload}
+ * through a {@link BinaryCodec}, and reading both that and values written by
+ * the previous (e.g. JSON) serializer.
+ * <p>
+ * {@link #MAGIC} is never the first byte of UTF-8 JSON, so old entries are
+ * recognised without a lookup and keep working until they expire. Binary
+ * writes can be switched off ({@code writeBinary = false}) for the first
+ * deploy of a rolling upgrade, while nodes that only read JSON still run.
+ */
+public final class VersionedRedisSerializer<T> implements RedisSerializer<T> {
+
+    /** 0xC7 is not a valid leading byte in UTF-8, so no JSON document starts with it. */
+    public static final int MAGIC = 0xC7;
+
+    private final BinaryCodec<T> codec;
+    private final RedisSerializer<T> legacy;
+    private final boolean writeBinary;
+
+    public VersionedRedisSerializer(BinaryCodec<T> codec, RedisSerializer<T> legacy, boolean writeBinary) {
+        this.codec = codec;
+        this.legacy = legacy;
+        this.writeBinary = writeBinary;
+    }
+
+    @Override
+    public byte[] serialize(T value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+        if (!writeBinary) {
+            return legacy.serialize(value);
+        }
+        try {
+            BinaryOutput out = new BinaryOutput(64).writeByte(MAGIC).writeVarLong(codec.version());
+            codec.write(value, out);
+            return out.toByteArray();
+        } catch (RuntimeException e) {
+            throw new SerializationException("Failed to encode " + value.getClass().getSimpleName(), e);
+        }
+    }
+
+    @Override
+    public T deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if ((bytes[0] & 0xFF) != MAGIC) {
+            return legacy.deserialize(bytes);
+        }
+        try {
+            BinaryInput in = new BinaryInput(bytes, 1);
+            return codec.read(in, in.readVarInt());
+        } catch (RuntimeException e) {
+            throw new SerializationException("Failed to decode cached value", e);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.github.dimitryivaniuta.videometadata.service.events;
+
+import com.github.dimitryivaniuta.videometadata.config.EventBusProperties;
+import com.github.dimitryivaniuta.videometadata.config.EventBusProperties.Overflow;
+import com.github.dimitryivaniuta.videometadata.domain.event.BatchEventConsumer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded, asynchronous in-process bus for domain events.
+ * <p>
+ * Every {@link BatchEventConsumer} gets its own pipeline: a Reactor sink,
+ * a bounded buffer with the configured {@link Overflow} policy,
+ * {@code bufferTimeout} batching and bounded batch concurrency. Batches run
+ * on the parallel scheduler, never on the publishing thread.
+ * <p>
+ * {@link #publish} completes once every consumer of the event's type has
+ * consumed it (or dropped it under a DROP_* policy), and fails when a
+ * consumer rejected it or its batch failed. A publisher that must not lose
+ * events (the outbox) therefore only acknowledges after the fact.
+ * <p>
+ * Metrics per consumer: {@code events.consumer.lag} (accepted, not yet
+ * consumed), {@code events.consumer.events} (outcome = consumed|failed|
+ * dropped|rejected) and {@code events.consumer.batch}.
+ */
+@Component
+@Profile("!schema-print")
+@Slf4j
+public class DomainEventBus {
+
+    private final List<Pipeline<?>> pipelines;
+    /** Pipelines per published event class, resolved on first use. */
+    private final Map<Class<?>, List<Pipeline<?>>> byType = new ConcurrentHashMap<>();
+
+    public DomainEventBus(ObjectProvider<BatchEventConsumer<?>> consumers,
+                          EventBusProperties props,
+                          MeterRegistry registry) {
+        this.pipelines = consumers.orderedStream()
+                .<Pipeline<?>>map(c -> new Pipeline<>(c, props.forConsumer(c.name()), registry))
+                .toList();
+        pipelines.forEach(p -> log.info("Event bus consumer {} <- {} ({})",
+                p.consumer.name(), p.consumer.eventType().getSimpleName(), p.cfg));
+    }
+
+    /** Offers the event to every consumer of its class or a supertype; see the class doc for completion. */
+    public Mono<Void> publish(Object event) {
+        List<Pipeline<?>> targets = byType.computeIfAbsent(event.getClass(), type -> pipelines.stream()
+                .filter(p -> p.consumer.eventType().isAssignableFrom(type))
+                .toList());
+        return switch (targets.size()) {
+            case 0 -> Mono.empty();
+            case 1 -> targets.getFirst().offer(event);
+            default -> Mono.when(targets.stream().map(p -> p.offer(event)).toList());
+        };
+    }
+
+    /** Stops accepting events; batches already buffered are still delivered. */
+    @PreDestroy
+    public void close() {
+        pipelines.forEach(Pipeline::close);
+    }
+
+    /** An accepted event and the publisher waiting for it. */
+    private record Envelope(Object event, MonoSink<Void> done) { }
+
+    private static final class Pipeline<E> {
+
+        private final BatchEventConsumer<E> consumer;
+        private final EventBusProperties.Consumer cfg;
+        private final int capacity;
+        private final AtomicInteger depth = new AtomicInteger();
+        private final Sinks.Many<Envelope> sink = Sinks.many().unicast().onBackpressureBuffer();
+        private final Counter consumed;
+        private final Counter failed;
+        private final Counter dropped;
+        private final Counter rejected;
+        private final Timer batchTimer;
+
+        Pipeline(BatchEventConsumer<E> consumer, EventBusProperties.Consumer cfg, MeterRegistry registry) {
+            this.consumer = consumer;
+            this.cfg      = cfg;
+            this.capacity = Math.max(1, cfg.getCapacity());
+            String name   = consumer.name();
+            registry.gauge("events.consumer.lag", Tags.of("consumer", name),
+                    depth, AtomicInteger::get);
+            this.consumed   = registry.counter("events.consumer.events", "consumer", name, "outcome", "consumed");
+            this.failed     = registry.counter("events.consumer.events", "consumer", name, "outcome", "failed");
+            this.dropped    = registry.counter("events.consumer.events", "consumer", name, "outcome", "dropped");
+            this.rejected   = registry.counter("events.consumer.events", "consumer", name, "outcome", "rejected");
+            this.batchTimer = registry.timer("events.consumer.batch", "consumer", name);
+
+            // depth bounds the queue for REJECT / DROP_LATEST before emitting; the
+            // buffer below only ever overflows under DROP_OLDEST
+            sink.asFlux()
+                    .onBackpressureBuffer(capacity, this::evicted, BufferOverflowStrategy.DROP_OLDEST)
+                    .bufferTimeout(Math.max(1, cfg.getBatchSize()), cfg.getBatchTimeout(), true)
+                    .flatMap(batch -> deliver(batch).subscribeOn(Schedulers.parallel()),
+                            Math.max(1, cfg.getConcurrency()))
+                    .subscribe();
+        }
+
+        Mono<Void> offer(Object event) {
+            return Mono.create(done -> {
+                if (cfg.getOverflow() != Overflow.DROP_OLDEST
+                        && depth.getAndUpdate(d -> d < capacity ? d + 1 : d) >= capacity) {
+                    if (cfg.getOverflow() == Overflow.REJECT) {
+                        rejected.increment();
+                        done.error(new RejectedExecutionException(
+                                "Event bus consumer " + consumer.name() + " is full (" + capacity + ")"));
+                    } else {
+                        dropped.increment();
+                        done.success();
+                    }
+                    return;
+                }
+                if (cfg.getOverflow() == Overflow.DROP_OLDEST) {
+                    depth.incrementAndGet();
+                }
+                Sinks.EmitResult result;
+                synchronized (sink) {
+                    result = sink.tryEmitNext(new Envelope(event, done));
+                }
+                if (result.isFailure()) {
+                    depth.decrementAndGet();
+                    done.error(new IllegalStateException(
+                            "Event bus consumer " + consumer.name() + " is closed (" + result + ")"));
+                }
+            });
+        }
+
+        @SuppressWarnings("unchecked")
+        private Mono<Void> deliver(List<Envelope> batch) {
+            List<E> events = batch.stream().map(e -> (E) e.event()).toList();
+            return Mono.defer(() -> {
+                        Timer.Sample sample = Timer.start();
+                        return consumer.consume(events)
+                                .doOnSuccess(v -> sample.stop(batchTimer));
+                    })
+                    // depth drops before the publishers complete, so they never see their own events as lag
+                    .doOnSuccess(v -> {
+                        depth.addAndGet(-batch.size());
+                        consumed.increment(batch.size());
+                        batch.forEach(e -> e.done().success());
+                    })
+                    .onErrorResume(ex -> {
+                        depth.addAndGet(-batch.size());
+                        log.warn("Event bus consumer {} failed a batch of {}: {}",
+                                consumer.name(), batch.size(), ex.toString());
+                        failed.increment(batch.size());
+                        batch.forEach(e -> e.done().error(ex));
+                        return Mono.empty();
+                    })
+                    .doOnCancel(() -> depth.addAndGet(-batch.size()));
+        }
+
+        private void evicted(Envelope oldest) {
+            depth.decrementAndGet();
+            dropped.increment();
+            oldest.done().success();
+        }
+
+        void close() {
+            synchronized (sink) {
+                sink.tryEmitComplete();
+            }
+        }
+    }
+}
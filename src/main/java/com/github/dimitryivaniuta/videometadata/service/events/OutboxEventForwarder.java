@@ -0,0 +1,52 @@
+package com.github.dimitryivaniuta.videometadata.service.events;
+
+import com.github.dimitryivaniuta.videometadata.domain.event.DomainEventHandler;
+import com.github.dimitryivaniuta.videometadata.domain.event.VideoImportedEvent;
+import com.github.dimitryivaniuta.videometadata.domain.event.VideoMetadataChangedEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Feeds events delivered by the outbox relay into the event bus, one handler
+ * per event type (see the nested components).
+ * The outbox row is acknowledged only after the bus consumers have consumed the event.
+ *
+ * @param <E> the forwarded event type
+ */
+public abstract class OutboxEventForwarder<E> implements DomainEventHandler<E> {
+
+    private final DomainEventBus bus;
+    private final Class<E> eventType;
+
+    protected OutboxEventForwarder(DomainEventBus bus, Class<E> eventType) {
+        this.bus       = bus;
+        this.eventType = eventType;
+    }
+
+    @Override
+    public Class<E> eventType() {
+        return eventType;
+    }
+
+    @Override
+    public Mono<Void> handle(E event) {
+        return bus.publish(event);
+    }
+
+    @Component
+    @Profile("!schema-print")
+    static class Imports extends OutboxEventForwarder<VideoImportedEvent> {
+        Imports(DomainEventBus bus) {
+            super(bus, VideoImportedEvent.class);
+        }
+    }
+
+    @Component
+    @Profile("!schema-print")
+    static class MetadataChanges extends OutboxEventForwarder<VideoMetadataChangedEvent> {
+        MetadataChanges(DomainEventBus bus) {
+            super(bus, VideoMetadataChangedEvent.class);
+        }
+    }
+}
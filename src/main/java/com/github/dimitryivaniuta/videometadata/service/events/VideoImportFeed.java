@@ -0,0 +1,90 @@
+package com.github.dimitryivaniuta.videometadata.service.events;
+
+import com.github.dimitryivaniuta.videometadata.config.SubscriptionProperties;
+import com.github.dimitryivaniuta.videometadata.domain.event.BatchEventConsumer;
+import com.github.dimitryivaniuta.videometadata.domain.event.VideoImportedEvent;
+import com.github.dimitryivaniuta.videometadata.model.VideoProvider;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import jakarta.annotation.PreDestroy;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fans imported videos out to live GraphQL subscribers.
+ * <p>
+ * Fed by the event bus (consumer {@value #NAME}) into one multicast sink.
+ * The sink never waits for subscribers: each one reads through its own
+ * bounded buffer that drops its oldest events when full, so a slow client
+ * loses events instead of slowing the bus, the outbox or other clients.
+ * Only events delivered on this node are seen.
+ * <p>
+ * Metrics: {@code graphql.subscriptions.active} and
+ * {@code graphql.subscriptions.dropped} (tag {@code field}).
+ */
+@Component
+@Profile("!schema-print")
+public class VideoImportFeed implements BatchEventConsumer<VideoImportedEvent> {
+
+    static final String NAME = "video-subscriptions";
+    private static final String FIELD = "videoImported";
+
+    private final Sinks.Many<VideoImportedEvent> sink = Sinks.many().multicast().directBestEffort();
+    private final SubscriptionProperties props;
+    private final AtomicInteger active = new AtomicInteger();
+    private final Counter dropped;
+
+    public VideoImportFeed(SubscriptionProperties props, MeterRegistry registry) {
+        this.props = props;
+        this.dropped = registry.counter("graphql.subscriptions.dropped", "field", FIELD);
+        registry.gauge("graphql.subscriptions.active", List.of(Tag.of("field", FIELD)), active);
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public Class<VideoImportedEvent> eventType() {
+        return VideoImportedEvent.class;
+    }
+
+    @Override
+    public Mono<Void> consume(List<VideoImportedEvent> batch) {
+        batch.forEach(this::emit);
+        return Mono.empty();
+    }
+
+    /** Imports of {@code provider}, or of every provider when null, from now on. */
+    public Flux<VideoImportedEvent> subscribe(VideoProvider provider) {
+        return sink.asFlux()
+                .filter(evt -> provider == null || evt.provider() == provider)
+                .onBackpressureBuffer(props.getBufferSize(), evt -> dropped.increment(),
+                        BufferOverflowStrategy.DROP_OLDEST)
+                .doOnSubscribe(s -> active.incrementAndGet())
+                .doFinally(signal -> active.decrementAndGet());
+    }
+
+    int subscribers() {
+        return sink.currentSubscriberCount();
+    }
+
+    @PreDestroy
+    public void close() {
+        sink.emitComplete(Sinks.EmitFailureHandler.FAIL_FAST);
+    }
+
+    // concurrent emitters retry; no subscribers is not a failure
+    private void emit(VideoImportedEvent evt) {
+        sink.emitNext(evt, (signal, result) -> result == Sinks.EmitResult.FAIL_NON_SERIALIZED);
+    }
+}
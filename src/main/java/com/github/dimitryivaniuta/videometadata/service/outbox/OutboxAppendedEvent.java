@@ -0,0 +1,8 @@
+package com.github.dimitryivaniuta.videometadata.service.outbox;
+
+/**
+ * Published by writers right after they appended outbox rows, so the relay
+ * delivers them without waiting for its next poll. Losing it only costs latency.
+ */
+public record OutboxAppendedEvent(int count) {
+}
@@ -0,0 +1,192 @@
+package com.github.dimitryivaniuta.videometadata.service.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.dimitryivaniuta.videometadata.config.OutboxProperties;
+import com.github.dimitryivaniuta.videometadata.domain.event.DomainEventHandler;
+import com.github.dimitryivaniuta.videometadata.projection.OutboxRow;
+import com.github.dimitryivaniuta.videometadata.repository.OutboxRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Delivers outbox rows to {@link DomainEventHandler}s, at least once.
+ * <p>
+ * A drain claims a batch ({@code FOR UPDATE SKIP LOCKED} plus a lease, so
+ * several nodes can relay side by side), delivers its events with bounded
+ * concurrency and deletes the delivered rows in one statement. A failed
+ * event is released with exponential backoff and parked as a dead letter
+ * after {@code max-attempts}. Full batches are followed by another claim
+ * straight away; otherwise the relay waits for the next poll or for an
+ * {@link OutboxAppendedEvent}.
+ * <p>
+ * Events of one batch may be delivered out of order; handlers that care must
+ * compare versions themselves.
+ * <p>
+ * Metrics: {@code outbox.events} (tags {@code type}, {@code outcome} =
+ * delivered|retry|dead), {@code outbox.lag} (append to delivery) and
+ * {@code outbox.batch} (one claim-deliver-ack cycle).
+ */
+@Component
+@Profile("!schema-print")
+@Slf4j
+public class OutboxRelay {
+
+    private final OutboxRepository outbox;
+    private final OutboxProperties props;
+    private final ObjectMapper mapper;
+    private final MeterRegistry registry;
+    private final Map<String, Class<?>> eventTypes;
+    private final Map<String, List<DomainEventHandler<Object>>> handlers;
+    private final Timer batchTimer;
+
+    private final AtomicBoolean running   = new AtomicBoolean();
+    private final AtomicBoolean requested = new AtomicBoolean();
+
+    @SuppressWarnings("unchecked")
+    public OutboxRelay(OutboxRepository outbox,
+                       OutboxProperties props,
+                       ObjectMapper mapper,
+                       MeterRegistry registry,
+                       ObjectProvider<DomainEventHandler<?>> handlerBeans) {
+        List<DomainEventHandler<?>> handlers = handlerBeans.orderedStream().toList();
+        this.outbox   = outbox;
+        this.props    = props;
+        this.mapper   = mapper;
+        this.registry = registry;
+        this.eventTypes = handlers.stream()
+                .collect(Collectors.toMap(h -> h.eventType().getSimpleName(), DomainEventHandler::eventType,
+                        (a, b) -> a));
+        this.handlers = handlers.stream()
+                .map(h -> (DomainEventHandler<Object>) h)
+                .collect(Collectors.groupingBy(h -> h.eventType().getSimpleName()));
+        this.batchTimer = registry.timer("outbox.batch");
+    }
+
+    @Scheduled(initialDelayString = "PT5S", fixedDelayString = "${app.outbox.poll-interval:PT1S}")
+    public void poll() {
+        trigger();
+    }
+
+    @EventListener
+    public void onAppended(OutboxAppendedEvent event) {
+        trigger();
+    }
+
+    /** Starts a drain unless one is running; a request during a drain causes another one after it. */
+    void trigger() {
+        if (!props.isEnabled()) {
+            return;
+        }
+        requested.set(true);
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        requested.set(false);
+        drain()
+                .doFinally(signal -> {
+                    running.set(false);
+                    if (requested.get()) {
+                        trigger();
+                    }
+                })
+                .subscribe(
+                        delivered -> {
+                            if (delivered > 0) {
+                                log.debug("Outbox relay delivered {} events", delivered);
+                            }
+                        },
+                        ex -> log.error("Outbox relay drain failed", ex));
+    }
+
+    /** Claims and delivers batches until one comes back short. */
+    Mono<Integer> drain() {
+        int batchSize = Math.max(1, props.getBatchSize());
+        return relayBatch(batchSize)
+                .expand(claimed -> claimed >= batchSize ? relayBatch(batchSize) : Mono.empty())
+                .reduce(0, Integer::sum);
+    }
+
+    private Mono<Integer> relayBatch(int batchSize) {
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(registry);
+            return outbox.claim(batchSize, props.getLease())
+                    .collectList()
+                    .flatMap(rows -> rows.isEmpty()
+                            ? Mono.just(0)
+                            : deliverAll(rows).doOnSuccess(v -> sample.stop(batchTimer)).thenReturn(rows.size()));
+        });
+    }
+
+    private Mono<Void> deliverAll(List<OutboxRow> rows) {
+        return Flux.fromIterable(rows)
+                .flatMap(row -> deliver(row)
+                                .thenReturn(row.id())
+                                .onErrorResume(ex -> release(row, ex).then(Mono.empty())),
+                        Math.max(1, props.getDispatchConcurrency()))
+                .collectList()
+                .flatMap(outbox::delete)
+                .then();
+    }
+
+    private Mono<Void> deliver(OutboxRow row) {
+        List<DomainEventHandler<Object>> targets = handlers.getOrDefault(row.eventType(), List.of());
+        return Mono.fromCallable(() -> decode(row))
+                .flatMap(event -> Flux.fromIterable(targets)
+                        .concatMap(handler -> handler.handle(event))
+                        .then())
+                .timeout(props.getHandlerTimeout())
+                .doOnSuccess(v -> {
+                    registry.counter("outbox.events", "type", row.eventType(), "outcome", "delivered").increment();
+                    if (row.createdAt() != null) {
+                        registry.timer("outbox.lag", "type", row.eventType())
+                                .record(Duration.between(row.createdAt(), Instant.now()));
+                    }
+                });
+    }
+
+    private Object decode(OutboxRow row) throws Exception {
+        Class<?> type = eventTypes.get(row.eventType());
+        // no handler registered for this type: nothing to deliver, acknowledge it
+        return type == null ? row : mapper.readValue(row.payload(), type);
+    }
+
+    private Mono<Void> release(OutboxRow row, Throwable ex) {
+        boolean dead = row.attempts() >= props.getMaxAttempts();
+        registry.counter("outbox.events", "type", row.eventType(), "outcome", dead ? "dead" : "retry").increment();
+        if (dead) {
+            log.error("Outbox event {} ({} #{}) parked after {} attempts",
+                    row.id(), row.eventType(), row.aggregateId(), row.attempts(), ex);
+        } else {
+            log.warn("Outbox event {} ({} #{}) failed, attempt {}: {}",
+                    row.id(), row.eventType(), row.aggregateId(), row.attempts(), ex.toString());
+        }
+        return outbox.reschedule(row.id(), backoff(row.attempts()), ex.toString(), props.getMaxAttempts())
+                .onErrorResume(e -> {
+                    // the lease expires and the row is claimed again
+                    log.warn("Could not release outbox event {}: {}", row.id(), e.toString());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    Duration backoff(int attempts) {
+        long factor = 1L << Math.min(Math.max(attempts - 1, 0), 20);
+        Duration delay = props.getBackoff().multipliedBy(factor);
+        return delay.compareTo(props.getMaxBackoff()) > 0 ? props.getMaxBackoff() : delay;
+    }
+}
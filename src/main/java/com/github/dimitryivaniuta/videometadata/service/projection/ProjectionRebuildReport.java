@@ -0,0 +1,15 @@
+package com.github.dimitryivaniuta.videometadata.service.projection;
+
+/**
+ * Outcome of one projection rebuild.
+ *
+ * @param projection      projection name
+ * @param segments        segments replayed in parallel
+ * @param head            last log sequence included in the replay
+ * @param events          events applied by this run
+ * @param durationMs      wall-clock time of the replay, reset included
+ * @param eventsPerSecond {@code events} over {@code durationMs}
+ * @param resumed         whether the run continued from stored tokens instead of resetting
+ */
+public record ProjectionRebuildReport(String projection, int segments, long head, long events,
+                                      long durationMs, double eventsPerSecond, boolean resumed) {}
@@ -0,0 +1,23 @@
+package com.github.dimitryivaniuta.videometadata.service.projection;
+
+import reactor.core.publisher.Mono;
+
+import java.util.Set;
+
+/**
+ * Rebuilds {@link com.github.dimitryivaniuta.videometadata.domain.event.TrackingProjection
+ * tracking projections} from the {@code domain_events} log.
+ */
+public interface ProjectionRebuildService {
+
+    Set<String> projections();
+
+    /**
+     * Resets {@code name} and replays the log up to its current head, split into
+     * {@code segments} parallel segments (default {@code app.projections.default-segments}).
+     * Progress is stored per segment after every page; with {@code resume} an
+     * interrupted rebuild continues from its tokens instead of starting over.
+     * Completes when every segment has caught up.
+     */
+    Mono<ProjectionRebuildReport> rebuild(String name, Integer segments, boolean resume);
+}
@@ -0,0 +1,183 @@
+package com.github.dimitryivaniuta.videometadata.service.projection;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.dimitryivaniuta.videometadata.config.ProjectionProperties;
+import com.github.dimitryivaniuta.videometadata.domain.event.TrackingProjection;
+import com.github.dimitryivaniuta.videometadata.projection.DomainEventRow;
+import com.github.dimitryivaniuta.videometadata.projection.ProjectionToken;
+import com.github.dimitryivaniuta.videometadata.repository.DomainEventRepository;
+import com.github.dimitryivaniuta.videometadata.repository.ProjectionTokenRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Replays the {@code domain_events} log into tracking projections.
+ * <p>
+ * Each segment pages through its share of the log (keyset on {@code seq}, hash
+ * of the aggregate id), reading every event type of the projection in log
+ * order, and stores its token after every applied page, so
+ * segments never wait for each other and an interrupted replay can resume.
+ * Only one rebuild per projection runs on a node at a time.
+ * Metrics: {@code projection.replay.events} (tag {@code projection}) and
+ * {@code projection.replay} (tags {@code projection}, {@code outcome}).
+ */
+@Service
+@Profile("!schema-print")
+@Slf4j
+public class ProjectionRebuildServiceImpl implements ProjectionRebuildService {
+
+    static final String METRIC_EVENTS = "projection.replay.events";
+    static final String METRIC_DURATION = "projection.replay";
+
+    private final Map<String, TrackingProjection<?>> projections = new TreeMap<>();
+    private final DomainEventRepository events;
+    private final ProjectionTokenRepository tokens;
+    private final ProjectionProperties props;
+    private final ObjectMapper mapper;
+    private final MeterRegistry registry;
+    private final Set<String> running = ConcurrentHashMap.newKeySet();
+
+    public ProjectionRebuildServiceImpl(ObjectProvider<TrackingProjection<?>> projections,
+                                        DomainEventRepository events,
+                                        ProjectionTokenRepository tokens,
+                                        ProjectionProperties props,
+                                        ObjectMapper mapper,
+                                        MeterRegistry registry) {
+        projections.orderedStream().forEach(p -> {
+            if (this.projections.putIfAbsent(p.name(), p) != null) {
+                throw new IllegalStateException("Duplicate tracking projection name: " + p.name());
+            }
+        });
+        this.events = events;
+        this.tokens = tokens;
+        this.props = props;
+        this.mapper = mapper;
+        this.registry = registry;
+    }
+
+    @Override
+    public Set<String> projections() {
+        return projections.keySet();
+    }
+
+    @Override
+    public Mono<ProjectionRebuildReport> rebuild(String name, Integer segments, boolean resume) {
+        TrackingProjection<?> projection = projections.get(name);
+        if (projection == null) {
+            return Mono.error(new IllegalArgumentException("Unknown projection: " + name));
+        }
+        int requested = segments == null ? props.getDefaultSegments() : segments;
+        if (requested < 1 || requested > props.getMaxSegments()) {
+            return Mono.error(new IllegalArgumentException(
+                    "segments must be between 1 and " + props.getMaxSegments()));
+        }
+        return Mono.defer(() -> {
+            if (!running.add(name)) {
+                return Mono.error(new IllegalStateException("Projection " + name + " is already being rebuilt"));
+            }
+            Timer.Sample sample = Timer.start(registry);
+            long start = System.nanoTime();
+            return start(projection, requested, resume)
+                    .flatMap(plan -> Flux.fromIterable(plan.tokens())
+                            .flatMap(token -> replay(projection, token), Math.max(1, plan.tokens().size()))
+                            .reduce(0L, Long::sum)
+                            .map(count -> report(name, plan, count, System.nanoTime() - start)))
+                    .doOnSuccess(report -> {
+                        sample.stop(registry.timer(METRIC_DURATION, "projection", name, "outcome", "success"));
+                        log.info("Rebuilt projection {}: {} events in {} ms over {} segments ({} events/s)",
+                                name, report.events(), report.durationMs(), report.segments(),
+                                Math.round(report.eventsPerSecond()));
+                    })
+                    .doOnError(ex -> {
+                        sample.stop(registry.timer(METRIC_DURATION, "projection", name, "outcome", "failure"));
+                        log.error("Rebuild of projection " + name + " failed; resume continues from the stored tokens", ex);
+                    })
+                    .doFinally(signal -> running.remove(name));
+        });
+    }
+
+    /*
+     * Tokens are reset before the projection: if the node dies in between, the
+     * tokens already point at 0 and a resume replays everything.
+     */
+    private Mono<Plan> start(TrackingProjection<?> projection, int segments, boolean resume) {
+        String name = projection.name();
+        Mono<Plan> fresh = events.headSequence()
+                .flatMap(head -> tokens.reset(name, segments, head).collectList()
+                        .flatMap(reset -> projection.reset().thenReturn(new Plan(reset, head, false))));
+        if (!resume) {
+            return fresh;
+        }
+        return tokens.findAll(name).collectList()
+                .flatMap(stored -> stored.isEmpty()
+                        ? fresh
+                        : Mono.just(new Plan(stored, stored.get(0).head(), true)));
+    }
+
+    private <E> Mono<Long> replay(TrackingProjection<E> projection, ProjectionToken token) {
+        if (token.caughtUp()) {
+            return Mono.just(0L);
+        }
+        int limit = props.getReplayBatchSize();
+        return page(projection, token, token.position(), limit)
+                .expand(page -> page.size() == limit ? page(projection, token, page.last(), limit) : Mono.empty())
+                .map(Page::size)
+                .reduce(0L, Long::sum);
+    }
+
+    /*
+     * A short page is the segment's last one: its token moves to the head even
+     * when the segment's own events end earlier, so caught-up is position == head.
+     */
+    private <E> Mono<Page> page(TrackingProjection<E> projection, ProjectionToken token, long after, int limit) {
+        Map<String, Class<? extends E>> types = projection.eventTypes().stream()
+                .collect(Collectors.toMap(Class::getSimpleName, Function.identity()));
+        return events.readSegment(types.keySet(), after, token.head(),
+                        token.segment(), token.segmentCount(), limit)
+                .collectList()
+                .flatMap(rows -> {
+                    long last = rows.size() < limit ? token.head() : rows.get(rows.size() - 1).seq();
+                    List<E> decoded = rows.stream().<E>map(row -> decode(types.get(row.eventType()), row)).toList();
+                    Mono<Void> applied = decoded.isEmpty() ? Mono.empty() : projection.apply(decoded);
+                    return applied
+                            .then(tokens.advance(projection.name(), token.segment(), last))
+                            .doOnSuccess(n -> registry.counter(METRIC_EVENTS, "projection", projection.name())
+                                    .increment(rows.size()))
+                            .thenReturn(new Page(last, rows.size()));
+                });
+    }
+
+    private <E> E decode(Class<? extends E> type, DomainEventRow row) {
+        try {
+            return mapper.readValue(row.payload(), type);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Cannot decode domain event " + row.seq() + " as " + row.eventType(), ex);
+        }
+    }
+
+    private static ProjectionRebuildReport report(String name, Plan plan, long count, long nanos) {
+        double seconds = nanos / 1e9;
+        return new ProjectionRebuildReport(name, plan.tokens().size(), plan.head(), count,
+                Duration.ofNanos(nanos).toMillis(), seconds > 0 ? count / seconds : 0, plan.resumed());
+    }
+
+    private record Plan(List<ProjectionToken> tokens, long head, boolean resumed) {}
+
+    private record Page(long last, int size) {}
+}
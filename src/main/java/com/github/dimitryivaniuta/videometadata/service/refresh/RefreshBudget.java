@@ -0,0 +1,74 @@
+package com.github.dimitryivaniuta.videometadata.service.refresh;
+
+import com.github.dimitryivaniuta.videometadata.model.VideoProvider;
+import com.github.dimitryivaniuta.videometadata.repository.RefreshBudgetRepository;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+/**
+ * Per-provider call quota that resets at UTC midnight (the YouTube quota day
+ * is Pacific time; UTC keeps this node-independent and errs on the early side).
+ * The counter lives in the database, so all nodes together stay within the budget.
+ */
+final class RefreshBudget {
+
+    /** Calls reserved on a UTC day. */
+    record Grant(LocalDate day, int calls) { }
+
+    private final VideoProvider provider;
+    private final long callsPerDay;
+    private final RefreshBudgetRepository repo;
+    private final Clock clock;
+
+    /** Last seen day total, for the gauge. */
+    private volatile LocalDate seenDay;
+    private volatile long seenUsed;
+
+    RefreshBudget(VideoProvider provider, long callsPerDay, RefreshBudgetRepository repo, Clock clock) {
+        this.provider = provider;
+        this.callsPerDay = callsPerDay;
+        this.repo = repo;
+        this.clock = clock;
+    }
+
+    /** Reserves up to {@code wanted} of today's calls. */
+    Mono<Grant> acquire(int wanted) {
+        LocalDate day = today();
+        return repo.acquire(provider, day, wanted, callsPerDay)
+                .map(row -> {
+                    seen(day, row.used());
+                    return new Grant(day, row.granted());
+                });
+    }
+
+    /** Gives back {@code calls} of the grant that were reserved but not made. */
+    Mono<Void> release(Grant grant, int calls) {
+        if (calls <= 0) {
+            return Mono.empty();
+        }
+        return repo.release(provider, grant.day(), calls)
+                .doOnNext(n -> {
+                    if (grant.day().equals(seenDay)) {
+                        seen(grant.day(), Math.max(0, seenUsed - calls));
+                    }
+                })
+                .then();
+    }
+
+    /** Calls left today as of this node's last reservation. */
+    long remaining() {
+        return today().equals(seenDay) ? Math.max(0, callsPerDay - seenUsed) : callsPerDay;
+    }
+
+    private synchronized void seen(LocalDate day, long used) {
+        seenDay = day;
+        seenUsed = used;
+    }
+
+    private LocalDate today() {
+        return LocalDate.now(clock.withZone(ZoneOffset.UTC));
+    }
+}
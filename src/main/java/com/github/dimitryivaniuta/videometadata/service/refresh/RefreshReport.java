@@ -0,0 +1,20 @@
+package com.github.dimitryivaniuta.videometadata.service.refresh;
+
+import com.github.dimitryivaniuta.videometadata.model.VideoProvider;
+
+/**
+ * Outcome of one refresh run for a provider.
+ *
+ * @param candidates stale rows considered
+ * @param checked    rows sent to the provider
+ * @param changed    rows whose title, description or duration changed
+ * @param missing    rows the provider no longer returns
+ * @param calls      provider calls made (one per batch)
+ */
+public record RefreshReport(VideoProvider provider, int candidates, int checked,
+                            int changed, int missing, int calls) {
+
+    static RefreshReport idle(VideoProvider provider, int candidates) {
+        return new RefreshReport(provider, candidates, 0, 0, 0, 0);
+    }
+}
@@ -0,0 +1,38 @@
+package com.github.dimitryivaniuta.videometadata.service.refresh;
+
+import com.github.dimitryivaniuta.videometadata.config.VideoRefreshProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Triggers {@link VideoRefreshService#refreshStale()} on a fixed delay.
+ * The run is reactive, so ticks that arrive while one is still in flight are skipped.
+ */
+@Component
+@Profile("!schema-print")
+@RequiredArgsConstructor
+@Slf4j
+public class VideoRefreshScheduler {
+
+    private final VideoRefreshService refreshService;
+    private final VideoRefreshProperties props;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Scheduled(initialDelayString = "PT1M", fixedDelayString = "${app.refresh.interval:PT5M}")
+    public void tick() {
+        if (!props.isEnabled() || !running.compareAndSet(false, true)) {
+            return;
+        }
+        refreshService.refreshStale()
+                .doFinally(signal -> running.set(false))
+                .subscribe(
+                        report -> { },
+                        ex -> log.error("Metadata refresh run failed", ex));
+    }
+}
@@ -0,0 +1,17 @@
+package com.github.dimitryivaniuta.videometadata.service.refresh;
+
+import com.github.dimitryivaniuta.videometadata.model.VideoProvider;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Keeps stored video metadata in step with the providers.
+ */
+public interface VideoRefreshService {
+
+    /** One refresh run over every provider with a configured budget. */
+    Flux<RefreshReport> refreshStale();
+
+    /** One refresh run for a single provider, within its budget. */
+    Mono<RefreshReport> refreshStale(VideoProvider provider);
+}
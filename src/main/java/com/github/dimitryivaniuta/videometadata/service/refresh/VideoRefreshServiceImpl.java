@@ -0,0 +1,322 @@
+package com.github.dimitryivaniuta.videometadata.service.refresh;
+
+import com.github.dimitryivaniuta.videometadata.config.VideoRefreshProperties;
+import com.github.dimitryivaniuta.videometadata.domain.event.VideoMetadataChangedEvent;
+import com.github.dimitryivaniuta.videometadata.model.Video;
+import com.github.dimitryivaniuta.videometadata.model.VideoProvider;
+import com.github.dimitryivaniuta.videometadata.repository.RefreshBudgetRepository;
+import com.github.dimitryivaniuta.videometadata.repository.VideoRepository;
+import com.github.dimitryivaniuta.videometadata.service.cache.CacheInvalidationService;
+import com.github.dimitryivaniuta.videometadata.service.cache.Invalidation;
+import com.github.dimitryivaniuta.videometadata.service.outbox.OutboxAppendedEvent;
+import com.github.dimitryivaniuta.videometadata.service.videoprovider.ExternalMetadataClient;
+import com.github.dimitryivaniuta.videometadata.web.dto.imports.Metadata;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stale-first metadata refresh.
+ * <p>
+ * Each run claims the oldest-checked rows of a provider (rows claimed by
+ * another node are skipped), ranks them in a priority queue by staleness
+ * weighted with popularity, and spends the provider’s call budget on the top
+ * of the queue in batch-sized chunks; the rest of the claim is released. The
+ * daily budget is a shared counter, so it holds across replicas.
+ * Every batch is written back with one set-based UPDATE; rows whose title,
+ * description or duration changed also get a {@link VideoMetadataChangedEvent},
+ * appended to the outbox by that same statement and delivered by the relay.
+ */
+@Service
+@Slf4j
+public class VideoRefreshServiceImpl implements VideoRefreshService {
+
+    private static final String METRIC_PREFIX = "video.refresh";
+
+    private final VideoRepository videoRepo;
+    private final ExternalMetadataClient meta;
+    private final ApplicationEventPublisher publisher;
+    private final VideoRefreshProperties props;
+    private final MeterRegistry registry;
+    private final CacheInvalidationService invalidation;
+    private final RefreshBudgetRepository budgetRepo;
+    private final Clock clock;
+
+    private final Map<VideoProvider, RefreshBudget> budgets = new ConcurrentHashMap<>();
+    private final Map<VideoProvider, AtomicLong> backlog    = new ConcurrentHashMap<>();
+    private final Map<VideoProvider, AtomicLong> lagSeconds = new ConcurrentHashMap<>();
+
+    public VideoRefreshServiceImpl(VideoRepository videoRepo,
+                                   ExternalMetadataClient meta,
+                                   ApplicationEventPublisher publisher,
+                                   VideoRefreshProperties props,
+                                   MeterRegistry registry,
+                                   CacheInvalidationService invalidation,
+                                   RefreshBudgetRepository budgetRepo) {
+        this.videoRepo    = videoRepo;
+        this.meta         = meta;
+        this.publisher    = publisher;
+        this.props        = props;
+        this.registry     = registry;
+        this.invalidation = invalidation;
+        this.budgetRepo   = budgetRepo;
+        this.clock     = Clock.systemUTC();
+    }
+
+    @Override
+    public Flux<RefreshReport> refreshStale() {
+        return Flux.fromIterable(props.getProviders().entrySet())
+                .filter(e -> e.getValue().isEnabled())
+                .map(e -> VideoProvider.valueOf(e.getKey().toUpperCase(Locale.ROOT)))
+                .concatMap(this::refreshStale);
+    }
+
+    @Override
+    public Mono<RefreshReport> refreshStale(VideoProvider provider) {
+        VideoRefreshProperties.Budget cfg = props.getProviders().get(provider.name().toLowerCase(Locale.ROOT));
+        if (cfg == null || !cfg.isEnabled()) {
+            return Mono.just(RefreshReport.idle(provider, 0));
+        }
+        Instant staleBefore = clock.instant().minus(props.getStaleAfter());
+        Timer.Sample sample = Timer.start(registry);
+
+        return recordBacklog(provider, staleBefore)
+                .then(videoRepo.claimRefreshCandidates(provider, staleBefore, props.getCandidateLimit(),
+                                props.getClaimLease().toMillis() / 1000.0)
+                        .collectList())
+                .flatMap(candidates -> refreshCandidates(provider, cfg, candidates))
+                .doOnNext(report -> {
+                    sample.stop(registry.timer(METRIC_PREFIX + ".run", "provider", tag(provider)));
+                    if (report.checked() > 0) {
+                        log.info("Refreshed {}: candidates={} checked={} changed={} missing={} calls={}",
+                                provider, report.candidates(), report.checked(), report.changed(),
+                                report.missing(), report.calls());
+                    }
+                });
+    }
+
+    private Mono<RefreshReport> refreshCandidates(VideoProvider provider, VideoRefreshProperties.Budget cfg,
+                                                  List<Video> candidates) {
+        if (candidates.isEmpty()) {
+            return Mono.just(RefreshReport.idle(provider, 0));
+        }
+        int batchSize = Math.max(1, meta.maxBatchSize(provider));
+        int wanted = Math.min(cfg.getCallsPerRun(), (candidates.size() + batchSize - 1) / batchSize);
+        RefreshBudget budget = budget(provider, cfg);
+        return budget.acquire(wanted).flatMap(grant -> {
+            List<List<Video>> batches = prioritize(candidates, grant.calls() * batchSize, batchSize, clock.instant());
+            if (batches.isEmpty()) {
+                log.debug("Refresh budget for {} exhausted; {} candidates waiting", provider, candidates.size());
+            }
+            return budget.release(grant, grant.calls() - batches.size())
+                    .then(releaseUnselected(candidates, batches))
+                    .then(refreshBatches(provider, cfg, candidates, batches));
+        });
+    }
+
+    /** Hands claimed candidates that did not make the cut back to other nodes at once. */
+    private Mono<Void> releaseUnselected(List<Video> candidates, List<List<Video>> batches) {
+        Set<Long> selected = new HashSet<>();
+        batches.forEach(batch -> batch.forEach(v -> selected.add(v.getId())));
+        List<Long> rest = candidates.stream().map(Video::getId).filter(id -> !selected.contains(id)).toList();
+        return rest.isEmpty() ? Mono.empty() : videoRepo.releaseRefreshClaims(rest).then();
+    }
+
+    private Mono<RefreshReport> refreshBatches(VideoProvider provider, VideoRefreshProperties.Budget cfg,
+                                               List<Video> candidates, List<List<Video>> batches) {
+        if (batches.isEmpty()) {
+            return Mono.just(RefreshReport.idle(provider, candidates.size()));
+        }
+        return Flux.fromIterable(batches)
+                .flatMap(batch -> refreshBatch(provider, batch), Math.max(1, cfg.getConcurrency()))
+                .reduce(new RefreshReport(provider, candidates.size(), 0, 0, 0, batches.size()),
+                        (acc, r) -> new RefreshReport(provider, acc.candidates(),
+                                acc.checked() + r.checked(), acc.changed() + r.changed(),
+                                acc.missing() + r.missing(), acc.calls()));
+    }
+
+    /**
+     * Pops the {@code limit} highest-priority videos and chunks them into batches.
+     * Priority is seconds since the last check times {@code 1 + log10(1 + views)},
+     * so a popular video is refreshed sooner than an equally stale obscure one
+     * without starving the long tail.
+     */
+    static List<List<Video>> prioritize(List<Video> candidates, int limit, int batchSize, Instant now) {
+        PriorityQueue<Ranked> queue = new PriorityQueue<>(candidates.size(),
+                Comparator.comparingDouble(Ranked::score).reversed());
+        candidates.forEach(v -> queue.add(new Ranked(v, priority(v, now))));
+
+        List<List<Video>> batches = new ArrayList<>();
+        List<Video> batch = new ArrayList<>(batchSize);
+        for (int taken = 0; taken < limit && !queue.isEmpty(); taken++) {
+            batch.add(queue.poll().video());
+            if (batch.size() == batchSize) {
+                batches.add(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            batches.add(batch);
+        }
+        return batches;
+    }
+
+    /** Score computed once per candidate instead of on every heap comparison. */
+    private record Ranked(Video video, double score) { }
+
+    static double priority(Video v, Instant now) {
+        Instant lastChecked = v.getLastRefreshedAt() != null ? v.getLastRefreshedAt()
+                : v.getCreatedAt() != null ? v.getCreatedAt() : Instant.EPOCH;
+        double ageSeconds = Math.max(0, Duration.between(lastChecked, now).toSeconds());
+        long views = v.getViewCount() == null ? 0 : Math.max(0, v.getViewCount());
+        return ageSeconds * (1 + Math.log10(1 + views));
+    }
+
+    private Mono<RefreshReport> refreshBatch(VideoProvider provider, List<Video> batch) {
+        List<String> ids = batch.stream().map(Video::getExternalVideoId).toList();
+        counter("calls", provider).increment();
+
+        return meta.fetchBatch(provider, ids)
+                .collectMap(Metadata::externalVideoId)
+                .flatMap(fresh -> {
+                    Instant now = clock.instant();
+                    List<Video> updated = new ArrayList<>();
+                    List<VideoMetadataChangedEvent> events = new ArrayList<>();
+                    int missing = 0;
+                    for (Video v : batch) {
+                        Metadata md = fresh.get(v.getExternalVideoId());
+                        if (md == null) {
+                            missing++;
+                            continue;
+                        }
+                        boolean metadataChanged = merge(v, md);
+                        boolean viewsMoved = md.viewCount() != null && !md.viewCount().equals(v.getViewCount());
+                        if (viewsMoved) {
+                            v.setViewCount(md.viewCount());
+                        }
+                        if (metadataChanged || viewsMoved) {
+                            updated.add(v);
+                        }
+                        if (metadataChanged) {
+                            events.add(changedEvent(v, now));
+                        }
+                    }
+                    int missingCount = missing;
+                    List<Long> checked = batch.stream().map(Video::getId).toList();
+                    return videoRepo.applyRefresh(updated, events, checked, now)
+                            .flatMap(n -> invalidation.invalidate(Invalidation.VIDEO,
+                                    updated.stream().map(Video::getId).toList()).thenReturn(n))
+                            .doOnSuccess(appended -> {
+                                if (appended > 0) {
+                                    publisher.publishEvent(new OutboxAppendedEvent(appended.intValue()));
+                                }
+                                counter("videos", provider, "outcome", "changed").increment(events.size());
+                                counter("videos", provider, "outcome", "unchanged")
+                                        .increment(batch.size() - events.size() - missingCount);
+                                counter("videos", provider, "outcome", "missing").increment(missingCount);
+                                backlog.get(provider).getAndUpdate(b -> Math.max(0, b - batch.size()));
+                            })
+                            .thenReturn(new RefreshReport(provider, 0, batch.size(), events.size(), missingCount, 1));
+                })
+                // a failed batch stays stale and claimed; another run retries it once the lease expires
+                .onErrorResume(ex -> {
+                    log.warn("Refresh batch of {} {} videos failed: {}", batch.size(), provider, ex.toString());
+                    counter("failures", provider).increment();
+                    return Mono.just(RefreshReport.idle(provider, 0));
+                });
+    }
+
+    /** Copies provider values onto the row; true if title, description or duration changed. */
+    private static boolean merge(Video v, Metadata md) {
+        boolean changed = false;
+        if (md.title() != null && !md.title().equals(v.getTitle())) {
+            v.setTitle(md.title());
+            changed = true;
+        }
+        if (md.description() != null && !md.description().equals(v.getDescription())) {
+            v.setDescription(md.description());
+            changed = true;
+        }
+        if (md.durationMs() != null && !md.durationMs().equals(v.getDurationMs())) {
+            v.setDurationMs(md.durationMs());
+            changed = true;
+        }
+        return changed;
+    }
+
+    private static VideoMetadataChangedEvent changedEvent(Video v, Instant refreshedAt) {
+        return VideoMetadataChangedEvent.builder()
+                .id(v.getId())
+                .provider(v.getProvider())
+                .externalVideoId(v.getExternalVideoId())
+                .title(v.getTitle())
+                .description(v.getDescription())
+                .durationMs(v.getDurationMs())
+                .viewCount(v.getViewCount())
+                .refreshedAt(refreshedAt)
+                .build();
+    }
+
+    /* ─── metrics ─────────────────────────────────────────────── */
+
+    private Mono<Void> recordBacklog(VideoProvider provider, Instant staleBefore) {
+        AtomicLong pending = backlog.computeIfAbsent(provider, p -> gauge("backlog", p));
+        AtomicLong lag = lagSeconds.computeIfAbsent(provider, p -> gauge("lag.seconds", p));
+        return videoRepo.refreshBacklog(provider, staleBefore)
+                .doOnNext(row -> {
+                    pending.set(row.cnt() == null ? 0 : row.cnt());
+                    lag.set(row.oldest() == null ? 0
+                            : Duration.between(row.oldest(), clock.instant()).toSeconds());
+                })
+                .then();
+    }
+
+    private RefreshBudget budget(VideoProvider provider, VideoRefreshProperties.Budget cfg) {
+        return budgets.computeIfAbsent(provider, p -> {
+            RefreshBudget b = new RefreshBudget(p, cfg.getCallsPerDay(), budgetRepo, clock);
+            Gauge.builder(METRIC_PREFIX + ".budget.remaining", b, RefreshBudget::remaining)
+                    .description("Provider calls left in today's refresh budget, as of this node's last run")
+                    .tag("provider", tag(p))
+                    .register(registry);
+            return b;
+        });
+    }
+
+    private AtomicLong gauge(String name, VideoProvider provider) {
+        return registry.gauge(METRIC_PREFIX + "." + name,
+                Tags.of("provider", tag(provider)),
+                new AtomicLong());
+    }
+
+    private Counter counter(String name, VideoProvider provider, String... tags) {
+        return Counter.builder(METRIC_PREFIX + "." + name)
+                .tag("provider", tag(provider))
+                .tags(tags)
+                .register(registry);
+    }
+
+    private static String tag(VideoProvider provider) {
+        return provider.name().toLowerCase(Locale.ROOT);
+    }
+}
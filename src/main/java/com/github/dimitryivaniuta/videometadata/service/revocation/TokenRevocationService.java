@@ -0,0 +1,23 @@
+package com.github.dimitryivaniuta.videometadata.service.revocation;
+
+import org.springframework.security.oauth2.jwt.Jwt;
+import reactor.core.publisher.Mono;
+
+/**
+ * Revokes tokens before they expire, on every node.
+ * <p>
+ * Single tokens are revoked by {@code jti}; {@link #revokeAllForUser} revokes
+ * every token of a user issued up to now (by {@code uid} and {@code iat}), so
+ * tokens need not be enumerated.
+ */
+public interface TokenRevocationService {
+
+    /** Revokes this token for the rest of its lifetime. */
+    Mono<Void> revoke(Jwt token);
+
+    /** Revokes every access and refresh token issued to the user so far. */
+    Mono<Void> revokeAllForUser(long userId);
+
+    /** True when the token has been revoked, by id or by a per-user cut-off. */
+    Mono<Boolean> isRevoked(Jwt token);
+}
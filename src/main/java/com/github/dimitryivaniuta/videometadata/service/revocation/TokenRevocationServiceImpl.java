@@ -0,0 +1,324 @@
+package com.github.dimitryivaniuta.videometadata.service.revocation;
+
+import com.github.dimitryivaniuta.videometadata.config.SecurityJwtProperties;
+import com.github.dimitryivaniuta.videometadata.config.TokenProperties;
+import com.github.dimitryivaniuta.videometadata.service.CurrentUser;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.redis.connection.ReactiveSubscription.Message;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token revocation stored in Redis, pre-checked against a per-node Bloom filter.
+ * <p>
+ * A revoked {@code jti} is a Redis key that lives as long as the token would
+ * have; a per-user cut-off ({@code iat <= cutoff} is revoked) lives as long as
+ * the longest token. Every node keeps a Bloom filter of revoked ids and a map
+ * of cut-offs, so a token that was never revoked is accepted without a Redis
+ * round trip; only filter hits are confirmed against Redis.
+ * <p>
+ * Revocations are spread over Redis pub/sub. Messages published while a node
+ * is not subscribed are lost, so the filter is rebuilt from a key SCAN after
+ * every (re)subscribe and every {@code token.revocation.rebuild-interval}
+ * (which also drops expired ids). Until a node is subscribed and rebuilt, every
+ * check goes to Redis.
+ * <p>
+ * Metrics: {@code token.revocation.checks} (tag {@code result} =
+ * negative|false_positive|revoked|unfiltered|unavailable), the
+ * {@code token.revocation.filter.fpp} gauge (expected false-positive rate at
+ * the current fill) and {@code token.revocation.filter.size}.
+ */
+@Service
+@Profile("!schema-print")
+@Slf4j
+public class TokenRevocationServiceImpl implements TokenRevocationService {
+
+    static final String METRIC = "token.revocation.checks";
+
+    private static final String REVOKED_ID = "j:";
+    private static final String REVOKED_USER = "u:";
+
+    private final ReactiveStringRedisTemplate redis;
+    private final TokenProperties.Redis keys;
+    private final TokenProperties.Revocation props;
+    private final long maxTokenLifetimeSeconds;
+    private final MeterRegistry registry;
+
+    /** userId -> epoch second up to which the user's tokens are revoked. */
+    private final Map<Long, Long> cutoffs = new ConcurrentHashMap<>();
+    private final Sinks.Many<String> rebuildRequests = Sinks.many().unicast().onBackpressureBuffer();
+    /** Bumped on every (re)subscribe; a rebuild only syncs the node if none happened meanwhile. */
+    private final AtomicLong subscription = new AtomicLong();
+
+    private volatile BloomFilter filter;
+    /** Filter being rebuilt; receives live revocations too until it replaces {@link #filter}. */
+    private volatile BloomFilter pending;
+    private volatile boolean subscribed;
+    private volatile boolean synced;
+    private volatile Disposable listener;
+    private volatile Disposable rebuilds;
+
+    public TokenRevocationServiceImpl(ReactiveStringRedisTemplate redis,
+                                      TokenProperties props,
+                                      SecurityJwtProperties jwtProps,
+                                      MeterRegistry registry) {
+        this.redis = redis;
+        this.keys = props.getRedis();
+        this.props = props.getRevocation();
+        this.maxTokenLifetimeSeconds = Math.max(keys.getTtlSeconds(),
+                Math.max(jwtProps.getExpirationSeconds(), jwtProps.getRefreshExpirationSeconds()));
+        this.registry = registry;
+        registry.gauge("token.revocation.filter.fpp", this,
+                s -> s.filter == null ? 1.0 : s.filter.expectedFalsePositiveRate());
+        registry.gauge("token.revocation.filter.size", this,
+                s -> s.filter == null ? 0 : s.filter.insertions());
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!props.isEnabled()) {
+            log.info("Token revocation disabled; tokens stay valid until they expire");
+            return;
+        }
+        rebuilds = Flux.merge(Flux.interval(props.getRebuildInterval()).map(tick -> "interval"),
+                        rebuildRequests.asFlux())
+                .onBackpressureLatest()
+                .concatMap(this::rebuild, 1)
+                .subscribe();
+        listener = Flux.defer(() -> redis.listenToChannelLater(props.getChannel()))
+                .flatMap(messages -> {
+                    subscribed();
+                    return messages.map(Message::getMessage);
+                })
+                .doOnNext(this::receive)
+                .concatWith(Mono.error(new IllegalStateException("Revocation subscription closed")))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, props.getReconnectBackoff())
+                        .maxBackoff(props.getMaxReconnectBackoff())
+                        .transientErrors(true)
+                        .doBeforeRetry(signal -> {
+                            subscribed = false;
+                            synced = false;
+                            log.warn("Revocation subscription lost ({}); checking Redis directly until resubscribed",
+                                    signal.failure().toString());
+                        }))
+                .subscribe(null, ex -> log.error("Revocation listener stopped", ex));
+    }
+
+    @PreDestroy
+    public void stop() {
+        for (Disposable d : new Disposable[]{listener, rebuilds}) {
+            if (d != null) {
+                d.dispose();
+            }
+        }
+        subscribed = false;
+        synced = false;
+    }
+
+    boolean isSynced() {
+        return synced;
+    }
+
+    /* ------------- revoke ---------------------------------------------------- */
+
+    @Override
+    public Mono<Void> revoke(Jwt token) {
+        String jti = token.getId();
+        if (jti == null) {
+            return Mono.error(new IllegalArgumentException("Token has no jti and cannot be revoked on its own"));
+        }
+        Duration ttl = token.getExpiresAt() == null
+                ? Duration.ofSeconds(keys.getTtlSeconds())
+                : Duration.between(Instant.now(), token.getExpiresAt());
+        if (ttl.isNegative() || ttl.isZero()) {
+            return Mono.empty();   // already expired
+        }
+        addLocally(jti);
+        return redis.opsForValue().set(idKey(jti), "1", ttl)
+                .then(publish(REVOKED_ID + jti));
+    }
+
+    @Override
+    public Mono<Void> revokeAllForUser(long userId) {
+        long cutoff = Instant.now().getEpochSecond();
+        cutoffs.merge(userId, cutoff, Math::max);
+        return redis.opsForValue().set(userKey(userId), Long.toString(cutoff),
+                        Duration.ofSeconds(maxTokenLifetimeSeconds))
+                .then(publish(REVOKED_USER + userId + ":" + cutoff));
+    }
+
+    /** The keys are written: a lost message is healed by the next rebuild, so it is logged, not surfaced. */
+    private Mono<Void> publish(String message) {
+        return redis.convertAndSend(props.getChannel(), message)
+                .onErrorResume(ex -> {
+                    log.warn("Could not publish revocation '{}': {}", message, ex.toString());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    /* ------------- check ----------------------------------------------------- */
+
+    @Override
+    public Mono<Boolean> isRevoked(Jwt token) {
+        if (!props.isEnabled()) {
+            return Mono.just(false);
+        }
+        Long userId = userId(token);
+        long issuedAt = token.getIssuedAt() == null ? Long.MIN_VALUE : token.getIssuedAt().getEpochSecond();
+        Long cutoff = userId == null ? null : cutoffs.get(userId);
+        if (cutoff != null && issuedAt <= cutoff) {
+            return revoked("revoked");
+        }
+        String jti = token.getId();
+        BloomFilter current = filter;
+        if (!synced || current == null) {
+            return checkRedis(jti, userId, issuedAt);
+        }
+        if (jti == null || !current.mightContain(jti)) {
+            return count("negative", false);
+        }
+        // a hit is a revocation far more often than not: if Redis cannot confirm it, reject
+        return redis.hasKey(idKey(jti))
+                .flatMap(revoked -> revoked ? revoked("revoked") : count("false_positive", false))
+                .onErrorResume(ex -> {
+                    log.warn("Could not confirm revocation of {}: {}", jti, ex.toString());
+                    return revoked("unavailable");
+                });
+    }
+
+    /** Not synced yet: the local state may be missing revocations, so Redis decides. */
+    private Mono<Boolean> checkRedis(String jti, Long userId, long issuedAt) {
+        Mono<Boolean> byId = jti == null ? Mono.just(false) : redis.hasKey(idKey(jti));
+        Mono<Long> byUser = userId == null
+                ? Mono.just(Long.MIN_VALUE)
+                : redis.opsForValue().get(userKey(userId)).map(Long::parseLong).defaultIfEmpty(Long.MIN_VALUE);
+        return Mono.zip(byId, byUser)
+                .flatMap(t -> t.getT1() || issuedAt <= t.getT2() ? revoked("revoked") : count("unfiltered", false))
+                .onErrorResume(ex -> {
+                    // rejecting every request while Redis is down would be an outage of its own
+                    log.warn("Could not check token revocation: {}", ex.toString());
+                    return count("unavailable", false);
+                });
+    }
+
+    private Mono<Boolean> revoked(String result) {
+        return count(result, true);
+    }
+
+    private Mono<Boolean> count(String result, boolean revoked) {
+        registry.counter(METRIC, "result", result).increment();
+        return Mono.just(revoked);
+    }
+
+    /* ------------- local state ----------------------------------------------- */
+
+    private void subscribed() {
+        subscription.incrementAndGet();
+        subscribed = true;
+        log.info("Subscribed to token revocations on '{}'", props.getChannel());
+        rebuildRequests.tryEmitNext("subscribe");
+    }
+
+    void receive(String message) {
+        if (message.startsWith(REVOKED_ID)) {
+            addLocally(message.substring(REVOKED_ID.length()));
+        } else if (message.startsWith(REVOKED_USER)) {
+            String[] parts = message.substring(REVOKED_USER.length()).split(":");
+            try {
+                cutoffs.merge(Long.parseLong(parts[0]), Long.parseLong(parts[1]), Math::max);
+            } catch (RuntimeException ex) {
+                log.warn("Ignoring malformed revocation '{}'", message);
+            }
+        }
+    }
+
+    private void addLocally(String jti) {
+        BloomFilter current = filter;
+        BloomFilter next = pending;
+        if (current != null) {
+            current.put(jti);
+        }
+        if (next != null && next != current) {
+            next.put(jti);
+        }
+    }
+
+    /** Builds a fresh filter from Redis; live revocations are added to both filters meanwhile. */
+    Mono<Void> rebuild(String reason) {
+        long startedAt = subscription.get();
+        boolean wasSubscribed = subscribed;
+        BloomFilter next = new BloomFilter(props.getExpectedInsertions(), props.getFalsePositiveRate());
+        pending = next;
+        long now = Instant.now().getEpochSecond();
+        Mono<Void> ids = redis.scan(scan(keys.getPrefix() + ":jti:*"))
+                .doOnNext(key -> next.put(key.substring(keys.getPrefix().length() + ":jti:".length())))
+                .then();
+        Mono<Void> users = redis.scan(scan(keys.getPrefix() + ":user:*"))
+                .buffer(500)
+                .concatMap(batch -> redis.opsForValue().multiGet(batch)
+                        .doOnNext(values -> mergeCutoffs(batch, values)))
+                .then();
+        return ids.then(users)
+                .doOnSuccess(v -> {
+                    filter = next;
+                    cutoffs.values().removeIf(cutoff -> cutoff + maxTokenLifetimeSeconds < now);
+                    synced = wasSubscribed && subscribed && startedAt == subscription.get();
+                    log.debug("Rebuilt revocation filter ({}): {} ids, {} user cut-offs",
+                            reason, next.insertions(), cutoffs.size());
+                })
+                .onErrorResume(ex -> {
+                    log.warn("Rebuilding the revocation filter ({}) failed: {}", reason, ex.toString());
+                    return Mono.empty();
+                })
+                .doFinally(signal -> {
+                    if (pending == next) {
+                        pending = null;
+                    }
+                });
+    }
+
+    private void mergeCutoffs(List<String> keys, List<String> values) {
+        String prefix = this.keys.getPrefix() + ":user:";
+        for (int i = 0; i < keys.size() && i < values.size(); i++) {
+            if (values.get(i) != null) {
+                cutoffs.merge(Long.parseLong(keys.get(i).substring(prefix.length())),
+                        Long.parseLong(values.get(i)), Math::max);
+            }
+        }
+    }
+
+    private static ScanOptions scan(String pattern) {
+        return ScanOptions.scanOptions().match(pattern).count(1_000).build();
+    }
+
+    private String idKey(String jti) {
+        return keys.getPrefix() + ":jti:" + jti;
+    }
+
+    private String userKey(long userId) {
+        return keys.getPrefix() + ":user:" + userId;
+    }
+
+    private static Long userId(Jwt jwt) {
+        return jwt.getClaim(CurrentUser.CLAIM_UID) instanceof Number uid ? uid.longValue() : null;
+    }
+}
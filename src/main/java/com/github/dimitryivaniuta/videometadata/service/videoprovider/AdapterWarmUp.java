@@ -0,0 +1,47 @@
+package com.github.dimitryivaniuta.videometadata.service.videoprovider;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Warm-up steps shared by the adapters.
+ */
+final class AdapterWarmUp {
+
+    private AdapterWarmUp() {
+    }
+
+    /**
+     * Issue {@code connections} concurrent {@code HEAD} requests against the base URL.
+     * They are all in flight at once, so the shared Reactor Netty pool opens one
+     * connection each and keeps them for the first real calls. The response status
+     * is irrelevant; only connect/TLS failures are errors.
+     */
+    static Mono<Void> connect(WebClient wc, int connections) {
+        int n = Math.max(1, connections);
+        return Flux.range(0, n)
+                .flatMap(i -> wc.head().uri("/").exchangeToMono(ClientResponse::releaseBody), n)
+                .then();
+    }
+
+    /**
+     * Decode an empty JSON object into each response type through the default
+     * exchange strategies, which every {@code WebClient.builder()} client shares.
+     * That builds and caches the Jackson deserializers for the whole type graph.
+     */
+    static Mono<Void> primeCodecs(Class<?>... responseTypes) {
+        return Flux.fromArray(responseTypes)
+                .concatMap(type -> ClientResponse.create(HttpStatus.OK, ExchangeStrategies.withDefaults())
+                        .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .body("{}")
+                        .build()
+                        .bodyToMono(type))
+                .then();
+    }
+}
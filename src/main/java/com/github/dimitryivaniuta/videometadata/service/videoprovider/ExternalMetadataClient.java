@@ -3,34 +3,63 @@ package com.github.dimitryivaniuta.videometadata.service.videoprovider;
 import com.github.dimitryivaniuta.videometadata.config.VideoProvidersProperties;
 import com.github.dimitryivaniuta.videometadata.model.VideoProvider;
 import com.github.dimitryivaniuta.videometadata.web.dto.imports.Metadata;
-import lombok.RequiredArgsConstructor;
+import com.github.dimitryivaniuta.videometadata.web.dto.imports.PublisherPage;
+import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.net.URI;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
 import java.util.Locale;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Facade for fetching external video metadata (YouTube, Vimeo, …).
  * <p>
  * Call {@link #fetch(VideoProvider, String)} with provider key and external video id.
  * Provider keys must match those defined in {@code video-providers.yml}.
+ * <p>
+ * Adapters for every configured provider are built at construction, so a
+ * misconfigured provider fails application startup instead of the first import.
  */
 @Component
-@RequiredArgsConstructor
 @Slf4j
 public class ExternalMetadataClient {
 
     private final VideoProvidersProperties props;
     private final WebClient.Builder webClientBuilder;
+    private final RateLimiterRegistry rateLimiters;
 
     /**
-     * Cache adapters per provider enum.
+     * Adapters per configured provider; fixed after construction.
      */
-    private final ConcurrentHashMap<VideoProvider, ProviderAdapter> adapters = new ConcurrentHashMap<>();
+    private final Map<VideoProvider, ProviderAdapter> adapters;
+
+    public ExternalMetadataClient(VideoProvidersProperties props,
+                                  WebClient.Builder webClientBuilder,
+                                  RateLimiterRegistry rateLimiters) {
+        this.props            = props;
+        this.webClientBuilder = webClientBuilder;
+        this.rateLimiters     = rateLimiters;
+
+        Map<VideoProvider, ProviderAdapter> built = new EnumMap<>(VideoProvider.class);
+        if (props.getProviders() != null) {
+            props.getProviders().forEach((key, cfg) -> {
+                VideoProvider provider = providerFor(key);
+                validate(provider, cfg);
+                built.put(provider, createAdapter(provider, cfg));
+            });
+        }
+        this.adapters = Collections.unmodifiableMap(built);
+        log.info("Video provider adapters ready: {}", adapters.keySet());
+    }
 
     /**
      * Fetch one video’s metadata.
@@ -47,32 +76,101 @@ public class ExternalMetadataClient {
     }
 
     /**
-     * Lookup or create the adapter.  Never returns null.
+     * Page through a publisher’s uploads newest first (incremental re-sync).
      */
-    private ProviderAdapter getAdapter(VideoProvider provider) {
-        return adapters.computeIfAbsent(provider, this::createAdapter);
+    public Flux<PublisherPage> fetchPublisherPages(VideoProvider provider, String publisherName,
+                                                   Instant publishedAfter, String pageToken) {
+        return Flux.defer(() -> getAdapter(provider)
+                .fetchPublisherPages(publisherName, publishedAfter, pageToken));
     }
 
     /**
-     * Create a new adapter for the given provider.
-     * Throws if the provider isn’t configured or supported.
+     * Fetch several videos of one provider using its batch endpoint where available.
+     */
+    public Flux<Metadata> fetchBatch(VideoProvider provider, List<String> externalVideoIds) {
+        return Flux.defer(() -> getAdapter(provider).fetchBatch(externalVideoIds));
+    }
+
+    /** Ids per batch call for the provider (1 = no batch endpoint). */
+    public int maxBatchSize(VideoProvider provider) {
+        return getAdapter(provider).maxBatchSize();
+    }
+
+    /** Providers with a configured adapter. */
+    public Set<VideoProvider> configuredProviders() {
+        return adapters.keySet();
+    }
+
+    /**
+     * Open {@code connections} pooled connections to the provider and prime its
+     * response codecs; see {@link ProviderAdapter#warmUp(int)}.
      */
-    private ProviderAdapter createAdapter(VideoProvider provider) {
-        var cfg = props.getProviders()
-                .get(provider.name().toLowerCase(Locale.ROOT));
-        if (cfg == null) {
+    public Mono<Void> warmUp(VideoProvider provider, int connections) {
+        return Mono.defer(() -> getAdapter(provider).warmUp(connections));
+    }
+
+    /**
+     * Lookup the adapter.  Never returns null.
+     */
+    private ProviderAdapter getAdapter(VideoProvider provider) {
+        ProviderAdapter adapter = adapters.get(provider);
+        if (adapter == null) {
             throw new IllegalArgumentException("No configuration for provider: " + provider);
         }
+        return adapter;
+    }
 
+    /**
+     * Create a new adapter for the given provider.
+     * Throws if the provider isn’t supported.
+     */
+    private ProviderAdapter createAdapter(VideoProvider provider, VideoProvidersProperties.Provider cfg) {
 //        WebClient client = webClientBuilder
 //                .baseUrl(cfg.getBaseUrl())
 //                .build();
 
         return switch (provider) {
             case YOUTUBE -> new YoutubeAdapter(cfg);
-            case VIMEO -> new VimeoAdapter(cfg);
-            default -> throw new IllegalArgumentException("Unsupported provider: " + provider);
+            case VIMEO -> new VimeoAdapter(cfg, rateLimiters.rateLimiter(VimeoAdapter.NAME));
+            default -> throw new IllegalStateException("Unsupported provider under video.providers: " + provider);
         };
     }
 
+    private static VideoProvider providerFor(String key) {
+        try {
+            return VideoProvider.valueOf(key.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalStateException("Unknown provider under video.providers: " + key, ex);
+        }
+    }
+
+    /** Fail fast on settings that would otherwise only surface as errors on the first call. */
+    private static void validate(VideoProvider provider, VideoProvidersProperties.Provider cfg) {
+        String prefix = "video.providers." + provider.name().toLowerCase(Locale.ROOT);
+        if (cfg == null || cfg.getBaseUrl() == null || cfg.getBaseUrl().isBlank()) {
+            throw new IllegalStateException(prefix + ".base-url is required");
+        }
+        URI base;
+        try {
+            base = URI.create(cfg.getBaseUrl());
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalStateException(prefix + ".base-url is not a valid URI: " + cfg.getBaseUrl(), ex);
+        }
+        if (!"http".equals(base.getScheme()) && !"https".equals(base.getScheme()) || base.getHost() == null) {
+            throw new IllegalStateException(prefix + ".base-url must be an absolute http(s) URL: " + cfg.getBaseUrl());
+        }
+        String credential = switch (provider) {
+            case YOUTUBE -> cfg.getApiKey();
+            case VIMEO -> cfg.getAccessToken();
+            default -> "";
+        };
+        if (credential == null || credential.isBlank()) {
+            throw new IllegalStateException(prefix + (provider == VideoProvider.YOUTUBE ? ".api-key" : ".access-token")
+                    + " is required");
+        }
+        if (cfg.getPageSize() < 1 || cfg.getPageConcurrency() < 1) {
+            throw new IllegalStateException(prefix + ".page-size and .page-concurrency must be positive");
+        }
+    }
+
 }
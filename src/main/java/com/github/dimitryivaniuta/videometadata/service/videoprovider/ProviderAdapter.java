@@ -1,18 +1,61 @@
 package com.github.dimitryivaniuta.videometadata.service.videoprovider;
 
 import com.github.dimitryivaniuta.videometadata.web.dto.imports.Metadata;
+import com.github.dimitryivaniuta.videometadata.web.dto.imports.PublisherPage;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Instant;
+import java.util.List;
+
 public interface ProviderAdapter {
 
     /** Fetch one video’s metadata by its external ID. */
     Mono<Metadata> fetch(String externalVideoId);
 
+    /**
+     * Max ids per {@link #fetchBatch} call. One batch is one provider call
+     * against the refresh quota; the default has no batch endpoint.
+     */
+    default int maxBatchSize() {
+        return 1;
+    }
+
+    /**
+     * Fetch several videos, in as few provider calls as the API allows.
+     * Ids the provider no longer returns (deleted, private) are simply absent.
+     */
+    default Flux<Metadata> fetchBatch(List<String> externalVideoIds) {
+        return Flux.fromIterable(externalVideoIds)
+                .concatMap(id -> fetch(id).onErrorResume(ex -> Mono.empty()));
+    }
+
     /** Fetch all videos for a publisher; default = unsupported. */
     default Flux<Metadata> fetchByPublisher(String publisherName) {
         return Flux.error(new UnsupportedOperationException(
                 "Bulk fetch not supported by this provider"));
     }
 
-}
\ No newline at end of file
+    /**
+     * Page through a publisher’s uploads newest first, for incremental re-sync.
+     *
+     * @param publishedAfter only uploads after this instant are needed (may be {@code null});
+     *                       providers without a server-side filter may ignore it
+     * @param pageToken      cursor returned by a previous page to resume from (may be {@code null})
+     */
+    default Flux<PublisherPage> fetchPublisherPages(String publisherName, Instant publishedAfter, String pageToken) {
+        return fetchByPublisher(publisherName)
+                .buffer(50)
+                .map(items -> new PublisherPage(items, null));
+    }
+
+    /**
+     * Open {@code connections} pooled connections (DNS, TCP, TLS) and prime the
+     * JSON codecs for this provider's responses, so the first real call does not
+     * pay for them. Any HTTP status counts as connected; default = nothing to do.
+     */
+    default Mono<Void> warmUp(int connections) {
+        return Mono.empty();
+    }
+
+}
@@ -0,0 +1,73 @@
+package com.github.dimitryivaniuta.videometadata.service.videoprovider;
+
+import com.github.dimitryivaniuta.videometadata.config.VideoProvidersProperties;
+import com.github.dimitryivaniuta.videometadata.model.VideoProvider;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Warms up every configured provider adapter when {@code video.warm-up.enabled}.
+ * <p>
+ * Runs as an {@link ApplicationRunner}: Spring Boot only publishes readiness
+ * {@code ACCEPTING_TRAFFIC} after runners complete, so the first imports after a
+ * deploy find open connections. A provider that cannot be reached is logged and
+ * skipped; it does not fail startup. Timings are recorded as
+ * {@code video.provider.warmup} (tags {@code provider}, {@code outcome}).
+ */
+@Component
+@Profile("!schema-print")
+@RequiredArgsConstructor
+@Slf4j
+public class ProviderWarmUpRunner implements ApplicationRunner {
+
+    static final String METRIC = "video.provider.warmup";
+
+    private final ExternalMetadataClient meta;
+    private final VideoProvidersProperties props;
+    private final MeterRegistry registry;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        VideoProvidersProperties.WarmUp cfg = props.getWarmUp();
+        if (!cfg.isEnabled() || meta.configuredProviders().isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        Flux.fromIterable(meta.configuredProviders())
+                .flatMap(provider -> warmUp(provider, cfg.getConnections()))
+                .then()
+                .timeout(cfg.getTimeout(), Mono.fromRunnable(() ->
+                        log.warn("Provider warm-up did not finish within {}; continuing startup", cfg.getTimeout())))
+                .block();
+        log.info("Provider warm-up finished in {} ms", Duration.ofNanos(System.nanoTime() - start).toMillis());
+    }
+
+    private Mono<Void> warmUp(VideoProvider provider, int connections) {
+        String tag = provider.name().toLowerCase(Locale.ROOT);
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(registry);
+            return meta.warmUp(provider, connections)
+                    .doOnSuccess(v -> {
+                        long nanos = sample.stop(registry.timer(METRIC, "provider", tag, "outcome", "success"));
+                        log.info("Warmed up {} ({} connections) in {} ms", tag, connections,
+                                Duration.ofNanos(nanos).toMillis());
+                    })
+                    .onErrorResume(ex -> {
+                        sample.stop(registry.timer(METRIC, "provider", tag, "outcome", "failure"));
+                        log.warn("Warm-up of {} failed: {}", tag, ex.toString());
+                        return Mono.empty();
+                    });
+        });
+    }
+}
@@ -1,32 +1,51 @@
 package com.github.dimitryivaniuta.videometadata.service.videoprovider;
 
 import com.github.dimitryivaniuta.videometadata.config.VideoProvidersProperties;
+import com.github.dimitryivaniuta.videometadata.service.CurrentUser;
 import com.github.dimitryivaniuta.videometadata.web.dto.imports.ExternalVimeoResponse;
 import com.github.dimitryivaniuta.videometadata.web.dto.imports.Metadata;
+import com.github.dimitryivaniuta.videometadata.web.dto.imports.PublisherPage;
 import com.github.dimitryivaniuta.videometadata.web.dto.imports.VimeoVideoPage;
 import io.github.resilience4j.bulkhead.annotation.Bulkhead;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import io.github.resilience4j.ratelimiter.annotation.RateLimiter;
+import io.github.resilience4j.reactor.ratelimiter.operator.RateLimiterOperator;
 import io.github.resilience4j.retry.annotation.Retry;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.security.core.context.ReactiveSecurityContextHolder;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Instant;
 import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
 
 /**
- * Vimeo ProviderAdapter: only single‐video is supported.
+ * Vimeo ProviderAdapter: single-video + bulk-by-publisher.
+ * <p>
+ * Publisher listings read page 1, derive the page count from {@code total}
+ * and fetch the remaining pages with bounded concurrency, in page order.
+ * Every listing call goes through the provider rate limiter.
  */
 @Slf4j
 public class VimeoAdapter implements ProviderAdapter {
 
-    private static final String NAME = "videoMeta-vimeo";
+    static final String NAME = "videoMeta-vimeo";
 
-    private final WebClient wc;
+    /** {@code GET /videos?uris=} lookups are capped at 100 uris; keep URLs short. */
+    private static final int MAX_URIS_PER_CALL = 50;
 
-    public VimeoAdapter(VideoProvidersProperties.Provider cfg) {
+    private final WebClient wc;
+    private final io.github.resilience4j.ratelimiter.RateLimiter rateLimiter;
+    private final int pageSize;
+    private final int pageConcurrency;
+
+    public VimeoAdapter(VideoProvidersProperties.Provider cfg,
+                        io.github.resilience4j.ratelimiter.RateLimiter rateLimiter) {
+        this.rateLimiter     = rateLimiter;
+        this.pageSize        = Math.clamp(cfg.getPageSize(), 1, 100);
+        this.pageConcurrency = Math.max(1, cfg.getPageConcurrency());
         this.wc = WebClient.builder()
                 .baseUrl(cfg.getBaseUrl())
                 .defaultHeader("Authorization", "Bearer " + cfg.getAccessToken())
@@ -55,6 +74,36 @@ public class VimeoAdapter implements ProviderAdapter {
         return Mono.error(new IllegalStateException("Vimeo metadata unavailable", ex));
     }
 
+    /** Not routed through the rate limiter: a bare {@code HEAD} is not an API call. */
+    @Override
+    public Mono<Void> warmUp(int connections) {
+        return AdapterWarmUp.primeCodecs(ExternalVimeoResponse.class, VimeoVideoPage.class)
+                .then(AdapterWarmUp.connect(wc, connections));
+    }
+
+    @Override
+    public int maxBatchSize() {
+        return MAX_URIS_PER_CALL;
+    }
+
+    /** One rate-limited {@code /videos?uris=/videos/a,/videos/b} lookup per chunk. */
+    @Override
+    public Flux<Metadata> fetchBatch(List<String> ids) {
+        return Flux.fromIterable(ids)
+                .buffer(MAX_URIS_PER_CALL)
+                .concatMap(chunk -> wc.get()
+                        .uri(uri -> uri.path("/videos")
+                                .queryParam("uris", chunk.stream().map(id -> "/videos/" + id)
+                                        .collect(Collectors.joining(",")))
+                                .queryParam("per_page", chunk.size())
+                                .build())
+                        .retrieve()
+                        .bodyToMono(VimeoVideoPage.class)
+                        .transformDeferred(RateLimiterOperator.of(rateLimiter)))
+                .flatMapIterable(p -> p.data() == null ? Collections.emptyList() : p.data())
+                .map(resp -> resp.toMetadata(extractVideoId(resp.getUri()), "refresh"));
+    }
+
     @Override
     @CircuitBreaker(name = NAME, fallbackMethod = "fallbackBulk")
     @Retry(name = NAME)
@@ -64,14 +113,35 @@ public class VimeoAdapter implements ProviderAdapter {
 
         return currentUser().flatMapMany(user ->
                 fetchPage(userHandle, 1)
-                        .expand(p -> p.paging().next() != null
-                                ? fetchPageByHref(p.paging().next())
-                                : Mono.empty())
+                        .flatMapMany(first -> Flux.concat(
+                                Mono.just(first),
+                                fetchRemainingPages(userHandle, first)))
                         .flatMapIterable(p -> p.data() == null ? Collections.emptyList() : p.data())
                         .map(resp -> resp.toMetadata(extractVideoId(resp.getUri()), user))
         );
     }
 
+    /**
+     * Newest-first listing ({@code sort=date}) for incremental re-sync. Vimeo has
+     * no upload-date filter, so pages are read one at a time and the caller stops
+     * once it reaches known videos; the page number is the resume cursor.
+     */
+    @Override
+    public Flux<PublisherPage> fetchPublisherPages(String userHandle, Instant publishedAfter, String pageToken) {
+        int startPage = pageToken == null ? 1 : Integer.parseInt(pageToken);
+        return currentUser().flatMapMany(user ->
+                fetchPageNewestFirst(userHandle, startPage)
+                        .expand(p -> nextHref(p) == null
+                                ? Mono.empty()
+                                : fetchPageNewestFirst(userHandle, pageNumber(p) + 1))
+                        .map(p -> new PublisherPage(
+                                (p.data() == null ? List.<ExternalVimeoResponse>of() : p.data()).stream()
+                                        .map(resp -> resp.toMetadata(extractVideoId(resp.getUri()), user))
+                                        .toList(),
+                                nextHref(p) == null ? null : String.valueOf(pageNumber(p) + 1)))
+        );
+    }
+
     @SuppressWarnings("unused")
     private Flux<Metadata> fallbackBulk(String userHandle, Throwable ex) {
         log.warn("Vimeo bulk-fetch fallback for user={}: {}", userHandle, ex.toString());
@@ -81,19 +151,61 @@ public class VimeoAdapter implements ProviderAdapter {
     // ─── HELPERS ────────────────────────────────────────────────
 
     private Mono<String> currentUser() {
-        return ReactiveSecurityContextHolder.getContext()
-                .map(ctx -> ctx.getAuthentication().getName())
+        return CurrentUser.current()
+                .map(CurrentUser::username)
                 .defaultIfEmpty("anonymous");
     }
 
+    /**
+     * Pages 2..N in parallel (at most {@code pageConcurrency} in flight),
+     * emitted in page order. Falls back to following {@code paging.next}
+     * when the response carries no {@code total}.
+     */
+    private Flux<VimeoVideoPage> fetchRemainingPages(String userHandle, VimeoVideoPage first) {
+        if (first.total() == null) {
+            return Mono.justOrEmpty(nextHref(first))
+                    .flatMap(this::fetchPageByHref)
+                    .expand(p -> Mono.justOrEmpty(nextHref(p)).flatMap(this::fetchPageByHref));
+        }
+        int perPage = first.perPage() != null && first.perPage() > 0 ? first.perPage() : pageSize;
+        int pages = (first.total() + perPage - 1) / perPage;
+        if (pages <= 1) {
+            return Flux.empty();
+        }
+        log.debug("Vimeo user={} has {} videos in {} pages; fetching with concurrency={}",
+                userHandle, first.total(), pages, pageConcurrency);
+        return Flux.range(2, pages - 1)
+                .flatMapSequential(page -> fetchPage(userHandle, page), pageConcurrency);
+    }
+
     private Mono<VimeoVideoPage> fetchPage(String userHandle, int page) {
         return wc.get()
                 .uri(uri -> uri.path("/users/{user}/videos")
-                        .queryParam("per_page", "50")
+                        .queryParam("per_page", pageSize)
                         .queryParam("page", page)
                         .build(userHandle))
                 .retrieve()
-                .bodyToMono(VimeoVideoPage.class);
+                .bodyToMono(VimeoVideoPage.class)
+                .transformDeferred(RateLimiterOperator.of(rateLimiter));
+    }
+
+    private Mono<VimeoVideoPage> fetchPageNewestFirst(String userHandle, int page) {
+        return wc.get()
+                .uri(uri -> uri.path("/users/{user}/videos")
+                        .queryParam("per_page", pageSize)
+                        .queryParam("page", page)
+                        .queryParam("sort", "date")
+                        .queryParam("direction", "desc")
+                        .build(userHandle))
+                .retrieve()
+                .bodyToMono(VimeoVideoPage.class)
+                .map(p -> p.page() != null ? p
+                        : new VimeoVideoPage(p.data(), p.paging(), p.total(), page, p.perPage()))
+                .transformDeferred(RateLimiterOperator.of(rateLimiter));
+    }
+
+    private static int pageNumber(VimeoVideoPage p) {
+        return p.page() == null ? 1 : p.page();
     }
 
     private Mono<VimeoVideoPage> fetchPageByHref(String href) {
@@ -101,7 +213,12 @@ public class VimeoAdapter implements ProviderAdapter {
         return wc.get()
                 .uri(href)
                 .retrieve()
-                .bodyToMono(VimeoVideoPage.class);
+                .bodyToMono(VimeoVideoPage.class)
+                .transformDeferred(RateLimiterOperator.of(rateLimiter));
+    }
+
+    private static String nextHref(VimeoVideoPage p) {
+        return p.paging() == null ? null : p.paging().next();
     }
 
     /** Extract numeric ID from “/videos/{id}”. */
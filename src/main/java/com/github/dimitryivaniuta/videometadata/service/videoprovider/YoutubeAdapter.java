@@ -1,17 +1,21 @@
 package com.github.dimitryivaniuta.videometadata.service.videoprovider;
 
 import com.github.dimitryivaniuta.videometadata.config.VideoProvidersProperties;
+import com.github.dimitryivaniuta.videometadata.service.CurrentUser;
 import com.github.dimitryivaniuta.videometadata.web.dto.imports.*;
 import io.github.resilience4j.bulkhead.annotation.Bulkhead;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import io.github.resilience4j.ratelimiter.annotation.RateLimiter;
 import io.github.resilience4j.retry.annotation.Retry;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.security.core.context.ReactiveSecurityContextHolder;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
 /**
  * YouTube ProviderAdapter: single-video + bulk-by-publisher.
  */
@@ -20,6 +24,9 @@ public class YoutubeAdapter implements ProviderAdapter {
 
     private static final String YT_NAME = "videoMeta-youtube";
 
+    /** {@code videos.list} accepts at most 50 ids per call (1 quota unit either way). */
+    private static final int MAX_IDS_PER_CALL = 50;
+
     private final WebClient wc;
     private final String apiKey;
 
@@ -36,13 +43,13 @@ public class YoutubeAdapter implements ProviderAdapter {
     @RateLimiter(name = YT_NAME)
     @Bulkhead(name = YT_NAME, type = Bulkhead.Type.SEMAPHORE)
     public Mono<Metadata> fetch(String id) {
-        return ReactiveSecurityContextHolder.getContext()
-                .map(ctx -> ctx.getAuthentication().getName())
+        return CurrentUser.current()
+                .map(CurrentUser::username)
                 .defaultIfEmpty("anonymous")
                 .flatMap(user ->
                         wc.get()
                                 .uri(uri -> uri.path("/videos")
-                                        .queryParam("part", "snippet,contentDetails")
+                                        .queryParam("part", "snippet,contentDetails,statistics")
                                         .queryParam("id", id)
                                         .queryParam("key", apiKey)
                                         .build())
@@ -58,6 +65,37 @@ public class YoutubeAdapter implements ProviderAdapter {
         return Mono.error(new IllegalStateException("YouTube metadata unavailable", ex));
     }
 
+    @Override
+    public Mono<Void> warmUp(int connections) {
+        return AdapterWarmUp.primeCodecs(ExternalYoutubeResponse.class, SearchChannelResponse.class, SearchVideoRaw.class)
+                .then(AdapterWarmUp.connect(wc, connections));
+    }
+
+    @Override
+    public int maxBatchSize() {
+        return MAX_IDS_PER_CALL;
+    }
+
+    /** One {@code videos.list} call for up to {@value #MAX_IDS_PER_CALL} ids. */
+    @Override
+    public Flux<Metadata> fetchBatch(List<String> ids) {
+        if (ids.size() > MAX_IDS_PER_CALL) {
+            return Flux.fromIterable(ids)
+                    .buffer(MAX_IDS_PER_CALL)
+                    .concatMap(this::fetchBatch);
+        }
+        return wc.get()
+                .uri(uri -> uri.path("/videos")
+                        .queryParam("part", "snippet,contentDetails,statistics")
+                        .queryParam("id", String.join(",", ids))
+                        .queryParam("maxResults", MAX_IDS_PER_CALL)
+                        .queryParam("key", apiKey)
+                        .build())
+                .retrieve()
+                .bodyToMono(ExternalYoutubeResponse.class)
+                .flatMapIterable(resp -> resp.toMetadataList("refresh"));
+    }
+
     @Override
     @CircuitBreaker(name = YT_NAME, fallbackMethod = "fallbackBulk")
     @Retry(name = YT_NAME)
@@ -77,6 +115,25 @@ public class YoutubeAdapter implements ProviderAdapter {
         return Flux.error(new IllegalStateException("YouTube bulk import failed", ex));
     }
 
+    /**
+     * Newest-first channel listing; {@code publishedAfter} is applied server-side
+     * by the Search API, and the search page token is the resume cursor.
+     */
+    @Override
+    public Flux<PublisherPage> fetchPublisherPages(String handle, Instant publishedAfter, String pageToken) {
+        return resolveChannelId(handle)
+                .flatMapMany(channelId ->
+                        fetchVideoPage(channelId, pageToken, publishedAfter)
+                                .expand(raw -> raw.nextPageToken() == null
+                                        ? Mono.empty()
+                                        : fetchVideoPage(channelId, raw.nextPageToken(), publishedAfter)))
+                .concatMap(raw -> Flux.fromIterable(raw.items() == null ? List.<SearchVideoItem>of() : raw.items())
+                        .map(item -> item.id().videoId())
+                        .flatMapSequential(this::fetch)
+                        .collectList()
+                        .map(items -> new PublisherPage(items, raw.nextPageToken())), 0);
+    }
+
     private Mono<String> resolveChannelId(String handle) {
         return wc.get()
                 .uri(uri -> uri.path("/search")
@@ -109,6 +166,10 @@ public class YoutubeAdapter implements ProviderAdapter {
     }
 
     private Mono<SearchVideoRaw> fetchVideoPage(String channelId, String pageToken) {
+        return fetchVideoPage(channelId, pageToken, null);
+    }
+
+    private Mono<SearchVideoRaw> fetchVideoPage(String channelId, String pageToken, Instant publishedAfter) {
         return wc.get()
                 .uri(uri -> uri.path("/search")
                         .queryParam("part", "id")
@@ -117,10 +178,8 @@ public class YoutubeAdapter implements ProviderAdapter {
                         .queryParam("order", "date")
                         .queryParam("maxResults", "50")
                         .queryParam("key", apiKey)
-                        .queryParamIfPresent("pageToken",
-                                pageToken == null
-                                        ? java.util.Optional.empty()
-                                        : java.util.Optional.of(pageToken))
+                        .queryParamIfPresent("pageToken", Optional.ofNullable(pageToken))
+                        .queryParamIfPresent("publishedAfter", Optional.ofNullable(publishedAfter))
                         .build())
                 .retrieve()
                 .bodyToMono(SearchVideoRaw.class);
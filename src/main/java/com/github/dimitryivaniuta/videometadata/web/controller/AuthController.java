@@ -28,4 +28,10 @@ public class AuthController {
                                        ServerHttpResponse resp) {
         return authService.refresh(req, resp);
     }
+
+    @PostMapping("/logout")
+    public Mono<Boolean> logout(ServerHttpRequest req,
+                                ServerHttpResponse resp) {
+        return authService.logout(req, resp);
+    }
 }
@@ -1,10 +1,19 @@
 package com.github.dimitryivaniuta.videometadata.web.controller;
 
+import com.github.dimitryivaniuta.videometadata.config.BulkImportProperties;
 import com.github.dimitryivaniuta.videometadata.model.VideoProvider;
+import com.github.dimitryivaniuta.videometadata.service.BulkImportService;
+import com.github.dimitryivaniuta.videometadata.web.dto.imports.BulkImportResult;
 import com.github.dimitryivaniuta.videometadata.web.dto.imports.VideoResponse;
 import com.github.dimitryivaniuta.videometadata.service.VideoService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.StringDecoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.http.*;
+import org.springframework.http.codec.multipart.FilePartEvent;
+import org.springframework.http.codec.multipart.PartEvent;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
@@ -16,6 +25,8 @@ import reactor.core.publisher.*;
 public class VideoController {
 
     private final VideoService videoService;
+    private final BulkImportService bulkImportService;
+    private final BulkImportProperties bulkProps;
 
     /** List all videos, paged. */
     @GetMapping
@@ -51,4 +62,42 @@ public class VideoController {
                         )
                 );
     }
+
+    /**
+     * Bulk import from a raw NDJSON or CSV body; one result per line is streamed
+     * back as NDJSON while the body is still being read.
+     */
+    @PostMapping(value = "/import/bulk",
+            consumes = {"application/x-ndjson", "application/jsonl", "text/csv", MediaType.TEXT_PLAIN_VALUE},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("hasAnyRole('USER','ADMIN')")
+    public Flux<BulkImportResult> importBulk(@RequestBody Flux<DataBuffer> body) {
+        return bulkImportService.importLines(lines(body));
+    }
+
+    /**
+     * Same as {@link #importBulk(Flux)} for a multipart upload with a {@code file} part;
+     * parts are consumed as events, so the file is not spooled to disk or memory first.
+     */
+    @PostMapping(value = "/import/bulk",
+            consumes = MediaType.MULTIPART_FORM_DATA_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("hasAnyRole('USER','ADMIN')")
+    public Flux<BulkImportResult> importBulkMultipart(@RequestBody Flux<PartEvent> parts) {
+        Flux<DataBuffer> file = parts.handle((part, sink) -> {
+            if (part instanceof FilePartEvent && "file".equals(part.name())) {
+                sink.next(part.content());
+            } else {
+                DataBufferUtils.release(part.content());
+            }
+        });
+        return bulkImportService.importLines(lines(file));
+    }
+
+    /** Splits a byte stream into lines as it arrives; a single line may not exceed max-line-bytes. */
+    private Flux<String> lines(Flux<DataBuffer> body) {
+        StringDecoder decoder = StringDecoder.allMimeTypes();
+        decoder.setMaxInMemorySize(bulkProps.getMaxLineBytes());
+        return decoder.decode(body, ResolvableType.forClass(String.class), null, null);
+    }
 }
@@ -0,0 +1,44 @@
+package com.github.dimitryivaniuta.videometadata.web.dto.imports;
+
+import com.github.dimitryivaniuta.videometadata.model.VideoProvider;
+
+/**
+ * Outcome of one line of a bulk import upload, streamed back as NDJSON.
+ *
+ * @param line            1-based line number in the upload
+ * @param videoId         stored video id for {@code IMPORTED} and {@code EXISTS}
+ * @param error           reason for {@code INVALID} and {@code FAILED}
+ */
+public record BulkImportResult(
+        long line,
+        VideoProvider provider,
+        String externalVideoId,
+        Status status,
+        Long videoId,
+        String error
+) {
+    public enum Status {
+        /** Fetched from the provider and stored. */
+        IMPORTED,
+        /** Already stored; nothing fetched. */
+        EXISTS,
+        /** Repeats an earlier line of the same upload. */
+        DUPLICATE,
+        /** The provider does not return this id. */
+        NOT_FOUND,
+        /** The line could not be parsed. */
+        INVALID,
+        /** Provider or DB error. */
+        FAILED
+    }
+
+    public static BulkImportResult of(long line, VideoProvider provider, String externalVideoId,
+                                      Status status, Long videoId) {
+        return new BulkImportResult(line, provider, externalVideoId, status, videoId, null);
+    }
+
+    public static BulkImportResult error(long line, VideoProvider provider, String externalVideoId,
+                                         Status status, String error) {
+        return new BulkImportResult(line, provider, externalVideoId, status, null, error);
+    }
+}
@@ -49,6 +49,7 @@ public class ExternalVimeoResponse {
                 .externalVideoId(videoId)
                 .uploadDate(releaseTime)
                 .requestedBy(requestedBy)
+                .viewCount(stats != null ? stats.getPlays() : null)
                 .build();
     }
 }
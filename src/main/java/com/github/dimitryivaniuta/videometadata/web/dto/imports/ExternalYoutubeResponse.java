@@ -72,18 +72,29 @@ public class ExternalYoutubeResponse {
         if (items == null || items.isEmpty()) {
             throw new IllegalStateException("YouTube response has no items");
         }
-        Item first = items.getFirst();
-        Snippet sn = first.getSnippet();
-        ContentDetails cd = first.getContentDetails();
+        return toMetadata(items.getFirst(), videoId, requestedBy);
+    }
+
+    /** Every returned item (batched {@code videos.list?id=a,b,c}); removed/private ids are simply absent. */
+    public List<Metadata> toMetadataList(String requestedBy) {
+        return items == null ? List.of() : items.stream()
+                .map(item -> toMetadata(item, item.getId(), requestedBy))
+                .toList();
+    }
+
+    private static Metadata toMetadata(Item item, String videoId, String requestedBy) {
+        Snippet sn = item.getSnippet();
+        ContentDetails cd = item.getContentDetails();
         return Metadata.builder()
                 .title(sn.getTitle())
                 .description(sn.getDescription())
-                .durationMs(parseDuration(cd.getDuration()))
+                .durationMs(cd == null ? null : parseDuration(cd.getDuration()))
                 .videoCategory(VideoCategory.GENERAL)
                 .videoProvider(VideoProvider.YOUTUBE)
                 .externalVideoId(videoId)
                 .uploadDate(sn.getPublishedAt())
                 .requestedBy(requestedBy)
+                .viewCount(item.getStatistics() == null ? null : item.getStatistics().getViewCount())
                 .build();
     }
 
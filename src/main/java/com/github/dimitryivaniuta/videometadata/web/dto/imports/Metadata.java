@@ -15,5 +15,6 @@ public record Metadata(
         VideoProvider videoProvider,
         String externalVideoId,
         Instant uploadDate,
-        String requestedBy) {
+        String requestedBy,
+        Long viewCount) {
 }
\ No newline at end of file
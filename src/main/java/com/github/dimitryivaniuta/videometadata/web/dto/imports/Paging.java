@@ -1,3 +1,6 @@
 package com.github.dimitryivaniuta.videometadata.web.dto.imports;
 
-public record Paging(String next) {}
\ No newline at end of file
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record Paging(String next) {}
@@ -0,0 +1,9 @@
+package com.github.dimitryivaniuta.videometadata.web.dto.imports;
+
+import java.util.List;
+
+/**
+ * One page of a publisher listing, newest first, plus the provider cursor
+ * for the following page ({@code null} on the last page).
+ */
+public record PublisherPage(List<Metadata> items, String nextPageToken) {}
@@ -1,5 +1,6 @@
 package com.github.dimitryivaniuta.videometadata.web.dto.imports;
 
+import com.github.dimitryivaniuta.videometadata.domain.event.VideoImportedEvent;
 import com.github.dimitryivaniuta.videometadata.model.Video;
 import com.github.dimitryivaniuta.videometadata.model.VideoCategory;
 import com.github.dimitryivaniuta.videometadata.model.VideoProvider;
@@ -36,4 +37,19 @@ public record VideoResponse(
                 .createdUserId(v.getCreatedUserId())
                 .build();
     }
-}
\ No newline at end of file
+
+    public static VideoResponse toDto(VideoImportedEvent e) {
+        return VideoResponse.builder()
+                .id(e.id())
+                .title(e.title())
+                .source(e.provider() == null ? null : e.provider().name().toLowerCase())
+                .durationMs(e.durationMs())
+                .description(e.description())
+                .videoCategory(e.category())
+                .videoProvider(e.provider())
+                .externalVideoId(e.externalVideoId())
+                .uploadDate(DateTimeUtil.toOffset(e.uploadDate()))
+                .createdUserId(e.createdUserId())
+                .build();
+    }
+}
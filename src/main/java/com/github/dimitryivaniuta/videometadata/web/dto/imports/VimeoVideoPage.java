@@ -1,5 +1,20 @@
 package com.github.dimitryivaniuta.videometadata.web.dto.imports;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
 import java.util.List;
 
-public record VimeoVideoPage(List<ExternalVimeoResponse> data, Paging paging) {}
\ No newline at end of file
+/**
+ * One page of Vimeo {@code /users/{user}/videos}.
+ * <p>
+ * {@code total}, {@code page} and {@code per_page} let the adapter compute the
+ * page count up front instead of following {@code paging.next} one by one.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record VimeoVideoPage(
+        List<ExternalVimeoResponse> data,
+        Paging paging,
+        @JsonProperty("total") Integer total,
+        @JsonProperty("page") Integer page,
+        @JsonProperty("per_page") Integer perPage) {}
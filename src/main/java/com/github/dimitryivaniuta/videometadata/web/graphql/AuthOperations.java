@@ -1,9 +1,11 @@
 package com.github.dimitryivaniuta.videometadata.web.graphql;
 
 import com.github.dimitryivaniuta.videometadata.graphql.annotations.*;
+import com.github.dimitryivaniuta.videometadata.graphql.schema.RequiresRole;
 import com.github.dimitryivaniuta.videometadata.service.AuthService;
 import com.github.dimitryivaniuta.videometadata.web.dto.TokenResponse;
 import graphql.schema.DataFetchingEnvironment;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import lombok.RequiredArgsConstructor;
 import org.springframework.graphql.data.method.annotation.ContextValue;
@@ -18,6 +20,8 @@ import reactor.core.publisher.Mono;
  * <p>
  * - {@code login}   -> issues access + refresh (cookie)
  * - {@code refresh} -> rotates access token when called from the FE refresh-link
+ * - {@code logout}  -> revokes the caller's access token and the refresh token of its cookie, clears the cookie
+ * - {@code revokeAllForUser} -> (ADMIN) revokes every token a user holds
  */
 @Component
 @GraphQLApplication
@@ -33,7 +37,7 @@ public class AuthOperations {
             @GraphQLArgument("password") @NotBlank String password,
             DataFetchingEnvironment env) {
 
-        // Spring GraphQL puts ServerWebExchange in the GraphQlContext
+        // put into the GraphQlContext by HttpExchangeGraphQlInterceptor
         ServerWebExchange exchange =
                 env.getGraphQlContext().get(ServerWebExchange.class);
 
@@ -55,4 +59,21 @@ public class AuthOperations {
     ) {
         return authService.refresh(request, response);
     }
+
+    /* ----------- LOGOUT (authenticated) --------------------------------- */
+    @GraphQLMutation("logout")
+    public Mono<Boolean> logout(
+            @ContextValue ServerHttpRequest  request,
+            @ContextValue ServerHttpResponse response
+    ) {
+        return authService.logout(request, response);
+    }
+
+    /* ----------- REVOKE ALL (admin) -------------------------------------- */
+    @GraphQLMutation("revokeAllForUser")
+    @RequiresRole({"ADMIN"})
+    public Mono<Boolean> revokeAllForUser(
+            @GraphQLArgument("userId") @Min(1) long userId) {
+        return authService.revokeAllForUser(userId);
+    }
 }
@@ -41,4 +41,16 @@ public class ImportOperations {
         return videoService.importVideosByPublisher(provider, publisherName);
     }
 
+    /**
+     * Import only uploads published since the last sync of this publisher.
+     */
+    @GraphQLMutation("resyncPublisher")
+    @RequiresRole({"USER", "ADMIN"})
+    public Flux<VideoResponse> resyncPublisher(
+            @GraphQLArgument("provider") @NotNull VideoProvider provider,
+            @GraphQLArgument("publisherName") @NotBlank String publisherName
+    ) {
+        return videoService.resyncPublisher(provider, publisherName);
+    }
+
 }
@@ -0,0 +1,37 @@
+package com.github.dimitryivaniuta.videometadata.web.graphql;
+
+import com.github.dimitryivaniuta.videometadata.graphql.annotations.GraphQLApplication;
+import com.github.dimitryivaniuta.videometadata.graphql.annotations.GraphQLArgument;
+import com.github.dimitryivaniuta.videometadata.graphql.annotations.GraphQLMutation;
+import com.github.dimitryivaniuta.videometadata.graphql.schema.RequiresRole;
+import com.github.dimitryivaniuta.videometadata.service.projection.ProjectionRebuildReport;
+import com.github.dimitryivaniuta.videometadata.service.projection.ProjectionRebuildService;
+import jakarta.validation.constraints.NotBlank;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Admin operations on read-model projections.
+ */
+@Component
+@GraphQLApplication
+@RequiredArgsConstructor
+public class ProjectionOperations {
+
+    private final ProjectionRebuildService rebuildService;
+
+    /**
+     * Resets a projection and replays the event log into it; returns once the
+     * replay has caught up, with its throughput.
+     */
+    @GraphQLMutation("rebuildProjection")
+    @RequiresRole({"ADMIN"})
+    public Mono<ProjectionRebuildReport> rebuildProjection(
+            @GraphQLArgument("name") @NotBlank String name,
+            @GraphQLArgument("segments") Integer segments,
+            @GraphQLArgument("resume") Boolean resume
+    ) {
+        return rebuildService.rebuild(name, segments, Boolean.TRUE.equals(resume));
+    }
+}
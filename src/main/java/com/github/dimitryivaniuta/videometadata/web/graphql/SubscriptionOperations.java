@@ -0,0 +1,33 @@
+package com.github.dimitryivaniuta.videometadata.web.graphql;
+
+import com.github.dimitryivaniuta.videometadata.graphql.annotations.GraphQLApplication;
+import com.github.dimitryivaniuta.videometadata.graphql.annotations.GraphQLArgument;
+import com.github.dimitryivaniuta.videometadata.graphql.annotations.GraphQLSubscription;
+import com.github.dimitryivaniuta.videometadata.graphql.schema.RequiresRole;
+import com.github.dimitryivaniuta.videometadata.model.VideoProvider;
+import com.github.dimitryivaniuta.videometadata.service.events.VideoImportFeed;
+import com.github.dimitryivaniuta.videometadata.web.dto.imports.VideoResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+/**
+ * GraphQL subscriptions, served over the WebSocket endpoint ({@code spring.graphql.websocket.path}).
+ */
+@Component
+@GraphQLApplication
+@RequiredArgsConstructor
+public class SubscriptionOperations {
+
+    private final VideoImportFeed feed;
+
+    /**
+     * Videos imported from now on, optionally of one provider only. A client
+     * that falls behind misses the oldest events rather than slowing imports.
+     */
+    @GraphQLSubscription("videoImported")
+    @RequiresRole({"USER", "ADMIN"})
+    public Flux<VideoResponse> videoImported(@GraphQLArgument("provider") VideoProvider provider) {
+        return feed.subscribe(provider).map(VideoResponse::toDto);
+    }
+}
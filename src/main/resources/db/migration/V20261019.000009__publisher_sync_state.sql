@@ -0,0 +1,14 @@
+-- Per-(provider, publisher) watermark for incremental publisher re-sync
+CREATE TABLE IF NOT EXISTS publisher_sync_state (
+    id                      BIGINT       NOT NULL PRIMARY KEY DEFAULT nextval('VM_UNIQUE_ID'),
+    provider                SMALLINT     NOT NULL,
+    publisher               VARCHAR(255) NOT NULL,
+    last_published_at       TIMESTAMPTZ,
+    last_external_video_id  VARCHAR(255),
+    last_page_token         VARCHAR(255),
+    videos_seen             BIGINT       NOT NULL DEFAULT 0,
+    videos_imported         BIGINT       NOT NULL DEFAULT 0,
+    sync_count              BIGINT       NOT NULL DEFAULT 0,
+    last_synced_at          TIMESTAMPTZ,
+    UNIQUE (provider, publisher)
+);
@@ -0,0 +1,7 @@
+-- Metadata refresh bookkeeping: popularity signal + last successful provider check
+ALTER TABLE videos ADD COLUMN view_count        BIGINT;
+ALTER TABLE videos ADD COLUMN last_refreshed_at TIMESTAMPTZ;
+
+-- Staleness scan: oldest-checked rows first, per provider
+CREATE INDEX IF NOT EXISTS idx_videos_refresh_due
+    ON videos (provider, (COALESCE(last_refreshed_at, created_at)));
@@ -0,0 +1,18 @@
+-- Transactional outbox: events are written in the same statement as the row
+-- they describe and delivered at least once by the outbox relay
+CREATE TABLE IF NOT EXISTS outbox (
+    id              BIGSERIAL    PRIMARY KEY,
+    aggregate_type  VARCHAR(50)  NOT NULL,
+    aggregate_id    BIGINT       NOT NULL,
+    event_type      VARCHAR(100) NOT NULL,
+    payload         JSONB        NOT NULL,
+    created_at      TIMESTAMPTZ  NOT NULL DEFAULT now(),
+    available_at    TIMESTAMPTZ  NOT NULL DEFAULT now(),
+    locked_until    TIMESTAMPTZ,
+    attempts        INT          NOT NULL DEFAULT 0,
+    last_error      TEXT,
+    dead_at         TIMESTAMPTZ
+);
+
+-- Claim scan: deliverable rows in insertion order; dead letters stay out of the index
+CREATE INDEX IF NOT EXISTS idx_outbox_pending ON outbox (id) WHERE dead_at IS NULL;
@@ -0,0 +1,64 @@
+-- Append-only domain event log; seq is the global order replays follow
+CREATE TABLE IF NOT EXISTS domain_events (
+    seq             BIGSERIAL    PRIMARY KEY,
+    aggregate_type  VARCHAR(50)  NOT NULL,
+    aggregate_id    BIGINT       NOT NULL,
+    event_type      VARCHAR(100) NOT NULL,
+    payload         JSONB        NOT NULL,
+    occurred_at     TIMESTAMPTZ  NOT NULL DEFAULT now()
+);
+
+CREATE INDEX IF NOT EXISTS idx_domain_events_aggregate
+    ON domain_events (aggregate_type, aggregate_id, seq);
+
+-- Tracking tokens: last applied seq per projection and replay segment
+CREATE TABLE IF NOT EXISTS projection_tokens (
+    processor       VARCHAR(100) NOT NULL,
+    segment         INT          NOT NULL,
+    segment_count   INT          NOT NULL,
+    position        BIGINT       NOT NULL DEFAULT 0,
+    head            BIGINT       NOT NULL,
+    updated_at      TIMESTAMPTZ  NOT NULL DEFAULT now(),
+    PRIMARY KEY (processor, segment)
+);
+
+-- Read model of imported videos, maintained by the video-projection
+CREATE TABLE IF NOT EXISTS videos_read (
+    id                BIGINT       NOT NULL PRIMARY KEY,
+    provider          SMALLINT     NOT NULL,
+    category          SMALLINT,
+    external_video_id VARCHAR(255),
+    title             VARCHAR(255) NOT NULL,
+    description       TEXT,
+    duration_ms       BIGINT,
+    upload_date       TIMESTAMPTZ,
+    created_at        TIMESTAMPTZ,
+    created_user_id   BIGINT
+);
+
+-- Backfill: one VideoImportedEvent per existing video (enum names by ordinal)
+INSERT INTO domain_events (aggregate_type, aggregate_id, event_type, payload, occurred_at)
+SELECT 'video', v.id, 'VideoImportedEvent',
+       jsonb_strip_nulls(jsonb_build_object(
+               'id', v.id,
+               'externalVideoId', v.external_video_id,
+               'title', v.title,
+               'description', v.description,
+               'durationMs', v.duration_ms,
+               'category', (ARRAY['GENERAL', 'EDUCATION', 'ENTERTAINMENT', 'MUSIC', 'SPORTS', 'NEWS',
+                                  'TECHNOLOGY', 'GAMING', 'BUSINESS', 'OTHER', 'UNSPECIFIED'])[v.category + 1],
+               'provider', (ARRAY['YOUTUBE', 'VIMEO', 'DAILYMOTION', 'INTERNAL', 'OTHER',
+                                  'UNSPECIFIED'])[v.provider + 1],
+               'uploadDate', to_char(v.upload_date AT TIME ZONE 'UTC', 'YYYY-MM-DD"T"HH24:MI:SS.US"Z"'),
+               'createdAt', to_char(v.created_at AT TIME ZONE 'UTC', 'YYYY-MM-DD"T"HH24:MI:SS.US"Z"'),
+               'createdUserId', v.created_user_id)),
+       v.created_at
+FROM videos v
+ORDER BY v.id;
+
+INSERT INTO videos_read (id, provider, category, external_video_id, title, description,
+                         duration_ms, upload_date, created_at, created_user_id)
+SELECT id, provider, category, external_video_id, title, description,
+       duration_ms, upload_date, created_at, created_user_id
+FROM videos
+ON CONFLICT (id) DO NOTHING;
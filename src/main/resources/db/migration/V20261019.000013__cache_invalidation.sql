@@ -0,0 +1,3 @@
+-- Generation of cross-node cache invalidations (LISTEN/NOTIFY); lets a
+-- reconnecting listener tell whether it missed any notification
+CREATE SEQUENCE IF NOT EXISTS cache_invalidation_seq;
@@ -0,0 +1,19 @@
+-- RSA signing keys shared by every node (JwkKeyManager). A key signs from
+-- activates_at until its successor activates and is verified until the
+-- longest token it signed has expired. jwk holds the private JWK, AES-GCM
+-- sealed when security.jwt.keys.encryption-key is set.
+CREATE TABLE IF NOT EXISTS signing_keys (
+    kid          VARCHAR(64)  NOT NULL PRIMARY KEY,
+    jwk          TEXT         NOT NULL,
+    activates_at TIMESTAMPTZ  NOT NULL UNIQUE,
+    created_at   TIMESTAMPTZ  NOT NULL DEFAULT now()
+);
+
+-- Lease held by the node that is rotating keys
+CREATE TABLE IF NOT EXISTS signing_key_lock (
+    name         VARCHAR(64)  NOT NULL PRIMARY KEY,
+    owner        VARCHAR(128),
+    locked_until TIMESTAMPTZ  NOT NULL DEFAULT '-infinity'
+);
+
+INSERT INTO signing_key_lock (name) VALUES ('rotation') ON CONFLICT DO NOTHING;
@@ -0,0 +1,3 @@
+-- JWS algorithm of each signing key, so a configured algorithm change is
+-- noticed without opening the (possibly sealed) keys
+ALTER TABLE signing_keys ADD COLUMN IF NOT EXISTS alg VARCHAR(16) NOT NULL DEFAULT 'RS256';
@@ -0,0 +1,34 @@
+-- Videos imported by publisher or resync before those paths wrote the outbox
+-- have no VideoImportedEvent, so a projection rebuild would drop them. Log one
+-- per such video from its current row (refreshed values included: the event
+-- replays after any earlier change of the video). Enum names by ordinal.
+INSERT INTO domain_events (aggregate_type, aggregate_id, event_type, payload, occurred_at)
+SELECT 'video', v.id, 'VideoImportedEvent',
+       jsonb_strip_nulls(jsonb_build_object(
+               'id', v.id,
+               'externalVideoId', v.external_video_id,
+               'title', v.title,
+               'description', v.description,
+               'durationMs', v.duration_ms,
+               'category', (ARRAY['GENERAL', 'EDUCATION', 'ENTERTAINMENT', 'MUSIC', 'SPORTS', 'NEWS',
+                                  'TECHNOLOGY', 'GAMING', 'BUSINESS', 'OTHER', 'UNSPECIFIED'])[v.category + 1],
+               'provider', (ARRAY['YOUTUBE', 'VIMEO', 'DAILYMOTION', 'INTERNAL', 'OTHER',
+                                  'UNSPECIFIED'])[v.provider + 1],
+               'uploadDate', to_char(v.upload_date AT TIME ZONE 'UTC', 'YYYY-MM-DD"T"HH24:MI:SS.US"Z"'),
+               'createdAt', to_char(v.created_at AT TIME ZONE 'UTC', 'YYYY-MM-DD"T"HH24:MI:SS.US"Z"'),
+               'createdUserId', v.created_user_id)),
+       v.created_at
+FROM videos v
+WHERE NOT EXISTS (SELECT 1
+                  FROM domain_events e
+                  WHERE e.aggregate_type = 'video'
+                    AND e.aggregate_id = v.id
+                    AND e.event_type = 'VideoImportedEvent')
+ORDER BY v.id;
+
+INSERT INTO videos_read (id, provider, category, external_video_id, title, description,
+                         duration_ms, upload_date, created_at, created_user_id)
+SELECT id, provider, category, external_video_id, title, description,
+       duration_ms, upload_date, created_at, created_user_id
+FROM videos
+ON CONFLICT (id) DO NOTHING;
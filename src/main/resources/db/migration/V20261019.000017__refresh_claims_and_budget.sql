@@ -0,0 +1,11 @@
+-- Refresh candidates are claimed with a lease, so replicas refresh disjoint rows
+ALTER TABLE videos ADD COLUMN IF NOT EXISTS refresh_claimed_until TIMESTAMPTZ;
+
+-- Provider calls spent on refresh per UTC day, shared by every node
+CREATE TABLE IF NOT EXISTS refresh_budget (
+    provider    SMALLINT  NOT NULL,
+    day         DATE      NOT NULL,
+    used        BIGINT    NOT NULL DEFAULT 0,
+    last_grant  INT       NOT NULL DEFAULT 0,
+    PRIMARY KEY (provider, day)
+);
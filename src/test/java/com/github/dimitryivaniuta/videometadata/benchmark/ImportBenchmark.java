@@ -0,0 +1,212 @@
+package com.github.dimitryivaniuta.videometadata.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.dimitryivaniuta.videometadata.config.BulkImportProperties;
+import com.github.dimitryivaniuta.videometadata.config.VideoProvidersProperties;
+import com.github.dimitryivaniuta.videometadata.model.VideoProvider;
+import com.github.dimitryivaniuta.videometadata.service.BulkImportService;
+import com.github.dimitryivaniuta.videometadata.service.BulkImportServiceImpl;
+import com.github.dimitryivaniuta.videometadata.service.UserCacheService;
+import com.github.dimitryivaniuta.videometadata.service.VideoService;
+import com.github.dimitryivaniuta.videometadata.service.VideoServiceImpl;
+import com.github.dimitryivaniuta.videometadata.service.videoprovider.ExternalMetadataClient;
+import com.github.dimitryivaniuta.videometadata.support.CountingVideoStore;
+import com.github.dimitryivaniuta.videometadata.support.ProviderStandIn;
+import com.github.dimitryivaniuta.videometadata.web.dto.CachedUser;
+import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Import throughput against the embedded provider stand-in and a counting
+ * in-memory store. Run with {@code gradle benchmark}; tune with
+ * {@code -Dbenchmark.latencyMs=}, {@code .dbLatencyMs}, {@code .imports},
+ * {@code .concurrency}, {@code .channelSize}, {@code .runs}.
+ * <p>
+ * Single imports report per-import latency; bulk scenarios report the
+ * distribution of whole-run durations over {@code runs} repetitions.
+ * The table is printed and written to {@code build/reports/benchmark}.
+ */
+@Tag("benchmark")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ImportBenchmark {
+
+    private static final Duration LATENCY    = Duration.ofMillis(Long.getLong("benchmark.latencyMs", 20));
+    private static final Duration DB_LATENCY = Duration.ofMillis(Long.getLong("benchmark.dbLatencyMs", 1));
+    private static final int IMPORTS         = Integer.getInteger("benchmark.imports", 500);
+    private static final int CONCURRENCY     = Integer.getInteger("benchmark.concurrency", 16);
+    private static final int CHANNEL_SIZE    = Integer.getInteger("benchmark.channelSize", 1_000);
+    private static final int RUNS            = Integer.getInteger("benchmark.runs", 5);
+
+    private ProviderStandIn standIn;
+    private CountingVideoStore store;
+    private VideoService videoService;
+    private BulkImportService bulkImportService;
+    private Context auth;
+
+    private final List<String> report = new ArrayList<>();
+
+    @BeforeAll
+    void setUp() {
+        standIn = ProviderStandIn.builder()
+                .latency(LATENCY)
+                .channel("bench", CHANNEL_SIZE)
+                .start();
+        store = new CountingVideoStore(DB_LATENCY);
+
+        VideoProvidersProperties.Provider vimeo = standIn.vimeoConfig();
+        vimeo.setPageSize(100);
+        vimeo.setPageConcurrency(4);
+        VideoProvidersProperties providers = new VideoProvidersProperties();
+        providers.setProviders(Map.of("youtube", standIn.youtubeConfig(), "vimeo", vimeo));
+
+        ExternalMetadataClient meta = new ExternalMetadataClient(
+                providers, WebClient.builder(), RateLimiterRegistry.ofDefaults());
+        UserCacheService userCache = mock(UserCacheService.class);
+        when(userCache.getUser(anyString())).thenReturn(Mono.just(
+                new CachedUser(1L, "bench", null, null, null, null, null, null)));
+
+        videoService = new VideoServiceImpl(event -> { }, meta, store.videoRepository(), providers,
+                userCache, store.syncStateRepository());
+        bulkImportService = new BulkImportServiceImpl(meta, store.videoRepository(), providers,
+                new BulkImportProperties(), userCache, event -> { }, new ObjectMapper());
+        auth = ReactiveSecurityContextHolder.withAuthentication(
+                new UsernamePasswordAuthenticationToken("bench", null, List.of()));
+
+        report.add("provider latency %d ms, DB round trip %d ms, concurrency %d"
+                .formatted(LATENCY.toMillis(), DB_LATENCY.toMillis(), CONCURRENCY));
+        report.add("%-28s %8s %12s %10s %10s %10s %10s".formatted(
+                "scenario", "videos", "imports/s", "p50 ms", "p99 ms", "db/video", "http/video"));
+    }
+
+    @AfterAll
+    void tearDown() throws IOException {
+        standIn.close();
+        String table = String.join(System.lineSeparator(), report);
+        System.out.println(table);
+        Path dir = Path.of(System.getProperty("benchmark.reportDir", "build/reports/benchmark"));
+        Files.createDirectories(dir);
+        Files.writeString(dir.resolve("import-benchmark.txt"), table + System.lineSeparator());
+    }
+
+    @Test
+    void singleImportsYoutube() {
+        singleImports("single import (youtube)", VideoProvider.YOUTUBE, n -> "yt-single-" + n);
+    }
+
+    @Test
+    void singleImportsVimeo() {
+        singleImports("single import (vimeo)", VideoProvider.VIMEO, n -> String.valueOf(1_000_000 + n));
+    }
+
+    @Test
+    void publisherImportYoutube() {
+        bulk("publisher import (youtube)", () -> videoService
+                .importVideosByPublisher(VideoProvider.YOUTUBE, "bench").count());
+    }
+
+    @Test
+    void publisherImportVimeo() {
+        bulk("publisher import (vimeo)", () -> videoService
+                .importVideosByPublisher(VideoProvider.VIMEO, "bench").count());
+    }
+
+    @Test
+    void bulkUploadYoutube() {
+        // every 10th line repeats an earlier one, as partner lists usually do
+        Flux<String> lines = Flux.range(0, CHANNEL_SIZE)
+                .map(n -> n % 10 == 9 ? "YOUTUBE,yt-upload-" + (n - 1) : "YOUTUBE,yt-upload-" + n);
+        bulk("bulk upload (youtube)", () -> bulkImportService.importLines(lines).count());
+    }
+
+    private void singleImports(String scenario, VideoProvider provider, IntFunction<String> id) {
+        Flux.range(0, Math.min(50, IMPORTS))   // warm-up: connections, codecs, JIT
+                .flatMap(n -> videoService.importVideo(provider, id.apply(-1 - n)), CONCURRENCY)
+                .contextWrite(auth)
+                .blockLast();
+        store.reset();
+        standIn.resetCounters();
+
+        long[] latencies = new long[IMPORTS];
+        long start = System.nanoTime();
+        Long imported = Flux.range(0, IMPORTS)
+                .flatMap(n -> Mono.defer(() -> {
+                    long t0 = System.nanoTime();
+                    return videoService.importVideo(provider, id.apply(n))
+                            .doOnSuccess(v -> latencies[n] = System.nanoTime() - t0);
+                }), CONCURRENCY)
+                .contextWrite(auth)
+                .count()
+                .block();
+        long elapsed = System.nanoTime() - start;
+
+        assertThat(imported).isEqualTo(IMPORTS);
+        record(scenario, IMPORTS, elapsed, latencies);
+    }
+
+    private void bulk(String scenario, Supplier<Mono<Long>> run) {
+        run.get().contextWrite(auth).block();   // warm-up
+        long[] durations = new long[RUNS];
+        long videos = 0;
+        long roundTrips = 0;
+        long requests = 0;
+        long total = 0;
+        for (int i = 0; i < RUNS; i++) {
+            store.reset();
+            standIn.resetCounters();
+            long t0 = System.nanoTime();
+            videos = run.get().contextWrite(auth).block();
+            durations[i] = System.nanoTime() - t0;
+            total += durations[i];
+            roundTrips += store.roundTrips();
+            requests += standIn.requests();
+        }
+        assertThat(videos).isPositive();
+        report.add(row(scenario, videos, total / RUNS, durations,
+                (double) roundTrips / RUNS / videos, (double) requests / RUNS / videos));
+    }
+
+    private void record(String scenario, long videos, long elapsedNanos, long[] latencies) {
+        report.add(row(scenario, videos, elapsedNanos, latencies,
+                (double) store.roundTrips() / videos, (double) standIn.requests() / videos));
+    }
+
+    private static String row(String scenario, long videos, long elapsedNanos, long[] samples,
+                              double dbPerVideo, double httpPerVideo) {
+        long[] sorted = samples.clone();
+        Arrays.sort(sorted);
+        return "%-28s %8d %12.1f %10.1f %10.1f %10.2f %10.2f".formatted(
+                scenario, videos, videos / (elapsedNanos / 1e9),
+                percentile(sorted, 0.50) / 1e6, percentile(sorted, 0.99) / 1e6,
+                dbPerVideo, httpPerVideo);
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        return sorted[Math.clamp((long) Math.ceil(p * sorted.length) - 1, 0, sorted.length - 1)];
+    }
+}
@@ -0,0 +1,231 @@
+package com.github.dimitryivaniuta.videometadata.benchmark;
+
+import com.github.dimitryivaniuta.videometadata.config.CompositeJwtDecoder;
+import com.github.dimitryivaniuta.videometadata.config.JwkKeyManager;
+import com.github.dimitryivaniuta.videometadata.config.SecurityJwtProperties;
+import com.github.dimitryivaniuta.videometadata.service.revocation.TokenRevocationService;
+import com.nimbusds.jose.jwk.source.ImmutableSecret;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.security.oauth2.core.OAuth2TokenValidatorResult;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jose.jws.SignatureAlgorithm;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+import org.springframework.security.oauth2.jwt.NimbusReactiveJwtDecoder;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Decode throughput of {@link CompositeJwtDecoder} with the verified-token
+ * cache off (cold: every request parses and verifies) and on (warm: clients
+ * repeat their tokens), and the cost of a fresh decoder's first RS256 decode
+ * with keys fetched from a JWKS endpoint versus taken from the key manager.
+ * Run with {@code gradle benchmark --tests '*JwtDecode*'}; tune with
+ * {@code -Dbenchmark.decodeOps=}, {@code .distinctTokens}, {@code .startupTrials}.
+ * <p>
+ * Timings use warm-up rounds and the best of several measured rounds, in
+ * the style of a JMH throughput run without its forked JVMs.
+ */
+@Tag("benchmark")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class JwtDecodeBenchmark {
+
+    private static final int OPS    = Integer.getInteger("benchmark.decodeOps", 20_000);
+    private static final int TOKENS = Integer.getInteger("benchmark.distinctTokens", 500);
+    private static final int TRIALS = Integer.getInteger("benchmark.startupTrials", 20);
+    private static final int ROUNDS = 5;
+    private static final byte[] SECRET = "0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private final JwkKeyManager keys = JwkKeyManager.inMemory();
+    private final List<String> report = new ArrayList<>();
+    private DisposableServer jwks;
+
+    /** Consumed by every round so the JIT cannot drop the work. */
+    private long sink;
+
+    @BeforeAll
+    void setUp() {
+        String keySet = keys.getPublicJwkSet().toString();
+        jwks = HttpServer.create().host("127.0.0.1").port(0)
+                .route(routes -> routes.get("/jwks.json", (req, res) -> res.sendString(Mono.just(keySet))))
+                .bindNow();
+    }
+
+    @AfterAll
+    void tearDown() throws IOException {
+        jwks.disposeNow();
+        String table = String.join(System.lineSeparator(), report);
+        System.out.println(table);
+        Path dir = Path.of(System.getProperty("benchmark.reportDir", "build/reports/benchmark"));
+        Files.createDirectories(dir);
+        Files.writeString(dir.resolve("jwt-decode-benchmark.txt"), table + System.lineSeparator());
+    }
+
+    @Test
+    void throughput() {
+        report.add("%d distinct tokens, %d decodes per round".formatted(TOKENS, OPS));
+        report.add("%-8s %-6s %12s %12s".formatted("alg", "cache", "decodes/s", "us/decode"));
+        rs256();
+        hs256();
+    }
+
+    /**
+     * Startup: build a decoder, decode one token, decode a second one (cache
+     * off). The JWKS endpoint here is a bare local server; a node fetching its
+     * own endpoint also goes through its web and security filters.
+     */
+    @Test
+    void firstDecodeAfterStartup() {
+        JwtEncoder encoder = new NimbusJwtEncoder(keys.getSigningJwkSourceDynamic());
+        List<String> tokens = tokens(encoder, JwsHeader.with(SignatureAlgorithm.RS256)
+                .keyId(keys.getCurrentKid()).build());
+        String jwksUri = "http://127.0.0.1:" + jwks.port() + "/jwks.json";
+        long[][] http = new long[3][TRIALS];
+        long[][] local = new long[3][TRIALS];
+        for (int i = 0; i < TRIALS + 3; i++) {
+            int t = Math.max(0, i - 3);   // the first three trials only warm up
+            startup(http, t, () -> {
+                NimbusReactiveJwtDecoder decoder = NimbusReactiveJwtDecoder.withJwkSetUri(jwksUri)
+                        .jwsAlgorithm(SignatureAlgorithm.RS256).build();
+                decoder.setJwtValidator(token -> OAuth2TokenValidatorResult.success());
+                return decoder;
+            }, tokens);
+            startup(local, t, () -> decoder(0), tokens);
+        }
+        report.add("");
+        report.add("first RS256 decode of a new decoder, median of %d".formatted(TRIALS));
+        report.add("%-14s %12s %14s %14s".formatted("keys", "build us", "first dec us", "second dec us"));
+        report.add(startupRow("jwks over http", http));
+        report.add(startupRow("in-process", local));
+    }
+
+    private void startup(long[][] samples, int trial, Supplier<ReactiveJwtDecoder> build, List<String> tokens) {
+        long t0 = System.nanoTime();
+        ReactiveJwtDecoder decoder = build.get();
+        long t1 = System.nanoTime();
+        sink += decoder.decode(tokens.get(0)).block().getTokenValue().length();
+        long t2 = System.nanoTime();
+        sink += decoder.decode(tokens.get(1)).block().getTokenValue().length();
+        long t3 = System.nanoTime();
+        samples[0][trial] = t1 - t0;
+        samples[1][trial] = t2 - t1;
+        samples[2][trial] = t3 - t2;
+    }
+
+    private static String startupRow(String name, long[][] samples) {
+        return "%-14s %12.1f %14.1f %14.1f".formatted(name,
+                median(samples[0]) / 1e3, median(samples[1]) / 1e3, median(samples[2]) / 1e3);
+    }
+
+    private static long median(long[] samples) {
+        long[] sorted = samples.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    private void rs256() {
+        JwtEncoder encoder = new NimbusJwtEncoder(keys.getSigningJwkSourceDynamic());
+        List<String> tokens = tokens(encoder, JwsHeader.with(SignatureAlgorithm.RS256)
+                .keyId(keys.getCurrentKid()).build());
+        row("RS256", "cold", decoder(0), tokens);
+        row("RS256", "warm", decoder(10_000), tokens);
+    }
+
+    private void hs256() {
+        JwtEncoder encoder = new NimbusJwtEncoder(new ImmutableSecret<>(new SecretKeySpec(SECRET, "HmacSHA256")));
+        List<String> tokens = tokens(encoder, JwsHeader.with(MacAlgorithm.HS256).build());
+        row("HS256", "cold", decoder(0), tokens);
+        row("HS256", "warm", decoder(10_000), tokens);
+    }
+
+    private void row(String alg, String cache, CompositeJwtDecoder decoder, List<String> tokens) {
+        assertThat(decoder.decode(tokens.get(0)).block()).isNotNull();
+        long best = best(() -> {
+            for (int i = 0; i < OPS; i++) {
+                Jwt jwt = decoder.decode(tokens.get(i % tokens.size())).block();
+                sink += jwt.getTokenValue().length();
+            }
+        });
+        report.add("%-8s %-6s %12.0f %12.2f".formatted(alg, cache, OPS / (best / 1e9), best / 1e3 / OPS));
+    }
+
+    private CompositeJwtDecoder decoder(int cacheSize) {
+        SecurityJwtProperties props = new SecurityJwtProperties();
+        props.setSecret(Base64.getEncoder().encodeToString(SECRET));
+        props.setIssuer("bench");
+        props.setDecodeCacheSize(cacheSize);
+        return new CompositeJwtDecoder(props, new NeverRevoked(), keys, new SimpleMeterRegistry(),
+                WebClient.builder());
+    }
+
+    private static List<String> tokens(JwtEncoder encoder, JwsHeader header) {
+        Instant now = Instant.now();
+        List<String> tokens = new ArrayList<>(TOKENS);
+        for (int i = 0; i < TOKENS; i++) {
+            JwtClaimsSet claims = JwtClaimsSet.builder()
+                    .id("jti-" + i).issuer("bench").subject("user" + i)
+                    .issuedAt(now).expiresAt(now.plusSeconds(3_600))
+                    .claim("roles", List.of("USER"))
+                    .build();
+            tokens.add(encoder.encode(JwtEncoderParameters.from(header, claims)).getTokenValue());
+        }
+        return tokens;
+    }
+
+    private static long best(Runnable round) {
+        for (int i = 0; i < 3; i++) {
+            round.run();   // warm-up
+        }
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            long t0 = System.nanoTime();
+            round.run();
+            best = Math.min(best, System.nanoTime() - t0);
+        }
+        return best;
+    }
+
+    private static final class NeverRevoked implements TokenRevocationService {
+
+        @Override
+        public Mono<Void> revoke(Jwt token) {
+            return Mono.empty();
+        }
+
+        @Override
+        public Mono<Void> revokeAllForUser(long userId) {
+            return Mono.empty();
+        }
+
+        @Override
+        public Mono<Boolean> isRevoked(Jwt token) {
+            return Mono.just(false);
+        }
+    }
+}
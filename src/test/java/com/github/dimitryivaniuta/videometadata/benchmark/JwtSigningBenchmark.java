@@ -0,0 +1,155 @@
+package com.github.dimitryivaniuta.videometadata.benchmark;
+
+import com.github.dimitryivaniuta.videometadata.config.CompositeJwtDecoder;
+import com.github.dimitryivaniuta.videometadata.config.JwkKeyManager;
+import com.github.dimitryivaniuta.videometadata.config.SecurityJwtProperties;
+import com.github.dimitryivaniuta.videometadata.config.SigningKeyProperties;
+import com.github.dimitryivaniuta.videometadata.service.revocation.TokenRevocationService;
+import com.nimbusds.jose.jwk.source.ImmutableSecret;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Token issue and verify throughput, and token size, for RS256, ES256 and
+ * HS256 access tokens with the claims {@code JwtTokenProvider} puts in them.
+ * Verification goes through {@link CompositeJwtDecoder} with its cache off.
+ * Run with {@code gradle benchmark --tests '*JwtSigning*'}; tune with
+ * {@code -Dbenchmark.signOps=}.
+ * <p>
+ * Timings use warm-up rounds and the best of several measured rounds, in
+ * the style of a JMH throughput run without its forked JVMs.
+ */
+@Tag("benchmark")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class JwtSigningBenchmark {
+
+    private static final int OPS = Integer.getInteger("benchmark.signOps", 2_000);
+    private static final int ROUNDS = 5;
+    private static final byte[] SECRET = "0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private final List<String> report = new ArrayList<>();
+
+    /** Consumed by every round so the JIT cannot drop the work. */
+    private long sink;
+
+    @AfterAll
+    void tearDown() throws IOException {
+        String table = String.join(System.lineSeparator(), report);
+        System.out.println(table);
+        Path dir = Path.of(System.getProperty("benchmark.reportDir", "build/reports/benchmark"));
+        Files.createDirectories(dir);
+        Files.writeString(dir.resolve("jwt-signing-benchmark.txt"), table + System.lineSeparator());
+    }
+
+    @Test
+    void issueAndVerify() {
+        report.add("%d tokens per round".formatted(OPS));
+        report.add("%-6s %12s %12s %12s %12s %8s".formatted(
+                "alg", "issued/s", "us/issue", "verified/s", "us/verify", "bytes"));
+        for (SigningKeyProperties.Algorithm alg : SigningKeyProperties.Algorithm.values()) {
+            JwkKeyManager keys = JwkKeyManager.inMemory(alg);
+            row(alg.name(), keys, new NimbusJwtEncoder(keys.getSigningJwkSourceDynamic()), keys.getSigningHeader());
+        }
+        row("HS256", JwkKeyManager.inMemory(),
+                new NimbusJwtEncoder(new ImmutableSecret<>(new SecretKeySpec(SECRET, "HmacSHA256"))),
+                JwsHeader.with(MacAlgorithm.HS256).build());
+    }
+
+    private void row(String alg, JwkKeyManager keys, JwtEncoder encoder, JwsHeader header) {
+        CompositeJwtDecoder decoder = decoder(keys);
+        List<String> tokens = new ArrayList<>(OPS);
+        long issue = best(() -> {
+            tokens.clear();
+            for (int i = 0; i < OPS; i++) {
+                tokens.add(encoder.encode(JwtEncoderParameters.from(header, claims(i))).getTokenValue());
+            }
+        });
+        assertThat(decoder.decode(tokens.getFirst()).block()).isNotNull();
+        long verify = best(() -> {
+            for (String token : tokens) {
+                sink += decoder.decode(token).block().getTokenValue().length();
+            }
+        });
+        report.add("%-6s %12.0f %12.2f %12.0f %12.2f %8d".formatted(alg,
+                OPS / (issue / 1e9), issue / 1e3 / OPS,
+                OPS / (verify / 1e9), verify / 1e3 / OPS,
+                tokens.getFirst().length()));
+    }
+
+    /** Shaped like an access token from {@code JwtTokenProvider}. */
+    private static JwtClaimsSet claims(int i) {
+        Instant now = Instant.now();
+        return JwtClaimsSet.builder()
+                .id("0b6f5a0e-6a2d-4b43-9a55-0c0e4f0f%04d".formatted(i % 10_000))
+                .subject("user" + i).issuer("bench")
+                .audience(List.of("video-metadata-clients"))
+                .issuedAt(now).expiresAt(now.plusSeconds(3_600))
+                .claim("ver", 2).claim("uid", 1_000L + i)
+                .claim("roles", List.of("USER"))
+                .build();
+    }
+
+    private static CompositeJwtDecoder decoder(JwkKeyManager keys) {
+        SecurityJwtProperties props = new SecurityJwtProperties();
+        props.setSecret(Base64.getEncoder().encodeToString(SECRET));
+        props.setIssuer("bench");
+        props.setDecodeCacheSize(0);
+        return new CompositeJwtDecoder(props, new NeverRevoked(), keys, new SimpleMeterRegistry(),
+                WebClient.builder());
+    }
+
+    private static long best(Runnable round) {
+        for (int i = 0; i < 3; i++) {
+            round.run();   // warm-up
+        }
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            long t0 = System.nanoTime();
+            round.run();
+            best = Math.min(best, System.nanoTime() - t0);
+        }
+        return best;
+    }
+
+    private static final class NeverRevoked implements TokenRevocationService {
+
+        @Override
+        public Mono<Void> revoke(Jwt token) {
+            return Mono.empty();
+        }
+
+        @Override
+        public Mono<Void> revokeAllForUser(long userId) {
+            return Mono.empty();
+        }
+
+        @Override
+        public Mono<Boolean> isRevoked(Jwt token) {
+            return Mono.just(false);
+        }
+    }
+}
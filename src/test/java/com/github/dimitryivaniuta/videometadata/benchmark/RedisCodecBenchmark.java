@@ -0,0 +1,168 @@
+package com.github.dimitryivaniuta.videometadata.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.dimitryivaniuta.videometadata.config.RedisConfig.CachedUserRedisSerializer;
+import com.github.dimitryivaniuta.videometadata.model.Role;
+import com.github.dimitryivaniuta.videometadata.model.UserStatus;
+import com.github.dimitryivaniuta.videometadata.service.cache.codec.CachedUserCodec;
+import com.github.dimitryivaniuta.videometadata.service.cache.codec.VersionedRedisSerializer;
+import com.github.dimitryivaniuta.videometadata.web.dto.CachedUser;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.sync.RedisCommands;
+import io.lettuce.core.codec.ByteArrayCodec;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * JSON vs binary encoding of {@link CachedUser}: encode/decode cost and
+ * value size, plus Redis memory when {@code -Dbenchmark.redisUrl=redis://host:6379/15}
+ * is given (keys {@code bench:codec:*} are written and removed again).
+ * Run with {@code gradle benchmark --tests '*RedisCodec*'}; tune with
+ * {@code -Dbenchmark.codecOps=}, {@code .codecKeys}.
+ * <p>
+ * Timings use warm-up rounds and the best of several measured rounds, in
+ * the style of a JMH average-time run without its forked JVMs.
+ */
+@Tag("benchmark")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class RedisCodecBenchmark {
+
+    private static final int OPS     = Integer.getInteger("benchmark.codecOps", 1_000_000);
+    private static final int KEYS    = Integer.getInteger("benchmark.codecKeys", 100_000);
+    private static final int ROUNDS  = 5;
+    private static final String REDIS_URL = System.getProperty("benchmark.redisUrl");
+
+    private final CachedUserRedisSerializer json = new CachedUserRedisSerializer(new ObjectMapper());
+    private final VersionedRedisSerializer<CachedUser> binary =
+            new VersionedRedisSerializer<>(new CachedUserCodec(), json, true);
+    private final List<CachedUser> users = new ArrayList<>();
+    private final List<String> report = new ArrayList<>();
+
+    /** Consumed by every round so the JIT cannot drop the work. */
+    private long sink;
+
+    @BeforeAll
+    void setUp() {
+        Instant base = Instant.parse("2025-06-01T12:00:00.123456Z");
+        for (int i = 0; i < 1_024; i++) {
+            users.add(CachedUser.builder()
+                    .id(100_000L + i).username("user" + i).email("user" + i + "@example.com")
+                    .status(UserStatus.ACTIVE)
+                    .createdAt(base.plusSeconds(i)).updatedAt(base.plusSeconds(i * 60L))
+                    .lastLoginAt(base.plusSeconds(i * 3_600L))
+                    .roles(i % 10 == 0 ? Set.of(Role.USER, Role.ADMIN) : Set.of(Role.USER))
+                    .build());
+        }
+        report.add("%-10s %12s %12s %12s".formatted("codec", "bytes/value", "encode ns", "decode ns"));
+    }
+
+    @AfterAll
+    void tearDown() throws IOException {
+        String table = String.join(System.lineSeparator(), report);
+        System.out.println(table);
+        Path dir = Path.of(System.getProperty("benchmark.reportDir", "build/reports/benchmark"));
+        Files.createDirectories(dir);
+        Files.writeString(dir.resolve("redis-codec-benchmark.txt"), table + System.lineSeparator());
+    }
+
+    @Test
+    void encodeDecodeAndSize() {
+        row("json", json);
+        row("binary", binary);
+    }
+
+    @Test
+    void redisMemory() {
+        if (REDIS_URL == null) {
+            report.add("redis memory: skipped (set -Dbenchmark.redisUrl)");
+            return;
+        }
+        RedisClient client = RedisClient.create(REDIS_URL);
+        try (StatefulRedisConnection<byte[], byte[]> conn = client.connect(ByteArrayCodec.INSTANCE)) {
+            RedisCommands<byte[], byte[]> redis = conn.sync();
+            for (var codec : List.of(new Named("json", json), new Named("binary", binary))) {
+                long before = usedMemory(redis);
+                for (int i = 0; i < KEYS; i++) {
+                    redis.set(key(codec.name(), i), codec.serializer().serialize(users.get(i % users.size())));
+                }
+                long used = usedMemory(redis) - before;
+                for (int i = 0; i < KEYS; i += 1_000) {
+                    byte[][] batch = new byte[Math.min(1_000, KEYS - i)][];
+                    for (int j = 0; j < batch.length; j++) {
+                        batch[j] = key(codec.name(), i + j);
+                    }
+                    redis.del(batch);
+                }
+                report.add("redis memory (%s): %d keys, %.1f MiB, %d bytes/key".formatted(
+                        codec.name(), KEYS, used / 1024.0 / 1024.0, used / KEYS));
+            }
+        } finally {
+            client.shutdown();
+        }
+    }
+
+    private void row(String name, RedisSerializer<CachedUser> serializer) {
+        long bytes = 0;
+        byte[][] encoded = new byte[users.size()][];
+        for (int i = 0; i < users.size(); i++) {
+            encoded[i] = serializer.serialize(users.get(i));
+            bytes += encoded[i].length;
+        }
+        assertThat(serializer.deserialize(encoded[7])).isEqualTo(users.get(7));
+
+        long encode = best(() -> {
+            for (int i = 0; i < OPS; i++) {
+                sink += serializer.serialize(users.get(i & 1_023)).length;
+            }
+        });
+        long decode = best(() -> {
+            for (int i = 0; i < OPS; i++) {
+                sink += serializer.deserialize(encoded[i & 1_023]).id();
+            }
+        });
+        report.add("%-10s %12.1f %12.1f %12.1f".formatted(
+                name, (double) bytes / users.size(), (double) encode / OPS, (double) decode / OPS));
+    }
+
+    private static long best(Runnable round) {
+        for (int i = 0; i < 3; i++) {
+            round.run();   // warm-up
+        }
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            long t0 = System.nanoTime();
+            round.run();
+            best = Math.min(best, System.nanoTime() - t0);
+        }
+        return best;
+    }
+
+    private static long usedMemory(RedisCommands<byte[], byte[]> redis) {
+        Matcher m = Pattern.compile("used_memory:(\\d+)").matcher(redis.info("memory"));
+        return m.find() ? Long.parseLong(m.group(1)) : 0;
+    }
+
+    private static byte[] key(String codec, int i) {
+        return ("bench:codec:" + codec + ":" + i).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private record Named(String name, RedisSerializer<CachedUser> serializer) { }
+}
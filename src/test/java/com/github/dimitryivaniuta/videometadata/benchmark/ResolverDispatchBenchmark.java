@@ -0,0 +1,229 @@
+package com.github.dimitryivaniuta.videometadata.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.dimitryivaniuta.videometadata.graphql.annotations.GraphQLApplication;
+import com.github.dimitryivaniuta.videometadata.graphql.annotations.GraphQLArgument;
+import com.github.dimitryivaniuta.videometadata.graphql.annotations.GraphQLField;
+import com.github.dimitryivaniuta.videometadata.graphql.annotations.GraphQLMutation;
+import com.github.dimitryivaniuta.videometadata.graphql.schema.AnnotationSchemaFactory;
+import com.github.dimitryivaniuta.videometadata.graphql.schema.RequiresRole;
+import com.github.dimitryivaniuta.videometadata.graphql.security.SecurityChecks;
+import graphql.GraphQLContext;
+import graphql.schema.DataFetcher;
+import graphql.schema.DataFetchingEnvironment;
+import graphql.schema.DataFetchingEnvironmentImpl;
+import graphql.schema.FieldCoordinates;
+import graphql.schema.GraphQLCodeRegistry;
+import graphql.schema.GraphQLSchema;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.graphql.execution.GraphQlSource;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Per-call overhead of dispatching a GraphQL field to its resolver method:
+ * the precompiled invokers of {@link AnnotationSchemaFactory} against the
+ * former reflective path (bean lookup, {@code Method.invoke}, annotation
+ * reads and role normalization on every call), both behind Spring's
+ * data-fetcher decorator as in the running service. Resolvers do no work of
+ * their own. Run with {@code gradle benchmark --tests '*ResolverDispatch*'};
+ * tune with {@code -Dbenchmark.dispatchOps=}.
+ * <p>
+ * Timings use warm-up rounds and the best of several measured rounds, in
+ * the style of a JMH throughput run without its forked JVMs.
+ */
+@Tag("benchmark")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ResolverDispatchBenchmark {
+
+    private static final int OPS    = Integer.getInteger("benchmark.dispatchOps", 200_000);
+    private static final int ROUNDS = 5;
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    public record Filter(String provider, int minViews) { }
+
+    @GraphQLApplication
+    public static class Resolvers {
+
+        @GraphQLField("title")
+        public Mono<String> title(@GraphQLArgument("id") Long id) {
+            return Mono.just("video");
+        }
+
+        @GraphQLField("count")
+        @RequiresRole({"USER", "ADMIN"})
+        public Mono<Integer> count(@GraphQLArgument("filter") Filter filter,
+                                   @GraphQLArgument("page") Integer page) {
+            return Mono.just(filter.minViews() + page);
+        }
+
+        @GraphQLMutation("touch")
+        public Mono<Boolean> touch() {
+            return Mono.just(true);
+        }
+    }
+
+    @Configuration
+    static class Beans {
+        @Bean
+        Resolvers resolvers() {
+            return new Resolvers();
+        }
+    }
+
+    private final List<String> report = new ArrayList<>();
+    private AnnotationConfigApplicationContext ctx;
+    private GraphQLSchema precompiled;
+    private GraphQLSchema reflective;
+
+    /** Consumed by every round so the JIT cannot drop the work. */
+    private long sink;
+
+    @BeforeAll
+    void setUp() {
+        ctx = new AnnotationConfigApplicationContext(Beans.class, AnnotationSchemaFactory.class);
+        precompiled = ctx.getBean(GraphQlSource.class).schema();
+        GraphQLCodeRegistry code = precompiled.getCodeRegistry().transform(c -> {
+            for (Method m : Resolvers.class.getMethods()) {
+                GraphQLField f = m.getAnnotation(GraphQLField.class);
+                if (f != null) {
+                    c.dataFetcher(FieldCoordinates.coordinates("Query", f.value()), reflectiveFetcher(ctx, "resolvers", m));
+                }
+            }
+        });
+        reflective = GraphQlSource.builder(precompiled.transform(b -> b.codeRegistry(code))).build().schema();
+    }
+
+    @AfterAll
+    void tearDown() throws IOException {
+        ctx.close();
+        String table = String.join(System.lineSeparator(), report);
+        System.out.println(table);
+        Path dir = Path.of(System.getProperty("benchmark.reportDir", "build/reports/benchmark"));
+        Files.createDirectories(dir);
+        Files.writeString(dir.resolve("resolver-dispatch-benchmark.txt"), table + System.lineSeparator());
+    }
+
+    @Test
+    void dispatch() {
+        report.add("%d resolver calls per round".formatted(OPS));
+        report.add("%-26s %-12s %12s %10s".formatted("field", "dispatch", "calls/s", "ns/call"));
+
+        DataFetchingEnvironment plain = env(Map.of("id", 42L), false);
+        DataFetchingEnvironment guarded = env(Map.of("filter", Map.of("provider", "YOUTUBE", "minViews", 10),
+                "page", 2), true);
+        for (String dispatch : List.of("reflective", "precompiled")) {
+            GraphQLSchema schema = dispatch.equals("reflective") ? reflective : precompiled;
+            row("title(id)", dispatch, fetcher(schema, "title"), plain, "video");
+            row("count(filter,page) + role", dispatch, fetcher(schema, "count"), guarded, 12);
+        }
+    }
+
+    private void row(String field, String dispatch, DataFetcher<?> fetcher, DataFetchingEnvironment env,
+                     Object expected) {
+        assertThat(call(fetcher, env)).isEqualTo(expected);
+        long best = best(() -> {
+            for (int i = 0; i < OPS; i++) {
+                sink += call(fetcher, env).hashCode();
+            }
+        });
+        report.add("%-26s %-12s %12.0f %10.0f".formatted(field, dispatch, OPS / (best / 1e9), (double) best / OPS));
+    }
+
+    private static Object call(DataFetcher<?> fetcher, DataFetchingEnvironment env) {
+        try {
+            return ((CompletableFuture<?>) fetcher.get(env)).join();
+        } catch (Exception ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static DataFetcher<?> fetcher(GraphQLSchema schema, String field) {
+        return schema.getCodeRegistry().getDataFetcher(
+                FieldCoordinates.coordinates("Query", field), schema.getQueryType().getFieldDefinition(field));
+    }
+
+    private static DataFetchingEnvironment env(Map<String, Object> args, boolean authenticated) {
+        GraphQLContext context = GraphQLContext.newContext().build();
+        if (authenticated) {
+            TestingAuthenticationToken auth = new TestingAuthenticationToken("bench", "n/a", "ROLE_USER");
+            auth.setAuthenticated(true);
+            context.put(SecurityContext.class, Mono.just(new SecurityContextImpl(auth)));
+        }
+        return DataFetchingEnvironmentImpl.newDataFetchingEnvironment()
+                .arguments(args).graphQLContext(context).build();
+    }
+
+    private static long best(Runnable round) {
+        for (int i = 0; i < 3; i++) {
+            round.run();   // warm-up
+        }
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            long t0 = System.nanoTime();
+            round.run();
+            best = Math.min(best, System.nanoTime() - t0);
+        }
+        return best;
+    }
+
+    /* ─ the dispatch AnnotationSchemaFactory used before resolvers were precompiled ─ */
+
+    private static DataFetcher<?> reflectiveFetcher(ApplicationContext ctx, String beanName, Method m) {
+        RequiresRole rr = m.getAnnotation(RequiresRole.class);
+        return env -> {
+            Mono<Void> guard = rr == null ? Mono.empty() : SecurityChecks.requireAnyRole(rr.value());
+            return guard.then(Mono.defer(() -> {
+                try {
+                    Object res = m.invoke(ctx.getBean(beanName), reflectiveArgs(m, env));
+                    @SuppressWarnings("unchecked")
+                    Mono<Object> mono = (Mono<Object>) res;
+                    return mono;
+                } catch (Exception ex) {
+                    return Mono.error(ex);
+                }
+            }));
+        };
+    }
+
+    private static Object[] reflectiveArgs(Method m, DataFetchingEnvironment env) {
+        Parameter[] ps = m.getParameters();
+        Object[] args = new Object[ps.length];
+        for (int i = 0; i < ps.length; i++) {
+            GraphQLArgument a = ps[i].getAnnotation(GraphQLArgument.class);
+            if (a != null) {
+                Object raw = env.getArgument(a.value());
+                args[i] = raw != null && !ps[i].getType().isInstance(raw) ? JSON.convertValue(raw, ps[i].getType()) : raw;
+                if (ps[i].isAnnotationPresent(jakarta.validation.constraints.NotBlank.class)
+                        && (args[i] == null || args[i].toString().isBlank())) {
+                    throw new IllegalArgumentException(a.value());
+                }
+            } else if (ps[i].getType().isAssignableFrom(DataFetchingEnvironment.class)) {
+                args[i] = env;
+            }
+        }
+        return args;
+    }
+}
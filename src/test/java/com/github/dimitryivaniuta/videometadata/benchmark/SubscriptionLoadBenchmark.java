@@ -0,0 +1,266 @@
+package com.github.dimitryivaniuta.videometadata.benchmark;
+
+import com.github.dimitryivaniuta.videometadata.config.SubscriptionProperties;
+import com.github.dimitryivaniuta.videometadata.domain.event.VideoImportedEvent;
+import com.github.dimitryivaniuta.videometadata.graphql.annotations.GraphQLApplication;
+import com.github.dimitryivaniuta.videometadata.graphql.annotations.GraphQLMutation;
+import com.github.dimitryivaniuta.videometadata.graphql.schema.AnnotationSchemaFactory;
+import com.github.dimitryivaniuta.videometadata.graphql.security.WebSocketAuthInterceptor;
+import com.github.dimitryivaniuta.videometadata.model.VideoProvider;
+import com.github.dimitryivaniuta.videometadata.service.events.VideoImportFeed;
+import com.github.dimitryivaniuta.videometadata.service.revocation.TokenRevocationService;
+import com.github.dimitryivaniuta.videometadata.web.graphql.SubscriptionOperations;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.graphql.client.WebSocketGraphQlClient;
+import org.springframework.graphql.client.WebSocketGraphQlClientInterceptor;
+import org.springframework.graphql.execution.DefaultExecutionGraphQlService;
+import org.springframework.graphql.execution.GraphQlSource;
+import org.springframework.graphql.server.WebGraphQlHandler;
+import org.springframework.graphql.server.webflux.GraphQlWebSocketHandler;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+import org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter;
+import org.springframework.security.oauth2.server.resource.authentication.ReactiveJwtAuthenticationConverterAdapter;
+import org.springframework.web.reactive.DispatcherHandler;
+import org.springframework.web.reactive.handler.SimpleUrlHandlerMapping;
+import org.springframework.web.reactive.socket.client.ReactorNettyWebSocketClient;
+import org.springframework.web.reactive.socket.server.support.WebSocketHandlerAdapter;
+import org.springframework.web.server.adapter.WebHttpHandlerBuilder;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Fan-out of {@code videoImported} to many concurrent WebSocket subscribers.
+ * The server runs the real schema engine, security interceptor and feed on
+ * Reactor Netty; every subscriber is its own {@link WebSocketGraphQlClient}
+ * connection. Run with {@code gradle benchmark --tests '*SubscriptionLoad*'};
+ * tune with {@code -Dbenchmark.subscribers=}, {@code .events}, {@code .intervalMs}.
+ * <p>
+ * Each subscriber holds two sockets in this JVM (client and server side), so
+ * the open-file limit must exceed twice the subscriber count.
+ */
+@Tag("benchmark")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class SubscriptionLoadBenchmark {
+
+    private static final int SUBSCRIBERS = Integer.getInteger("benchmark.subscribers", 10_000);
+    private static final int EVENTS      = Integer.getInteger("benchmark.events", 20);
+    private static final Duration INTERVAL = Duration.ofMillis(Long.getLong("benchmark.intervalMs", 100));
+
+    private static final String DOCUMENT = """
+            subscription { videoImported { id title videoProvider } }""";
+
+    private AnnotationConfigApplicationContext ctx;
+    private DisposableServer server;
+    private final List<Disposable> subscriptions = new CopyOnWriteArrayList<>();
+    private final List<String> report = new ArrayList<>();
+
+    @BeforeAll
+    void setUp() {
+        ctx = new AnnotationConfigApplicationContext(Server.class, AnnotationSchemaFactory.class);
+        server = HttpServer.create().host("127.0.0.1").port(0)
+                .handle(new ReactorHttpHandlerAdapter(WebHttpHandlerBuilder.applicationContext(ctx).build()))
+                .bindNow();
+        report.add("%-24s %10s %12s %10s %10s %10s %10s".formatted(
+                "scenario", "clients", "connect s", "emit ms", "p50 ms", "p99 ms", "delivered"));
+    }
+
+    @AfterAll
+    void tearDown() throws IOException {
+        subscriptions.forEach(Disposable::dispose);
+        if (server != null) {
+            server.disposeNow();
+        }
+        if (ctx != null) {
+            ctx.close();
+        }
+        String table = String.join(System.lineSeparator(), report);
+        System.out.println(table);
+        Path dir = Path.of(System.getProperty("benchmark.reportDir", "build/reports/benchmark"));
+        Files.createDirectories(dir);
+        Files.writeString(dir.resolve("subscription-benchmark.txt"), table + System.lineSeparator());
+    }
+
+    @Test
+    void fanOutToConcurrentSubscribers() throws InterruptedException {
+        VideoImportFeed feed = ctx.getBean(VideoImportFeed.class);
+        MeterRegistry registry = ctx.getBean(MeterRegistry.class);
+        URI url = URI.create("ws://127.0.0.1:" + server.port() + "/graphql/ws");
+        ReactorNettyWebSocketClient socket = new ReactorNettyWebSocketClient(
+                HttpClient.create(ConnectionProvider.newConnection()));   // sessions hold their connection
+        WebSocketGraphQlClientInterceptor token = new WebSocketGraphQlClientInterceptor() {
+            @Override
+            public Mono<Object> connectionInitPayload() {
+                return Mono.just(Map.of("Authorization", "Bearer bench"));
+            }
+        };
+
+        AtomicLongArray emittedAt = new AtomicLongArray(EVENTS);
+        long[] latencies = new long[SUBSCRIBERS * EVENTS];
+        AtomicInteger delivered = new AtomicInteger();
+        CountDownLatch all = new CountDownLatch(SUBSCRIBERS * EVENTS);
+
+        long connectStart = System.nanoTime();
+        Flux.range(0, SUBSCRIBERS)
+                .flatMap(n -> {
+                    WebSocketGraphQlClient client = WebSocketGraphQlClient.builder(url, socket)
+                            .interceptor(token).build();
+                    return client.start().doOnSuccess(v -> subscriptions.add(client
+                            .document(DOCUMENT)
+                            .retrieveSubscription("videoImported.id")
+                            .toEntity(Integer.class)
+                            .subscribe(id -> {
+                                latencies[delivered.getAndIncrement()] = System.nanoTime() - emittedAt.get(id);
+                                all.countDown();
+                            })));
+                }, 256)
+                .blockLast(Duration.ofMinutes(5));
+        awaitSubscribers(registry);
+        long connectNanos = System.nanoTime() - connectStart;
+
+        long emitNanos = 0;
+        for (int i = 0; i < EVENTS; i++) {
+            emittedAt.set(i, System.nanoTime());
+            feed.consume(List.of(event(i))).block();
+            emitNanos += System.nanoTime() - emittedAt.get(i);
+            Thread.sleep(INTERVAL.toMillis());
+        }
+        boolean complete = all.await(2, TimeUnit.MINUTES);
+
+        long[] sorted = Arrays.copyOf(latencies, delivered.get());
+        Arrays.sort(sorted);
+        report.add("%-24s %10d %12.2f %10.3f %10.1f %10.1f %10d".formatted(
+                "videoImported fan-out", SUBSCRIBERS, connectNanos / 1e9, emitNanos / 1e6 / EVENTS,
+                percentile(sorted, 0.50) / 1e6, percentile(sorted, 0.99) / 1e6, sorted.length));
+        assertThat(complete).as("every subscriber received every event").isTrue();
+    }
+
+    private static void awaitSubscribers(MeterRegistry registry) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(2);
+        while (registry.get("graphql.subscriptions.active").gauge().value() < SUBSCRIBERS
+                && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+    }
+
+    private static VideoImportedEvent event(int id) {
+        return VideoImportedEvent.builder()
+                .id((long) id).title("bench-" + id).provider(VideoProvider.YOUTUBE)
+                .createdAt(Instant.now()).build();
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        return sorted.length == 0 ? 0
+                : sorted[Math.clamp((long) Math.ceil(p * sorted.length) - 1, 0, sorted.length - 1)];
+    }
+
+    @Configuration
+    static class Server {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        SubscriptionProperties subscriptionProperties() {
+            return new SubscriptionProperties();
+        }
+
+        @Bean
+        VideoImportFeed videoImportFeed(SubscriptionProperties props, MeterRegistry registry) {
+            return new VideoImportFeed(props, registry);
+        }
+
+        @Bean
+        SubscriptionOperations subscriptionOperations(VideoImportFeed feed) {
+            return new SubscriptionOperations(feed);
+        }
+
+        @Bean
+        NoopOperations noopOperations() {
+            return new NoopOperations();
+        }
+
+        @Bean
+        WebSocketAuthInterceptor webSocketAuthInterceptor() {
+            ReactiveJwtDecoder decoder = token -> Mono.just(Jwt.withTokenValue(token)
+                    .header("alg", "none").subject("bench").claim("roles", List.of("USER")).build());
+            JwtGrantedAuthoritiesConverter authorities = new JwtGrantedAuthoritiesConverter();
+            authorities.setAuthoritiesClaimName("roles");
+            authorities.setAuthorityPrefix("ROLE_");
+            JwtAuthenticationConverter converter = new JwtAuthenticationConverter();
+            converter.setJwtGrantedAuthoritiesConverter(authorities);
+            TokenRevocationService revocations = mock(TokenRevocationService.class);
+            when(revocations.isRevoked(any())).thenReturn(Mono.just(false));
+            return new WebSocketAuthInterceptor(decoder, new ReactiveJwtAuthenticationConverterAdapter(converter),
+                    revocations);
+        }
+
+        @Bean
+        SimpleUrlHandlerMapping graphQlWebSocketMapping(GraphQlSource source, WebSocketAuthInterceptor auth) {
+            WebGraphQlHandler handler = WebGraphQlHandler.builder(new DefaultExecutionGraphQlService(source))
+                    .interceptor(auth).build();
+            return new SimpleUrlHandlerMapping(Map.of("/graphql/ws",
+                    new GraphQlWebSocketHandler(handler, ServerCodecConfigurer.create(), Duration.ofSeconds(60))), 1);
+        }
+
+        @Bean
+        WebSocketHandlerAdapter webSocketHandlerAdapter() {
+            return new WebSocketHandlerAdapter();
+        }
+
+        @Bean
+        DispatcherHandler webHandler() {
+            return new DispatcherHandler();
+        }
+    }
+
+    /** The schema engine requires a non-empty Mutation type. */
+    @GraphQLApplication
+    public static class NoopOperations {
+
+        @GraphQLMutation("noop")
+        public Mono<Boolean> noop() {
+            return Mono.just(true);
+        }
+    }
+}
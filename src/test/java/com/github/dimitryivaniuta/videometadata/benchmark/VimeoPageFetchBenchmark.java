@@ -0,0 +1,101 @@
+package com.github.dimitryivaniuta.videometadata.benchmark;
+
+import com.github.dimitryivaniuta.videometadata.config.VideoProvidersProperties;
+import com.github.dimitryivaniuta.videometadata.service.videoprovider.VimeoAdapter;
+import com.github.dimitryivaniuta.videometadata.support.ProviderStandIn;
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RateLimiterConfig;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Wall-clock time of a multi-page Vimeo publisher import, pages fetched one
+ * at a time against pages prefetched in parallel, on the embedded provider
+ * stand-in. Run with {@code gradle benchmark --tests '*VimeoPageFetch*'};
+ * tune with {@code -Dbenchmark.latencyMs=}, {@code .pages},
+ * {@code .pageConcurrency}.
+ */
+@Tag("benchmark")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class VimeoPageFetchBenchmark {
+
+    private static final Duration LATENCY = Duration.ofMillis(Long.getLong("benchmark.latencyMs", 40));
+    private static final int PAGES        = Integer.getInteger("benchmark.pages", 60);
+    private static final int CONCURRENCY  = Integer.getInteger("benchmark.pageConcurrency", 8);
+    private static final int PER_PAGE     = 50;
+    private static final int ROUNDS       = 3;
+
+    private final List<String> report = new ArrayList<>();
+    private ProviderStandIn standIn;
+
+    @BeforeAll
+    void setUp() {
+        standIn = ProviderStandIn.builder()
+                .latency(LATENCY)
+                .channel("bench", PAGES * PER_PAGE)
+                .start();
+        report.add("%d pages of %d, provider latency %d ms".formatted(PAGES, PER_PAGE, LATENCY.toMillis()));
+        report.add("%-16s %10s %14s".formatted("pages in flight", "ms", "max in flight"));
+    }
+
+    @AfterAll
+    void tearDown() throws IOException {
+        standIn.close();
+        String table = String.join(System.lineSeparator(), report);
+        System.out.println(table);
+        Path dir = Path.of(System.getProperty("benchmark.reportDir", "build/reports/benchmark"));
+        Files.createDirectories(dir);
+        Files.writeString(dir.resolve("vimeo-page-fetch-benchmark.txt"), table + System.lineSeparator());
+    }
+
+    @Test
+    void serialAgainstParallelPages() {
+        importAll(CONCURRENCY);   // warm-up: Netty, codecs, JIT
+
+        Duration serial = row(1);
+        Duration parallel = row(CONCURRENCY);
+
+        assertThat(serial).isGreaterThanOrEqualTo(LATENCY.multipliedBy(PAGES));
+        assertThat(parallel).isLessThan(serial);
+    }
+
+    private Duration row(int concurrency) {
+        Duration best = null;
+        for (int i = 0; i < ROUNDS; i++) {
+            standIn.resetCounters();
+            Duration elapsed = importAll(concurrency);
+            best = best == null || elapsed.compareTo(best) < 0 ? elapsed : best;
+        }
+        report.add("%-16d %10d %14d".formatted(concurrency, best.toMillis(), standIn.maxInFlight()));
+        return best;
+    }
+
+    private Duration importAll(int concurrency) {
+        VideoProvidersProperties.Provider cfg = standIn.vimeoConfig();
+        cfg.setPageSize(PER_PAGE);
+        cfg.setPageConcurrency(concurrency);
+        VimeoAdapter adapter = new VimeoAdapter(cfg, RateLimiter.of("unlimited", RateLimiterConfig.custom()
+                .limitForPeriod(Integer.MAX_VALUE)
+                .limitRefreshPeriod(Duration.ofSeconds(1))
+                .build()));
+
+        long start = System.nanoTime();
+        Long videos = adapter.fetchByPublisher("bench").count().block(Duration.ofMinutes(1));
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        assertThat(videos).isEqualTo((long) PAGES * PER_PAGE);
+        return elapsed;
+    }
+}
@@ -0,0 +1,275 @@
+package com.github.dimitryivaniuta.videometadata.config;
+
+import com.github.dimitryivaniuta.videometadata.repository.InMemorySigningKeyRepository;
+import com.github.dimitryivaniuta.videometadata.service.revocation.TokenRevocationService;
+import com.nimbusds.jose.jwk.source.ImmutableSecret;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jose.jws.SignatureAlgorithm;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CompositeJwtDecoderTest {
+
+    private static final byte[] SECRET = "0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final TokenRevocationService revocations = mock(TokenRevocationService.class);
+    private final JwkKeyManager keys = JwkKeyManager.inMemory();
+
+    @Test
+    void sniffsTheAlgorithmFromTheEncodedHeader() {
+        assertThat(CompositeJwtDecoder.sniffAlg(header("{\"kid\":\"k1\",\"alg\":\"RS256\"}") + ".e30.sig"))
+                .isSameAs(CompositeJwtDecoder.RS256);
+        assertThat(CompositeJwtDecoder.sniffAlg(header("{ \"alg\" : \"HS256\", \"typ\":\"JWT\" }")))
+                .isSameAs(CompositeJwtDecoder.HS256);
+        assertThat(CompositeJwtDecoder.sniffAlg(header("{\"alg\":\"ES256\"}")))
+                .isSameAs(CompositeJwtDecoder.ES256);
+        // "alg" as a value is not the key
+        assertThat(CompositeJwtDecoder.sniffAlg(header("{\"kid\":\"alg\",\"alg\":\"HS256\"}")))
+                .isSameAs(CompositeJwtDecoder.HS256);
+        assertThat(CompositeJwtDecoder.sniffAlg(header("{\"alg\":\"none\"}"))).isNull();
+        assertThat(CompositeJwtDecoder.sniffAlg(header("{\"alg\":\"RS256XXXXX\"}"))).isNull();
+        assertThat(CompositeJwtDecoder.sniffAlg(header("{\"typ\":\"JWT\"}"))).isNull();
+        assertThat(CompositeJwtDecoder.sniffAlg("not a jwt")).isNull();
+        assertThat(CompositeJwtDecoder.sniffAlg(null)).isNull();
+    }
+
+    @Test
+    void repeatedTokensAreServedFromTheCacheUntilTheKeySetChanges() {
+        when(revocations.isRevoked(any())).thenReturn(Mono.just(false));
+        CompositeJwtDecoder decoder = decoder();
+        String token = token("alice");
+
+        Jwt first = decoder.decode(token).block();
+        Jwt second = decoder.decode(token).block();
+        assertThat(second).isSameAs(first);
+        assertThat(gets("hit")).isEqualTo(1);
+        assertThat(gets("miss")).isEqualTo(1);
+
+        keys.rotateNow().block();
+        assertThat(decoder.decode(token).block()).isNotSameAs(first);
+        assertThat(gets("miss")).isEqualTo(2);
+    }
+
+    @Test
+    void revokedTokensAreRejectedEvenWhenCachedAndThenEvicted() {
+        when(revocations.isRevoked(any())).thenReturn(Mono.just(false));
+        CompositeJwtDecoder decoder = decoder();
+        String token = token("bob");
+        decoder.decode(token).block();
+
+        when(revocations.isRevoked(any())).thenReturn(Mono.just(true));
+        assertThatThrownBy(() -> decoder.decode(token).block()).isInstanceOf(BadJwtException.class);
+        assertThat(gets("hit")).isEqualTo(1);
+        assertThatThrownBy(() -> decoder.decode(token).block()).isInstanceOf(BadJwtException.class);
+        assertThat(gets("miss")).isEqualTo(2);
+    }
+
+    @Test
+    void ownTokensAreVerifiedInProcessAndForeignOnesAgainstTheCachedRemoteJwks() {
+        when(revocations.isRevoked(any())).thenReturn(Mono.just(false));
+        JwkKeyManager other = JwkKeyManager.inMemory();
+        AtomicInteger fetches = new AtomicInteger();
+        DisposableServer jwks = jwks(other, fetches);
+        try {
+            SecurityJwtProperties props = props();
+            props.setJwksUri("http://127.0.0.1:" + jwks.port() + "/jwks.json");
+            props.setJwksIssuer("other");
+            CompositeJwtDecoder decoder = new CompositeJwtDecoder(props, revocations, keys, registry,
+                    WebClient.builder());
+
+            assertThat(decoder.decode(rsToken(keys, "test", "own")).block().getSubject()).isEqualTo("own");
+            assertThat(fetches).hasValue(0);
+
+            assertThat(decoder.decode(rsToken(other, "other", "a")).block().getSubject()).isEqualTo("a");
+            assertThat(decoder.decode(rsToken(other, "other", "b")).block().getSubject()).isEqualTo("b");
+            assertThat(fetches).hasValue(1);
+            // the other issuer's keys cannot vouch for our issuer
+            assertThatThrownBy(() -> decoder.decode(rsToken(other, "test", "c")).block())
+                    .isInstanceOf(JwtException.class);
+        } finally {
+            jwks.disposeNow();
+        }
+    }
+
+    @Test
+    void tokensOfBothAlgorithmsVerifyWhileSwitchingToEs256() {
+        when(revocations.isRevoked(any())).thenReturn(Mono.just(false));
+        InMemorySigningKeyRepository store = new InMemorySigningKeyRepository();
+        JwkKeyManager rsa = node(store, SigningKeyProperties.Algorithm.RS256);
+        rsa.maintain().block();
+        String rsToken = rsToken(rsa, "test", "before");
+
+        // a node configured for ES256 joins and switches the cluster over
+        JwkKeyManager ec = node(store, SigningKeyProperties.Algorithm.ES256);
+        ec.rotateNow().block();
+        assertThat(ec.getSigningHeader().getAlgorithm()).isEqualTo(SignatureAlgorithm.ES256);
+        String esToken = rsToken(ec, "test", "after");
+
+        CompositeJwtDecoder decoder = new CompositeJwtDecoder(props(), revocations, ec, registry,
+                WebClient.builder());
+        assertThat(decoder.decode(rsToken).block().getSubject()).isEqualTo("before");
+        assertThat(decoder.decode(esToken).block().getSubject()).isEqualTo("after");
+        assertThat(esToken.length()).isLessThan(rsToken.length());
+    }
+
+    @Test
+    void remoteJwksIsRefreshedAheadOfExpiryAndOnUnknownKeys() {
+        JwkKeyManager other = JwkKeyManager.inMemory();
+        AtomicInteger fetches = new AtomicInteger();
+        DisposableServer jwks = jwks(other, fetches);
+        try {
+            AtomicLong now = new AtomicLong();
+            RemoteJwkSet remote = new RemoteJwkSet(WebClient.create(), "http://127.0.0.1:" + jwks.port() + "/jwks.json",
+                    Duration.ofSeconds(300), Duration.ofSeconds(60), Duration.ofSeconds(30), now::get);
+            String kid = other.getCurrentKid();
+
+            assertThat(remote.keys(kid).collectList().block()).hasSize(1);
+            now.set(Duration.ofSeconds(100).toNanos());
+            assertThat(remote.keys(kid).collectList().block()).hasSize(1);
+            assertThat(fetches).hasValue(1);
+
+            // inside the refresh-ahead window: served from cache, fetched in the background
+            now.set(Duration.ofSeconds(250).toNanos());
+            assertThat(remote.keys(kid).collectList().block()).hasSize(1);
+            await().atMost(Duration.ofSeconds(5)).until(() -> fetches.get() == 2);
+
+            // an unknown kid forces one fetch, then waits out the minimum interval
+            assertThat(remote.keys("unknown").collectList().block()).isEmpty();
+            assertThat(remote.keys("unknown").collectList().block()).isEmpty();
+            assertThat(fetches).hasValue(3);
+        } finally {
+            jwks.disposeNow();
+        }
+    }
+
+    @Test
+    void cacheDropsExpiredTokensAndStaleInserts() {
+        AtomicLong now = new AtomicLong(1_000);
+        AtomicLong version = new AtomicLong();
+        VerifiedTokenCache cache = new VerifiedTokenCache(2, version::get, now::get);
+        Jwt jwt = jwt("a", 2_000);
+
+        cache.put(jwt, cache.version());
+        assertThat(cache.get("a")).isSameAs(jwt);
+        now.set(2_000);
+        assertThat(cache.get("a")).isNull();
+
+        long before = cache.version();
+        version.incrementAndGet();                 // key rotated while a decode was in flight
+        cache.put(jwt("b", 5_000), before);
+        assertThat(cache.get("b")).isNull();
+
+        cache.put(jwt("c", 5_000), cache.version());
+        cache.put(jwt("d", 5_000), cache.version());
+        cache.put(jwt("e", 5_000), cache.version());
+        assertThat(cache.size()).isEqualTo(2);
+    }
+
+    @Test
+    void aFullCacheFreesATenthOfItsSlotsAtOnce() {
+        AtomicLong now = new AtomicLong(1_000);
+        VerifiedTokenCache cache = new VerifiedTokenCache(100, () -> 0, now::get);
+        for (int i = 0; i < 100; i++) {
+            cache.put(jwt("t" + i, 5_000), cache.version());
+        }
+        assertThat(cache.size()).isEqualTo(100);
+
+        cache.put(jwt("t100", 5_000), cache.version());
+        assertThat(cache.size()).isEqualTo(91);
+        assertThat(cache.get("t100")).isNotNull();
+
+        for (int i = 101; i < 110; i++) {          // the next nine inserts find room without a sweep
+            cache.put(jwt("t" + i, 5_000), cache.version());
+        }
+        assertThat(cache.size()).isEqualTo(100);
+    }
+
+    private double gets(String result) {
+        return registry.counter("cache.gets", "cache", "jwt", "result", result).count();
+    }
+
+    private CompositeJwtDecoder decoder() {
+        return new CompositeJwtDecoder(props(), revocations, keys, registry, WebClient.builder());
+    }
+
+    private static SecurityJwtProperties props() {
+        SecurityJwtProperties props = new SecurityJwtProperties();
+        props.setSecret(Base64.getEncoder().encodeToString(SECRET));
+        props.setIssuer("test");
+        props.setDecodeCacheSize(100);
+        return props;
+    }
+
+    private static DisposableServer jwks(JwkKeyManager keys, AtomicInteger fetches) {
+        String body = keys.getPublicJwkSet().toString();
+        return HttpServer.create().host("127.0.0.1").port(0)
+                .route(routes -> routes.get("/jwks.json", (req, res) -> {
+                    fetches.incrementAndGet();
+                    return res.sendString(Mono.just(body));
+                }))
+                .bindNow();
+    }
+
+    private static JwkKeyManager node(InMemorySigningKeyRepository store, SigningKeyProperties.Algorithm algorithm) {
+        SecurityJwtProperties jwt = new SecurityJwtProperties();
+        jwt.setExpirationSeconds(300);
+        SigningKeyProperties props = new SigningKeyProperties();
+        props.setAlgorithm(algorithm);
+        return new JwkKeyManager(store, jwt, props, Clock.systemUTC());
+    }
+
+    /** Signed with the manager's current key, RS256 or ES256. */
+    private static String rsToken(JwkKeyManager keys, String issuer, String subject) {
+        Instant now = Instant.now();
+        JwtClaimsSet claims = JwtClaimsSet.builder()
+                .issuer(issuer).subject(subject).issuedAt(now).expiresAt(now.plusSeconds(300)).build();
+        return new NimbusJwtEncoder(keys.getSigningJwkSourceDynamic())
+                .encode(JwtEncoderParameters.from(keys.getSigningHeader(), claims)).getTokenValue();
+    }
+
+    private static String token(String subject) {
+        NimbusJwtEncoder encoder = new NimbusJwtEncoder(new ImmutableSecret<>(new SecretKeySpec(SECRET, "HmacSHA256")));
+        Instant now = Instant.now();
+        JwtClaimsSet claims = JwtClaimsSet.builder()
+                .issuer("test").subject(subject).issuedAt(now).expiresAt(now.plusSeconds(300)).build();
+        return encoder.encode(JwtEncoderParameters.from(JwsHeader.with(MacAlgorithm.HS256).build(), claims))
+                .getTokenValue();
+    }
+
+    private static Jwt jwt(String value, long expiresAtMillis) {
+        return Jwt.withTokenValue(value).header("alg", "HS256").subject("s")
+                .issuedAt(Instant.ofEpochMilli(0)).expiresAt(Instant.ofEpochMilli(expiresAtMillis)).build();
+    }
+
+    private static String header(String json) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,105 @@
+package com.github.dimitryivaniuta.videometadata.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.UserDetailsRepositoryReactiveAuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.MapReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PasswordHashingTest {
+
+    private static final String PASSWORD = "correct horse battery staple";
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private PasswordHashingExecutor hashing;
+
+    @AfterEach
+    void stop() {
+        hashing.stop();
+    }
+
+    @Test
+    void fullQueueIsRejectedAtOnceWith503() throws Exception {
+        PasswordHashingProperties props = new PasswordHashingProperties();
+        props.setThreads(1);
+        props.setQueueCapacity(1);
+        hashing = new PasswordHashingExecutor(props, registry);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+
+        Mono<Boolean> running = hashing.hash(() -> {
+            started.countDown();
+            return release.await(10, TimeUnit.SECONDS);
+        }).cache();
+        running.subscribe();
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        Mono<Boolean> queued = hashing.hash(() -> true).cache();
+        queued.subscribe();
+
+        long t0 = System.nanoTime();
+        assertThatThrownBy(() -> hashing.hash(() -> true).block(Duration.ofSeconds(5)))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        ex -> assertThat(ex.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE));
+        assertThat(Duration.ofNanos(System.nanoTime() - t0)).isLessThan(Duration.ofSeconds(1));
+        assertThat(registry.counter("password.hash.rejected").count()).isEqualTo(1);
+
+        release.countDown();
+        assertThat(running.block(Duration.ofSeconds(5))).isTrue();
+        assertThat(queued.block(Duration.ofSeconds(5))).isTrue();
+        assertThat(registry.timer("password.hash.queue.wait").count()).isEqualTo(2);
+    }
+
+    @Test
+    void loginReHashesWhenTheCostChangedWithoutLoggingThePassword() {
+        hashing = new PasswordHashingExecutor(new PasswordHashingProperties(), registry);
+        String oldHash = new BCryptPasswordEncoder(4).encode(PASSWORD);
+        MapReactiveUserDetailsService users = new MapReactiveUserDetailsService(
+                User.withUsername("alice").password(oldHash).roles("USER").build());
+        LoggingPasswordEncoder encoder = new LoggingPasswordEncoder(5, registry);
+        UserDetailsRepositoryReactiveAuthenticationManager manager =
+                new UserDetailsRepositoryReactiveAuthenticationManager(users);
+        manager.setPasswordEncoder(encoder);
+        manager.setScheduler(hashing.scheduler());
+        manager.setUserDetailsPasswordService(users);
+
+        Logger logger = (Logger) LoggerFactory.getLogger(LoggingPasswordEncoder.class);
+        ListAppender<ILoggingEvent> appender = new ListAppender<>();
+        appender.start();
+        logger.addAppender(appender);
+        logger.setLevel(Level.DEBUG);
+        try {
+            manager.authenticate(new UsernamePasswordAuthenticationToken("alice", PASSWORD)).block();
+        } finally {
+            logger.detachAppender(appender);
+        }
+
+        assertThat(registry.timer("password.hash.time", "op", "matches").count()).isEqualTo(1);
+        assertThat(registry.timer("password.hash.time", "op", "encode").count()).isEqualTo(1);
+        String newHash = users.findByUsername("alice").block().getPassword();
+        assertThat(LoggingPasswordEncoder.cost(newHash)).isEqualTo(5);
+        assertThat(encoder.matches(PASSWORD, newHash)).isTrue();
+        assertThat(encoder.upgradeEncoding(newHash)).isFalse();
+        assertThat(encoder.upgradeEncoding(new BCryptPasswordEncoder(6).encode("x"))).isTrue();
+
+        assertThat(appender.list).isNotEmpty().allSatisfy(event -> assertThat(event.getFormattedMessage())
+                .doesNotContain(PASSWORD).doesNotContain(oldHash).doesNotContain(newHash));
+    }
+}
@@ -0,0 +1,177 @@
+package com.github.dimitryivaniuta.videometadata.graphql.execution;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.dimitryivaniuta.videometadata.config.PersistedQueryProperties;
+import graphql.ExecutionInput;
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import graphql.GraphQLError;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PersistedDocumentProviderTest {
+
+    private static final String HELLO = "{ hello }";
+    private static final String TWICE = "{ a: hello b: hello }";
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final PersistedQueryProperties props = new PersistedQueryProperties();
+
+    @TempDir
+    Path dir;
+
+    private GraphQL graphQl;
+    private PersistedDocumentProvider documents;
+
+    @BeforeEach
+    void setUp() {
+        props.setManifest("file:" + dir.resolve("missing.json"));
+    }
+
+    @Test
+    void anUnknownHashIsRegisteredByTheFollowingRequestWithItsQuery() {
+        start();
+        String hash = PersistedDocumentProvider.sha256(HELLO);
+
+        assertThat(errorCodes(execute(null, hash))).containsExactly("PERSISTED_QUERY_NOT_FOUND");
+        assertThat(execute(HELLO, hash).getErrors()).isEmpty();
+        ExecutionResult byHash = execute(null, hash);
+
+        assertThat(byHash.getErrors()).isEmpty();
+        assertThat(byHash.<Map<String, Object>>getData()).containsEntry("hello", "world");
+        assertThat(count("not_found")).isEqualTo(1);
+        assertThat(count("miss")).isEqualTo(1);
+        assertThat(count("hit")).isEqualTo(1);
+        assertThat(registry.get("graphql.documents.saved").counter().count()).isPositive();
+        assertThat(registry.get("graphql.documents.compile").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void plainQueriesAreCachedByTheHashOfTheirText() {
+        start();
+        execute(HELLO, null);
+        execute(HELLO, null);
+        execute("{hello}", null);   // different text, different document
+
+        assertThat(count("miss")).isEqualTo(2);
+        assertThat(count("hit")).isEqualTo(1);
+        assertThat(registry.get("graphql.documents.cached").gauge().value()).isEqualTo(2);
+    }
+
+    @Test
+    void aHashThatDoesNotMatchTheQueryIsRefused() {
+        start();
+        assertThat(errorCodes(execute(HELLO, PersistedDocumentProvider.sha256(TWICE))))
+                .containsExactly("PERSISTED_QUERY_ID_INVALID");
+        assertThat(documents.size()).isZero();
+    }
+
+    @Test
+    void invalidDocumentsAreNotCached() {
+        start();
+        assertThat(execute("{ nope }", null).getErrors()).isNotEmpty();
+        assertThat(documents.size()).isZero();
+    }
+
+    @Test
+    void theLeastRecentlyUsedDocumentIsDroppedFirst() {
+        props.setCacheSize(2);
+        start();
+        execute(HELLO, null);
+        execute(TWICE, null);
+        execute(HELLO, null);              // TWICE is now the eldest
+        execute("{ c: hello }", null);
+
+        assertThat(documents.size()).isEqualTo(2);
+        assertThat(errorCodes(execute(null, PersistedDocumentProvider.sha256(TWICE))))
+                .containsExactly("PERSISTED_QUERY_NOT_FOUND");
+        assertThat(execute(null, PersistedDocumentProvider.sha256(HELLO)).getErrors()).isEmpty();
+    }
+
+    @Test
+    void allowlistOnlyExecutesManifestOperationsAndRegistersNothing() throws IOException {
+        manifest(HELLO);
+        props.setAllowlistOnly(true);
+        start();
+
+        ExecutionResult byHash = execute(null, PersistedDocumentProvider.sha256(HELLO));
+        assertThat(byHash.getErrors()).isEmpty();
+        assertThat(execute(HELLO, null).getErrors()).isEmpty();
+        assertThat(errorCodes(execute(TWICE, PersistedDocumentProvider.sha256(TWICE))))
+                .containsExactly("PERSISTED_QUERY_NOT_ALLOWED");
+        assertThat(errorCodes(execute(TWICE, null))).containsExactly("PERSISTED_QUERY_NOT_ALLOWED");
+
+        assertThat(count("rejected")).isEqualTo(2);
+        assertThat(documents.size()).isEqualTo(1);
+    }
+
+    @Test
+    void manifestOperationsAreKnownWithoutRegistration() throws IOException {
+        manifest(TWICE);
+        start();
+        assertThat(execute(null, PersistedDocumentProvider.sha256(TWICE)).getErrors()).isEmpty();
+    }
+
+    @Test
+    void aManifestEntryWhoseIdIsNotTheHashOfItsBodyFailsStartup() throws IOException {
+        Files.writeString(dir.resolve("manifest.json"), """
+                {"format":"apollo-persisted-query-manifest","version":1,
+                 "operations":[{"id":"%s","name":"Hello","type":"query","body":"%s"}]}
+                """.formatted(PersistedDocumentProvider.sha256(TWICE), HELLO));
+        props.setManifest("file:" + dir.resolve("manifest.json"));
+        assertThatThrownBy(this::start)
+                .isInstanceOf(IllegalStateException.class).hasMessageContaining("Hello");
+    }
+
+    private void start() {
+        documents = new PersistedDocumentProvider(props, new DefaultResourceLoader(), new ObjectMapper(), registry);
+        graphQl = GraphQL.newGraphQL(new SchemaGenerator().makeExecutableSchema(
+                        new SchemaParser().parse("type Query { hello: String }"),
+                        RuntimeWiring.newRuntimeWiring()
+                                .type("Query", t -> t.dataFetcher("hello", env -> "world"))
+                                .build()))
+                .preparsedDocumentProvider(documents)
+                .build();
+    }
+
+    private void manifest(String body) throws IOException {
+        Files.writeString(dir.resolve("manifest.json"), """
+                {"format":"apollo-persisted-query-manifest","version":1,
+                 "operations":[{"id":"%s","name":"Op","type":"query","body":"%s"}]}
+                """.formatted(PersistedDocumentProvider.sha256(body), body));
+        props.setManifest("file:" + dir.resolve("manifest.json"));
+    }
+
+    /** As Spring GraphQL hands it over: a hash-only request carries a marker instead of the query. */
+    private ExecutionResult execute(String query, String hash) {
+        ExecutionInput.Builder input = ExecutionInput.newExecutionInput()
+                .query(query != null ? query : "PersistedQueryMarker");
+        if (hash != null) {
+            input.extensions(Map.of("persistedQuery", Map.of("version", 1, "sha256Hash", hash)));
+        }
+        return graphQl.execute(input.build());
+    }
+
+    private static List<Object> errorCodes(ExecutionResult result) {
+        return result.getErrors().stream().map(GraphQLError::getExtensions).map(e -> e.get("code")).toList();
+    }
+
+    private double count(String result) {
+        return registry.get("graphql.documents").tag("result", result).counter().count();
+    }
+}
@@ -0,0 +1,149 @@
+package com.github.dimitryivaniuta.videometadata.graphql.schema;
+
+import com.github.dimitryivaniuta.videometadata.graphql.annotations.GraphQLApplication;
+import com.github.dimitryivaniuta.videometadata.graphql.annotations.GraphQLArgument;
+import com.github.dimitryivaniuta.videometadata.graphql.annotations.GraphQLField;
+import com.github.dimitryivaniuta.videometadata.graphql.annotations.GraphQLMutation;
+import com.github.dimitryivaniuta.videometadata.graphql.exceptions.GraphQlServiceException;
+import graphql.GraphQLContext;
+import graphql.schema.DataFetcher;
+import graphql.schema.DataFetchingEnvironment;
+import graphql.schema.DataFetchingEnvironmentImpl;
+import graphql.schema.FieldCoordinates;
+import graphql.schema.GraphQLSchema;
+import jakarta.validation.constraints.NotBlank;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.graphql.execution.GraphQlSource;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AnnotationSchemaFactoryTest {
+
+    public record Range(int from, int to) { }
+
+    @GraphQLApplication
+    public static class Resolvers {
+
+        @GraphQLField("describe")
+        public Mono<String> describe(@GraphQLArgument("name") @NotBlank String name,
+                                     @GraphQLArgument("range") Range range,
+                                     DataFetchingEnvironment env) {
+            return Mono.just(name + " " + range.from() + ".." + range.to() + " " + (env != null));
+        }
+
+        @GraphQLField("adminsOnly")
+        @RequiresRole({"admin", " OPS "})
+        public String adminsOnly() {
+            return "secret";
+        }
+
+        @GraphQLField("numbers")
+        public Flux<Integer> numbers() {
+            return Flux.just(1, 2, 3);
+        }
+
+        @GraphQLMutation("touch")   // a schema needs at least one mutation
+        public Mono<Boolean> touch() {
+            return Mono.just(true);
+        }
+
+        @GraphQLField("broken")
+        public Mono<String> broken() {
+            throw new IllegalArgumentException("bad input");
+        }
+    }
+
+    @Configuration
+    static class Beans {
+        @Bean
+        Resolvers resolvers() {
+            return new Resolvers();
+        }
+    }
+
+    private AnnotationConfigApplicationContext ctx;
+    private GraphQLSchema schema;
+
+    @BeforeEach
+    void setUp() {
+        ctx = new AnnotationConfigApplicationContext(Beans.class, AnnotationSchemaFactory.class);
+        schema = ctx.getBean(GraphQlSource.class).schema();
+    }
+
+    @AfterEach
+    void tearDown() {
+        ctx.close();
+    }
+
+    @Test
+    void argumentsAreConvertedAndTheEnvironmentPassed() {
+        assertThat(fetch("describe", Map.of("name", "r", "range", Map.of("from", 1, "to", 5)), null))
+                .isEqualTo("r 1..5 true");
+        assertThat(fetch("numbers", Map.of(), null)).isEqualTo(List.of(1, 2, 3));
+    }
+
+    @Test
+    void blankArgumentsAreRejected() {
+        assertThatThrownBy(() -> fetch("describe", Map.of("name", " ", "range", Map.of("from", 1, "to", 2)), null))
+                .isInstanceOf(GraphQlServiceException.class);
+    }
+
+    @Test
+    void requiredRolesAreNormalizedOnceAndChecked() {
+        assertThat(fetch("adminsOnly", Map.of(), auth("ROLE_ADMIN"))).isEqualTo("secret");
+        assertThat(fetch("adminsOnly", Map.of(), auth("ops"))).isEqualTo("secret");
+        assertThatThrownBy(() -> fetch("adminsOnly", Map.of(), auth("ROLE_USER")))
+                .isInstanceOf(GraphQlServiceException.class).hasMessageStartingWith("Forbidden");
+        assertThatThrownBy(() -> fetch("adminsOnly", Map.of(), null))
+                .isInstanceOf(GraphQlServiceException.class).hasMessage("Unauthorized");
+    }
+
+    @Test
+    void resolverExceptionsPassThrough() {
+        assertThatThrownBy(() -> fetch("broken", Map.of(), null))
+                .isInstanceOf(IllegalArgumentException.class).hasMessage("bad input");
+    }
+
+    /** Calls the field's fetcher as wired into the schema, i.e. behind Spring's context-propagating decorator. */
+    private Object fetch(String field, Map<String, Object> args, Authentication auth) {
+        DataFetcher<?> fetcher = schema.getCodeRegistry().getDataFetcher(
+                FieldCoordinates.coordinates("Query", field), schema.getQueryType().getFieldDefinition(field));
+        GraphQLContext context = GraphQLContext.newContext().build();
+        if (auth != null) {
+            // copied into the Reactor context of the resolver's Mono, as ReactiveSecurityContextHolder does
+            context.put(SecurityContext.class, Mono.just(new SecurityContextImpl(auth)));
+        }
+        DataFetchingEnvironment env = DataFetchingEnvironmentImpl.newDataFetchingEnvironment()
+                .arguments(args).graphQLContext(context).build();
+        try {
+            return ((CompletableFuture<?>) fetcher.get(env)).join();
+        } catch (CompletionException ex) {
+            throw ex.getCause() instanceof RuntimeException re ? re : ex;
+        } catch (Exception ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static Authentication auth(String authority) {
+        TestingAuthenticationToken token = new TestingAuthenticationToken("someone", "n/a", authority);
+        token.setAuthenticated(true);
+        return token;
+    }
+}
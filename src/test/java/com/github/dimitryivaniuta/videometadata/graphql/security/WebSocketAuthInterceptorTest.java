@@ -0,0 +1,161 @@
+package com.github.dimitryivaniuta.videometadata.graphql.security;
+
+import com.github.dimitryivaniuta.videometadata.service.revocation.TokenRevocationService;
+import graphql.ExecutionResult;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import org.springframework.graphql.execution.ErrorType;
+import org.springframework.graphql.server.WebGraphQlInterceptor.Chain;
+import org.springframework.graphql.server.WebGraphQlRequest;
+import org.springframework.graphql.server.WebGraphQlResponse;
+import org.springframework.graphql.server.WebSocketGraphQlRequest;
+import org.springframework.graphql.server.WebSocketSessionInfo;
+import org.springframework.graphql.support.DefaultExecutionGraphQlResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+import org.springframework.security.oauth2.server.resource.authentication.ReactiveJwtAuthenticationConverterAdapter;
+import org.springframework.util.LinkedMultiValueMap;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.security.Principal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * The session token is checked per operation, not only at
+ * {@code connection_init}: expiry and revocation turn operations away, and a
+ * subscription completes when the token expires.
+ */
+class WebSocketAuthInterceptorTest {
+
+    private static final Instant NOW = Instant.parse("2026-10-19T10:00:00Z");
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final Set<String> revoked = ConcurrentHashMap.newKeySet();
+    private final Session session = new Session();
+    private final AtomicInteger executed = new AtomicInteger();
+
+    @Test
+    void operationsRunAsTheSessionUserUntilTheTokenExpires() {
+        connect(expiringIn(Duration.ofMinutes(5)), NOW);
+
+        assertThat(execute(NOW.plus(Duration.ofMinutes(1)), whoAmI()).getErrors()).isEmpty();
+        assertThat(executed).hasValue(1);
+
+        WebGraphQlResponse expired = execute(NOW.plus(Duration.ofMinutes(5)), whoAmI());
+        assertThat(expired.getErrors()).singleElement().satisfies(e -> {
+            assertThat(e.getErrorType()).isEqualTo(ErrorType.UNAUTHORIZED);
+            assertThat(e.getMessage()).isEqualTo("Token has expired");
+        });
+        assertThat(executed).hasValue(1);
+    }
+
+    @Test
+    void aTokenRevokedAfterConnectingTurnsTheNextOperationAway() {
+        Jwt token = expiringIn(Duration.ofMinutes(5));
+        connect(token, NOW);
+        revoked.add(token.getTokenValue());
+
+        WebGraphQlResponse response = execute(NOW, whoAmI());
+
+        assertThat(response.getErrors()).singleElement()
+                .satisfies(e -> assertThat(e.getMessage()).isEqualTo("Token has been revoked"));
+        assertThat(executed).hasValue(0);
+    }
+
+    @Test
+    void aSubscriptionCompletesWhenTheTokenExpires() {
+        connect(expiringIn(Duration.ofMinutes(5)), NOW);
+
+        // 200 ms of token lifetime left
+        WebGraphQlResponse response = execute(NOW.plus(Duration.ofMinutes(5)).minusMillis(200),
+                request -> Mono.just(response(request, Flux.interval(Duration.ofMillis(20))
+                        .map(i -> ExecutionResult.newExecutionResult().data(i).build()))));
+
+        List<?> events = Flux.from((Publisher<?>) response.getData())
+                .collectList()
+                .block(TIMEOUT);
+        assertThat(events).isNotEmpty().hasSizeLessThan(20);
+    }
+
+    @Test
+    void anonymousSessionsPassThrough() {
+        assertThat(execute(NOW, whoAmI()).getErrors()).isEmpty();
+        assertThat(executed).hasValue(1);
+    }
+
+    private void connect(Jwt token, Instant at) {
+        interceptor(at).handleConnectionInitialization(session, Map.of("Authorization", "Bearer " + token.getTokenValue()))
+                .block(TIMEOUT);
+    }
+
+    private WebGraphQlResponse execute(Instant at, Chain chain) {
+        WebSocketGraphQlRequest request = new WebSocketGraphQlRequest(URI.create("ws://localhost/graphql/ws"),
+                new HttpHeaders(), new LinkedMultiValueMap<>(), null, Map.of(), Map.of("query", "{ me }"), "1",
+                Locale.ENGLISH, session);
+        return interceptor(at).intercept(request, chain).block(TIMEOUT);
+    }
+
+    /** Answers with the caller's name, as seen by resolvers. */
+    private Chain whoAmI() {
+        return request -> ReactiveSecurityContextHolder.getContext()
+                .map(sc -> sc.getAuthentication().getName())
+                .defaultIfEmpty("anonymous")
+                .doOnNext(name -> executed.incrementAndGet())
+                .map(name -> response(request, Map.of("me", name)));
+    }
+
+    private WebSocketAuthInterceptor interceptor(Instant now) {
+        TokenRevocationService revocations = mock(TokenRevocationService.class);
+        when(revocations.isRevoked(any())).thenAnswer(inv ->
+                Mono.just(revoked.contains(inv.<Jwt>getArgument(0).getTokenValue())));
+        return new WebSocketAuthInterceptor(
+                value -> Mono.just(expiringIn(Duration.ofMinutes(5), value)),
+                new ReactiveJwtAuthenticationConverterAdapter(new JwtAuthenticationConverter()),
+                revocations,
+                Clock.fixed(now, ZoneOffset.UTC));
+    }
+
+    private static Jwt expiringIn(Duration lifetime) {
+        return expiringIn(lifetime, "token-" + lifetime.toMillis());
+    }
+
+    private static Jwt expiringIn(Duration lifetime, String value) {
+        return Jwt.withTokenValue(value).header("alg", "none").subject("alice")
+                .issuedAt(NOW).expiresAt(NOW.plus(lifetime)).build();
+    }
+
+    private static WebGraphQlResponse response(WebGraphQlRequest request, Object data) {
+        return new WebGraphQlResponse(new DefaultExecutionGraphQlResponse(request.toExecutionInput(),
+                ExecutionResult.newExecutionResult().data(data).build()));
+    }
+
+    private static final class Session implements WebSocketSessionInfo {
+        private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+
+        @Override public String getId() { return "session-1"; }
+        @Override public Map<String, Object> getAttributes() { return attributes; }
+        @Override public URI getUri() { return URI.create("ws://localhost/graphql/ws"); }
+        @Override public HttpHeaders getHeaders() { return new HttpHeaders(); }
+        @Override public Mono<Principal> getPrincipal() { return Mono.empty(); }
+        @Override public InetSocketAddress getRemoteAddress() { return null; }
+    }
+}
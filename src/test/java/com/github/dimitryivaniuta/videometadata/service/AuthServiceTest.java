@@ -0,0 +1,69 @@
+package com.github.dimitryivaniuta.videometadata.service;
+
+import com.github.dimitryivaniuta.videometadata.model.Role;
+import com.github.dimitryivaniuta.videometadata.model.User;
+import com.github.dimitryivaniuta.videometadata.model.UserStatus;
+import com.github.dimitryivaniuta.videometadata.projection.UserWithRoles;
+import com.github.dimitryivaniuta.videometadata.repository.UserRepository;
+import com.github.dimitryivaniuta.videometadata.service.revocation.TokenRevocationService;
+import com.github.dimitryivaniuta.videometadata.web.dto.CachedUser;
+import com.github.dimitryivaniuta.videometadata.web.dto.TokenResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UserDetailsRepositoryReactiveAuthenticationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AuthServiceTest {
+
+    private static final String PASSWORD = "s3cret-pass";
+
+    @Test
+    void loginLoadsTheUserAndItsRolesOnce() {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(4);
+        User stored = User.builder()
+                .id(42L).username("alice").password(encoder.encode(PASSWORD)).email("alice@example.com")
+                .status(UserStatus.ACTIVE).createdAt(Instant.now()).updatedAt(Instant.now())
+                .build();
+
+        UserRepository userRepo = mock(UserRepository.class);
+        when(userRepo.findWithRolesByUsername("alice"))
+                .thenReturn(Mono.just(new UserWithRoles(stored, Set.of(Role.USER, Role.ADMIN))));
+        UserDetailsRepositoryReactiveAuthenticationManager authManager =
+                new UserDetailsRepositoryReactiveAuthenticationManager(new UserDetailsServiceImpl(userRepo));
+        authManager.setPasswordEncoder(encoder);
+
+        JwtTokenProvider tokens = mock(JwtTokenProvider.class);
+        TokenResponse access = new TokenResponse("access", 900L);
+        when(tokens.issuePair(any(Authentication.class), anyLong()))
+                .thenReturn(Mono.just(new JwtTokenProvider.TokenPair(access, "refresh")));
+        UserService users = mock(UserService.class);
+        when(users.updateLastLoginAt(anyLong())).thenReturn(Mono.empty());
+        UserCacheService cache = mock(UserCacheService.class);
+        when(cache.cacheUser(any(CachedUser.class))).thenReturn(Mono.empty());
+
+        AuthService auth = new AuthService(authManager, tokens, users, cache, mock(TokenRevocationService.class));
+
+        assertThat(auth.login("alice", PASSWORD, null).block()).isEqualTo(access);
+        verify(userRepo, times(1)).findWithRolesByUsername("alice");
+        verify(users, never()).findByUsername(anyString());
+        verify(tokens).issuePair(any(Authentication.class), eq(42L));
+        verify(cache).cacheUser(argThat(u ->
+                u.id() == 42L && u.roles().equals(Set.of(Role.USER, Role.ADMIN))));
+    }
+}
@@ -0,0 +1,107 @@
+package com.github.dimitryivaniuta.videometadata.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.dimitryivaniuta.videometadata.config.BulkImportProperties;
+import com.github.dimitryivaniuta.videometadata.config.VideoProvidersProperties;
+import com.github.dimitryivaniuta.videometadata.model.Video;
+import com.github.dimitryivaniuta.videometadata.model.VideoProvider;
+import com.github.dimitryivaniuta.videometadata.repository.VideoRepository;
+import com.github.dimitryivaniuta.videometadata.service.outbox.OutboxAppendedEvent;
+import com.github.dimitryivaniuta.videometadata.service.videoprovider.ExternalMetadataClient;
+import com.github.dimitryivaniuta.videometadata.web.dto.CachedUser;
+import com.github.dimitryivaniuta.videometadata.web.dto.imports.BulkImportResult;
+import com.github.dimitryivaniuta.videometadata.web.dto.imports.BulkImportResult.Status;
+import com.github.dimitryivaniuta.videometadata.web.dto.imports.Metadata;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BulkImportServiceImplTest {
+
+    private final ExternalMetadataClient meta = mock(ExternalMetadataClient.class);
+    private final VideoRepository videoRepo = mock(VideoRepository.class);
+    private final UserCacheService userCache = mock(UserCacheService.class);
+    private final ApplicationEventPublisher events = mock(ApplicationEventPublisher.class);
+
+    @Test
+    void importLinesDedupesBatchesAndReportsEveryLine() {
+        VideoProvidersProperties providers = new VideoProvidersProperties();
+        providers.setProviders(Map.of("youtube", new VideoProvidersProperties.Provider()));
+        BulkImportProperties props = new BulkImportProperties();
+        BulkImportService service = new BulkImportServiceImpl(
+                meta, videoRepo, providers, props, userCache, events, new ObjectMapper());
+
+        when(userCache.getUser("alice")).thenReturn(Mono.just(
+                new CachedUser(7L, "alice", null, null, null, null, null, null)));
+        when(videoRepo.findAllByProviderAndExternalVideoIdIn(eq(VideoProvider.YOUTUBE), any()))
+                .thenReturn(Flux.just(Video.builder().id(100L).externalVideoId("known").build()));
+        when(meta.maxBatchSize(VideoProvider.YOUTUBE)).thenReturn(50);
+        when(meta.fetchBatch(eq(VideoProvider.YOUTUBE), anyList()))
+                .thenReturn(Flux.just(metadata("a"), metadata("b")));
+        when(videoRepo.insertBatch(anyList())).thenReturn(Flux.just(
+                Video.builder().id(1L).externalVideoId("a").createdAt(Instant.EPOCH).build(),
+                Video.builder().id(2L).externalVideoId("b").createdAt(Instant.EPOCH).build()));
+
+        Flux<String> upload = Flux.just(
+                "provider,externalVideoId",
+                "YOUTUBE,a",
+                "{\"provider\":\"YOUTUBE\",\"externalVideoId\":\"b\"}",
+                "youtube,a",
+                "YOUTUBE,known",
+                "YOUTUBE,gone",
+                "",
+                "not a reference",
+                "VIMEO,v1");
+
+        List<BulkImportResult> results = service.importLines(upload)
+                .contextWrite(ReactiveSecurityContextHolder.withAuthentication(
+                        new UsernamePasswordAuthenticationToken("alice", null, List.of())))
+                .collectList()
+                .block();
+
+        assertThat(results).extracting(BulkImportResult::line, BulkImportResult::status, BulkImportResult::videoId)
+                .containsExactly(
+                        tuple(2L, Status.IMPORTED, 1L),
+                        tuple(3L, Status.IMPORTED, 2L),
+                        tuple(4L, Status.DUPLICATE, null),
+                        tuple(5L, Status.EXISTS, 100L),
+                        tuple(6L, Status.NOT_FOUND, null),
+                        tuple(8L, Status.INVALID, null),
+                        tuple(9L, Status.FAILED, null));
+
+        // one DB lookup, one provider call and one insert for the whole batch
+        verify(videoRepo, times(1)).findAllByProviderAndExternalVideoIdIn(eq(VideoProvider.YOUTUBE), any());
+        verify(meta, times(1)).fetchBatch(VideoProvider.YOUTUBE, List.of("a", "b", "gone"));
+        verify(videoRepo, times(1)).insertBatch(anyList());
+        // events are written with the rows; the relay is woken once per batch
+        verify(events, times(1)).publishEvent(new OutboxAppendedEvent(2));
+    }
+
+    private static Metadata metadata(String id) {
+        return Metadata.builder()
+                .title("t-" + id)
+                .description("d")
+                .durationMs(1_000L)
+                .videoProvider(VideoProvider.YOUTUBE)
+                .externalVideoId(id)
+                .uploadDate(Instant.EPOCH)
+                .build();
+    }
+}
@@ -0,0 +1,65 @@
+package com.github.dimitryivaniuta.videometadata.service;
+
+import com.github.dimitryivaniuta.videometadata.web.dto.CachedUser;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class CurrentUserServiceTest {
+
+    private final UserCacheService userCache = mock(UserCacheService.class);
+    private final CurrentUserService service = new CurrentUserService(userCache);
+
+    @Test
+    void usesTheUidClaimWithoutALookup() {
+        Long id = service.requireUserId()
+                .contextWrite(ReactiveSecurityContextHolder.withAuthentication(token(42L)))
+                .block();
+
+        assertThat(id).isEqualTo(42L);
+        verifyNoInteractions(userCache);
+    }
+
+    @Test
+    void prefersTheUserResolvedIntoTheContext() {
+        Long id = service.requireUserId()
+                .contextWrite(CurrentUser.context(new CurrentUser(7L, "alice")))
+                .contextWrite(ReactiveSecurityContextHolder.withAuthentication(token(42L)))
+                .block();
+
+        assertThat(id).isEqualTo(7L);
+    }
+
+    @Test
+    void legacyTokensFallBackToTheUserCache() {
+        when(userCache.getUser(anyString())).thenReturn(Mono.just(CachedUser.builder().id(9L).username("alice").build()));
+
+        Long id = service.requireUserId()
+                .contextWrite(ReactiveSecurityContextHolder.withAuthentication(token(null)))
+                .block();
+
+        assertThat(id).isEqualTo(9L);
+        verify(userCache).getUser("alice");
+    }
+
+    private static Authentication token(Long uid) {
+        Jwt.Builder jwt = Jwt.withTokenValue("t").header("alg", "RS256").subject("alice")
+                .claim("roles", List.of("USER"));
+        if (uid != null) {
+            jwt.claim(CurrentUser.CLAIM_UID, uid).claim("ver", 2);
+        }
+        return new JwtAuthenticationToken(jwt.build(), List.of());
+    }
+}
@@ -0,0 +1,85 @@
+package com.github.dimitryivaniuta.videometadata.service;
+
+import com.github.dimitryivaniuta.videometadata.config.LastLoginProperties;
+import com.github.dimitryivaniuta.videometadata.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LastLoginWriteBehindTest {
+
+    private static final Instant T0 = Instant.parse("2026-01-01T00:00:00Z");
+
+    private final List<Map<Long, Instant>> statements = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean failing = new AtomicBoolean();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final LastLoginProperties props = new LastLoginProperties();
+    private LastLoginWriteBehind writer;
+
+    @BeforeEach
+    void setUp() {
+        UserRepository users = mock(UserRepository.class);
+        when(users.updateLastLoginAt(anyMap())).thenAnswer(inv -> Mono.defer(() -> {
+            if (failing.get()) {
+                return Mono.error(new IllegalStateException("database down"));
+            }
+            Map<Long, Instant> batch = inv.getArgument(0);
+            statements.add(Map.copyOf(batch));
+            return Mono.just(batch.size());
+        }));
+        props.setBatchSize(2);
+        writer = new LastLoginWriteBehind(users, props, registry);
+    }
+
+    @Test
+    void loginsOfOneUserCollapseAndAreWrittenInBatches() {
+        writer.record(1, T0);
+        writer.record(1, T0.plusSeconds(2));
+        writer.record(1, T0.plusSeconds(1));   // out of order: the latest stays
+        writer.record(2, T0);
+        writer.record(3, T0);
+        assertThat(registry.get("users.last_login.pending").gauge().value()).isEqualTo(3);
+        assertThat(statements).isEmpty();
+
+        assertThat(writer.flush().block()).isEqualTo(3);
+
+        assertThat(statements).hasSize(2);
+        assertThat(statements.stream().flatMap(m -> m.entrySet().stream()).toList())
+                .containsExactlyInAnyOrder(
+                        Map.entry(1L, T0.plusSeconds(2)), Map.entry(2L, T0), Map.entry(3L, T0));
+        assertThat(registry.get("users.last_login.pending").gauge().value()).isZero();
+        assertThat(registry.get("users.last_login.flush").tag("outcome", "ok").timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    void aFailedBatchIsKeptForTheNextFlushWithoutOverwritingNewerLogins() {
+        writer.record(1, T0);
+        failing.set(true);
+        assertThat(writer.flush().block()).isZero();
+        assertThat(registry.get("users.last_login.flush").tag("outcome", "failed").timer().count()).isEqualTo(1);
+
+        writer.record(1, T0.minusSeconds(5));
+        failing.set(false);
+        writer.flush().block();
+        assertThat(statements).containsExactly(Map.of(1L, T0));
+    }
+
+    @Test
+    void pendingLoginsAreWrittenOnShutdown() {
+        writer.record(7, T0);
+        writer.stop();
+        assertThat(statements).containsExactly(Map.of(7L, T0));
+    }
+}
@@ -0,0 +1,147 @@
+package com.github.dimitryivaniuta.videometadata.service;
+
+import com.github.dimitryivaniuta.videometadata.config.SecurityJwtProperties;
+import com.github.dimitryivaniuta.videometadata.config.UserCacheProperties;
+import com.github.dimitryivaniuta.videometadata.model.Role;
+import com.github.dimitryivaniuta.videometadata.service.cache.CacheInvalidationService;
+import com.github.dimitryivaniuta.videometadata.service.cache.UserNearCache;
+import com.github.dimitryivaniuta.videometadata.web.dto.CachedUser;
+import com.github.dimitryivaniuta.videometadata.web.dto.UserResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveValueOperations;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UserCacheServiceTest {
+
+    private final Map<String, CachedUser> store = new ConcurrentHashMap<>();
+    private final Map<String, Duration> ttls = new ConcurrentHashMap<>();
+    private final AtomicInteger dbCalls = new AtomicInteger();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final UserCacheProperties props = new UserCacheProperties();
+    private final UserService users = mock(UserService.class);
+    private final Set<String> signedUp = ConcurrentHashMap.newKeySet();
+    private final List<String> invalidatedKeys = new CopyOnWriteArrayList<>();
+    private UserNearCache local;
+    private UserCacheService cache;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        ReactiveRedisTemplate<String, CachedUser> redis = mock(ReactiveRedisTemplate.class);
+        ReactiveValueOperations<String, CachedUser> ops = mock(ReactiveValueOperations.class);
+        when(redis.opsForValue()).thenReturn(ops);
+        when(ops.get(anyString())).thenAnswer(inv -> Mono.fromSupplier(() -> store.get(inv.<String>getArgument(0))));
+        when(redis.getExpire(anyString())).thenAnswer(inv -> Mono.fromSupplier(() -> ttls.get(inv.<String>getArgument(0))));
+        when(ops.getAndDelete(anyString())).thenAnswer(inv -> Mono.fromSupplier(() -> {
+            ttls.remove(inv.<String>getArgument(0));
+            return store.remove(inv.<String>getArgument(0));
+        }));
+        when(ops.set(anyString(), any(), any(Duration.class))).thenAnswer(inv -> Mono.fromSupplier(() -> {
+            store.put(inv.getArgument(0), inv.getArgument(1));
+            ttls.put(inv.getArgument(0), inv.getArgument(2));
+            return true;
+        }));
+        when(users.findByUsername(anyString())).thenAnswer(inv -> {
+            String name = inv.getArgument(0);
+            return Mono.delay(Duration.ofMillis(50)).then(Mono.defer(() -> {
+                dbCalls.incrementAndGet();
+                return name.startsWith("ghost") && !signedUp.contains(name)
+                        ? Mono.error(new UsernameNotFoundException(name))
+                        : Mono.just(UserResponse.builder().id(7L).username(name).roles(Set.of(Role.USER)).build());
+            }));
+        });
+
+        SecurityJwtProperties jwt = new SecurityJwtProperties();
+        jwt.setExpirationSeconds(3_600);
+        local = new UserNearCache(props);
+        CacheInvalidationService invalidation = new CacheInvalidationService() {
+            @Override
+            public Mono<Void> invalidate(String entity, Collection<Long> ids) {
+                return Mono.empty();
+            }
+
+            @Override
+            public Mono<Void> invalidateKeys(String entity, Collection<String> keys) {
+                return Mono.fromRunnable(() -> invalidatedKeys.addAll(keys));
+            }
+        };
+        cache = new UserCacheService(redis, users, jwt, local, invalidation, props, registry);
+    }
+
+    @Test
+    void concurrentMissesShareOneDatabaseLoad() {
+        var loaded = Flux.range(0, 20)
+                .flatMap(i -> cache.getUser("alice"), 20)
+                .map(CachedUser::id)
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        assertThat(loaded).hasSize(20).containsOnly(7L);
+        assertThat(dbCalls).hasValue(1);
+        assertThat(registry.counter("cache.coalesced", "cache", "user").count()).isEqualTo(19);
+
+        cache.getUser("alice").block();   // local hit, no network
+        assertThat(registry.counter("cache.gets", "cache", "user.local", "result", "hit").count()).isEqualTo(1);
+        assertThat(ttls.get("user:alice")).isBetween(Duration.ofSeconds(3_240), Duration.ofSeconds(3_600));
+    }
+
+    @Test
+    void unknownUsersAreCachedNegatively() {
+        assertThatThrownBy(() -> cache.getUser("ghost").block()).isInstanceOf(UsernameNotFoundException.class);
+        assertThatThrownBy(() -> cache.getUser("ghost").block()).isInstanceOf(UsernameNotFoundException.class);
+        local.clear();   // another node: only the Redis negative entry is there
+        assertThatThrownBy(() -> cache.getUser("ghost").block()).isInstanceOf(UsernameNotFoundException.class);
+
+        assertThat(dbCalls).hasValue(1);
+        assertThat(ttls.get("user:ghost")).isLessThanOrEqualTo(props.getNegativeTtl());
+    }
+
+    @Test
+    void aTakenUsernameIsNoLongerCachedAsUnknownAnywhere() {
+        assertThatThrownBy(() -> cache.getUser("ghost-7").block()).isInstanceOf(UsernameNotFoundException.class);
+        signedUp.add("ghost-7");
+
+        cache.evict("ghost-7").block();
+
+        assertThat(store).doesNotContainKey("user:ghost-7");
+        assertThat(invalidatedKeys).containsExactly("ghost-7");   // other nodes' negative entries have no id
+        assertThat(cache.getUser("ghost-7").block().id()).isEqualTo(7L);
+    }
+
+    @Test
+    void entriesCloseToExpiryAreRefreshedEarly() {
+        props.setLocalTtl(Duration.ofSeconds(30));
+        assertThat(cache.shouldRefreshEarly(Duration.ofSeconds(20))).isTrue();
+        assertThat(cache.shouldRefreshEarly(Duration.ofHours(1))).isFalse();
+        assertThat(cache.shouldRefreshEarly(Duration.ZERO)).isFalse();   // no expiry
+
+        store.put("user:bob", CachedUser.builder().id(9L).username("bob").build());
+        ttls.put("user:bob", Duration.ofSeconds(5));
+        assertThat(cache.getUser("bob").block().id()).isEqualTo(9L);   // served at once
+        await().atMost(Duration.ofSeconds(5))
+                .until(() -> ttls.get("user:bob").compareTo(Duration.ofSeconds(5)) > 0);
+        assertThat(dbCalls).hasValue(1);
+    }
+}
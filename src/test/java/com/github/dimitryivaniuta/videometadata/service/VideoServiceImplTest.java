@@ -1,4 +1,226 @@
 package com.github.dimitryivaniuta.videometadata.service;
 
-public class VideoServiceImplTest {
+import com.github.dimitryivaniuta.videometadata.config.VideoProvidersProperties;
+import com.github.dimitryivaniuta.videometadata.model.PublisherSyncState;
+import com.github.dimitryivaniuta.videometadata.model.Video;
+import com.github.dimitryivaniuta.videometadata.model.VideoProvider;
+import com.github.dimitryivaniuta.videometadata.service.outbox.OutboxAppendedEvent;
+import com.github.dimitryivaniuta.videometadata.service.videoprovider.ExternalMetadataClient;
+import com.github.dimitryivaniuta.videometadata.support.CountingVideoStore;
+import com.github.dimitryivaniuta.videometadata.support.ProviderStandIn;
+import com.github.dimitryivaniuta.videometadata.web.dto.imports.VideoResponse;
+import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Incremental publisher sync against the provider stand-in and the in-memory
+ * store: watermark, early stop, per-page checkpoint and resume.
+ */
+class VideoServiceImplTest {
+
+    private static final Instant NEWEST = Instant.parse("2025-01-01T00:00:00Z");
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private final ProviderStandIn standIn = ProviderStandIn.builder()
+            .channel("acme", 120)
+            .start();
+    private final List<Object> published = new CopyOnWriteArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        standIn.close();
+    }
+
+    @Test
+    void aFirstYoutubeSyncPagesNewestFirstAndSetsTheWatermark() {
+        CountingVideoStore store = new CountingVideoStore(Duration.ZERO);
+
+        List<VideoResponse> imported = resync(service(store), VideoProvider.YOUTUBE, "acme");
+
+        assertThat(imported).hasSize(120);
+        List<Map<String, List<String>>> pages = videoPages();
+        assertThat(pages).extracting(q -> q.get("pageToken"))
+                .containsExactly(null, List.of("50"), List.of("100"));
+        assertThat(pages).allSatisfy(q -> {
+            assertThat(q.get("order")).containsExactly("date");
+            assertThat(q.get("channelId")).containsExactly("UC-acme");
+            assertThat(q).doesNotContainKey("publishedAfter");
+        });
+
+        PublisherSyncState state = store.syncState(VideoProvider.YOUTUBE, "acme");
+        assertThat(state.getLastPublishedAt()).isEqualTo(NEWEST);
+        assertThat(state.getLastExternalVideoId()).isEqualTo("yt-acme-0");
+        assertThat(state.getLastPageToken()).isNull();
+        assertThat(state.getSyncCount()).isEqualTo(1);
+        assertThat(state.getVideosImported()).isEqualTo(120);
+    }
+
+    @Test
+    void importedVideosAreAppendedToTheOutboxABatchAtATime() {
+        CountingVideoStore store = new CountingVideoStore(Duration.ZERO);
+        store.videoRepository().save(Video.builder()
+                .provider(VideoProvider.VIMEO)
+                .externalVideoId("7")
+                .build()).block();
+
+        List<VideoResponse> imported = service(store).importVideosByPublisher(VideoProvider.VIMEO, "acme")
+                .contextWrite(CurrentUser.context(new CurrentUser(1L, "tester")))
+                .collectList()
+                .block(TIMEOUT);
+
+        assertThat(imported).hasSize(120);   // the known video included
+        assertThat(imported.get(6).externalVideoId()).isEqualTo("7");
+        assertThat(store.size()).isEqualTo(120);
+        // one insert with its outbox rows per batch of 50
+        assertThat(published).extracting(e -> ((OutboxAppendedEvent) e).count())
+                .containsExactly(49, 50, 20);
+        assertThat(store.syncState(VideoProvider.VIMEO, "acme").getVideosImported()).isEqualTo(119);
+    }
+
+    @Test
+    void aYoutubeResyncOnlyAsksForUploadsAfterTheWatermark() {
+        CountingVideoStore store = new CountingVideoStore(Duration.ZERO);
+        seed(store, VideoProvider.YOUTUBE, NEWEST.minus(Duration.ofHours(10)), "yt-acme-10");
+
+        List<VideoResponse> imported = resync(service(store), VideoProvider.YOUTUBE, "acme");
+
+        assertThat(imported).extracting(VideoResponse::externalVideoId)
+                .containsExactly("yt-acme-0", "yt-acme-1", "yt-acme-2", "yt-acme-3", "yt-acme-4",
+                        "yt-acme-5", "yt-acme-6", "yt-acme-7", "yt-acme-8", "yt-acme-9");
+        assertThat(videoPages()).singleElement()
+                .satisfies(q -> assertThat(q.get("publishedAfter")).containsExactly("2024-12-31T14:00:00Z"));
+
+        PublisherSyncState state = store.syncState(VideoProvider.YOUTUBE, "acme");
+        assertThat(state.getLastPublishedAt()).isEqualTo(NEWEST);
+        assertThat(state.getLastExternalVideoId()).isEqualTo("yt-acme-0");
+        assertThat(state.getSyncCount()).isEqualTo(2);
+    }
+
+    @Test
+    void aVimeoResyncStopsAtTheFirstKnownVideo() {
+        CountingVideoStore store = new CountingVideoStore(Duration.ZERO);
+        seed(store, VideoProvider.VIMEO, NEWEST.minus(Duration.ofHours(100)), "101");
+        store.videoRepository().save(Video.builder()
+                .provider(VideoProvider.VIMEO)
+                .externalVideoId("11")
+                .build()).block();
+
+        List<VideoResponse> imported = resync(service(store), VideoProvider.VIMEO, "acme");
+
+        assertThat(imported).hasSize(10);
+        assertThat(published).containsExactly(new OutboxAppendedEvent(10));
+        assertThat(standIn.requests("vimeo.userVideos")).isEqualTo(1);
+        List<Map<String, List<String>>> pages = standIn.queries("vimeo.userVideos");
+        assertThat(pages.getFirst().get("sort")).containsExactly("date");
+        assertThat(pages.getFirst().get("direction")).containsExactly("desc");
+        assertThat(pages.getFirst().get("per_page")).containsExactly("25");
+        assertThat(pages.getFirst().get("page")).containsExactly("1");
+        assertThat(store.syncState(VideoProvider.VIMEO, "acme").getLastPublishedAt()).isEqualTo(NEWEST);
+    }
+
+    @Test
+    void aVimeoResyncStopsAtTheFirstUploadNotNewerThanTheWatermark() {
+        CountingVideoStore store = new CountingVideoStore(Duration.ZERO);
+        seed(store, VideoProvider.VIMEO, NEWEST.minus(Duration.ofHours(4)), "5");   // id 5 is 4 hours old
+
+        List<VideoResponse> imported = resync(service(store), VideoProvider.VIMEO, "acme");
+
+        assertThat(imported).extracting(VideoResponse::externalVideoId).containsExactly("1", "2", "3", "4");
+        assertThat(standIn.requests("vimeo.userVideos")).isEqualTo(1);
+    }
+
+    @Test
+    void anInterruptedSyncResumesFromTheCheckpointedPage() {
+        CountingVideoStore store = new CountingVideoStore(Duration.ZERO);
+        VideoServiceImpl service = service(store);
+
+        // 25 per page: the checkpoint after page 2 points at page 3
+        List<VideoResponse> partial = service.resyncPublisher(VideoProvider.VIMEO, "acme")
+                .take(30)
+                .contextWrite(CurrentUser.context(new CurrentUser(1L, "tester")))
+                .collectList()
+                .block(TIMEOUT);
+        assertThat(partial).hasSize(30);
+        PublisherSyncState interrupted = store.syncState(VideoProvider.VIMEO, "acme");
+        assertThat(interrupted.getLastPageToken()).isEqualTo("3");
+        assertThat(interrupted.getSyncCount()).isZero();
+
+        standIn.resetCounters();
+        resync(service, VideoProvider.VIMEO, "acme");
+
+        assertThat(standIn.queries("vimeo.userVideos").getFirst().get("page")).containsExactly("3");
+        assertThat(standIn.requests("vimeo.userVideos")).isEqualTo(3);
+        PublisherSyncState resumed = store.syncState(VideoProvider.VIMEO, "acme");
+        assertThat(resumed.getLastPageToken()).isNull();
+        assertThat(resumed.getSyncCount()).isEqualTo(1);
+        assertThat(store.size()).isEqualTo(120);
+    }
+
+    @Test
+    void concurrentFirstSyncsOfAPublisherShareOneStateRow() {
+        CountingVideoStore store = new CountingVideoStore(Duration.ofMillis(5));
+        VideoServiceImpl service = service(store);
+
+        Flux.merge(
+                        service.resyncPublisher(VideoProvider.VIMEO, "acme"),
+                        service.resyncPublisher(VideoProvider.VIMEO, "acme"))
+                .contextWrite(CurrentUser.context(new CurrentUser(1L, "tester")))
+                .then()
+                .block(TIMEOUT);
+
+        assertThat(store.size()).isEqualTo(120);
+        PublisherSyncState state = store.syncState(VideoProvider.VIMEO, "acme");
+        assertThat(state.getId()).isNotNull();
+        assertThat(state.getSyncCount()).isEqualTo(1);
+        assertThat(state.getLastPublishedAt()).isEqualTo(NEWEST);
+        assertThat(state.getLastPageToken()).isNull();
+    }
+
+    private VideoServiceImpl service(CountingVideoStore store) {
+        VideoProvidersProperties.Provider vimeo = standIn.vimeoConfig();
+        vimeo.setPageSize(25);
+        VideoProvidersProperties providers = new VideoProvidersProperties();
+        providers.setProviders(Map.of("youtube", standIn.youtubeConfig(), "vimeo", vimeo));
+        ExternalMetadataClient meta = new ExternalMetadataClient(
+                providers, WebClient.builder(), RateLimiterRegistry.ofDefaults());
+        return new VideoServiceImpl(published::add, meta, store.videoRepository(),
+                providers, mock(UserCacheService.class), store.syncStateRepository());
+    }
+
+    private static List<VideoResponse> resync(VideoServiceImpl service, VideoProvider provider, String publisher) {
+        return service.resyncPublisher(provider, publisher)
+                .contextWrite(CurrentUser.context(new CurrentUser(1L, "tester")))
+                .collectList()
+                .block(TIMEOUT);
+    }
+
+    /** State of an earlier completed sync with the given watermark. */
+    private static void seed(CountingVideoStore store, VideoProvider provider, Instant watermark, String videoId) {
+        store.syncStateRepository().upsert(PublisherSyncState.builder()
+                .provider(provider)
+                .publisher("acme")
+                .lastPublishedAt(watermark)
+                .lastExternalVideoId(videoId)
+                .syncCount(1)
+                .build()).block();
+    }
+
+    /** Channel upload listings, without the channel lookup. */
+    private List<Map<String, List<String>>> videoPages() {
+        return standIn.queries("youtube.search").stream()
+                .filter(q -> List.of("video").equals(q.get("type")))
+                .toList();
+    }
 }
@@ -0,0 +1,47 @@
+package com.github.dimitryivaniuta.videometadata.service.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GenerationWindowTest {
+
+    @Test
+    void firstConnectIsNeverComplete() {
+        assertThat(new GenerationWindow(10).completeUpTo(0)).isFalse();
+    }
+
+    @Test
+    void outOfOrderCommitsCloseTheirGap() {
+        GenerationWindow window = new GenerationWindow(10);
+        window.completeUpTo(5);
+
+        window.seen(7);                 // 6 is still uncommitted
+        assertThat(window.completeUpTo(7)).isFalse();
+
+        window.completeUpTo(7);
+        window.seen(9);
+        window.seen(8);
+        assertThat(window.completeUpTo(9)).isTrue();
+    }
+
+    @Test
+    void notificationsMissedWhileDisconnectedAreAGap() {
+        GenerationWindow window = new GenerationWindow(10);
+        window.completeUpTo(3);
+        window.seen(4);
+        assertThat(window.completeUpTo(4)).isTrue();
+        assertThat(window.completeUpTo(6)).isFalse();   // 5 and 6 were sent while offline
+        assertThat(window.completeUpTo(6)).isTrue();
+    }
+
+    @Test
+    void tooManyOpenGapsResetTheWindow() {
+        GenerationWindow window = new GenerationWindow(2);
+        window.completeUpTo(0);
+        assertThat(window.seen(2)).isTrue();
+        assertThat(window.seen(3)).isTrue();
+        assertThat(window.seen(4)).isFalse();            // 1 never arrived (rolled back)
+        assertThat(window.completeUpTo(4)).isTrue();
+    }
+}
@@ -0,0 +1,110 @@
+package com.github.dimitryivaniuta.videometadata.service.cache;
+
+import com.github.dimitryivaniuta.videometadata.config.UserCacheProperties;
+import com.github.dimitryivaniuta.videometadata.web.dto.CachedUser;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserNearCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final UserCacheProperties props = new UserCacheProperties();
+    private final UserNearCache cache = new UserNearCache(props, now::get);
+
+    @Test
+    void entriesExpireAfterTheTtl() {
+        props.setLocalTtl(Duration.ofSeconds(30));
+        cache.put(user(1, "alice"), cache.epoch());
+
+        now.addAndGet(Duration.ofSeconds(29).toNanos());
+        assertThat(cache.get("alice")).isNotNull();
+        now.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertThat(cache.get("alice")).isNull();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void evictionByIdCoversRenamedUsersAndFencesInFlightLoads() {
+        long before = cache.epoch();
+        cache.put(user(1, "alice"), before);
+        cache.put(user(2, "bob"), before);
+
+        cache.evict(1);
+        assertThat(cache.get("alice")).isNull();
+        assertThat(cache.get("bob")).isNotNull();
+
+        // a load that read its value before the eviction must not repopulate
+        cache.put(user(1, "alice"), before);
+        assertThat(cache.get("alice")).isNull();
+        cache.put(user(1, "alice"), cache.epoch());
+        assertThat(cache.get("alice")).isNotNull();
+    }
+
+    @Test
+    void negativeEntriesAreEvictedByUsername() {
+        cache.put(CachedUser.builder().username("new:name").build(), cache.epoch());
+
+        Invalidation inv = Invalidation.decode(new Invalidation(Invalidation.USER, 0, "new:name", 5, 0).encode());
+        assertThat(inv.key()).isEqualTo("new:name");
+        cache.evictKey(inv.key());
+
+        assertThat(cache.get("new:name")).isNull();
+    }
+
+    @Test
+    void staysWithinItsSizeBound() {
+        props.setLocalMaxSize(100);
+        for (int i = 0; i < 1_000; i++) {
+            cache.put(user(i, "u" + i), cache.epoch());
+        }
+        assertThat(cache.size()).isLessThanOrEqualTo(100);
+        assertThat(cache.get("u999")).isNotNull();
+    }
+
+    @Test
+    void aFullCacheIsSweptInBulkAndKeepsTheIdIndexInStep() {
+        props.setLocalMaxSize(100);
+        for (int i = 0; i < 100; i++) {
+            cache.put(user(i, "u" + i), cache.epoch());
+        }
+
+        cache.put(user(100, "u100"), cache.epoch());
+        assertThat(cache.size()).isEqualTo(91);   // swept to 90, then inserted
+        for (int i = 101; i < 110; i++) {
+            cache.put(user(i, "u" + i), cache.epoch());
+        }
+        assertThat(cache.size()).isEqualTo(100);   // no sweep until full again
+
+        for (int i = 0; i < 110; i++) {
+            cache.evict(i);
+        }
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void evictionByIdReachesEveryNameOfARenamedUser() {
+        cache.put(user(1, "alice"), cache.epoch());
+        cache.put(user(1, "alicia"), cache.epoch());
+        cache.put(user(2, "alice"), cache.epoch());   // the old name taken by someone else
+
+        cache.evict(1);
+
+        assertThat(cache.get("alicia")).isNull();
+        assertThat(cache.get("alice").id()).isEqualTo(2L);
+    }
+
+    @Test
+    void disabledTierCachesNothing() {
+        props.setLocalEnabled(false);
+        cache.put(user(1, "alice"), cache.epoch());
+        assertThat(cache.get("alice")).isNull();
+    }
+
+    private static CachedUser user(long id, String username) {
+        return CachedUser.builder().id(id).username(username).build();
+    }
+}
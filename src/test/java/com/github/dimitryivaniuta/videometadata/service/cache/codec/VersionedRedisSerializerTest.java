@@ -0,0 +1,78 @@
+package com.github.dimitryivaniuta.videometadata.service.cache.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.dimitryivaniuta.videometadata.config.RedisConfig.CachedUserRedisSerializer;
+import com.github.dimitryivaniuta.videometadata.model.Role;
+import com.github.dimitryivaniuta.videometadata.model.UserStatus;
+import com.github.dimitryivaniuta.videometadata.web.dto.CachedUser;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class VersionedRedisSerializerTest {
+
+    private final CachedUserRedisSerializer json = new CachedUserRedisSerializer(new ObjectMapper());
+    private final VersionedRedisSerializer<CachedUser> binary =
+            new VersionedRedisSerializer<>(new CachedUserCodec(), json, true);
+
+    @Test
+    void roundTripsFullAndPartialUsers() {
+        CachedUser full = CachedUser.builder()
+                .id(123_456_789L).username("alice").email("alice@example.com").status(UserStatus.LOCKED)
+                .createdAt(Instant.parse("2025-01-02T03:04:05.123456Z"))
+                .updatedAt(Instant.parse("1969-12-31T23:59:59.999999999Z"))
+                .lastLoginAt(Instant.parse("2026-10-19T10:00:00Z"))
+                .roles(Set.of(Role.USER, Role.ADMIN))
+                .build();
+        CachedUser negative = CachedUser.builder().username("ghost").build();
+
+        byte[] bytes = binary.serialize(full);
+        assertThat(bytes[0] & 0xFF).isEqualTo(VersionedRedisSerializer.MAGIC);
+        assertThat(binary.deserialize(bytes)).isEqualTo(full);
+        assertThat(binary.deserialize(binary.serialize(negative))).isEqualTo(negative);
+        assertThat(bytes.length).isLessThan(json.serialize(full).length / 2);
+    }
+
+    @Test
+    void readsEntriesWrittenAsJson() {
+        CachedUser user = CachedUser.builder().id(1L).username("bob").roles(Set.of(Role.USER))
+                .createdAt(Instant.parse("2025-01-02T03:04:05Z")).build();
+        assertThat(binary.deserialize(json.serialize(user))).isEqualTo(user);
+
+        // the rollout switch: write JSON, read both
+        VersionedRedisSerializer<CachedUser> jsonWriter = new VersionedRedisSerializer<>(new CachedUserCodec(), json, false);
+        assertThat(jsonWriter.serialize(user)).isEqualTo(json.serialize(user));
+        assertThat(jsonWriter.deserialize(binary.serialize(user))).isEqualTo(user);
+    }
+
+    @Test
+    void rolesAreStoredByCodeAndUnknownCodesAreDropped() {
+        // presence ROLES only, then the role bit set: ADMIN (code 1) and a code 5 from a newer build
+        byte[] bytes = new BinaryOutput(8).writeByte(VersionedRedisSerializer.MAGIC).writeVarLong(1)
+                .writeVarLong(1 << 7).writeVarLong((1L << Role.ADMIN.getCode()) | (1L << 5))
+                .toByteArray();
+        assertThat(binary.deserialize(bytes).roles()).containsExactly(Role.ADMIN);
+
+        CachedUser admin = CachedUser.builder().roles(Set.of(Role.ADMIN)).build();
+        assertThat(binary.serialize(admin)).isEqualTo(new BinaryOutput(8).writeByte(VersionedRedisSerializer.MAGIC)
+                .writeVarLong(1).writeVarLong(1 << 7).writeVarLong(0b10).toByteArray());
+    }
+
+    @Test
+    void rejectsUnknownVersionsAndTruncatedValues() {
+        byte[] future = new BinaryOutput(8).writeByte(VersionedRedisSerializer.MAGIC).writeVarLong(99).writeVarLong(0)
+                .toByteArray();
+        assertThatThrownBy(() -> binary.deserialize(future)).isInstanceOf(SerializationException.class)
+                .hasRootCauseMessage("Unsupported CachedUser version 99");
+
+        byte[] bytes = binary.serialize(CachedUser.builder().id(1L).username("carol").build());
+        byte[] truncated = Arrays.copyOf(bytes, bytes.length - 2);
+        assertThatThrownBy(() -> binary.deserialize(truncated)).isInstanceOf(SerializationException.class);
+    }
+}
@@ -0,0 +1,170 @@
+package com.github.dimitryivaniuta.videometadata.service.events;
+
+import com.github.dimitryivaniuta.videometadata.config.EventBusProperties;
+import com.github.dimitryivaniuta.videometadata.config.EventBusProperties.Overflow;
+import com.github.dimitryivaniuta.videometadata.domain.event.BatchEventConsumer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DomainEventBusTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private DomainEventBus bus;
+
+    @AfterEach
+    void closeBus() {
+        if (bus != null) {
+            bus.close();
+        }
+    }
+
+    @Test
+    void batchesBySizeAndTimeoutAndCompletesPublishersAfterConsumption() {
+        RecordingConsumer consumer = new RecordingConsumer(Mono::empty);
+        // long enough that only the last, partial batch waits for the timeout, even on a busy machine
+        bus = bus(consumer, cfg(1_000, 10, Duration.ofSeconds(1), Overflow.REJECT));
+
+        Flux.range(0, 25).flatMap(bus::publish, 25).blockLast(Duration.ofSeconds(5));
+
+        assertThat(consumer.batches).extracting(List::size).containsExactly(10, 10, 5);
+        assertThat(consumer.batches.stream().flatMap(List::stream)).containsExactlyInAnyOrderElementsOf(
+                Stream.iterate(0, i -> i + 1).limit(25).toList());
+        assertThat(count("consumed")).isEqualTo(25);
+        assertThat(registry.get("events.consumer.lag").gauge().value()).isZero();
+        assertThat(bus.publish("not subscribed").block()).isNull();
+    }
+
+    @Test
+    void rejectWhenFullFailsThePublisher() {
+        Sinks.Empty<Void> gate = Sinks.empty();
+        RecordingConsumer consumer = new RecordingConsumer(gate::asMono);
+
+        // REJECT: capacity 4, consumer stalled -> the fifth publish fails
+        bus = bus(consumer, cfg(4, 2, Duration.ofMillis(10), Overflow.REJECT));
+        List<Mono<Void>> accepted = Stream.of(1, 2, 3, 4).map(i -> bus.publish(i).cache()).toList();
+        accepted.forEach(Mono::subscribe);
+        assertThatThrownBy(() -> bus.publish(5).block(Duration.ofSeconds(1)))
+                .isInstanceOf(RejectedExecutionException.class);
+        assertThat(count("rejected")).isEqualTo(1);
+        assertThat(registry.get("events.consumer.lag").gauge().value()).isEqualTo(4);
+        gate.tryEmitEmpty();
+        Mono.when(accepted).block(Duration.ofSeconds(5));
+        assertThat(count("consumed")).isEqualTo(4);
+    }
+
+    @Test
+    void dropLatestDiscardsNewEventsWithoutFailingThePublisher() {
+        Sinks.Empty<Void> gate = Sinks.empty();
+        RecordingConsumer consumer = new RecordingConsumer(gate::asMono);
+        bus = bus(consumer, cfg(2, 1, Duration.ofMillis(10), Overflow.DROP_LATEST));
+
+        List<Mono<Void>> accepted = Stream.of(1, 2).map(i -> bus.publish(i).cache()).toList();
+        accepted.forEach(Mono::subscribe);
+        bus.publish(3).block(Duration.ofSeconds(1));   // dropped, completes at once
+        gate.tryEmitEmpty();
+        Mono.when(accepted).block(Duration.ofSeconds(5));
+
+        assertThat(consumer.batches.stream().flatMap(List::stream)).containsExactly(1, 2);
+        assertThat(count("dropped")).isEqualTo(1);
+    }
+
+    @Test
+    void failedBatchFailsItsPublishersAndTheConsumerKeepsRunning() {
+        RecordingConsumer consumer = new RecordingConsumer(() -> Mono.error(new IllegalStateException("db down")));
+        bus = bus(consumer, cfg(100, 10, Duration.ofMillis(10), Overflow.REJECT));
+
+        assertThatThrownBy(() -> bus.publish(1).block(Duration.ofSeconds(5))).hasMessageContaining("db down");
+        assertThatThrownBy(() -> bus.publish(2).block(Duration.ofSeconds(5))).hasMessageContaining("db down");
+        assertThat(count("failed")).isEqualTo(2);
+    }
+
+    @Test
+    void aConsumerOfASupertypeReceivesEverySubtype() {
+        List<Number> received = new CopyOnWriteArrayList<>();
+        BatchEventConsumer<Number> numbers = new BatchEventConsumer<>() {
+            @Override
+            public String name() {
+                return "test";
+            }
+
+            @Override
+            public Class<Number> eventType() {
+                return Number.class;
+            }
+
+            @Override
+            public Mono<Void> consume(List<Number> batch) {
+                return Mono.fromRunnable(() -> received.addAll(batch));
+            }
+        };
+        bus = bus(numbers, cfg(100, 10, Duration.ofMillis(10), Overflow.REJECT));
+
+        Mono.when(bus.publish(1), bus.publish(2L), bus.publish("text")).block(Duration.ofSeconds(5));
+
+        assertThat(received).containsExactlyInAnyOrder(1, 2L);
+    }
+
+    private double count(String outcome) {
+        return registry.counter("events.consumer.events", "consumer", "test", "outcome", outcome).count();
+    }
+
+    private DomainEventBus bus(BatchEventConsumer<?> consumer, EventBusProperties.Consumer cfg) {
+        EventBusProperties props = new EventBusProperties();
+        props.getConsumers().put(consumer.name(), cfg);
+        @SuppressWarnings("unchecked")
+        ObjectProvider<BatchEventConsumer<?>> consumers = mock(ObjectProvider.class);
+        when(consumers.orderedStream()).thenAnswer(inv -> Stream.of(consumer));
+        return new DomainEventBus(consumers, props, registry);
+    }
+
+    private static EventBusProperties.Consumer cfg(int capacity, int batchSize, Duration timeout, Overflow overflow) {
+        EventBusProperties.Consumer cfg = new EventBusProperties.Consumer();
+        cfg.setCapacity(capacity);
+        cfg.setBatchSize(batchSize);
+        cfg.setBatchTimeout(timeout);
+        cfg.setOverflow(overflow);
+        return cfg;
+    }
+
+    private static final class RecordingConsumer implements BatchEventConsumer<Integer> {
+
+        final List<List<Integer>> batches = new CopyOnWriteArrayList<>();
+        private final Supplier<Mono<Void>> outcome;
+
+        RecordingConsumer(Supplier<Mono<Void>> outcome) {
+            this.outcome = outcome;
+        }
+
+        @Override
+        public String name() {
+            return "test";
+        }
+
+        @Override
+        public Class<Integer> eventType() {
+            return Integer.class;
+        }
+
+        @Override
+        public Mono<Void> consume(List<Integer> batch) {
+            return outcome.get().doOnSuccess(v -> batches.add(batch));
+        }
+    }
+}
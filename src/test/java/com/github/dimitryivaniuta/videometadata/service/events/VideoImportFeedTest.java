@@ -0,0 +1,62 @@
+package com.github.dimitryivaniuta.videometadata.service.events;
+
+import com.github.dimitryivaniuta.videometadata.config.SubscriptionProperties;
+import com.github.dimitryivaniuta.videometadata.domain.event.VideoImportedEvent;
+import com.github.dimitryivaniuta.videometadata.model.VideoProvider;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VideoImportFeedTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void slowSubscriberKeepsTheNewestEventsWithoutHoldingBackOthers() {
+        SubscriptionProperties props = new SubscriptionProperties();
+        props.setBufferSize(4);
+        VideoImportFeed feed = new VideoImportFeed(props, registry);
+
+        List<Long> fast = new CopyOnWriteArrayList<>();
+        feed.subscribe(null).subscribe(evt -> fast.add(evt.id()));
+
+        StepVerifier.create(feed.subscribe(VideoProvider.YOUTUBE).map(VideoImportedEvent::id), 0)
+                .then(() -> feed.consume(LongStream.rangeClosed(1, 10)
+                        .mapToObj(id -> event(id, id % 2 == 0 ? VideoProvider.VIMEO : VideoProvider.YOUTUBE))
+                        .toList()).block())
+                // five YOUTUBE events (1,3,5,7,9) into a buffer of four: the oldest is dropped
+                .thenRequest(10)
+                .expectNext(3L, 5L, 7L, 9L)
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+
+        assertThat(fast).containsExactly(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L);
+        assertThat(registry.counter("graphql.subscriptions.dropped", "field", "videoImported").count())
+                .isEqualTo(1);
+        assertThat(registry.get("graphql.subscriptions.active").gauge().value()).isEqualTo(1);
+        assertThat(feed.subscribers()).isEqualTo(1);
+    }
+
+    @Test
+    void eventsWithoutSubscribersAreDiscarded() {
+        VideoImportFeed feed = new VideoImportFeed(new SubscriptionProperties(), registry);
+        feed.consume(List.of(event(1, VideoProvider.VIMEO))).block(Duration.ofSeconds(1));
+
+        StepVerifier.create(feed.subscribe(null).map(VideoImportedEvent::id))
+                .then(() -> feed.consume(List.of(event(2, VideoProvider.VIMEO))).block())
+                .expectNext(2L)
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    private static VideoImportedEvent event(long id, VideoProvider provider) {
+        return VideoImportedEvent.builder().id(id).provider(provider).title("t" + id).build();
+    }
+}
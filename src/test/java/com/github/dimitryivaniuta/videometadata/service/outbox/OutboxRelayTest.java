@@ -0,0 +1,116 @@
+package com.github.dimitryivaniuta.videometadata.service.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.github.dimitryivaniuta.videometadata.config.OutboxProperties;
+import com.github.dimitryivaniuta.videometadata.domain.event.DomainEventHandler;
+import com.github.dimitryivaniuta.videometadata.domain.event.VideoImportedEvent;
+import com.github.dimitryivaniuta.videometadata.projection.OutboxRow;
+import com.github.dimitryivaniuta.videometadata.repository.OutboxRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OutboxRelayTest {
+
+    private final OutboxRepository outbox = mock(OutboxRepository.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final List<Long> projected = new CopyOnWriteArrayList<>();
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void acknowledgesDeliveredEventsAndReleasesFailedOnes() {
+        OutboxProperties props = new OutboxProperties();
+        props.setBatchSize(3);
+        OutboxRelay relay = relay(props);
+
+        when(outbox.claim(eq(3), any())).thenReturn(
+                Flux.just(row(1, 10, 1), row(2, 20, 1), row(3, 30, 10)),
+                Flux.just(row(4, 40, 1)));
+        when(outbox.delete(any())).thenAnswer(inv -> Mono.just((long) inv.<List<?>>getArgument(0).size()));
+        when(outbox.reschedule(any(), any(), anyString(), anyInt())).thenReturn(Mono.just(1L));
+
+        // full first batch -> immediate second claim; short second batch ends the drain
+        assertThat(relay.drain().block()).isEqualTo(4);
+
+        assertThat(projected).containsExactlyInAnyOrder(10L, 40L);
+        verify(outbox).delete(List.of(1L));
+        verify(outbox).delete(List.of(4L));
+        verify(outbox).reschedule(eq(2L), eq(Duration.ofSeconds(2)), anyString(), eq(10));
+        verify(outbox).reschedule(eq(3L), any(), anyString(), eq(10));
+        assertThat(registry.counter("outbox.events", "type", "VideoImportedEvent", "outcome", "delivered").count())
+                .isEqualTo(2);
+        assertThat(registry.counter("outbox.events", "type", "VideoImportedEvent", "outcome", "retry").count())
+                .isEqualTo(1);
+        assertThat(registry.counter("outbox.events", "type", "VideoImportedEvent", "outcome", "dead").count())
+                .isEqualTo(1);
+        assertThat(registry.timer("outbox.lag", "type", "VideoImportedEvent").count()).isEqualTo(2);
+    }
+
+    @Test
+    void backoffDoublesUpToTheCap() {
+        OutboxProperties props = new OutboxProperties();
+        props.setBackoff(Duration.ofSeconds(1));
+        props.setMaxBackoff(Duration.ofSeconds(10));
+        OutboxRelay relay = relay(props);
+
+        assertThat(Stream.of(1, 2, 3, 4, 5, 40).map(relay::backoff)).containsExactly(
+                Duration.ofSeconds(1), Duration.ofSeconds(2), Duration.ofSeconds(4),
+                Duration.ofSeconds(8), Duration.ofSeconds(10), Duration.ofSeconds(10));
+    }
+
+    @Test
+    void disabledRelayDoesNotClaim() {
+        OutboxProperties props = new OutboxProperties();
+        props.setEnabled(false);
+        relay(props).trigger();
+        verify(outbox, never()).claim(anyInt(), any());
+    }
+
+    private OutboxRelay relay(OutboxProperties props) {
+        DomainEventHandler<VideoImportedEvent> projection = new DomainEventHandler<>() {
+            @Override
+            public Class<VideoImportedEvent> eventType() {
+                return VideoImportedEvent.class;
+            }
+
+            @Override
+            public Mono<Void> handle(VideoImportedEvent event) {
+                // aggregates 20 and 30 are "broken" read-model rows
+                return event.id() == 20 || event.id() == 30
+                        ? Mono.error(new IllegalStateException("projection failed for " + event.id()))
+                        : Mono.fromRunnable(() -> projected.add(event.id()));
+            }
+        };
+        @SuppressWarnings("unchecked")
+        ObjectProvider<DomainEventHandler<?>> handlers = mock(ObjectProvider.class);
+        when(handlers.orderedStream()).thenAnswer(inv -> Stream.of(projection));
+        return new OutboxRelay(outbox, props, new ObjectMapper().registerModule(new JavaTimeModule()),
+                registry, handlers);
+    }
+
+    private static OutboxRow row(long id, long videoId, int attempts) {
+        String payload = """
+                {"id":%d,"externalVideoId":"x%d","title":"t","provider":"YOUTUBE","category":"GENERAL",
+                 "createdAt":"2026-10-19T10:00:00.000000Z"}""".formatted(videoId, videoId);
+        return new OutboxRow(id, videoId, "VideoImportedEvent", payload, Instant.now().minusMillis(50), attempts);
+    }
+}
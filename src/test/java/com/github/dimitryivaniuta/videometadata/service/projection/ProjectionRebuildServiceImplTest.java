@@ -0,0 +1,269 @@
+package com.github.dimitryivaniuta.videometadata.service.projection;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.github.dimitryivaniuta.videometadata.config.ProjectionProperties;
+import com.github.dimitryivaniuta.videometadata.domain.event.TrackingProjection;
+import com.github.dimitryivaniuta.videometadata.domain.event.VideoImportedEvent;
+import com.github.dimitryivaniuta.videometadata.domain.event.VideoMetadataChangedEvent;
+import com.github.dimitryivaniuta.videometadata.model.VideoProvider;
+import com.github.dimitryivaniuta.videometadata.projection.DomainEventRow;
+import com.github.dimitryivaniuta.videometadata.projection.ProjectionToken;
+import com.github.dimitryivaniuta.videometadata.projection.VideoProjectionListener;
+import com.github.dimitryivaniuta.videometadata.repository.DomainEventRepository;
+import com.github.dimitryivaniuta.videometadata.repository.ProjectionTokenRepository;
+import com.github.dimitryivaniuta.videometadata.repository.VideoReadRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProjectionRebuildServiceImplTest {
+
+    private static final int EVENTS = 1_000;
+
+    private final InMemoryLog log = new InMemoryLog(EVENTS);
+    private final InMemoryTokens tokens = new InMemoryTokens();
+    private final RecordingProjection projection = new RecordingProjection();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ProjectionProperties props = new ProjectionProperties();
+
+    @Test
+    void replaysEverySegmentOnceAndReportsThroughput() {
+        props.setReplayBatchSize(64);
+        projection.applied.add(-1L);   // stale state, must be reset
+
+        ProjectionRebuildReport report = service().rebuild("videos", 4, false).block();
+
+        assertThat(report.events()).isEqualTo(EVENTS);
+        assertThat(report.segments()).isEqualTo(4);
+        assertThat(report.head()).isEqualTo(EVENTS);
+        assertThat(report.resumed()).isFalse();
+        assertThat(report.eventsPerSecond()).isPositive();
+        assertThat(projection.applied).containsExactlyInAnyOrderElementsOf(
+                LongStream.rangeClosed(1, EVENTS).map(seq -> seq % 97).boxed().toList());
+        assertThat(tokens.byProcessor("videos")).allMatch(ProjectionToken::caughtUp);
+        assertThat(registry.counter(ProjectionRebuildServiceImpl.METRIC_EVENTS, "projection", "videos").count())
+                .isEqualTo(EVENTS);
+    }
+
+    @Test
+    void resumeContinuesFromStoredTokensWithoutReset() {
+        props.setReplayBatchSize(50);
+        projection.failAfterPages = 3;
+        ProjectionRebuildService service = service();
+
+        assertThatThrownBy(() -> service.rebuild("videos", 2, false).block()).hasMessageContaining("interrupted");
+        int appliedBeforeFailure = projection.applied.size();
+        assertThat(appliedBeforeFailure).isBetween(1, EVENTS - 1);
+
+        projection.failAfterPages = Integer.MAX_VALUE;
+        ProjectionRebuildReport report = service.rebuild("videos", null, true).block();
+
+        assertThat(report.resumed()).isTrue();
+        assertThat(report.segments()).isEqualTo(2);
+        assertThat(projection.resets.get()).isEqualTo(1);
+        // pages applied but not yet recorded may be replayed; nothing is skipped
+        assertThat(projection.applied).hasSizeGreaterThanOrEqualTo(EVENTS);
+        assertThat(projection.applied.stream().distinct().count()).isEqualTo(97);
+        assertThat(tokens.byProcessor("videos")).allMatch(ProjectionToken::caughtUp);
+    }
+
+    @Test
+    void rejectsUnknownProjectionsAndSegmentCounts() {
+        ProjectionRebuildService service = service();
+        assertThat(service.projections()).containsExactly("videos");
+        assertThatThrownBy(() -> service.rebuild("nope", 1, false).block())
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.rebuild("videos", props.getMaxSegments() + 1, false).block())
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void aRefreshedTitleSurvivesARebuildOfTheVideoProjection() throws Exception {
+        ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        Instant refreshedAt = Instant.parse("2026-10-19T12:00:00Z");
+        List<DomainEventRow> rows = List.of(
+                new DomainEventRow(1L, 7L, "VideoImportedEvent", mapper.writeValueAsString(VideoImportedEvent.builder()
+                        .id(7L).title("old").description("d").provider(VideoProvider.YOUTUBE).build())),
+                new DomainEventRow(2L, 8L, "VideoImportedEvent", mapper.writeValueAsString(VideoImportedEvent.builder()
+                        .id(8L).title("other").provider(VideoProvider.VIMEO).build())),
+                new DomainEventRow(3L, 7L, "VideoMetadataChangedEvent", mapper.writeValueAsString(
+                        VideoMetadataChangedEvent.builder().id(7L).provider(VideoProvider.YOUTUBE)
+                                .title("new").refreshedAt(refreshedAt).build())));
+        InMemoryReadModel readModel = new InMemoryReadModel();
+        readModel.titles.put(99L, "stale");
+        props.setReplayBatchSize(1);   // the change lands on a later page than its import
+
+        ProjectionRebuildReport report = service(new VideoProjectionListener(readModel), new ListLog(rows))
+                .rebuild("video-projection", 2, false).block();
+
+        assertThat(report.events()).isEqualTo(3);
+        assertThat(readModel.titles).containsExactlyInAnyOrderEntriesOf(Map.of(7L, "new", 8L, "other"));
+    }
+
+    private ProjectionRebuildService service() {
+        return service(projection, log);
+    }
+
+    private ProjectionRebuildService service(TrackingProjection<?> tracked, DomainEventRepository events) {
+        @SuppressWarnings("unchecked")
+        ObjectProvider<TrackingProjection<?>> projections = mock(ObjectProvider.class);
+        when(projections.orderedStream()).thenAnswer(inv -> Stream.of(tracked));
+        return new ProjectionRebuildServiceImpl(projections, events, tokens, props,
+                new ObjectMapper().registerModule(new JavaTimeModule()), registry);
+    }
+
+    /** Fixed log rows; all segments see the same types, so filtering mirrors the SQL. */
+    private record ListLog(List<DomainEventRow> rows) implements DomainEventRepository {
+
+        @Override
+        public Mono<Long> headSequence() {
+            return Mono.just((long) rows.size());
+        }
+
+        @Override
+        public Flux<DomainEventRow> readSegment(Collection<String> eventTypes, long after, long upTo,
+                                                int segment, int segments, int limit) {
+            return Flux.fromIterable(rows)
+                    .filter(row -> row.seq() > after && row.seq() <= upTo && eventTypes.contains(row.eventType()))
+                    .filter(row -> row.aggregateId() % segments == segment)
+                    .take(limit);
+        }
+    }
+
+    /** Titles by video id. */
+    private static final class InMemoryReadModel implements VideoReadRepository {
+
+        final Map<Long, String> titles = new ConcurrentHashMap<>();
+
+        @Override
+        public Mono<Long> upsert(Collection<VideoImportedEvent> events) {
+            return Mono.fromCallable(() -> {
+                events.forEach(e -> titles.put(e.id(), e.title()));
+                return (long) events.size();
+            });
+        }
+
+        @Override
+        public Mono<Long> applyChanges(Collection<VideoMetadataChangedEvent> events) {
+            return Mono.fromCallable(() -> events.stream()
+                    .filter(e -> titles.computeIfPresent(e.id(), (id, old) -> e.title()) != null)
+                    .count());
+        }
+
+        @Override
+        public Mono<Void> truncate() {
+            return Mono.fromRunnable(titles::clear);
+        }
+    }
+
+    /** seq 1..n; 97 aggregates, so each aggregate has several events. */
+    private record InMemoryLog(int size) implements DomainEventRepository {
+
+        @Override
+        public Mono<Long> headSequence() {
+            return Mono.just((long) size);
+        }
+
+        @Override
+        public Flux<DomainEventRow> readSegment(Collection<String> eventTypes, long after, long upTo,
+                                                int segment, int segments, int limit) {
+            return Flux.fromStream(LongStream.rangeClosed(after + 1, upTo).boxed())
+                    .filter(seq -> (seq % 97) % segments == segment)
+                    .take(limit)
+                    .map(seq -> new DomainEventRow(seq, seq % 97, "VideoImportedEvent", """
+                            {"id":%d,"title":"t","provider":"YOUTUBE"}""".formatted(seq % 97)));
+        }
+    }
+
+    private static final class InMemoryTokens implements ProjectionTokenRepository {
+
+        private final Map<String, Map<Integer, ProjectionToken>> store = new ConcurrentHashMap<>();
+
+        List<ProjectionToken> byProcessor(String processor) {
+            return List.copyOf(store.getOrDefault(processor, Map.of()).values());
+        }
+
+        @Override
+        public Flux<ProjectionToken> reset(String processor, int segments, long head) {
+            Map<Integer, ProjectionToken> fresh = new TreeMap<>();
+            for (int s = 0; s < segments; s++) {
+                fresh.put(s, new ProjectionToken(processor, s, segments, 0, head));
+            }
+            store.put(processor, new ConcurrentHashMap<>(fresh));
+            return Flux.fromIterable(fresh.values());
+        }
+
+        @Override
+        public Flux<ProjectionToken> findAll(String processor) {
+            return Flux.fromIterable(new TreeMap<>(store.getOrDefault(processor, Map.of())).values());
+        }
+
+        @Override
+        public Mono<Long> advance(String processor, int segment, long position) {
+            // lazy, like the statement it stands in for
+            return Mono.fromCallable(() -> {
+                store.get(processor).computeIfPresent(segment, (k, t) -> new ProjectionToken(
+                        t.processor(), t.segment(), t.segmentCount(), Math.max(t.position(), position), t.head()));
+                return 1L;
+            });
+        }
+    }
+
+    private static final class RecordingProjection implements TrackingProjection<VideoImportedEvent> {
+
+        final List<Long> applied = new CopyOnWriteArrayList<>();
+        final AtomicInteger resets = new AtomicInteger();
+        final AtomicInteger pages = new AtomicInteger();
+        final AtomicBoolean failed = new AtomicBoolean();
+        volatile int failAfterPages = Integer.MAX_VALUE;
+
+        @Override
+        public String name() {
+            return "videos";
+        }
+
+        @Override
+        public List<Class<? extends VideoImportedEvent>> eventTypes() {
+            return List.of(VideoImportedEvent.class);
+        }
+
+        @Override
+        public Mono<Void> reset() {
+            return Mono.fromRunnable(() -> {
+                resets.incrementAndGet();
+                applied.clear();
+            });
+        }
+
+        @Override
+        public Mono<Void> apply(List<VideoImportedEvent> events) {
+            return Mono.defer(() -> {
+                if (pages.incrementAndGet() > failAfterPages && failed.compareAndSet(false, true)) {
+                    return Mono.error(new IllegalStateException("interrupted"));
+                }
+                events.forEach(e -> applied.add(e.id()));
+                return Mono.empty();
+            });
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.github.dimitryivaniuta.videometadata.service.refresh;
+
+import com.github.dimitryivaniuta.videometadata.config.VideoRefreshProperties;
+import com.github.dimitryivaniuta.videometadata.domain.event.VideoMetadataChangedEvent;
+import com.github.dimitryivaniuta.videometadata.model.Video;
+import com.github.dimitryivaniuta.videometadata.model.VideoProvider;
+import com.github.dimitryivaniuta.videometadata.projection.RefreshBacklogRow;
+import com.github.dimitryivaniuta.videometadata.repository.VideoRepository;
+import com.github.dimitryivaniuta.videometadata.service.cache.CacheInvalidationService;
+import com.github.dimitryivaniuta.videometadata.service.outbox.OutboxAppendedEvent;
+import com.github.dimitryivaniuta.videometadata.service.videoprovider.ExternalMetadataClient;
+import com.github.dimitryivaniuta.videometadata.support.InMemoryRefreshBudget;
+import com.github.dimitryivaniuta.videometadata.web.dto.imports.Metadata;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class VideoRefreshServiceImplTest {
+
+    private static final Instant NOW = Instant.parse("2026-10-19T12:00:00Z");
+
+    @Test
+    void prioritizeRanksStaleAndPopularFirstAndCutsToBudget() {
+        Video fresh   = video(1, Duration.ofDays(2), 0);
+        Video stale   = video(2, Duration.ofDays(10), 0);
+        Video popular = video(3, Duration.ofDays(2), 1_000_000);
+        Video tail    = video(4, Duration.ofDays(3), 10);
+
+        List<List<Video>> batches = VideoRefreshServiceImpl.prioritize(
+                List.of(fresh, stale, popular, tail), 3, 2, NOW);
+
+        // 2 days * (1 + log10(1e6+1)) ≈ 14 day-equivalents > 10 days unweighted
+        assertThat(batches).hasSize(2);
+        assertThat(batches.get(0)).extracting(Video::getId).containsExactly(3L, 2L);
+        assertThat(batches.get(1)).extracting(Video::getId).containsExactly(4L);
+    }
+
+    @Test
+    void budgetGrantsUpToTheDailyQuotaOfAllNodesAndRollsOverAtUtcMidnight() {
+        MutableClock clock = new MutableClock(NOW);
+        InMemoryRefreshBudget shared = new InMemoryRefreshBudget();
+        RefreshBudget node1 = new RefreshBudget(VideoProvider.YOUTUBE, 10, shared, clock);
+        RefreshBudget node2 = new RefreshBudget(VideoProvider.YOUTUBE, 10, shared, clock);
+
+        assertThat(node1.acquire(6).block().calls()).isEqualTo(6);
+        RefreshBudget.Grant second = node2.acquire(6).block();
+        assertThat(second.calls()).isEqualTo(4);
+        assertThat(node1.acquire(1).block().calls()).isZero();
+
+        node2.release(second, 3).block();
+        assertThat(node2.remaining()).isEqualTo(3);
+        assertThat(node1.acquire(5).block().calls()).isEqualTo(3);
+
+        clock.now = NOW.plus(Duration.ofHours(13));
+        assertThat(node1.remaining()).isEqualTo(10);
+        assertThat(node2.acquire(4).block().calls()).isEqualTo(4);
+    }
+
+    @Test
+    void aNodeFindingTheSharedBudgetSpentReleasesItsClaim() {
+        List<Video> claimed = List.of(video(1, Duration.ofDays(2), 0), video(2, Duration.ofDays(3), 0));
+        VideoRepository videoRepo = mock(VideoRepository.class);
+        when(videoRepo.refreshBacklog(eq(VideoProvider.YOUTUBE), any()))
+                .thenReturn(Mono.just(new RefreshBacklogRow(2L, NOW)));
+        when(videoRepo.claimRefreshCandidates(eq(VideoProvider.YOUTUBE), any(), anyInt(), anyDouble()))
+                .thenReturn(Flux.fromIterable(claimed));
+        List<Long> released = new ArrayList<>();
+        when(videoRepo.releaseRefreshClaims(anyCollection())).thenAnswer(inv -> {
+            released.addAll(inv.<Collection<Long>>getArgument(0));
+            return Mono.just(released.size());
+        });
+        when(videoRepo.applyRefresh(anyList(), anyCollection(), anyCollection(), any())).thenReturn(Mono.just(0L));
+
+        ExternalMetadataClient meta = mock(ExternalMetadataClient.class);
+        when(meta.maxBatchSize(VideoProvider.YOUTUBE)).thenReturn(1);
+        when(meta.fetchBatch(eq(VideoProvider.YOUTUBE), anyList())).thenReturn(Flux.empty());
+
+        VideoRefreshProperties.Budget budget = new VideoRefreshProperties.Budget();
+        budget.setCallsPerDay(1);
+        VideoRefreshProperties props = new VideoRefreshProperties();
+        props.getProviders().put("youtube", budget);
+        InMemoryRefreshBudget shared = new InMemoryRefreshBudget();
+
+        RefreshReport first = service(videoRepo, meta, props, shared, event -> { })
+                .refreshStale(VideoProvider.YOUTUBE).block();
+        assertThat(first.calls()).isEqualTo(1);
+        assertThat(released).containsExactly(1L);   // the less stale one goes back at once
+
+        released.clear();
+        RefreshReport second = service(videoRepo, meta, props, shared, event -> { })
+                .refreshStale(VideoProvider.YOUTUBE).block();
+        assertThat(second.calls()).isZero();
+        assertThat(released).containsExactlyInAnyOrder(1L, 2L);
+    }
+
+    @Test
+    void changeEventsGoToTheOutboxStatementInsteadOfTheApplicationPublisher() {
+        Video renamed   = video(1, Duration.ofDays(2), 10);
+        Video unchanged = video(2, Duration.ofDays(2), 10);
+        renamed.setTitle("old");
+        unchanged.setTitle("same");
+
+        VideoRepository videoRepo = mock(VideoRepository.class);
+        when(videoRepo.refreshBacklog(eq(VideoProvider.YOUTUBE), any()))
+                .thenReturn(Mono.just(new RefreshBacklogRow(2L, NOW)));
+        when(videoRepo.claimRefreshCandidates(eq(VideoProvider.YOUTUBE), any(), anyInt(), anyDouble()))
+                .thenReturn(Flux.just(renamed, unchanged));
+        List<VideoMetadataChangedEvent> appended = new ArrayList<>();
+        when(videoRepo.applyRefresh(anyList(), anyCollection(), anyCollection(), any())).thenAnswer(inv -> {
+            appended.addAll(inv.<Collection<VideoMetadataChangedEvent>>getArgument(1));
+            return Mono.just((long) appended.size());
+        });
+
+        ExternalMetadataClient meta = mock(ExternalMetadataClient.class);
+        when(meta.maxBatchSize(VideoProvider.YOUTUBE)).thenReturn(50);
+        when(meta.fetchBatch(eq(VideoProvider.YOUTUBE), anyList())).thenReturn(Flux.just(
+                Metadata.builder().externalVideoId("v1").title("new").viewCount(10L).build(),
+                Metadata.builder().externalVideoId("v2").title("same").viewCount(10L).build()));
+
+        CacheInvalidationService invalidation = mock(CacheInvalidationService.class);
+        when(invalidation.invalidate(anyString(), anyCollection())).thenReturn(Mono.empty());
+
+        VideoRefreshProperties props = new VideoRefreshProperties();
+        props.getProviders().put("youtube", new VideoRefreshProperties.Budget());
+        List<Object> published = new ArrayList<>();
+        VideoRefreshServiceImpl service = new VideoRefreshServiceImpl(videoRepo, meta, published::add, props,
+                new SimpleMeterRegistry(), invalidation, new InMemoryRefreshBudget());
+
+        RefreshReport report = service.refreshStale(VideoProvider.YOUTUBE).block();
+
+        assertThat(report.changed()).isEqualTo(1);
+        assertThat(appended).singleElement().satisfies(e -> {
+            assertThat(e.id()).isEqualTo(1L);
+            assertThat(e.title()).isEqualTo("new");
+        });
+        // only the relay nudge; the event itself travels through the outbox
+        assertThat(published).containsExactly(new OutboxAppendedEvent(1));
+    }
+
+    private static VideoRefreshServiceImpl service(VideoRepository videoRepo, ExternalMetadataClient meta,
+                                                   VideoRefreshProperties props, InMemoryRefreshBudget budget,
+                                                   ApplicationEventPublisher publisher) {
+        CacheInvalidationService invalidation = mock(CacheInvalidationService.class);
+        when(invalidation.invalidate(anyString(), anyCollection())).thenReturn(Mono.empty());
+        return new VideoRefreshServiceImpl(videoRepo, meta, publisher, props, new SimpleMeterRegistry(),
+                invalidation, budget);
+    }
+
+    private static Video video(long id, Duration sinceCheck, long views) {
+        return Video.builder()
+                .id(id)
+                .externalVideoId("v" + id)
+                .lastRefreshedAt(NOW.minus(sinceCheck))
+                .viewCount(views)
+                .build();
+    }
+
+    private static final class MutableClock extends Clock {
+        Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.github.dimitryivaniuta.videometadata.service.revocation;
+
+import com.github.dimitryivaniuta.videometadata.config.SecurityJwtProperties;
+import com.github.dimitryivaniuta.videometadata.config.TokenProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.ReactiveSubscription.ChannelMessage;
+import org.springframework.data.redis.connection.ReactiveSubscription.Message;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.ReactiveValueOperations;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.security.oauth2.jwt.Jwt;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TokenRevocationServiceImplTest {
+
+    private final Map<String, String> store = new ConcurrentHashMap<>();
+    private final Sinks.Many<Message<String, String>> channel = Sinks.many().multicast().directBestEffort();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private TokenRevocationServiceImpl service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        ReactiveStringRedisTemplate redis = mock(ReactiveStringRedisTemplate.class);
+        ReactiveValueOperations<String, String> ops = mock(ReactiveValueOperations.class);
+        when(redis.opsForValue()).thenReturn(ops);
+        when(ops.set(anyString(), anyString(), any(Duration.class))).thenAnswer(inv -> {
+            store.put(inv.getArgument(0), inv.getArgument(1));
+            return Mono.just(true);
+        });
+        when(ops.get(anyString())).thenAnswer(inv -> Mono.justOrEmpty(store.get(inv.<String>getArgument(0))));
+        when(ops.multiGet(any())).thenAnswer(inv -> Mono.just(
+                inv.<List<String>>getArgument(0).stream().map(store::get).toList()));
+        when(redis.hasKey(anyString())).thenAnswer(inv -> Mono.just(store.containsKey(inv.<String>getArgument(0))));
+        when(redis.scan(any(ScanOptions.class))).thenAnswer(inv -> {
+            String prefix = inv.<ScanOptions>getArgument(0).getPattern().replace("*", "");
+            return Flux.fromStream(store.keySet().stream().filter(k -> k.startsWith(prefix)));
+        });
+        // published messages loop back, as Redis delivers them to the publisher too
+        when(redis.convertAndSend(anyString(), anyString())).thenAnswer(inv -> {
+            channel.tryEmitNext(new ChannelMessage<>(inv.getArgument(0), inv.getArgument(1)));
+            return Mono.just(1L);
+        });
+        when(redis.listenToChannelLater(anyString())).thenAnswer(inv -> Mono.just(channel.asFlux()));
+
+        TokenProperties props = new TokenProperties();
+        props.getRevocation().setExpectedInsertions(1_000);
+        SecurityJwtProperties jwt = new SecurityJwtProperties();
+        jwt.setExpirationSeconds(900);
+        jwt.setRefreshExpirationSeconds(604_800);
+        service = new TokenRevocationServiceImpl(redis, props, jwt, registry);
+    }
+
+    @AfterEach
+    void stop() {
+        service.stop();
+    }
+
+    @Test
+    void revokedTokensAreRejectedAndOthersPassWithoutRedis() {
+        Jwt early = token(7L, Instant.now().minusSeconds(60));
+        store.put("jwt:revoked:jti:" + early.getId(), "1");   // revoked before this node started
+        service.start();
+        await().atMost(Duration.ofSeconds(5)).until(service::isSynced);
+
+        Jwt revoked = token(7L, Instant.now());
+        service.revoke(revoked).block();
+
+        assertThat(service.isRevoked(early).block()).isTrue();
+        assertThat(service.isRevoked(revoked).block()).isTrue();
+        List<Jwt> valid = IntStream.range(0, 200).mapToObj(i -> token(8L, Instant.now())).toList();
+        assertThat(valid).allSatisfy(t -> assertThat(service.isRevoked(t).block()).isFalse());
+
+        assertThat(checks("revoked")).isEqualTo(2);
+        assertThat(checks("negative") + checks("false_positive")).isEqualTo(200);
+        assertThat(checks("false_positive")).isLessThan(5);
+        assertThat(registry.get("token.revocation.filter.fpp").gauge().value()).isLessThan(0.001);
+    }
+
+    @Test
+    void revocationsFromOtherNodesArriveOverPubSub() {
+        service.start();
+        await().atMost(Duration.ofSeconds(5)).until(service::isSynced);
+
+        Jwt token = token(9L, Instant.now());
+        store.put("jwt:revoked:jti:" + token.getId(), "1");
+        channel.tryEmitNext(new ChannelMessage<>("jwt:revocations", "j:" + token.getId()));
+
+        assertThat(service.isRevoked(token).block()).isTrue();
+    }
+
+    @Test
+    void revokeAllForUserCutsOffEarlierTokensOnly() {
+        service.start();
+        await().atMost(Duration.ofSeconds(5)).until(service::isSynced);
+        Jwt before = token(5L, Instant.now().minusSeconds(30));
+
+        service.revokeAllForUser(5L).block();
+
+        assertThat(service.isRevoked(before).block()).isTrue();
+        assertThat(service.isRevoked(token(5L, Instant.now().plusSeconds(2))).block()).isFalse();
+        assertThat(service.isRevoked(token(6L, Instant.now().minusSeconds(30))).block()).isFalse();
+        assertThat(store).containsKey("jwt:revoked:user:5");
+    }
+
+    @Test
+    void checksRedisDirectlyUntilSynced() {
+        Jwt token = token(3L, Instant.now());
+        store.put("jwt:revoked:jti:" + token.getId(), "1");
+
+        // never started: no subscription, no filter
+        assertThat(service.isSynced()).isFalse();
+        assertThat(service.isRevoked(token).block()).isTrue();
+        assertThat(service.isRevoked(token(3L, Instant.now())).block()).isFalse();
+        assertThat(checks("unfiltered")).isEqualTo(1);
+    }
+
+    @Test
+    void bloomFilterHasNoFalseNegativesAndStaysNearItsTargetRate() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        List<String> added = IntStream.range(0, 10_000).mapToObj(i -> UUID.randomUUID().toString()).toList();
+        added.forEach(filter::put);
+
+        assertThat(added).allMatch(filter::mightContain);
+        long falsePositives = IntStream.range(0, 10_000)
+                .filter(i -> filter.mightContain(UUID.randomUUID().toString()))
+                .count();
+        assertThat(falsePositives).isLessThan(200);
+        assertThat(filter.expectedFalsePositiveRate()).isBetween(0.005, 0.015);
+    }
+
+    private double checks(String result) {
+        return registry.counter(TokenRevocationServiceImpl.METRIC, "result", result).count();
+    }
+
+    private static Jwt token(Long userId, Instant issuedAt) {
+        return Jwt.withTokenValue("t")
+                .header("alg", "RS256")
+                .jti(UUID.randomUUID().toString())
+                .subject("user" + userId)
+                .claim("uid", userId)
+                .issuedAt(issuedAt)
+                .expiresAt(issuedAt.plusSeconds(900))
+                .build();
+    }
+}
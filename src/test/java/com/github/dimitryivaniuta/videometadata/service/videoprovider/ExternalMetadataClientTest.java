@@ -0,0 +1,72 @@
+package com.github.dimitryivaniuta.videometadata.service.videoprovider;
+
+import com.github.dimitryivaniuta.videometadata.config.VideoProvidersProperties;
+import com.github.dimitryivaniuta.videometadata.model.VideoProvider;
+import com.github.dimitryivaniuta.videometadata.support.ProviderStandIn;
+import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ExternalMetadataClientTest {
+
+    @Test
+    void buildsConfiguredAdaptersAndWarmsThemUp() {
+        try (ProviderStandIn standIn = ProviderStandIn.builder().start()) {
+            ExternalMetadataClient client = client(Map.of(
+                    "youtube", standIn.youtubeConfig(),
+                    "vimeo", standIn.vimeoConfig()));
+
+            assertThat(client.configuredProviders())
+                    .containsExactlyInAnyOrder(VideoProvider.YOUTUBE, VideoProvider.VIMEO);
+            client.warmUp(VideoProvider.YOUTUBE, 2).block(Duration.ofSeconds(5));
+            client.warmUp(VideoProvider.VIMEO, 2).block(Duration.ofSeconds(5));
+            // warm-up is not an API call: nothing reaches the provider routes or the quota
+            assertThat(standIn.requests()).isZero();
+        }
+    }
+
+    @Test
+    void failsFastOnMisconfiguredProviders() {
+        VideoProvidersProperties.Provider noUrl = new VideoProvidersProperties.Provider();
+        noUrl.setApiKey("key");
+        assertThatThrownBy(() -> client(Map.of("youtube", noUrl)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("video.providers.youtube.base-url");
+
+        VideoProvidersProperties.Provider noToken = new VideoProvidersProperties.Provider();
+        noToken.setBaseUrl("https://api.vimeo.com");
+        assertThatThrownBy(() -> client(Map.of("vimeo", noToken)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("video.providers.vimeo.access-token");
+
+        VideoProvidersProperties.Provider relative = new VideoProvidersProperties.Provider();
+        relative.setBaseUrl("/youtube/v3");
+        relative.setApiKey("key");
+        assertThatThrownBy(() -> client(Map.of("youtube", relative)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("absolute");
+
+        assertThatThrownBy(() -> client(Map.of("vimeo2", noToken)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("vimeo2");
+    }
+
+    @Test
+    void unconfiguredProviderIsRejectedPerCall() {
+        ExternalMetadataClient client = client(Map.of());
+        assertThatThrownBy(() -> client.fetch(VideoProvider.VIMEO, "1").block())
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static ExternalMetadataClient client(Map<String, VideoProvidersProperties.Provider> providers) {
+        VideoProvidersProperties props = new VideoProvidersProperties();
+        props.setProviders(providers);
+        return new ExternalMetadataClient(props, WebClient.builder(), RateLimiterRegistry.ofDefaults());
+    }
+}
@@ -0,0 +1,96 @@
+package com.github.dimitryivaniuta.videometadata.service.videoprovider;
+
+import com.github.dimitryivaniuta.videometadata.config.VideoProvidersProperties;
+import com.github.dimitryivaniuta.videometadata.support.ProviderStandIn;
+import com.github.dimitryivaniuta.videometadata.web.dto.imports.Metadata;
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RateLimiterConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Publisher import against the embedded Vimeo stand-in serving a 60-page account.
+ * Serial and parallel timings are compared in {@code VimeoPageFetchBenchmark}.
+ */
+class VimeoAdapterTest {
+
+    private static final int TOTAL        = 3_000;
+    private static final int PER_PAGE     = 50;
+    private static final int PAGES        = TOTAL / PER_PAGE;
+    private static final Duration LATENCY = Duration.ofMillis(40);
+    private static final int CONCURRENCY  = 8;
+
+    private ProviderStandIn standIn;
+
+    @BeforeEach
+    void startStandIn() {
+        standIn = ProviderStandIn.builder()
+                .latency(LATENCY)
+                .channel("stand-in", TOTAL)
+                .start();
+    }
+
+    @AfterEach
+    void stopStandIn() {
+        standIn.close();
+    }
+
+    @Test
+    void fetchByPublisherPrefetchesPagesInParallelAndKeepsOrder() {
+        assertThat(importAll(CONCURRENCY)).extracting(Metadata::externalVideoId)
+                .containsExactlyElementsOf(IntStream.rangeClosed(1, TOTAL).mapToObj(String::valueOf).toList());
+        assertThat(standIn.requests("vimeo.userVideos")).isEqualTo(PAGES);
+        assertThat(standIn.maxInFlight()).isBetween(2, CONCURRENCY);
+    }
+
+    @Test
+    void aPageConcurrencyOfOneFetchesOnePageAtATime() {
+        assertThat(importAll(1)).hasSize(TOTAL);
+        assertThat(standIn.requests("vimeo.userVideos")).isEqualTo(PAGES);
+        assertThat(standIn.maxInFlight()).isEqualTo(1);
+    }
+
+    private List<Metadata> importAll(int concurrency) {
+        VimeoAdapter adapter = new VimeoAdapter(providerConfig(concurrency), unlimited());
+        return adapter.fetchByPublisher("stand-in").collectList().block(Duration.ofSeconds(30));
+    }
+
+    @Test
+    void fetchByPublisherHonoursRateLimiter() {
+        RateLimiter limiter = RateLimiter.of("stand-in", RateLimiterConfig.custom()
+                .limitForPeriod(20)
+                .limitRefreshPeriod(Duration.ofMillis(500))
+                .timeoutDuration(Duration.ofSeconds(10))
+                .build());
+        VimeoAdapter adapter = new VimeoAdapter(providerConfig(CONCURRENCY), limiter);
+
+        long start = System.nanoTime();
+        Long count = adapter.fetchByPublisher("stand-in").count().block(Duration.ofSeconds(30));
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        assertThat(count).isEqualTo(TOTAL);
+        // 60 permits at 20 per 500 ms cannot complete within the first two refresh periods
+        assertThat(elapsed).isGreaterThanOrEqualTo(Duration.ofMillis(1_000));
+    }
+
+    private VideoProvidersProperties.Provider providerConfig(int concurrency) {
+        VideoProvidersProperties.Provider cfg = standIn.vimeoConfig();
+        cfg.setPageSize(PER_PAGE);
+        cfg.setPageConcurrency(concurrency);
+        return cfg;
+    }
+
+    private static RateLimiter unlimited() {
+        return RateLimiter.of("unlimited", RateLimiterConfig.custom()
+                .limitForPeriod(Integer.MAX_VALUE)
+                .limitRefreshPeriod(Duration.ofSeconds(1))
+                .build());
+    }
+}
@@ -0,0 +1,166 @@
+package com.github.dimitryivaniuta.videometadata.support;
+
+import com.github.dimitryivaniuta.videometadata.model.PublisherSyncState;
+import com.github.dimitryivaniuta.videometadata.model.Video;
+import com.github.dimitryivaniuta.videometadata.model.VideoProvider;
+import com.github.dimitryivaniuta.videometadata.repository.PublisherSyncStateRepository;
+import com.github.dimitryivaniuta.videometadata.repository.VideoRepository;
+import org.springframework.dao.DuplicateKeyException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory stand-in for the video and sync-state repositories that counts
+ * DB round trips: every repository call is one statement, as it would be
+ * against Postgres. An optional per-call delay approximates network + query time.
+ * Only the methods used by the import paths are implemented.
+ */
+public final class CountingVideoStore {
+
+    private final Duration roundTrip;
+    private final LongAdder roundTrips = new LongAdder();
+    private final AtomicLong ids = new AtomicLong();
+    private final Map<String, Video> videos = new ConcurrentHashMap<>();
+    private final Map<String, PublisherSyncState> syncStates = new ConcurrentHashMap<>();
+
+    public CountingVideoStore(Duration roundTrip) {
+        this.roundTrip = roundTrip;
+    }
+
+    public long roundTrips() {
+        return roundTrips.sum();
+    }
+
+    public int size() {
+        return videos.size();
+    }
+
+    public void reset() {
+        roundTrips.reset();
+        videos.clear();
+        syncStates.clear();
+    }
+
+    public VideoRepository videoRepository() {
+        return (VideoRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{VideoRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "findByProviderAndExternalVideoId" ->
+                            call(Mono.fromSupplier(() -> videos.get(key((VideoProvider) args[0], (String) args[1]))));
+                    case "findAllByProviderAndExternalVideoIdIn" -> call(Flux.fromStream(() ->
+                            ((Collection<?>) args[1]).stream()
+                                    .map(id -> videos.get(key((VideoProvider) args[0], (String) id)))
+                                    .filter(v -> v != null)));
+                    case "save" -> call(Mono.fromCallable(() -> insert((Video) args[0])));
+                    case "insertBatch" -> call(Flux.fromStream(() -> {
+                        @SuppressWarnings("unchecked")
+                        List<Video> batch = (List<Video>) args[0];
+                        return batch.stream().filter(v -> videos.putIfAbsent(key(v), v) == null)
+                                .peek(v -> stamp(v));
+                    }));
+                    case "toString" -> "CountingVideoRepository";
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> throw new UnsupportedOperationException("VideoRepository." + method.getName());
+                });
+    }
+
+    public PublisherSyncStateRepository syncStateRepository() {
+        return (PublisherSyncStateRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{PublisherSyncStateRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "findByProviderAndPublisher" ->
+                            call(Mono.fromSupplier(() -> syncStates.get(args[0] + ":" + args[1])));
+                    case "upsert" -> call(Mono.fromSupplier(() -> upsert((PublisherSyncState) args[0])));
+                    case "toString" -> "CountingSyncStateRepository";
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> throw new UnsupportedOperationException("PublisherSyncStateRepository." + method.getName());
+                });
+    }
+
+    /** The stored sync state of a publisher, or null. */
+    public PublisherSyncState syncState(VideoProvider provider, String publisher) {
+        return syncStates.get(provider + ":" + publisher);
+    }
+
+    /** As the ON CONFLICT statement: one row per publisher, watermark and counters only move forward. */
+    private PublisherSyncState upsert(PublisherSyncState s) {
+        PublisherSyncState row = syncStates.compute(s.getProvider() + ":" + s.getPublisher(), (key, old) -> {
+            if (old == null) {
+                return copy(s, ids.incrementAndGet());
+            }
+            PublisherSyncState merged = copy(old, old.getId());
+            if (old.getLastPublishedAt() == null || (s.getLastPublishedAt() != null
+                    && !s.getLastPublishedAt().isBefore(old.getLastPublishedAt()))) {
+                merged.setLastPublishedAt(s.getLastPublishedAt());
+                merged.setLastExternalVideoId(s.getLastExternalVideoId());
+            }
+            merged.setLastPageToken(s.getLastPageToken());
+            merged.setVideosSeen(Math.max(old.getVideosSeen(), s.getVideosSeen()));
+            merged.setVideosImported(Math.max(old.getVideosImported(), s.getVideosImported()));
+            merged.setSyncCount(Math.max(old.getSyncCount(), s.getSyncCount()));
+            if (old.getLastSyncedAt() == null || (s.getLastSyncedAt() != null
+                    && s.getLastSyncedAt().isAfter(old.getLastSyncedAt()))) {
+                merged.setLastSyncedAt(s.getLastSyncedAt());
+            }
+            return merged;
+        });
+        return copy(row, row.getId());
+    }
+
+    private static PublisherSyncState copy(PublisherSyncState s, Long id) {
+        return new PublisherSyncState(id, s.getProvider(), s.getPublisher(), s.getLastPublishedAt(),
+                s.getLastExternalVideoId(), s.getLastPageToken(), s.getVideosSeen(), s.getVideosImported(),
+                s.getSyncCount(), s.getLastSyncedAt());
+    }
+
+    private Video insert(Video v) {
+        if (v.getId() != null) {
+            videos.put(key(v), v);
+            return v;
+        }
+        if (videos.putIfAbsent(key(v), v) != null) {
+            throw new DuplicateKeyException("videos(source, external_video_id) " + key(v));
+        }
+        return stamp(v);
+    }
+
+    private Video stamp(Video v) {
+        v.setId(ids.incrementAndGet());
+        if (v.getCreatedAt() == null) {
+            v.setCreatedAt(Instant.now());
+        }
+        return v;
+    }
+
+    private <T> Mono<T> call(Mono<T> statement) {
+        return Mono.defer(() -> {
+            roundTrips.increment();
+            return roundTrip.isZero() ? statement : Mono.delay(roundTrip).then(statement);
+        });
+    }
+
+    private <T> Flux<T> call(Flux<T> statement) {
+        return Flux.defer(() -> {
+            roundTrips.increment();
+            return roundTrip.isZero() ? statement : Mono.delay(roundTrip).thenMany(statement);
+        });
+    }
+
+    private static String key(Video v) {
+        return key(v.getProvider(), v.getExternalVideoId());
+    }
+
+    private static String key(VideoProvider provider, String externalVideoId) {
+        return provider + ":" + externalVideoId;
+    }
+}
@@ -0,0 +1,50 @@
+package com.github.dimitryivaniuta.videometadata.support;
+
+import com.github.dimitryivaniuta.videometadata.model.VideoProvider;
+import com.github.dimitryivaniuta.videometadata.projection.RefreshBudgetRow;
+import com.github.dimitryivaniuta.videometadata.repository.RefreshBudgetRepository;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * In-memory stand-in for the shared {@code refresh_budget} counter; one
+ * instance shared by several services behaves like one database for them.
+ */
+public final class InMemoryRefreshBudget implements RefreshBudgetRepository {
+
+    private final Map<String, Long> used = new HashMap<>();
+
+    @Override
+    public Mono<RefreshBudgetRow> acquire(VideoProvider provider, LocalDate day, int wanted, long callsPerDay) {
+        return Mono.fromSupplier(() -> {
+            synchronized (used) {
+                long old = used.getOrDefault(key(provider, day), 0L);
+                int granted = (int) Math.max(0, Math.min(wanted, callsPerDay - old));
+                used.put(key(provider, day), old + granted);
+                return new RefreshBudgetRow(granted, old + granted);
+            }
+        });
+    }
+
+    @Override
+    public Mono<Long> release(VideoProvider provider, LocalDate day, int calls) {
+        return Mono.fromSupplier(() -> {
+            synchronized (used) {
+                return used.computeIfPresent(key(provider, day), (k, old) -> Math.max(0, old - calls)) == null ? 0L : 1L;
+            }
+        });
+    }
+
+    public long used(VideoProvider provider, LocalDate day) {
+        synchronized (used) {
+            return used.getOrDefault(key(provider, day), 0L);
+        }
+    }
+
+    private static String key(VideoProvider provider, LocalDate day) {
+        return provider + ":" + day;
+    }
+}
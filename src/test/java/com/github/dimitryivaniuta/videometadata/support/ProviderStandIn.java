@@ -0,0 +1,328 @@
+package com.github.dimitryivaniuta.videometadata.support;
+
+import com.github.dimitryivaniuta.videometadata.config.VideoProvidersProperties;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Embedded Reactor Netty stand-in for the YouTube Data API and Vimeo API
+ * subset the adapters call. Serves deterministic synthetic videos so imports
+ * can be tested and benchmarked without network access or API quota.
+ * <p>
+ * YouTube: {@code /search} (channel lookup, channel uploads newest first) and
+ * {@code /videos?id=a,b,c}. Vimeo: {@code /videos/{id}}, {@code /videos?uris=}
+ * and {@code /users/{user}/videos}. Ids starting with {@code missing} are unknown.
+ * <pre>{@code
+ * try (ProviderStandIn standIn = ProviderStandIn.builder()
+ *         .latency(Duration.ofMillis(40))
+ *         .channel("acme", 500)
+ *         .start()) {
+ *     VideoProvidersProperties.Provider yt = standIn.youtubeConfig();
+ * }
+ * }</pre>
+ */
+public final class ProviderStandIn implements AutoCloseable {
+
+    private static final Instant NEWEST = Instant.parse("2025-01-01T00:00:00Z");
+    private static final int YT_PAGE_SIZE = 50;
+
+    private final Duration latency;
+    private final Duration jitter;
+    private final double errorRate;
+    private final double rateLimitRate;
+    private final Map<String, Integer> channels;
+    private final DisposableServer server;
+
+    private final LongAdder requests    = new LongAdder();
+    private final LongAdder errors      = new LongAdder();
+    private final LongAdder rateLimited = new LongAdder();
+    private final AtomicInteger inFlight    = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private final Map<String, LongAdder> byRoute = new ConcurrentHashMap<>();
+    private final Map<String, List<Map<String, List<String>>>> queries = new ConcurrentHashMap<>();
+
+    private ProviderStandIn(Builder b) {
+        this.latency       = b.latency;
+        this.jitter        = b.jitter;
+        this.errorRate     = b.errorRate;
+        this.rateLimitRate = b.rateLimitRate;
+        this.channels      = Map.copyOf(b.channels);
+        this.server = HttpServer.create()
+                .host("127.0.0.1")
+                .port(0)
+                .route(routes -> routes
+                        .get("/youtube/search", (req, res) -> handle("youtube.search", req, res, this::youtubeSearch))
+                        .get("/youtube/videos", (req, res) -> handle("youtube.videos", req, res, this::youtubeVideos))
+                        .get("/vimeo/videos/{id}", (req, res) -> handle("vimeo.video", req, res, this::vimeoVideo))
+                        .get("/vimeo/videos", (req, res) -> handle("vimeo.videos", req, res, this::vimeoVideosByUri))
+                        .get("/vimeo/users/{user}/videos", (req, res) -> handle("vimeo.userVideos", req, res, this::vimeoUserVideos)))
+                .bindNow();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.port();
+    }
+
+    /** Adapter config pointing at the YouTube half of the stand-in. */
+    public VideoProvidersProperties.Provider youtubeConfig() {
+        VideoProvidersProperties.Provider cfg = new VideoProvidersProperties.Provider();
+        cfg.setBaseUrl(baseUrl() + "/youtube");
+        cfg.setApiKey("stand-in-key");
+        return cfg;
+    }
+
+    /** Adapter config pointing at the Vimeo half of the stand-in. */
+    public VideoProvidersProperties.Provider vimeoConfig() {
+        VideoProvidersProperties.Provider cfg = new VideoProvidersProperties.Provider();
+        cfg.setBaseUrl(baseUrl() + "/vimeo");
+        cfg.setAccessToken("stand-in-token");
+        return cfg;
+    }
+
+    public long requests()    { return requests.sum(); }
+    public long requests(String route) { return byRoute.getOrDefault(route, new LongAdder()).sum(); }
+    /** Query parameters of the requests to {@code route}, in arrival order. */
+    public List<Map<String, List<String>>> queries(String route) {
+        return List.copyOf(queries.getOrDefault(route, List.of()));
+    }
+    public long errors()      { return errors.sum(); }
+    public long rateLimited() { return rateLimited.sum(); }
+    public int maxInFlight()  { return maxInFlight.get(); }
+
+    public void resetCounters() {
+        requests.reset();
+        errors.reset();
+        rateLimited.reset();
+        byRoute.clear();
+        queries.clear();
+        maxInFlight.set(0);
+    }
+
+    @Override
+    public void close() {
+        server.disposeNow();
+    }
+
+    /* ─── request pipeline ────────────────────────────────────── */
+
+    private interface Handler {
+        String body(HttpServerRequest req, Map<String, List<String>> query);
+    }
+
+    private Mono<Void> handle(String route, HttpServerRequest req, HttpServerResponse res, Handler handler) {
+        requests.increment();
+        byRoute.computeIfAbsent(route, r -> new LongAdder()).increment();
+        Map<String, List<String>> query = new QueryStringDecoder(req.uri()).parameters();
+        queries.computeIfAbsent(route, r -> new CopyOnWriteArrayList<>()).add(query);
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+
+        double roll = ThreadLocalRandom.current().nextDouble();
+        Duration delay = jitter.isZero() ? latency
+                : latency.plusNanos(ThreadLocalRandom.current().nextLong(jitter.toNanos() + 1));
+
+        return Mono.delay(delay)
+                .then(Mono.defer(() -> {
+                    inFlight.decrementAndGet();
+                    if (roll < rateLimitRate) {
+                        rateLimited.increment();
+                        return res.status(HttpResponseStatus.TOO_MANY_REQUESTS)
+                                .header("Retry-After", "1")
+                                .send();
+                    }
+                    if (roll < rateLimitRate + errorRate) {
+                        errors.increment();
+                        return res.status(HttpResponseStatus.INTERNAL_SERVER_ERROR).send();
+                    }
+                    String body = handler.body(req, query);
+                    if (body == null) {
+                        return res.status(HttpResponseStatus.NOT_FOUND).send();
+                    }
+                    return res.header("Content-Type", "application/json")
+                            .sendString(Mono.just(body))
+                            .then();
+                }));
+    }
+
+    /* ─── YouTube ─────────────────────────────────────────────── */
+
+    private String youtubeSearch(HttpServerRequest req, Map<String, List<String>> q) {
+        if ("channel".equals(param(q, "type", ""))) {
+            String handle = param(q, "q", "");
+            return channels.containsKey(handle)
+                    ? "{\"items\":[{\"id\":{\"channelId\":\"UC-" + handle + "\"}}]}"
+                    : "{\"items\":[]}";
+        }
+        String handle = param(q, "channelId", "").replaceFirst("^UC-", "");
+        int size = channels.getOrDefault(handle, 0);
+        int offset = Integer.parseInt(param(q, "pageToken", "0"));
+        int max = Integer.parseInt(param(q, "maxResults", String.valueOf(YT_PAGE_SIZE)));
+        String after = param(q, "publishedAfter", null);
+        int limit = after == null ? size : Math.min(size, newerThan(Instant.parse(after), size));
+
+        StringJoiner items = new StringJoiner(",", "[", "]");
+        for (int n = offset; n < Math.min(offset + max, limit); n++) {
+            items.add("{\"id\":{\"videoId\":\"" + youtubeId(handle, n) + "\"}}");
+        }
+        String next = offset + max < limit ? "\"" + (offset + max) + "\"" : "null";
+        return "{\"nextPageToken\":" + next + ",\"items\":" + items + "}";
+    }
+
+    private String youtubeVideos(HttpServerRequest req, Map<String, List<String>> q) {
+        StringJoiner items = new StringJoiner(",", "[", "]");
+        for (String id : param(q, "id", "").split(",")) {
+            if (id.isBlank() || id.startsWith("missing")) {
+                continue;
+            }
+            items.add("""
+                    {"id":"%s","snippet":{"title":"Video %s","description":"Stand-in video",\
+                    "publishedAt":"%s","channelId":"UC-stand-in"},\
+                    "contentDetails":{"duration":"PT4M13S"},"statistics":{"viewCount":%d}}"""
+                    .formatted(id, id, publishedAt(ordinal(id)), views(id)));
+        }
+        return "{\"items\":" + items + "}";
+    }
+
+    private static String youtubeId(String handle, int n) {
+        return "yt-" + handle + "-" + n;
+    }
+
+    /* ─── Vimeo ───────────────────────────────────────────────── */
+
+    private String vimeoVideo(HttpServerRequest req, Map<String, List<String>> q) {
+        String id = req.param("id");
+        return id == null || id.startsWith("missing") ? null : vimeoJson(id, ordinal(id));
+    }
+
+    private String vimeoVideosByUri(HttpServerRequest req, Map<String, List<String>> q) {
+        StringJoiner data = new StringJoiner(",", "[", "]");
+        int count = 0;
+        for (String uri : param(q, "uris", "").split(",")) {
+            String id = uri.substring(uri.lastIndexOf('/') + 1);
+            if (!id.isBlank() && !id.startsWith("missing")) {
+                data.add(vimeoJson(id, ordinal(id)));
+                count++;
+            }
+        }
+        return "{\"total\":%d,\"page\":1,\"per_page\":%d,\"paging\":{\"next\":null},\"data\":%s}"
+                .formatted(count, Math.max(1, count), data);
+    }
+
+    /** Ids are 1..N; {@code sort=date&direction=desc} lists the newest (id 1) first as the provider does. */
+    private String vimeoUserVideos(HttpServerRequest req, Map<String, List<String>> q) {
+        String user = req.param("user");
+        int total = channels.getOrDefault(user, 0);
+        int page = Integer.parseInt(param(q, "page", "1"));
+        int perPage = Integer.parseInt(param(q, "per_page", "25"));
+
+        StringJoiner data = new StringJoiner(",", "[", "]");
+        int first = (page - 1) * perPage + 1;
+        for (int id = first; id < first + perPage && id <= total; id++) {
+            data.add(vimeoJson(String.valueOf(id), id - 1));
+        }
+        String next = page * perPage < total
+                ? "\"/users/%s/videos?page=%d&per_page=%d\"".formatted(user, page + 1, perPage)
+                : "null";
+        return "{\"total\":%d,\"page\":%d,\"per_page\":%d,\"paging\":{\"next\":%s},\"data\":%s}"
+                .formatted(total, page, perPage, next, data);
+    }
+
+    private static String vimeoJson(String id, int ordinal) {
+        return """
+                {"uri":"/videos/%s","name":"Video %s","description":"Stand-in video","duration":253,\
+                "release_time":"%s","stats":{"plays":%d}}"""
+                .formatted(id, id, publishedAt(ordinal), views(id));
+    }
+
+    /* ─── synthetic data ──────────────────────────────────────── */
+
+    /** Upload n of a channel is n hours older than upload 0. */
+    private static Instant publishedAt(int n) {
+        return NEWEST.minus(Duration.ofHours(n));
+    }
+
+    private static int newerThan(Instant after, int size) {
+        long hours = Duration.between(after, NEWEST).toHours();
+        return (int) Math.max(0, Math.min(size, hours));
+    }
+
+    private static int ordinal(String id) {
+        int dash = id.lastIndexOf('-');
+        try {
+            return Integer.parseInt(dash >= 0 ? id.substring(dash + 1) : id);
+        } catch (NumberFormatException ex) {
+            return Math.floorMod(id.hashCode(), 10_000);
+        }
+    }
+
+    private static long views(String id) {
+        return Math.floorMod(id.hashCode(), 1_000_000);
+    }
+
+    private static String param(Map<String, List<String>> q, String name, String fallback) {
+        List<String> values = q.get(name);
+        return values == null || values.isEmpty() ? fallback : values.getFirst();
+    }
+
+    public static final class Builder {
+        private Duration latency = Duration.ZERO;
+        private Duration jitter = Duration.ZERO;
+        private double errorRate;
+        private double rateLimitRate;
+        private final Map<String, Integer> channels = new HashMap<>();
+
+        /** Fixed delay before every response. */
+        public Builder latency(Duration latency) {
+            this.latency = latency;
+            return this;
+        }
+
+        /** Extra uniformly random delay in {@code [0, jitter]}. */
+        public Builder jitter(Duration jitter) {
+            this.jitter = jitter;
+            return this;
+        }
+
+        /** Fraction of requests answered with 500. */
+        public Builder errorRate(double errorRate) {
+            this.errorRate = errorRate;
+            return this;
+        }
+
+        /** Fraction of requests answered with 429 + {@code Retry-After}. */
+        public Builder rateLimitRate(double rateLimitRate) {
+            this.rateLimitRate = rateLimitRate;
+            return this;
+        }
+
+        /** A YouTube channel handle / Vimeo user with {@code videos} uploads. */
+        public Builder channel(String handle, int videos) {
+            channels.put(handle, videos);
+            return this;
+        }
+
+        public ProviderStandIn start() {
+            return new ProviderStandIn(this);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.github.dimitryivaniuta.videometadata.web.graphql;
+
+import com.github.dimitryivaniuta.videometadata.config.HttpExchangeGraphQlInterceptor;
+import com.github.dimitryivaniuta.videometadata.graphql.schema.AnnotationSchemaFactory;
+import com.github.dimitryivaniuta.videometadata.service.AuthService;
+import com.github.dimitryivaniuta.videometadata.service.JwtTokenProvider;
+import com.github.dimitryivaniuta.videometadata.service.UserCacheService;
+import com.github.dimitryivaniuta.videometadata.service.UserService;
+import com.github.dimitryivaniuta.videometadata.service.revocation.TokenRevocationService;
+import com.github.dimitryivaniuta.videometadata.web.dto.TokenResponse;
+import graphql.ExecutionInput;
+import graphql.GraphQL;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.graphql.execution.GraphQlSource;
+import org.springframework.graphql.support.DefaultExecutionGraphQlResponse;
+import org.springframework.graphql.server.WebGraphQlRequest;
+import org.springframework.graphql.server.WebGraphQlResponse;
+import org.springframework.http.HttpCookie;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.web.filter.reactive.ServerWebExchangeContextFilter;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * The {@code logout} mutation as served over HTTP: the interceptor hands the
+ * exchange to the resolver, whose {@code @ContextValue} parameters reach the
+ * refresh cookie.
+ */
+class AuthOperationsTest {
+
+    private static final String REFRESH = "refresh-1";
+    private static final String ACCESS  = "access-1";
+
+    /** Token values revoked so far. */
+    private static final Set<String> revoked = ConcurrentHashMap.newKeySet();
+
+    @Configuration
+    static class Beans {
+
+        @Bean
+        JwtTokenProvider tokenProvider() {
+            JwtTokenProvider tokens = mock(JwtTokenProvider.class);
+            when(tokens.verifyRefresh(anyString())).thenAnswer(inv -> {
+                String token = inv.getArgument(0);
+                return revoked.contains(token)
+                        ? Mono.error(new BadJwtException("Token revoked"))
+                        : Mono.just(jwt(token));
+            });
+            when(tokens.rotate(anyString())).thenAnswer(inv -> tokens.verifyRefresh(inv.getArgument(0))
+                    .map(jwt -> new TokenResponse("access-2", 900L)));
+            return tokens;
+        }
+
+        @Bean
+        TokenRevocationService revocations() {
+            TokenRevocationService revocations = mock(TokenRevocationService.class);
+            when(revocations.revoke(any(Jwt.class))).thenAnswer(inv ->
+                    Mono.fromRunnable(() -> revoked.add(inv.<Jwt>getArgument(0).getTokenValue())));
+            return revocations;
+        }
+
+        @Bean
+        AuthService authService(JwtTokenProvider tokens, TokenRevocationService revocations) {
+            return new AuthService(mock(ReactiveAuthenticationManager.class), tokens, mock(UserService.class),
+                    mock(UserCacheService.class), revocations);
+        }
+
+        @Bean
+        AuthOperations authOperations(AuthService authService) {
+            return new AuthOperations(authService);
+        }
+    }
+
+    private AnnotationConfigApplicationContext ctx;
+    private GraphQL graphQl;
+
+    @BeforeEach
+    void setUp() {
+        revoked.clear();
+        ctx = new AnnotationConfigApplicationContext(Beans.class, AnnotationSchemaFactory.class);
+        graphQl = ctx.getBean(GraphQlSource.class).graphQl();
+    }
+
+    @AfterEach
+    void tearDown() {
+        ctx.close();
+    }
+
+    @Test
+    void aRefreshAfterLogoutIsRejected() {
+        MockServerWebExchange exchange = exchange();
+
+        WebGraphQlResponse response = logout(exchange);
+
+        assertThat(response.getErrors()).isEmpty();
+        assertThat((Boolean) response.field("logout").getValue()).isTrue();
+        assertThat(revoked).containsExactlyInAnyOrder(ACCESS, REFRESH);
+        ResponseCookie cleared = exchange.getResponse().getCookies().getFirst("REFRESH");
+        assertThat(cleared).isNotNull();
+        assertThat(cleared.getMaxAge()).isEqualTo(Duration.ZERO);
+
+        MockServerWebExchange later = exchange();
+        assertThatThrownBy(() -> ctx.getBean(AuthService.class)
+                .refresh(later.getRequest(), later.getResponse()).block())
+                .isInstanceOf(BadJwtException.class);
+    }
+
+    @Test
+    void logoutWithoutAnHttpExchangeFailsInsteadOfKeepingTheRefreshToken() {
+        WebGraphQlResponse response = logout(null);
+
+        assertThat(response.getErrors()).hasSize(1);   // the required request is missing
+        assertThat(revoked).isEmpty();
+    }
+
+    private WebGraphQlResponse logout(MockServerWebExchange exchange) {
+        WebGraphQlRequest request = new WebGraphQlRequest(URI.create("http://localhost/graphql"), new HttpHeaders(),
+                new LinkedMultiValueMap<>(), null, Map.of(), Map.of("query", "mutation { logout }"), "1",
+                Locale.ENGLISH);
+        Mono<WebGraphQlResponse> served = new HttpExchangeGraphQlInterceptor().intercept(request, req -> {
+            ExecutionInput input = req.toExecutionInput();
+            JwtAuthenticationToken auth = new JwtAuthenticationToken(jwt(ACCESS));
+            input.getGraphQLContext().put(SecurityContext.class, Mono.just(new SecurityContextImpl(auth)));
+            return Mono.fromFuture(graphQl.executeAsync(input))
+                    .map(result -> new WebGraphQlResponse(new DefaultExecutionGraphQlResponse(input, result)));
+        });
+        return (exchange == null ? served
+                : served.contextWrite(Context.of(ServerWebExchangeContextFilter.EXCHANGE_CONTEXT_ATTRIBUTE, exchange)))
+                .block();
+    }
+
+    private static MockServerWebExchange exchange() {
+        return MockServerWebExchange.from(MockServerHttpRequest.post("/graphql")
+                .cookie(new HttpCookie("REFRESH", REFRESH)));
+    }
+
+    private static Jwt jwt(String value) {
+        return Jwt.withTokenValue(value).header("alg", "none").subject("alice")
+                .issuedAt(Instant.now()).expiresAt(Instant.now().plusSeconds(600)).build();
+    }
+}